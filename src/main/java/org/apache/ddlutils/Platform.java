@@ -19,6 +19,8 @@ package org.apache.ddlutils;
  * under the License.
  */
 
+import java.io.File;
+import java.io.Reader;
 import java.sql.Connection;
 import java.util.Collection;
 import java.util.Iterator;
@@ -28,11 +30,14 @@ import java.util.Map;
 import javax.sql.DataSource;
 
 import org.apache.commons.beanutils.DynaBean;
+import org.apache.ddlutils.metrics.MetricsCollector;
+import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.model.Table;
 import org.apache.ddlutils.platform.CreationParameters;
 import org.apache.ddlutils.platform.JdbcModelReader;
 import org.apache.ddlutils.platform.SqlBuilder;
+import org.apache.ddlutils.util.ConnectionProvider;
 
 /**
  * A platform encapsulates the database-related functionality such as performing queries
@@ -112,6 +117,25 @@ public interface Platform
      */
     public void setPassword(String password);
 
+    /**
+     * Returns the object that manages the connections that this platform uses when
+     * no connection is given to an operation.
+     * 
+     * @return The connection provider
+     */
+    public ConnectionProvider getConnectionProvider();
+
+    /**
+     * Sets the object that manages the connections that this platform uses when
+     * no connection is given to an operation. Per default, a new connection is
+     * requested from the data source for every operation. If the data source does
+     * not pool its connections, a {@link org.apache.ddlutils.util.ConnectionPool}
+     * can be used instead.
+     * 
+     * @param connectionProvider The connection provider
+     */
+    public void setConnectionProvider(ConnectionProvider connectionProvider);
+
     // runtime properties
 
     /**
@@ -183,6 +207,27 @@ public interface Platform
      */
     public void setIdentityOverrideOn(boolean identityOverrideOn);
 
+    /**
+     * Determines whether SQL insert statements executed via the given connection can specify
+     * values for identity columns, which is the case if identity override is on for the whole
+     * platform (see {@link #isIdentityOverrideOn()}) or for this connection.
+     *  
+     * @param connection The connection
+     * @return <code>true</code> if identity override is enabled for the connection
+     */
+    public boolean isIdentityOverrideOn(Connection connection);
+
+    /**
+     * Specifies whether SQL insert statements executed via the given connection can specify
+     * values for identity columns regardless of the setting for the whole platform. This allows
+     * a single insertion process to insert identity values without affecting other users of
+     * this platform. Switching it off again reverts the connection to the platform setting.
+     *  
+     * @param connection         The connection
+     * @param identityOverrideOn <code>true</code> if identity override is enabled for the connection
+     */
+    public void setIdentityOverrideOn(Connection connection, boolean identityOverrideOn);
+
     /**
      * Determines whether foreign keys of a table read from a live database
      * are alphabetically sorted.
@@ -235,6 +280,79 @@ public interface Platform
      */
     public void setDefaultOnDeleteActionUsedIfUnsupported(boolean useDefault);
 
+    /**
+     * Determines whether {@link #evaluateBatch(Connection, String, boolean)} sends the SQL commands
+     * to the database in JDBC statement batches rather than one at a time. Batching is only used
+     * if the platform (see {@link PlatformInfo#isStatementBatchingSupported()}) and the JDBC driver
+     * support it. If errors are ignored, then batches are only used in auto-commit mode if the
+     * database commits each command of a batch on its own (see
+     * {@link PlatformInfo#isBatchCommandsCommittedIndividually()}). By default, this is set
+     * to <code>false</code>.
+     * 
+     * @return <code>true</code> if batched evaluation is used
+     */
+    public boolean isBatchedEvaluationOn();
+
+    /**
+     * Specifies whether {@link #evaluateBatch(Connection, String, boolean)} shall send the SQL commands
+     * to the database in JDBC statement batches rather than one at a time.
+     * 
+     * @param batchedEvaluationOn <code>true</code> if batched evaluation shall be used
+     */
+    public void setBatchedEvaluationOn(boolean batchedEvaluationOn);
+
+    /**
+     * Returns the maximum number of SQL commands that are sent to the database in one
+     * JDBC statement batch when batched evaluation is on.
+     * 
+     * @return The batch size
+     */
+    public int getEvaluationBatchSize();
+
+    /**
+     * Sets the maximum number of SQL commands that are sent to the database in one
+     * JDBC statement batch when batched evaluation is on.
+     * 
+     * @param batchSize The batch size, must be positive
+     */
+    public void setEvaluationBatchSize(int batchSize);
+
+    /**
+     * Determines whether the batch insert methods (e.g. {@link #insert(Connection, Database, Collection)})
+     * use a database-specific bulk insertion mechanism instead of JDBC statement batches, if the
+     * platform and the JDBC driver provide one. Depending on the platform, this is e.g. a native
+     * bulk load command, or multi-row <code>INSERT</code> statements (see
+     * {@link PlatformInfo#isMultiRowInsertSupported()}). By default, this is set to <code>false</code>.
+     * 
+     * @return <code>true</code> if native bulk inserts are used
+     */
+    public boolean isNativeBulkInsertOn();
+
+    /**
+     * Specifies whether the batch insert methods (e.g. {@link #insert(Connection, Database, Collection)})
+     * shall use a database-specific bulk insertion mechanism instead of JDBC statement batches, if
+     * the platform and the JDBC driver provide one.
+     * 
+     * @param nativeBulkInsertOn <code>true</code> if native bulk inserts shall be used
+     */
+    public void setNativeBulkInsertOn(boolean nativeBulkInsertOn);
+
+    /**
+     * Returns the collector that receives the metrics of the operations of this platform,
+     * e.g. the times of the JDBC calls and the number of rows read and written.
+     * 
+     * @return The metrics collector or <code>null</code> if no metrics are collected
+     */
+    public MetricsCollector getMetricsCollector();
+
+    /**
+     * Sets the collector that receives the metrics of the operations of this platform.
+     * By default, no metrics are collected.
+     * 
+     * @param metricsCollector The metrics collector, or <code>null</code> to stop collecting metrics
+     */
+    public void setMetricsCollector(MetricsCollector metricsCollector);
+
     // functionality
     
     /**
@@ -251,6 +369,21 @@ public interface Platform
      */
     public void returnConnection(Connection connection);
 
+    /**
+     * Binds a connection to the current thread that is then used by all operations of this
+     * platform in this thread that are not given a connection, until the matching call to
+     * {@link #unbindConnectionFromThread()}. Calls to this method can be nested.
+     * 
+     * @return The bound connection
+     */
+    public Connection bindConnectionToThread() throws DatabaseOperationException;
+
+    /**
+     * Releases the connection bound to the current thread via {@link #bindConnectionToThread()}
+     * if this call matches the outermost call to that method.
+     */
+    public void unbindConnectionFromThread();
+
     /**
      * Executes a series of sql statements which must be seperated by the delimiter
      * configured as {@link PlatformInfo#getSqlCommandDelimiter()} of the info object
@@ -277,6 +410,44 @@ public interface Platform
      */
     public int evaluateBatch(Connection connection, String sql, boolean continueOnError) throws DatabaseOperationException;
 
+    /**
+     * Executes a series of sql statements read from the given reader. The statements must be
+     * seperated by the delimiter configured as {@link PlatformInfo#getSqlCommandDelimiter()} of
+     * the info object of this platform. In contrast to {@link #evaluateBatch(String, boolean)}, the
+     * statements are read and executed one after the other, so the script is not held in memory
+     * as a whole. Note that the reader is not closed by this method.
+     * 
+     * @param sql             The reader for the sql statements to execute
+     * @param continueOnError Whether to continue executing the sql commands when an error occurred
+     * @return The number of errors
+     */
+    public int evaluateBatch(Reader sql, boolean continueOnError) throws DatabaseOperationException;
+
+    /**
+     * Executes a series of sql statements read from the given reader. The statements must be
+     * seperated by the delimiter configured as {@link PlatformInfo#getSqlCommandDelimiter()} of
+     * the info object of this platform. In contrast to {@link #evaluateBatch(Connection, String, boolean)},
+     * the statements are read and executed one after the other, so the script is not held in memory
+     * as a whole. Note that the reader is not closed by this method.
+     * 
+     * @param connection      The connection to the database
+     * @param sql             The reader for the sql statements to execute
+     * @param continueOnError Whether to continue executing the sql commands when an error occurred
+     * @return The number of errors
+     */
+    public int evaluateBatch(Connection connection, Reader sql, boolean continueOnError) throws DatabaseOperationException;
+
+    /**
+     * Executes the sql statements contained in the given file, e.g. one written by the
+     * <code>writeSchemaSqlToFile</code> sub task. The file is read incrementally using the
+     * platform's default encoding.
+     * 
+     * @param sqlFile         The file containing the sql statements
+     * @param continueOnError Whether to continue executing the sql commands when an error occurred
+     * @return The number of errors
+     */
+    public int evaluateBatch(File sqlFile, boolean continueOnError) throws DatabaseOperationException;
+
     /**
      * Performs a shutdown at the database. This is necessary for some embedded databases which otherwise
      * would be locked and thus would refuse other connections. Note that this does not change the database
@@ -450,6 +621,71 @@ public interface Platform
      */
     public String getCreateModelSql(Database model, CreationParameters params, boolean dropTablesFirst, boolean continueOnError);
 
+    /**
+     * Creates the tables defined in the database model in preparation of a bulk load. The tables
+     * are created only with their primary keys, so that the database does not have to maintain
+     * indices and check foreign keys while the data is loaded. Once the data has been loaded,
+     * {@link #createIndicesAndForeignKeys(Database, int, boolean, boolean)} should be used to
+     * create the remaining parts of the model.
+     * 
+     * @param model           The database model
+     * @param params          The parameters used in the creation
+     * @param dropTablesFirst Whether to drop the tables prior to creating them (anew)
+     * @param continueOnError Whether to continue executing the sql commands when an error occurred
+     */
+    public void createTablesForBulkLoad(Database model, CreationParameters params, boolean dropTablesFirst, boolean continueOnError) throws DatabaseOperationException;
+
+    /**
+     * Returns the SQL for creating the tables defined in the database model in preparation of a bulk
+     * load, i.e. without their indices and foreign keys.
+     * 
+     * @param model           The database model
+     * @param params          The parameters used in the creation
+     * @param dropTablesFirst Whether to drop the tables prior to creating them (anew)
+     * @param continueOnError Whether to continue executing the sql commands when an error occurred
+     * @return The SQL statements
+     */
+    public String getCreateTablesForBulkLoadSql(Database model, CreationParameters params, boolean dropTablesFirst, boolean continueOnError);
+
+    /**
+     * Creates the indices and foreign keys of the tables defined in the database model, which
+     * are assumed to have been created via {@link #createTablesForBulkLoad(Database, CreationParameters, boolean, boolean)}.
+     * The indices of different tables are created in parallel using up to the given number of
+     * connections. The foreign keys are created afterwards.
+     * 
+     * @param model           The database model
+     * @param numThreads      The maximum number of tables whose indices are created in parallel
+     * @param online          Whether to create the indices without locking out concurrent changes
+     *                        to the tables, if supported by the platform (see
+     *                        {@link PlatformInfo#isOnlineIndexCreationSupported()})
+     * @param continueOnError Whether to continue executing the sql commands when an error occurred
+     */
+    public void createIndicesAndForeignKeys(Database model, int numThreads, boolean online, boolean continueOnError) throws DatabaseOperationException;
+
+    /**
+     * Prepares the tables of the given database for a bulk load of data by switching off the
+     * foreign key checks (and where possible, the index maintenance). Since some databases
+     * only allow this for the current session, the data should be inserted using the same
+     * connection. The constraints are left alone if the platform does not support it (see
+     * {@link PlatformInfo#isConstraintDisablingSupported()}), though the platform may still
+     * prepare the connection in other ways, e.g. by switching the identity override on only
+     * once per table instead of once per batch.
+     * 
+     * @param connection The connection to the database
+     * @param model      The database model
+     */
+    public void beforeBulkLoad(Connection connection, Database model) throws DatabaseOperationException;
+
+    /**
+     * Switches the foreign key checks and index maintenance back on after a bulk load of data
+     * that was prepared via {@link #beforeBulkLoad(Connection, Database)}. Where the database
+     * supports it, the loaded data is validated against the foreign keys.
+     * 
+     * @param connection The connection to the database
+     * @param model      The database model
+     */
+    public void afterBulkLoad(Connection connection, Database model) throws DatabaseOperationException;
+
     /**
      * Returns the necessary changes to apply to the current database to make it the desired one.
      * These changes are in the correct order and have been adjusted for the current platform.
@@ -1033,6 +1269,18 @@ public interface Platform
      */
     public String getInsertSql(Database model, DynaBean dynaBean);
 
+    /**
+     * Returns the sql for inserting the given beans, as a script of statements separated by the
+     * command delimiter of the platform. If the platform supports multi-row inserts (see
+     * {@link PlatformInfo#isMultiRowInsertSupported()}), then consecutive beans of the same type are
+     * inserted via one statement per chunk of rows.
+     * 
+     * @param model     The database model to use
+     * @param dynaBeans The beans
+     * @return The insert sql
+     */
+    public String getInsertSql(Database model, Collection dynaBeans);
+
     /**
      * Inserts the given DynaBean in the database, assuming the primary key values are specified.
      * 
@@ -1055,9 +1303,10 @@ public interface Platform
     /**
      * Inserts the given beans in the database, assuming the primary key values are specified.
      * Note that a batch insert is used for subsequent beans of the same type.
-     * Also the properties for the primary keys are not updated in the beans. Hence you should
-     * not use this method when the primary key values are defined by the database (via a sequence
-     * or identity constraint).
+     * The properties for identity columns are only updated in the beans if the platform can read
+     * back the values generated for a batch (see {@link #isBatchIdentityValuesReadable(Connection)}).
+     * Otherwise you should not use this method when the primary key values are defined by the
+     * database (via a sequence or identity constraint).
      * 
      * @param model     The database model to use
      * @param dynaBeans The beans to insert
@@ -1066,9 +1315,10 @@ public interface Platform
 
     /**
      * Inserts the given beans. Note that a batch insert is used for subsequent beans of the same type.
-     * Also the properties for the primary keys are not updated in the beans.  Hence you should
-     * not use this method when the primary key values are defined by the database (via a sequence
-     * or identity constraint).
+     * The properties for identity columns are only updated in the beans if the platform can read
+     * back the values generated for a batch (see {@link #isBatchIdentityValuesReadable(Connection)}).
+     * Otherwise you should not use this method when the primary key values are defined by the
+     * database (via a sequence or identity constraint).
      * This method does not close the connection.
      * 
      * @param connection The database connection
@@ -1077,6 +1327,51 @@ public interface Platform
      */
     public void insert(Connection connection, Database model, Collection dynaBeans) throws DatabaseOperationException;
 
+    /**
+     * Determines whether the values of identity columns can be read back for the rows inserted
+     * via a JDBC statement batch over the given connection. This requires that the platform
+     * supports it (see {@link PlatformInfo#isBatchIdentityValuesReadable()}) and that the JDBC
+     * driver can return the generated keys.
+     * 
+     * @param connection The database connection
+     * @return <code>true</code> if the identity values of batch inserts can be read back
+     */
+    public boolean isBatchIdentityValuesReadable(Connection connection) throws DatabaseOperationException;
+
+    /**
+     * Reserves the given number of values for the given identity column, e.g. by fetching them
+     * from the sequence behind the column. The values can then be assigned to beans before
+     * inserting them with identity override switched on (see {@link #setIdentityOverrideOn(boolean)}),
+     * so that they are known without reading them back from the database. This is only
+     * supported if {@link PlatformInfo#isIdentityValuePreallocationSupported()} returns
+     * <code>true</code>. Note that the connection will not be closed by this method.
+     * 
+     * @param connection The database connection
+     * @param table      The table
+     * @param column     The identity column
+     * @param numValues  The number of values to reserve
+     * @return The reserved values, in the order in which they should be used
+     */
+    public Object[] preallocateIdentityValues(Connection connection, Table table, Column column, int numValues) throws DatabaseOperationException;
+
+    /**
+     * Writes all rows of the given table into the specified file in CSV format, without
+     * creating beans for them. The file uses UTF-8 encoding and starts with a header line that
+     * contains the column names. Fields are separated by commas, and character values that
+     * contain commas, double quotes or line breaks are enclosed in double quotes, with double
+     * quotes in them doubled. <code>NULL</code> values are written as empty fields, whereas
+     * empty strings are written as <code>""</code>. Binary values are written in hexadecimal
+     * form. Platforms may use native export facilities of the database for this, in which
+     * case other values may be enclosed in double quotes as well, and the text form of
+     * numbers, dates and boolean values is the one of the database. Note that the connection
+     * will not be closed by this method.
+     * 
+     * @param connection The database connection
+     * @param table      The table
+     * @param file       The file to write to; an existing file is overwritten
+     */
+    public void exportTableToCsv(Connection connection, Table table, File file) throws DatabaseOperationException;
+
     /**
      * Returns the sql for updating the given bean in the database. Note that this method can not be used to
      * generate SQL for updating primary key columns. 
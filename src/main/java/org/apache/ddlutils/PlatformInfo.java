@@ -120,10 +120,41 @@ public class PlatformInfo
     /** Whether the values of identity columns can be read back from the database after insertion. */ 
     private boolean _lastIdentityValueReadable = true;
 
+    /** Whether the values of identity columns can be read back for all rows inserted via a batch. */ 
+    private boolean _batchIdentityValuesReadable = false;
+
+    /** Whether values for identity columns can be reserved in blocks before inserting the rows. */ 
+    private boolean _identityValuePreallocationSupported = false;
+
     /** Whether auto-commit mode for the reading of the values of identity columns after insertion
         shall be used. */ 
     private boolean _autoCommitModeForLastIdentityValueReading = true;
 
+    /** Whether several SQL commands can be sent to the database in one JDBC statement batch. */ 
+    private boolean _statementBatchingSupported = true;
+
+    /** Whether the database commits each command of a JDBC statement batch on its own when
+        in auto-commit mode. */ 
+    private boolean _batchCommandsCommittedIndividually = false;
+
+    /** Whether indices can be created without locking out concurrent changes to the table. */ 
+    private boolean _onlineIndexCreationSupported = false;
+
+    /** Whether the constraint checks can be temporarily switched off for bulk loading data. */ 
+    private boolean _constraintDisablingSupported = false;
+
+    /** Whether the constraint checks are only switched off for the session of the connection that prepared the bulk load. */ 
+    private boolean _bulkLoadStateSessionScoped = false;
+
+    /** Whether multiple rows can be inserted via a single <code>INSERT</code> statement with a multi-row <code>VALUES</code> clause. */ 
+    private boolean _multiRowInsertSupported = false;
+
+    /** Specifies the maximum number of rows that a multi-row <code>INSERT</code> statement can have (-1 if there is no limit). */
+    private int _maxRowsPerMultiRowInsert = -1;
+
+    /** Specifies the maximum number of parameters that a prepared statement can have (-1 if there is no limit). */
+    private int _maxParametersPerStatement = -1;
+
     /** Specifies the maximum length that a table name can have for this database (-1 if there is no limit). */
     private int _maxTableNameLength = -1;
 
@@ -721,6 +752,58 @@ public class PlatformInfo
         _lastIdentityValueReadable = lastIdentityValueReadable;
     }
 
+    /**
+     * Determines whether the values of identity columns can be read back for all rows
+     * inserted via a JDBC statement batch, using the generated keys of the statement. The
+     * default is <code>false</code>.
+     * 
+     * @return <code>true</code> if the identity values of batch inserts can be read back
+     */
+    public boolean isBatchIdentityValuesReadable()
+    {
+        return _batchIdentityValuesReadable;
+    }
+
+    /**
+     * Specifies whether the values of identity columns can be read back for all rows
+     * inserted via a JDBC statement batch, using the generated keys of the statement.
+     * Note that this usually depends on the JDBC driver version, which is checked by
+     * {@link org.apache.ddlutils.Platform#isBatchIdentityValuesReadable(java.sql.Connection)}.
+     * 
+     * @param batchIdentityValuesReadable <code>true</code> if the identity values of batch
+     *                                    inserts can be read back
+     */
+    public void setBatchIdentityValuesReadable(boolean batchIdentityValuesReadable)
+    {
+        _batchIdentityValuesReadable = batchIdentityValuesReadable;
+    }
+
+    /**
+     * Determines whether values for identity columns can be reserved in blocks before the
+     * rows are inserted (see {@link org.apache.ddlutils.Platform#preallocateIdentityValues(java.sql.Connection, org.apache.ddlutils.model.Table, org.apache.ddlutils.model.Column, int)}),
+     * which is usually the case if the identity values are taken from sequences. The default
+     * is <code>false</code>.
+     * 
+     * @return <code>true</code> if identity values can be reserved in advance
+     */
+    public boolean isIdentityValuePreallocationSupported()
+    {
+        return _identityValuePreallocationSupported;
+    }
+
+    /**
+     * Specifies whether values for identity columns can be reserved in blocks before the
+     * rows are inserted. This requires that the reserved values can be inserted explicitly
+     * (see {@link #isIdentityOverrideAllowed()}).
+     * 
+     * @param identityValuePreallocationSupported <code>true</code> if identity values can be
+     *                                            reserved in advance
+     */
+    public void setIdentityValuePreallocationSupported(boolean identityValuePreallocationSupported)
+    {
+        _identityValuePreallocationSupported = identityValuePreallocationSupported;
+    }
+
     /**
      * Determines whether auto-commit mode for the reading of the values of identity columns
      * after insertion shall be used, i.e. whether between the insertion of the row and the
@@ -746,6 +829,189 @@ public class PlatformInfo
         _autoCommitModeForLastIdentityValueReading = autoCommitModeForLastIdentityValueReading;
     }
 
+    /**
+     * Determines whether the SQL commands of a script can be sent to the database in JDBC
+     * statement batches (via {@link java.sql.Statement#addBatch(String)}) instead of one
+     * by one. The default is <code>true</code>.
+     * 
+     * @return <code>true</code> if statement batching can be used
+     */
+    public boolean isStatementBatchingSupported()
+    {
+        return _statementBatchingSupported;
+    }
+
+    /**
+     * Specifies whether the SQL commands of a script can be sent to the database in JDBC
+     * statement batches instead of one by one.
+     * 
+     * @param statementBatchingSupported <code>true</code> if statement batching can be used
+     */
+    public void setStatementBatchingSupported(boolean statementBatchingSupported)
+    {
+        _statementBatchingSupported = statementBatchingSupported;
+    }
+
+    /**
+     * Determines whether the database commits each command of a JDBC statement batch on its
+     * own when the connection is in auto-commit mode, so that a failed command does not undo
+     * the commands before it. Some databases (e.g. PostgreSQL) run the whole batch in one
+     * transaction instead. The default is <code>false</code>.
+     * 
+     * @return <code>true</code> if the commands of a batch are committed individually
+     */
+    public boolean isBatchCommandsCommittedIndividually()
+    {
+        return _batchCommandsCommittedIndividually;
+    }
+
+    /**
+     * Specifies whether the database commits each command of a JDBC statement batch on its
+     * own when the connection is in auto-commit mode.
+     * 
+     * @param batchCommandsCommittedIndividually <code>true</code> if the commands of a batch
+     *                                           are committed individually
+     */
+    public void setBatchCommandsCommittedIndividually(boolean batchCommandsCommittedIndividually)
+    {
+        _batchCommandsCommittedIndividually = batchCommandsCommittedIndividually;
+    }
+
+    /**
+     * Determines whether the platform can create indices online, i.e. without locking
+     * out concurrent changes to the table while the index is built. The default is
+     * <code>false</code>.
+     * 
+     * @return <code>true</code> if online index creation is supported
+     */
+    public boolean isOnlineIndexCreationSupported()
+    {
+        return _onlineIndexCreationSupported;
+    }
+
+    /**
+     * Specifies whether the platform can create indices online, i.e. without locking
+     * out concurrent changes to the table while the index is built.
+     * 
+     * @param onlineIndexCreationSupported <code>true</code> if online index creation is supported
+     */
+    public void setOnlineIndexCreationSupported(boolean onlineIndexCreationSupported)
+    {
+        _onlineIndexCreationSupported = onlineIndexCreationSupported;
+    }
+
+    /**
+     * Determines whether the platform can temporarily switch off the foreign key checks
+     * (and possibly the index maintenance) while bulk loading data. The default is
+     * <code>false</code>.
+     * 
+     * @return <code>true</code> if the constraint checks can be switched off
+     */
+    public boolean isConstraintDisablingSupported()
+    {
+        return _constraintDisablingSupported;
+    }
+
+    /**
+     * Specifies whether the platform can temporarily switch off the foreign key checks
+     * (and possibly the index maintenance) while bulk loading data.
+     * 
+     * @param constraintDisablingSupported <code>true</code> if the constraint checks can be switched off
+     */
+    public void setConstraintDisablingSupported(boolean constraintDisablingSupported)
+    {
+        _constraintDisablingSupported = constraintDisablingSupported;
+    }
+
+    /**
+     * Determines whether the preparation of a bulk load (see
+     * {@link org.apache.ddlutils.Platform#beforeBulkLoad(java.sql.Connection, org.apache.ddlutils.model.Database)}) switches
+     * off the constraint checks only for the session of the given connection, so that other
+     * connections still check the constraints. For such platforms, calling the bulk load methods
+     * with a database model that has no tables prepares (or resets) only the session. The
+     * default is <code>false</code>.
+     * 
+     * @return <code>true</code> if the bulk load state is specific to the session
+     */
+    public boolean isBulkLoadStateSessionScoped()
+    {
+        return _bulkLoadStateSessionScoped;
+    }
+
+    /**
+     * Specifies whether the preparation of a bulk load switches off the constraint checks only
+     * for the session of the given connection.
+     * 
+     * @param bulkLoadStateSessionScoped <code>true</code> if the bulk load state is specific to the session
+     */
+    public void setBulkLoadStateSessionScoped(boolean bulkLoadStateSessionScoped)
+    {
+        _bulkLoadStateSessionScoped = bulkLoadStateSessionScoped;
+    }
+
+    /**
+     * Determines whether the platform can insert multiple rows via a single <code>INSERT</code>
+     * statement with a multi-row <code>VALUES</code> clause. The default is <code>false</code>.
+     * 
+     * @return <code>true</code> if multi-row inserts are supported
+     */
+    public boolean isMultiRowInsertSupported()
+    {
+        return _multiRowInsertSupported;
+    }
+
+    /**
+     * Specifies whether the platform can insert multiple rows via a single <code>INSERT</code>
+     * statement with a multi-row <code>VALUES</code> clause. Note that for some databases this
+     * depends on the version of the database.
+     * 
+     * @param multiRowInsertSupported <code>true</code> if multi-row inserts are supported
+     */
+    public void setMultiRowInsertSupported(boolean multiRowInsertSupported)
+    {
+        _multiRowInsertSupported = multiRowInsertSupported;
+    }
+
+    /**
+     * Returns the maximum number of rows that a multi-row <code>INSERT</code> statement can have.
+     * 
+     * @return The number of rows, or -1 if not limited
+     */
+    public int getMaxRowsPerMultiRowInsert()
+    {
+        return _maxRowsPerMultiRowInsert;
+    }
+
+    /**
+     * Sets the maximum number of rows that a multi-row <code>INSERT</code> statement can have.
+     * 
+     * @param maxRows The number of rows, or -1 if not limited
+     */
+    public void setMaxRowsPerMultiRowInsert(int maxRows)
+    {
+        _maxRowsPerMultiRowInsert = maxRows;
+    }
+
+    /**
+     * Returns the maximum number of parameters that a prepared statement can have.
+     * 
+     * @return The number of parameters, or -1 if not limited
+     */
+    public int getMaxParametersPerStatement()
+    {
+        return _maxParametersPerStatement;
+    }
+
+    /**
+     * Sets the maximum number of parameters that a prepared statement can have.
+     * 
+     * @param maxParameters The number of parameters, or -1 if not limited
+     */
+    public void setMaxParametersPerStatement(int maxParameters)
+    {
+        _maxParametersPerStatement = maxParameters;
+    }
+
     /**
      * Returns the maximum number of characters that a table name can have.
      * 
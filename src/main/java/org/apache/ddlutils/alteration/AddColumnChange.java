@@ -100,7 +100,7 @@ public class AddColumnChange extends TableChangeImplBase
      */
     public void apply(Database model, boolean caseSensitive)
     {
-        Table  table     = findChangedTable(model, caseSensitive);
+        Table  table     = findModifiableChangedTable(model, caseSensitive);
         Column newColumn = new CloneHelper().clone(_newColumn, true);
 
         if (_previousColumnName != null)
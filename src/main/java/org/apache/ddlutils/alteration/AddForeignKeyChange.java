@@ -61,6 +61,6 @@ public class AddForeignKeyChange extends TableChangeImplBase
      */
     public void apply(Database database, boolean caseSensitive)
     {
-        findChangedTable(database, caseSensitive).addForeignKey(_newForeignKey);
+        findModifiableChangedTable(database, caseSensitive).addForeignKey(_newForeignKey);
     }
 }
@@ -62,7 +62,7 @@ public class AddIndexChange extends TableChangeImplBase
      */
     public void apply(Database model, boolean caseSensitive)
     {
-        Table table = findChangedTable(model, caseSensitive);
+        Table table = findModifiableChangedTable(model, caseSensitive);
 
         table.addIndex(_newIndex);
         for (int idx = 0; idx < _newIndex.getColumnCount(); idx++)
@@ -72,7 +72,7 @@ public class AddPrimaryKeyChange extends TableChangeImplBase
      */
     public void apply(Database model, boolean caseSensitive)
     {
-        Table table = findChangedTable(model, caseSensitive);
+        Table table = findModifiableChangedTable(model, caseSensitive);
 
         for (int idx = 0; idx < _primaryKeyColumns.length; idx++)
         {
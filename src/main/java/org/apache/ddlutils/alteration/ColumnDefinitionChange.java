@@ -205,6 +205,8 @@ public class ColumnDefinitionChange extends ColumnChangeImplBase
      */
     public void apply(Database model, boolean caseSensitive)
     {
+        findModifiableChangedTable(model, caseSensitive);
+
         Column column = findChangedColumn(model, caseSensitive);
 
         column.setTypeCode(_newColumnDef.getTypeCode());
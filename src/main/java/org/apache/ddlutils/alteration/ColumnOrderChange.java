@@ -86,7 +86,7 @@ public class ColumnOrderChange extends TableChangeImplBase
      */
     public void apply(Database database, boolean caseSensitive)
     {
-        Table     table      = findChangedTable(database, caseSensitive);
+        Table     table      = findModifiableChangedTable(database, caseSensitive);
         ArrayList newColumns = new ArrayList();
 
         for (int idx = 0; idx < table.getColumnCount(); idx++)
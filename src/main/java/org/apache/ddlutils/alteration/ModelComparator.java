@@ -126,7 +126,8 @@ public class ModelComparator
 
     /**
      * Compares the two models and returns the changes necessary to create the second
-     * model from the first one.
+     * model from the first one. The intermediate model is a copy-on-write clone of the
+     * source model, so only the tables that are actually changed will be copied.
      *  
      * @param sourceModel The source model
      * @param targetModel The target model
@@ -134,7 +135,7 @@ public class ModelComparator
      */
     public List compare(Database sourceModel, Database targetModel)
     {
-        Database intermediateModel = _cloneHelper.clone(sourceModel);
+        Database intermediateModel = _cloneHelper.copyOnWriteClone(sourceModel);
 
         return compareModels(sourceModel, intermediateModel, targetModel);
     }
@@ -164,9 +165,17 @@ public class ModelComparator
             Table intermediateTable = intermediateModel.getTable(tableIdx);
             Table sourceTable       = sourceModel.findTable(intermediateTable.getName(), _caseSensitive);
             Table targetTable       = targetModel.findTable(intermediateTable.getName(), _caseSensitive);
-            List  tableChanges      = compareTables(sourceModel, sourceTable,
-                                                    intermediateModel, intermediateTable,
-                                                    targetModel, targetTable);
+
+            // tables that differ from the target table will likely be changed, so we're making
+            // sure up front that the compare methods work on a private copy of such a table
+            if (isTableDifferent(intermediateTable, targetTable))
+            {
+                intermediateTable = intermediateModel.getModifiableTable(intermediateTable);
+            }
+
+            List tableChanges = compareTables(sourceModel, sourceTable,
+                                              intermediateModel, intermediateTable,
+                                              targetModel, targetTable);
 
             changes.addAll(tableChanges);
         }
@@ -341,6 +350,35 @@ public class ModelComparator
         return changes;
     }
 
+    /**
+     * Determines whether the given tables differ. Tables whose names or numbers of columns,
+     * foreign keys or indices differ are different; only otherwise the tables are compared
+     * completely, which is expensive for large tables.
+     * 
+     * @param table      The table
+     * @param otherTable The other table, can be <code>null</code>
+     * @return <code>true</code> if the tables differ
+     */
+    private boolean isTableDifferent(Table table, Table otherTable)
+    {
+        if (table == otherTable)
+        {
+            return false;
+        }
+        else if ((otherTable == null) ||
+                 !table.getName().equals(otherTable.getName()) ||
+                 (table.getColumnCount() != otherTable.getColumnCount()) ||
+                 (table.getForeignKeyCount() != otherTable.getForeignKeyCount()) ||
+                 (table.getIndexCount() != otherTable.getIndexCount()))
+        {
+            return true;
+        }
+        else
+        {
+            return !table.equals(otherTable);
+        }
+    }
+
     /**
      * Compares the two tables and returns the changes necessary to create the second
      * table from the first one.
@@ -365,7 +403,10 @@ public class ModelComparator
         changes.addAll(checkForRemovedIndexes(sourceModel, sourceTable, intermediateModel, intermediateTable, targetModel, targetTable));
 
         ArrayList tableDefinitionChanges = new ArrayList();
-        Table     tmpTable               = _cloneHelper.clone(intermediateTable, true, false, intermediateModel, _caseSensitive);
+        // a table that is shared with the source model won't be changed, so we don't need to copy it
+        Table     tmpTable               = intermediateModel.isSharedTable(intermediateTable)
+                                               ? intermediateTable
+                                               : _cloneHelper.clone(intermediateTable, true, false, intermediateModel, _caseSensitive);
 
         tableDefinitionChanges.addAll(checkForRemovedColumns(sourceModel, sourceTable, intermediateModel, intermediateTable, targetModel, targetTable));
         tableDefinitionChanges.addAll(checkForChangeOfColumnOrder(sourceModel, sourceTable, intermediateModel, intermediateTable, targetModel, targetTable));
@@ -376,6 +417,9 @@ public class ModelComparator
         // TOOD: check for foreign key changes (on delete/on update)
         if (!tableDefinitionChanges.isEmpty())
         {
+            // applying the changes might have replaced a shared table with a private copy
+            intermediateTable = intermediateModel.findTable(intermediateTable.getName(), _caseSensitive);
+
             if ((_tableDefCangePredicate == null) || _tableDefCangePredicate.areSupported(tmpTable, tableDefinitionChanges))
             {
                 changes.addAll(tableDefinitionChanges);
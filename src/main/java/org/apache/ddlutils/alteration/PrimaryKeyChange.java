@@ -72,7 +72,7 @@ public class PrimaryKeyChange extends TableChangeImplBase
      */
     public void apply(Database model, boolean caseSensitive)
     {
-        Table    table  = findChangedTable(model, caseSensitive);
+        Table    table  = findModifiableChangedTable(model, caseSensitive);
         Column[] pkCols = table.getPrimaryKeyColumns();
 
         for (int idx = 0; idx < pkCols.length; idx++)
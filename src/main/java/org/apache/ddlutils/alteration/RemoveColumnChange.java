@@ -44,6 +44,6 @@ public class RemoveColumnChange extends ColumnChangeImplBase
      */
     public void apply(Database model, boolean caseSensitive)
     {
-        findChangedTable(model, caseSensitive).removeColumn(findChangedColumn(model, caseSensitive));
+        findModifiableChangedTable(model, caseSensitive).removeColumn(findChangedColumn(model, caseSensitive));
     }
 }
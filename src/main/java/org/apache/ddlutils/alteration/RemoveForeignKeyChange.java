@@ -47,6 +47,6 @@ public class RemoveForeignKeyChange extends ForeignKeyChangeImplBase
      */
     public void apply(Database model, boolean caseSensitive)
     {
-        findChangedTable(model, caseSensitive).removeForeignKey(findChangedForeignKey(model, caseSensitive));
+        findModifiableChangedTable(model, caseSensitive).removeForeignKey(findChangedForeignKey(model, caseSensitive));
     }
 }
@@ -45,6 +45,6 @@ public class RemoveIndexChange extends IndexChangeImplBase
      */
     public void apply(Database model, boolean caseSensitive)
     {
-        findChangedTable(model, caseSensitive).removeIndex(findChangedIndex(model, caseSensitive));
+        findModifiableChangedTable(model, caseSensitive).removeIndex(findChangedIndex(model, caseSensitive));
     }
 }
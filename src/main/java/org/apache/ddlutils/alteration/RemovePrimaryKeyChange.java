@@ -45,7 +45,7 @@ public class RemovePrimaryKeyChange extends TableChangeImplBase
      */
     public void apply(Database model, boolean caseSensitive)
     {
-        Table    table  = findChangedTable(model, caseSensitive);
+        Table    table  = findModifiableChangedTable(model, caseSensitive);
         Column[] pkCols = table.getPrimaryKeyColumns();
 
         for (int idx = 0; idx < pkCols.length; idx++)
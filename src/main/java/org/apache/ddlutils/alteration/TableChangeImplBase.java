@@ -57,4 +57,20 @@ public abstract class TableChangeImplBase implements TableChange
     {
     	return model.findTable(_tableName, caseSensitive);
     }
+
+    /**
+     * Finds the table changed by this change object in the given model, and makes sure
+     * that it can be changed without affecting other models that share the table with
+     * the given one (see {@link Database#getModifiableTable(Table)}).
+     * 
+     * @param model         The database model to find the table in
+     * @param caseSensitive Whether identifiers are case sensitive
+     * @return The table or <code>null</code> if it could not be found
+     */
+    protected Table findModifiableChangedTable(Database model, boolean caseSensitive)
+    {
+        Table table = findChangedTable(model, caseSensitive);
+
+        return table == null ? null : model.getModifiableTable(table);
+    }
 }
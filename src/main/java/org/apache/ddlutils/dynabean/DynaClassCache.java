@@ -19,8 +19,11 @@ package org.apache.ddlutils.dynabean;
  * under the License.
  */
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 import org.apache.commons.beanutils.BeanUtils;
@@ -30,14 +33,20 @@ import org.apache.ddlutils.model.Table;
 
 /**
  * Provides a cache of dyna class instances for a specific model, as well as
- * helper methods for dealing with these classes.
+ * helper methods for dealing with these classes. The cache can be used by
+ * multiple threads concurrently: every lookup synchronizes on the cache's
+ * internal map, so threads that look up dyna classes at the same time wait
+ * for each other. The cache is serialized without its contents.
  *
  * @version $Revision: 231110 $
  */
-public class DynaClassCache
+public class DynaClassCache implements Serializable
 {
-    /** A cache of the SqlDynaClasses per table name. */
-    private Map _dynaClassCache = new HashMap();
+    /** Unique ID for serialization purposes. */
+    private static final long serialVersionUID = -4628451213457912874L;
+
+    /** A cache of the SqlDynaClasses per table (compared by identity). Access to it is synchronized on the map. */
+    private transient Map _dynaClassCache = new IdentityHashMap();
 
     /**
      * Creates a new dyna bean instance for the given table.
@@ -105,14 +114,43 @@ public class DynaClassCache
      */
     public SqlDynaClass getDynaClass(Table table)
     {
-        SqlDynaClass answer = (SqlDynaClass)_dynaClassCache.get(table.getName());
+        synchronized (_dynaClassCache)
+        {
+            SqlDynaClass answer = (SqlDynaClass)_dynaClassCache.get(table);
+
+            if (answer == null)
+            {
+                answer = createDynaClass(table);
+                _dynaClassCache.put(table, answer);
+            }
+            return answer;
+        }
+    }
 
-        if (answer == null)
+    /**
+     * Removes the {@link SqlDynaClass} for the given table from the cache, e.g. because the
+     * table has been removed from the model.
+     * 
+     * @param table The table
+     */
+    public void removeDynaClass(Table table)
+    {
+        synchronized (_dynaClassCache)
         {
-            answer = createDynaClass(table);
-            _dynaClassCache.put(table.getName(), answer);
+            _dynaClassCache.remove(table);
+        }
+    }
+
+    /**
+     * Removes all dyna classes from the cache, e.g. because columns have been added to
+     * or removed from the tables.
+     */
+    public void clear()
+    {
+        synchronized (_dynaClassCache)
+        {
+            _dynaClassCache.clear();
         }
-        return answer;
     }
 
     /**
@@ -136,6 +174,17 @@ public class DynaClassCache
         }
     }
 
+    /**
+     * Recreates the empty cache when deserializing the instance.
+     * 
+     * @param in The stream to read from
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        _dynaClassCache = new IdentityHashMap();
+    }
+
     /**
      * Creates a new {@link SqlDynaClass} instance for the given table based on the table definition.
      * 
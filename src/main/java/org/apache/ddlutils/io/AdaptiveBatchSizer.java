@@ -0,0 +1,326 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.IdentityHashMap;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.commons.beanutils.DynaProperty;
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Determines the batch sizes for inserting rows into the tables of a database. For every table,
+ * the sizer measures how long the batches take and how large the rows are, and adjusts the
+ * batch size of the table so that a batch takes about the target duration, without exceeding
+ * the maximum number of bytes per batch. The batch size is changed by at most a factor of two
+ * per batch, and always stays within the minimum and maximum batch size.<br/>
+ * Objects of this class are not thread-safe.
+ *
+ * @version $Revision: $
+ */
+public class AdaptiveBatchSizer
+{
+    /** The weight of a new measurement in the averages per table. */
+    private static final double WEIGHT_OF_NEW_MEASUREMENT = 0.5;
+
+    /** The batch size for tables for which no batch has been executed yet. */
+    private int _initialBatchSize = 1024;
+    /** The minimum batch size. */
+    private int _minBatchSize = 16;
+    /** The maximum batch size. */
+    private int _maxBatchSize = 32768;
+    /** The time in milliseconds that a batch should take. */
+    private long _targetBatchDuration = 500;
+    /** The maximum number of bytes per batch. */
+    private long _maxBatchBytes = 8 * 1024 * 1024;
+    /** The measurements per table. */
+    private final IdentityHashMap _tableStates = new IdentityHashMap();
+
+    /**
+     * Returns the batch size for tables for which no batch has been executed yet.
+     *
+     * @return The initial batch size
+     */
+    public int getInitialBatchSize()
+    {
+        return _initialBatchSize;
+    }
+
+    /**
+     * Sets the batch size for tables for which no batch has been executed yet.
+     *
+     * @param initialBatchSize The initial batch size
+     */
+    public void setInitialBatchSize(int initialBatchSize)
+    {
+        _initialBatchSize = initialBatchSize;
+    }
+
+    /**
+     * Returns the minimum batch size.
+     *
+     * @return The minimum batch size
+     */
+    public int getMinBatchSize()
+    {
+        return _minBatchSize;
+    }
+
+    /**
+     * Sets the minimum batch size.
+     *
+     * @param minBatchSize The minimum batch size
+     */
+    public void setMinBatchSize(int minBatchSize)
+    {
+        _minBatchSize = minBatchSize;
+    }
+
+    /**
+     * Returns the maximum batch size.
+     *
+     * @return The maximum batch size
+     */
+    public int getMaxBatchSize()
+    {
+        return _maxBatchSize;
+    }
+
+    /**
+     * Sets the maximum batch size.
+     *
+     * @param maxBatchSize The maximum batch size
+     */
+    public void setMaxBatchSize(int maxBatchSize)
+    {
+        _maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Returns the time that a batch should take.
+     *
+     * @return The time in milliseconds
+     */
+    public long getTargetBatchDuration()
+    {
+        return _targetBatchDuration;
+    }
+
+    /**
+     * Sets the time that a batch should take.
+     *
+     * @param targetBatchDuration The time in milliseconds
+     */
+    public void setTargetBatchDuration(long targetBatchDuration)
+    {
+        _targetBatchDuration = targetBatchDuration;
+    }
+
+    /**
+     * Returns the maximum number of bytes per batch, as estimated by {@link #estimateSize(DynaBean)}.
+     *
+     * @return The number of bytes
+     */
+    public long getMaxBatchBytes()
+    {
+        return _maxBatchBytes;
+    }
+
+    /**
+     * Sets the maximum number of bytes per batch, as estimated by {@link #estimateSize(DynaBean)}.
+     * Use <code>0</code> to not limit the number of bytes.
+     *
+     * @param maxBatchBytes The number of bytes
+     */
+    public void setMaxBatchBytes(long maxBatchBytes)
+    {
+        _maxBatchBytes = maxBatchBytes;
+    }
+
+    /**
+     * Returns the current batch size for the given table.
+     *
+     * @param table The table
+     * @return The batch size
+     */
+    public int getBatchSize(Table table)
+    {
+        TableState state = (TableState)_tableStates.get(table);
+
+        return state == null ? clamp(_initialBatchSize) : state.getBatchSize();
+    }
+
+    /**
+     * Adjusts the batch size of the given table after a batch with rows of the table has been
+     * executed.
+     *
+     * @param table    The table
+     * @param numRows  The number of rows of the table in the batch
+     * @param numBytes The estimated number of bytes of these rows
+     * @param duration The time in milliseconds that the insertion of these rows took
+     * @return The new batch size of the table
+     */
+    public int batchExecuted(Table table, int numRows, long numBytes, long duration)
+    {
+        if (numRows <= 0)
+        {
+            return getBatchSize(table);
+        }
+
+        TableState state = (TableState)_tableStates.get(table);
+
+        if (state == null)
+        {
+            state = new TableState(clamp(_initialBatchSize));
+            _tableStates.put(table, state);
+        }
+        state.addMeasurement((double)duration / numRows, (double)numBytes / numRows);
+
+        int    curSize     = state.getBatchSize();
+        double desiredSize = state.getMillisPerRow() > 0 ? _targetBatchDuration / state.getMillisPerRow()
+                                                         : Double.MAX_VALUE;
+
+        if ((_maxBatchBytes > 0) && (state.getBytesPerRow() > 0))
+        {
+            desiredSize = Math.min(desiredSize, _maxBatchBytes / state.getBytesPerRow());
+        }
+        // we only change the size gradually so that single slow or fast batches don't cause it to oscillate
+        desiredSize = Math.max(curSize / 2.0, Math.min(curSize * 2.0, desiredSize));
+        state.setBatchSize(clamp((int)desiredSize));
+        return state.getBatchSize();
+    }
+
+    /**
+     * Restricts the given batch size to the minimum and maximum batch size.
+     *
+     * @param batchSize The batch size
+     * @return The restricted batch size
+     */
+    private int clamp(int batchSize)
+    {
+        return Math.max(Math.max(_minBatchSize, 1), Math.min(_maxBatchSize, batchSize));
+    }
+
+    /**
+     * Roughly estimates the number of bytes that the values of the given bean take up.
+     *
+     * @param bean The bean
+     * @return The estimated number of bytes
+     */
+    public static long estimateSize(DynaBean bean)
+    {
+        DynaProperty[] properties = bean.getDynaClass().getDynaProperties();
+        long           size       = 0;
+
+        for (int idx = 0; idx < properties.length; idx++)
+        {
+            Object value = bean.get(properties[idx].getName());
+
+            if (value instanceof String)
+            {
+                size += 2 * ((String)value).length();
+            }
+            else if (value instanceof byte[])
+            {
+                size += ((byte[])value).length;
+            }
+            else
+            {
+                size += 8;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Holds the batch size and the measurements of one table.
+     */
+    private static class TableState
+    {
+        /** The current batch size. */
+        private int _batchSize;
+        /** The average time in milliseconds per row, or <code>-1</code> if not measured yet. */
+        private double _millisPerRow = -1;
+        /** The average number of bytes per row, or <code>-1</code> if not measured yet. */
+        private double _bytesPerRow = -1;
+
+        /**
+         * Creates a new state object.
+         *
+         * @param batchSize The initial batch size
+         */
+        public TableState(int batchSize)
+        {
+            _batchSize = batchSize;
+        }
+
+        /**
+         * Returns the current batch size.
+         *
+         * @return The batch size
+         */
+        public int getBatchSize()
+        {
+            return _batchSize;
+        }
+
+        /**
+         * Sets the current batch size.
+         *
+         * @param batchSize The batch size
+         */
+        public void setBatchSize(int batchSize)
+        {
+            _batchSize = batchSize;
+        }
+
+        /**
+         * Returns the average time per row.
+         *
+         * @return The time in milliseconds
+         */
+        public double getMillisPerRow()
+        {
+            return _millisPerRow;
+        }
+
+        /**
+         * Returns the average number of bytes per row.
+         *
+         * @return The number of bytes
+         */
+        public double getBytesPerRow()
+        {
+            return _bytesPerRow;
+        }
+
+        /**
+         * Adds the measurements of a batch to the averages.
+         *
+         * @param millisPerRow The time per row in the batch
+         * @param bytesPerRow  The number of bytes per row in the batch
+         */
+        public void addMeasurement(double millisPerRow, double bytesPerRow)
+        {
+            _millisPerRow = _millisPerRow < 0 ? millisPerRow : WEIGHT_OF_NEW_MEASUREMENT * millisPerRow + (1 - WEIGHT_OF_NEW_MEASUREMENT) * _millisPerRow;
+            _bytesPerRow  = _bytesPerRow < 0 ? bytesPerRow : WEIGHT_OF_NEW_MEASUREMENT * bytesPerRow + (1 - WEIGHT_OF_NEW_MEASUREMENT) * _bytesPerRow;
+        }
+    }
+}
@@ -0,0 +1,467 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Tracks the progress of a data operation: the number of rows processed per table, the
+ * number of bytes read or written, and the throughput. If the expected number of rows of
+ * the tables or the expected number of bytes are known, then it also estimates the time
+ * that the operation will still take. Objects of this class are thread-safe, and inform
+ * the registered {@link ProgressListener}s about every change.
+ *
+ * @version $Revision: $
+ */
+public class DataProgress
+{
+    /** The listeners. */
+    private final List _listeners = new ArrayList();
+    /** The progress of the individual tables, keyed by the table names. */
+    private final Map _tableProgress = new HashMap();
+    /** The estimated number of rows of the tables, keyed by the table names. */
+    private final Map _estimatedRowCounts = new HashMap();
+    /** The time when the operation started, or <code>0</code> if it has not started yet. */
+    private long _startTime;
+    /** The time when the operation finished, or <code>0</code> if it has not finished yet. */
+    private long _endTime;
+    /** The total number of processed rows. */
+    private long _numRows;
+    /** The number of processed bytes. */
+    private long _numBytes;
+    /** The number of bytes that are expected to be processed, or <code>0</code> if unknown. */
+    private long _expectedBytes;
+
+    /**
+     * Adds a listener.
+     *
+     * @param listener The listener
+     */
+    public synchronized void addProgressListener(ProgressListener listener)
+    {
+        _listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener The listener
+     */
+    public synchronized void removeProgressListener(ProgressListener listener)
+    {
+        _listeners.remove(listener);
+    }
+
+    /**
+     * Returns a snapshot of the listeners, so that they can be called without holding the lock.
+     *
+     * @return The listeners
+     */
+    private synchronized ProgressListener[] getListeners()
+    {
+        return (ProgressListener[])_listeners.toArray(new ProgressListener[_listeners.size()]);
+    }
+
+    /**
+     * Marks the start of the operation.
+     */
+    public void start()
+    {
+        synchronized (this)
+        {
+            _startTime = System.currentTimeMillis();
+            _endTime   = 0;
+        }
+
+        ProgressListener[] listeners = getListeners();
+
+        for (int idx = 0; idx < listeners.length; idx++)
+        {
+            listeners[idx].started(this);
+        }
+    }
+
+    /**
+     * Marks the end of the operation.
+     */
+    public void finish()
+    {
+        synchronized (this)
+        {
+            _endTime = System.currentTimeMillis();
+        }
+
+        ProgressListener[] listeners = getListeners();
+
+        for (int idx = 0; idx < listeners.length; idx++)
+        {
+            listeners[idx].finished(this);
+        }
+    }
+
+    /**
+     * Creates a progress object for a part of the operation that is performed separately, e.g.
+     * by another thread. The rows and bytes added to the part are also added to this progress,
+     * whereas the start and finish of the part are not passed on.
+     *
+     * @return The progress object for the part
+     */
+    public DataProgress createPart()
+    {
+        DataProgress part = new DataProgress();
+
+        part.addProgressListener(new ProgressListener() {
+            public void started(DataProgress progress)
+            {}
+
+            public void rowsProcessed(DataProgress progress, String tableName, int numRows)
+            {
+                addRows(tableName, numRows);
+            }
+
+            public void bytesProcessed(DataProgress progress, long numBytes)
+            {
+                addBytes(numBytes);
+            }
+
+            public void finished(DataProgress progress)
+            {}
+        });
+        return part;
+    }
+
+    /**
+     * Adds processed rows.
+     *
+     * @param tableName The name of the table of the rows
+     * @param numRows   The number of rows
+     */
+    public void addRows(String tableName, int numRows)
+    {
+        synchronized (this)
+        {
+            TableProgress tableProgress = (TableProgress)_tableProgress.get(tableName);
+            long          now           = System.currentTimeMillis();
+
+            if (tableProgress == null)
+            {
+                tableProgress = new TableProgress(now);
+                _tableProgress.put(tableName, tableProgress);
+            }
+            tableProgress.addRows(numRows, now);
+            _numRows += numRows;
+        }
+
+        ProgressListener[] listeners = getListeners();
+
+        for (int idx = 0; idx < listeners.length; idx++)
+        {
+            listeners[idx].rowsProcessed(this, tableName, numRows);
+        }
+    }
+
+    /**
+     * Adds processed bytes.
+     *
+     * @param numBytes The number of bytes
+     */
+    public void addBytes(long numBytes)
+    {
+        synchronized (this)
+        {
+            _numBytes += numBytes;
+        }
+
+        ProgressListener[] listeners = getListeners();
+
+        for (int idx = 0; idx < listeners.length; idx++)
+        {
+            listeners[idx].bytesProcessed(this, numBytes);
+        }
+    }
+
+    /**
+     * Specifies the estimated number of rows of the given table.
+     *
+     * @param tableName The name of the table
+     * @param numRows   The estimated number of rows
+     */
+    public synchronized void setEstimatedRowCount(String tableName, long numRows)
+    {
+        _estimatedRowCounts.put(tableName, new Long(numRows));
+    }
+
+    /**
+     * Increases the number of bytes that are expected to be processed, e.g. by the size
+     * of an input file.
+     *
+     * @param numBytes The number of bytes
+     */
+    public synchronized void addExpectedBytes(long numBytes)
+    {
+        _expectedBytes += numBytes;
+    }
+
+    /**
+     * Determines whether the operation has finished.
+     *
+     * @return <code>true</code> if the operation has finished
+     */
+    public synchronized boolean isFinished()
+    {
+        return _endTime > 0;
+    }
+
+    /**
+     * Returns the time that has passed since the start of the operation, or the duration of
+     * the operation if it has finished.
+     *
+     * @return The time in milliseconds
+     */
+    public synchronized long getElapsedTime()
+    {
+        if (_startTime == 0)
+        {
+            return 0;
+        }
+        return (_endTime > 0 ? _endTime : System.currentTimeMillis()) - _startTime;
+    }
+
+    /**
+     * Returns the names of the tables for which rows have been processed.
+     *
+     * @return The table names in alphabetical order
+     */
+    public synchronized String[] getTableNames()
+    {
+        return (String[])new TreeSet(_tableProgress.keySet()).toArray(new String[_tableProgress.size()]);
+    }
+
+    /**
+     * Returns the total number of processed rows.
+     *
+     * @return The number of rows
+     */
+    public synchronized long getRowCount()
+    {
+        return _numRows;
+    }
+
+    /**
+     * Returns the number of processed rows of the given table.
+     *
+     * @param tableName The name of the table
+     * @return The number of rows
+     */
+    public synchronized long getRowCount(String tableName)
+    {
+        TableProgress tableProgress = (TableProgress)_tableProgress.get(tableName);
+
+        return tableProgress == null ? 0 : tableProgress.getNumRows();
+    }
+
+    /**
+     * Returns the estimated number of rows of the given table.
+     *
+     * @param tableName The name of the table
+     * @return The number of rows, or <code>-1</code> if unknown
+     */
+    public synchronized long getEstimatedRowCount(String tableName)
+    {
+        Long numRows = (Long)_estimatedRowCounts.get(tableName);
+
+        return numRows == null ? -1 : numRows.longValue();
+    }
+
+    /**
+     * Returns the number of processed bytes.
+     *
+     * @return The number of bytes
+     */
+    public synchronized long getByteCount()
+    {
+        return _numBytes;
+    }
+
+    /**
+     * Returns the number of bytes that are expected to be processed.
+     *
+     * @return The number of bytes, or <code>0</code> if unknown
+     */
+    public synchronized long getExpectedByteCount()
+    {
+        return _expectedBytes;
+    }
+
+    /**
+     * Returns the average number of rows processed per second since the start of the operation.
+     *
+     * @return The throughput
+     */
+    public synchronized double getRowsPerSecond()
+    {
+        long elapsedTime = getElapsedTime();
+
+        return elapsedTime > 0 ? _numRows * 1000.0 / elapsedTime : 0.0;
+    }
+
+    /**
+     * Returns the average number of rows of the given table processed per second, measured
+     * from the first to the last processed row of the table.
+     *
+     * @param tableName The name of the table
+     * @return The throughput, or <code>0</code> if not enough rows have been processed yet
+     */
+    public synchronized double getRowsPerSecond(String tableName)
+    {
+        TableProgress tableProgress = (TableProgress)_tableProgress.get(tableName);
+
+        return tableProgress == null ? 0.0 : tableProgress.getRowsPerSecond();
+    }
+
+    /**
+     * Returns the fraction of the operation that is completed. This is based on the estimated
+     * row counts of the tables if available, and on the expected number of bytes otherwise.
+     *
+     * @return The fraction between <code>0</code> and <code>1</code>, or <code>-1</code> if unknown
+     */
+    public synchronized double getCompletedFraction()
+    {
+        if (_endTime > 0)
+        {
+            return 1.0;
+        }
+
+        long estimatedRows = 0;
+
+        for (Iterator it = _estimatedRowCounts.values().iterator(); it.hasNext();)
+        {
+            estimatedRows += ((Long)it.next()).longValue();
+        }
+        if (estimatedRows > 0)
+        {
+            return Math.min(1.0, (double)_numRows / estimatedRows);
+        }
+        else if (_expectedBytes > 0)
+        {
+            return Math.min(1.0, (double)_numBytes / _expectedBytes);
+        }
+        else
+        {
+            return -1.0;
+        }
+    }
+
+    /**
+     * Estimates the time that the operation will still take, assuming that the
+     * throughput stays the same.
+     *
+     * @return The time in milliseconds, or <code>-1</code> if it cannot be estimated
+     */
+    public synchronized long getEstimatedTimeRemaining()
+    {
+        double fraction = getCompletedFraction();
+
+        if (fraction <= 0.0)
+        {
+            return -1;
+        }
+        return (long)(getElapsedTime() * (1.0 - fraction) / fraction);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized String toString()
+    {
+        StringBuffer result = new StringBuffer();
+
+        result.append(_numRows);
+        result.append(" rows, ");
+        result.append(_numBytes);
+        result.append(" bytes in ");
+        result.append(getElapsedTime());
+        result.append(" ms");
+        return result.toString();
+    }
+
+    /**
+     * Holds the progress of one table.
+     */
+    private static class TableProgress
+    {
+        /** The time when the first rows were processed. */
+        private final long _firstUpdate;
+        /** The time when the last rows were processed. */
+        private long _lastUpdate;
+        /** The number of processed rows. */
+        private long _numRows;
+
+        /**
+         * Creates a new table progress object.
+         *
+         * @param time The time when the first rows were processed
+         */
+        public TableProgress(long time)
+        {
+            _firstUpdate = time;
+            _lastUpdate  = time;
+        }
+
+        /**
+         * Adds processed rows.
+         *
+         * @param numRows The number of rows
+         * @param time    The current time
+         */
+        public void addRows(int numRows, long time)
+        {
+            _numRows    += numRows;
+            _lastUpdate  = time;
+        }
+
+        /**
+         * Returns the number of processed rows.
+         *
+         * @return The number of rows
+         */
+        public long getNumRows()
+        {
+            return _numRows;
+        }
+
+        /**
+         * Returns the throughput from the first to the last processed rows.
+         *
+         * @return The rows per second, or <code>0</code> if not enough rows have been processed yet
+         */
+        public double getRowsPerSecond()
+        {
+            long duration = _lastUpdate - _firstUpdate;
+
+            return duration > 0 ? _numRows * 1000.0 / duration : 0.0;
+        }
+    }
+}
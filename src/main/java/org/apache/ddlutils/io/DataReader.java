@@ -23,11 +23,15 @@ import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.xml.namespace.QName;
@@ -42,6 +46,7 @@ import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ddlutils.io.converters.SqlTypeConverter;
+import org.apache.ddlutils.metrics.MetricsCollector;
 import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.model.Table;
@@ -67,6 +72,10 @@ public class DataReader
     private ConverterConfiguration _converterConf = new ConverterConfiguration();
     /** Whether to be case sensitive or not. */
     private boolean _caseSensitive = false;
+    /** The collector of the metrics, if any. */
+    private MetricsCollector _metricsCollector;
+    /** The progress to which the number of read bytes is added, if any. */
+    private DataProgress _progress;
 
     /**
      * Returns the converter configuration of this data reader.
@@ -139,6 +148,47 @@ public class DataReader
         _caseSensitive = beCaseSensitive;
     }
 
+    /**
+     * Returns the collector that receives the number of rows read per table.
+     *
+     * @return The metrics collector or <code>null</code> if no metrics are collected
+     */
+    public MetricsCollector getMetricsCollector()
+    {
+        return _metricsCollector;
+    }
+
+    /**
+     * Sets the collector that receives the number of rows read per table.
+     *
+     * @param metricsCollector The metrics collector or <code>null</code> if no metrics shall be collected
+     */
+    public void setMetricsCollector(MetricsCollector metricsCollector)
+    {
+        _metricsCollector = metricsCollector;
+    }
+
+    /**
+     * Returns the progress object to which the number of bytes read from input streams is added.
+     *
+     * @return The progress object or <code>null</code> if the progress is not tracked
+     */
+    public DataProgress getProgress()
+    {
+        return _progress;
+    }
+
+    /**
+     * Sets the progress object to which the number of bytes read from input streams is added.
+     * The rows themselves are added by the sink once they are written.
+     *
+     * @param progress The progress object
+     */
+    public void setProgress(DataProgress progress)
+    {
+        _progress = progress;
+    }
+
     /**
      * Creates a new, initialized XML input factory object.
      * 
@@ -233,7 +283,12 @@ public class DataReader
     {
         BufferedInputStream bufferedInput;
 
-        if (input instanceof BufferedInputStream)
+        if (_progress != null)
+        {
+            // we count below the buffer so that the progress is updated once per filled buffer
+            bufferedInput = new BufferedInputStream(new ProgressInputStream(input, _progress));
+        }
+        else if (input instanceof BufferedInputStream)
         {
             bufferedInput = (BufferedInputStream)input;
         }
@@ -261,6 +316,131 @@ public class DataReader
         read(source.getCharacterStream());
     }
 
+    /**
+     * Determines the tables for which the specified file contains data. The data itself is
+     * neither converted nor passed to the sink, and elements that don't belong to a table of
+     * the model are ignored. Only the first row of each table is looked up in the model, and
+     * the scan stops once rows of all tables have been found. Otherwise the whole file has to
+     * be parsed, so this costs about as much as reading the file without inserting the data.
+     * 
+     * @param file The data file
+     * @return The tables in the order of the model
+     */
+    public Table[] determineTables(File file) throws DdlUtilsXMLException
+    {
+        IdentityHashMap tables     = new IdentityHashMap();
+        Map             tableNames = new HashMap();
+        FileInputStream input      = null;
+
+        try
+        {
+            XMLStreamReader xmlReader;
+            int             depth       = 0;
+            boolean         inTableElem = false;
+
+            input     = new FileInputStream(file);
+            xmlReader = getXMLInputFactory().createXMLStreamReader(new BufferedInputStream(input));
+            while (xmlReader.hasNext() && (tables.size() < _model.getTableCount()))
+            {
+                int eventType = xmlReader.next();
+
+                if (eventType == XMLStreamReader.START_ELEMENT)
+                {
+                    String tableName = null;
+
+                    depth++;
+                    if (depth == 2)
+                    {
+                        inTableElem = "table".equals(xmlReader.getLocalName());
+                        if (inTableElem)
+                        {
+                            tableName = getAttributeValue(xmlReader, "table-name");
+                        }
+                        else
+                        {
+                            tableName = xmlReader.getLocalName();
+                        }
+                    }
+                    else if ((depth == 3) && inTableElem && "table-name".equals(xmlReader.getLocalName()))
+                    {
+                        // this leaves the reader at the end of the sub element
+                        tableName = xmlReader.getElementText();
+                        depth--;
+                    }
+                    if ((tableName != null) && !tableNames.containsKey(tableName))
+                    {
+                        Table table = _model.findTable(tableName.trim(), isCaseSensitive());
+
+                        // we also remember the names that don't belong to a table
+                        tableNames.put(tableName, table);
+                        if (table != null)
+                        {
+                            tables.put(table, table);
+                        }
+                    }
+                }
+                else if (eventType == XMLStreamReader.END_ELEMENT)
+                {
+                    depth--;
+                }
+            }
+        }
+        catch (XMLStreamException ex)
+        {
+            throw new DdlUtilsXMLException(ex);
+        }
+        catch (IOException ex)
+        {
+            throw new DdlUtilsXMLException(ex);
+        }
+        finally
+        {
+            if (input != null)
+            {
+                try
+                {
+                    input.close();
+                }
+                catch (IOException ex)
+                {
+                    _log.warn("Error while trying to close the input stream for " + file, ex);
+                }
+            }
+        }
+
+        List result = new ArrayList();
+
+        for (int idx = 0; idx < _model.getTableCount(); idx++)
+        {
+            if (tables.containsKey(_model.getTable(idx)))
+            {
+                result.add(_model.getTable(idx));
+            }
+        }
+        return (Table[])result.toArray(new Table[result.size()]);
+    }
+
+    /**
+     * Returns the value of the attribute of the given name of the current element.
+     * 
+     * @param xmlReader The reader
+     * @param name      The name of the attribute
+     * @return The value or <code>null</code> if the element has no such attribute
+     */
+    private String getAttributeValue(XMLStreamReader xmlReader, String name)
+    {
+        for (int idx = 0; idx < xmlReader.getAttributeCount(); idx++)
+        {
+            String attrName = xmlReader.getAttributeName(idx).getLocalPart();
+
+            if (isCaseSensitive() ? name.equals(attrName) : name.equalsIgnoreCase(attrName))
+            {
+                return xmlReader.getAttributeValue(idx);
+            }
+        }
+        return null;
+    }
+
     /**
      * Reads the data from the given XML stream reader.
      * 
@@ -358,6 +538,10 @@ public class DataReader
                     setColumnValue(bean, table, column, value);
                 }
             }
+            if (_metricsCollector != null)
+            {
+                _metricsCollector.increment(MetricsCollector.ROWS_PARSED_PREFIX + table.getName(), 1);
+            }
             getSink().addBean(bean);
             consumeRestOfElement(xmlReader);
         }
@@ -558,4 +742,67 @@ public class DataReader
             eventType = reader.next();
         }
     }
+
+    /**
+     * Input stream that adds the number of read bytes to a progress object.
+     */
+    private static class ProgressInputStream extends FilterInputStream
+    {
+        /** The progress. */
+        private final DataProgress _progress;
+
+        /**
+         * Creates a new progress input stream.
+         * 
+         * @param input    The input stream to read from
+         * @param progress The progress
+         */
+        public ProgressInputStream(InputStream input, DataProgress progress)
+        {
+            super(input);
+            _progress = progress;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public int read() throws IOException
+        {
+            int value = in.read();
+
+            if (value >= 0)
+            {
+                _progress.addBytes(1);
+            }
+            return value;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public int read(byte[] data, int offset, int length) throws IOException
+        {
+            int numBytes = in.read(data, offset, length);
+
+            if (numBytes > 0)
+            {
+                _progress.addBytes(numBytes);
+            }
+            return numBytes;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public long skip(long numBytes) throws IOException
+        {
+            long skipped = in.skip(numBytes);
+
+            if (skipped > 0)
+            {
+                _progress.addBytes(skipped);
+            }
+            return skipped;
+        }
+    }
 }
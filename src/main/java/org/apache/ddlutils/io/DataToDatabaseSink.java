@@ -22,9 +22,13 @@ package org.apache.ddlutils.io;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 
 import org.apache.commons.beanutils.DynaBean;
 import org.apache.commons.logging.Log;
@@ -32,6 +36,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.ddlutils.DatabaseOperationException;
 import org.apache.ddlutils.Platform;
 import org.apache.ddlutils.dynabean.SqlDynaClass;
+import org.apache.ddlutils.metrics.MetricsCollector;
 import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.model.ForeignKey;
@@ -64,18 +69,60 @@ public class DataToDatabaseSink implements DataSink
     private boolean _useBatchMode = false;
     /** The queued objects for batch insertion. */
     private ArrayList _batchQueue = new ArrayList();
+    /** The original identities of the queued objects whose identity is defined by the database when inserting them. */
+    private ArrayList _batchQueueIdentities = new ArrayList();
     /** The number of beans to insert in one batch. */
     private int _batchSize = 1024;
+    /** Whether to adjust the batch size per table according to the measured batch durations. */
+    private boolean _useAdaptiveBatchSize = false;
+    /** The smallest batch size that the adaptive batch sizing uses. */
+    private int _minBatchSize = 16;
+    /** The largest batch size that the adaptive batch sizing uses. */
+    private int _maxBatchSize = 32768;
+    /** The time in milliseconds that a batch should take when adapting the batch size. */
+    private long _targetBatchDuration = 500;
+    /** The maximum estimated number of bytes per batch when adapting the batch size. */
+    private long _maxBatchBytes = 8 * 1024 * 1024;
+    /** Determines the batch sizes in the current insertion process if the adaptive batch sizing is used. */
+    private AdaptiveBatchSizer _batchSizer;
+    /** The estimated number of bytes of the queued objects, only tracked for the adaptive batch sizing. */
+    private long _batchQueueBytes = 0;
+    /** Whether the identity values of rows inserted in batches can be read back in the current insertion process. */
+    private boolean _batchIdentityValuesReadable = false;
+    /** Whether to switch off the constraint checks of the database while inserting the beans. */
+    private boolean _useFastLoadMode = false;
+    /** Whether the fast load mode shall only prepare the session of the connection of this sink. */
+    private boolean _bulkLoadSessionOnly = false;
+    /** Whether the platform has been prepared for a bulk load in the current insertion process. */
+    private boolean _bulkLoadPrepared = false;
+    /** Whether the constraint checks have been switched off for the current insertion process. */
+    private boolean _constraintsDisabled = false;
+    /** Whether to reserve the values of identity columns in advance instead of letting the database generate them. */
+    private boolean _preallocateIdentityValues = false;
+    /** Whether the values of identity columns are actually reserved in advance in the current insertion process. */
+    private boolean _preallocatingIdentityValues = false;
+    /** Maps identity columns to the lists of their reserved values that have not been used yet. */
+    private IdentityHashMap _preallocatedIdentityValues = new IdentityHashMap();
+    /** Maps identity columns to the number of values reserved for them so far. */
+    private IdentityHashMap _preallocatedValueCounts = new IdentityHashMap();
+    /** Whether the insertion order of the beans is actually tracked in the current insertion process. */
+    private boolean _trackFkOrder = true;
     /** Stores the tables that are target of a foreign key. */
-    private HashSet _fkTables = new HashSet();
+    private IdentityHashMap _fkTables = new IdentityHashMap();
     /** Contains the tables that have a self-referencing foreign key to a (partially) identity primary key. */
     private HashSet _tablesWithSelfIdentityReference = new HashSet();
     /** Contains the tables that have a self-referencing foreign key that is required. */
     private HashSet _tablesWithRequiredSelfReference = new HashSet();
+    /** Contains the tables with identity columns whose values will be defined by the database. */
+    private IdentityHashMap _tablesWithGeneratedIdentity = new IdentityHashMap();
     /** Maps original to processed identities. */
-    private HashMap _identityMap = new HashMap();
+    private IdentityMap _identityMap;
     /** Stores the objects that are waiting for other objects to be inserted. */
     private ArrayList _waitingObjects = new ArrayList();
+    /** The progress of the insertion, if it is tracked. */
+    private DataProgress _progress;
+    /** The tables whose rows are all in the database already, so that beans referencing them need not wait. */
+    private IdentityHashMap _completedTables = new IdentityHashMap();
 
     /**
      * Creates a new sink instance.
@@ -85,8 +132,9 @@ public class DataToDatabaseSink implements DataSink
      */
     public DataToDatabaseSink(Platform platform, Database model)
     {
-        _platform = platform;
-        _model    = model;
+        _platform    = platform;
+        _model       = model;
+        _identityMap = new IdentityMap(model);
         for (int tableIdx = 0; tableIdx < model.getTableCount(); tableIdx++)
         {
             Table      table     = model.getTable(tableIdx);
@@ -174,8 +222,10 @@ public class DataToDatabaseSink implements DataSink
     }
 
     /**
-     * Specifies whether batch mode is used for inserting the beans. Note that this requires
-     * that the primary key values are not defined by the database.
+     * Specifies whether batch mode is used for inserting the beans. If the database defines the
+     * primary key values of beans that are referenced by other beans, then these beans are only
+     * inserted in batches if the platform can read back the identity values for batches (see
+     * {@link Platform#isBatchIdentityValuesReadable(Connection)}).
      *
      * @param useBatchMode <code>true</code> if batch mode shall be used
      */
@@ -204,22 +254,309 @@ public class DataToDatabaseSink implements DataSink
         _batchSize = batchSize;
     }
 
+    /**
+     * Determines whether the sink adjusts the batch size per table while inserting the beans.
+     *
+     * @return <code>true</code> if the batch size is adapted (<code>false</code> per default)
+     */
+    public boolean isUseAdaptiveBatchSize()
+    {
+        return _useAdaptiveBatchSize;
+    }
+
+    /**
+     * Specifies whether the sink shall adjust the batch size per table while inserting the beans.
+     * The sink then measures how long the batches take and how large the beans of each table are,
+     * and changes the batch size of the table so that a batch takes about the target batch duration
+     * and contains at most the maximum number of bytes. The configured batch size is used as the
+     * starting point. This only has an effect if batch mode is used.
+     *
+     * @param useAdaptiveBatchSize <code>true</code> if the batch size shall be adapted
+     */
+    public void setUseAdaptiveBatchSize(boolean useAdaptiveBatchSize)
+    {
+        _useAdaptiveBatchSize = useAdaptiveBatchSize;
+    }
+
+    /**
+     * Returns the smallest batch size that is used when adapting the batch size.
+     *
+     * @return The number of beans
+     */
+    public int getMinBatchSize()
+    {
+        return _minBatchSize;
+    }
+
+    /**
+     * Sets the smallest batch size that is used when adapting the batch size.
+     *
+     * @param minBatchSize The number of beans
+     */
+    public void setMinBatchSize(int minBatchSize)
+    {
+        _minBatchSize = minBatchSize;
+    }
+
+    /**
+     * Returns the largest batch size that is used when adapting the batch size.
+     *
+     * @return The number of beans
+     */
+    public int getMaxBatchSize()
+    {
+        return _maxBatchSize;
+    }
+
+    /**
+     * Sets the largest batch size that is used when adapting the batch size.
+     *
+     * @param maxBatchSize The number of beans
+     */
+    public void setMaxBatchSize(int maxBatchSize)
+    {
+        _maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Returns the time that a batch should take when adapting the batch size.
+     *
+     * @return The time in milliseconds
+     */
+    public long getTargetBatchDuration()
+    {
+        return _targetBatchDuration;
+    }
+
+    /**
+     * Sets the time that a batch should take when adapting the batch size.
+     *
+     * @param targetBatchDuration The time in milliseconds
+     */
+    public void setTargetBatchDuration(long targetBatchDuration)
+    {
+        _targetBatchDuration = targetBatchDuration;
+    }
+
+    /**
+     * Returns the maximum number of bytes in a batch when adapting the batch size. The size of
+     * the beans is estimated from their values.
+     *
+     * @return The number of bytes
+     */
+    public long getMaxBatchBytes()
+    {
+        return _maxBatchBytes;
+    }
+
+    /**
+     * Sets the maximum number of bytes in a batch when adapting the batch size. The size of
+     * the beans is estimated from their values. Use <code>0</code> to not limit the size of
+     * the batches.
+     *
+     * @param maxBatchBytes The number of bytes
+     */
+    public void setMaxBatchBytes(long maxBatchBytes)
+    {
+        _maxBatchBytes = maxBatchBytes;
+    }
+
+    /**
+     * Determines whether the sink switches off the foreign key checks (and where possible, the
+     * index maintenance) of the database while inserting the beans.
+     *
+     * @return <code>true</code> if the fast load mode is used (<code>false</code> per default)
+     */
+    public boolean isUseFastLoadMode()
+    {
+        return _useFastLoadMode;
+    }
+
+    /**
+     * Specifies whether the sink shall switch off the foreign key checks (and where possible,
+     * the index maintenance) of the database while inserting the beans. The checks are switched
+     * back on in {@link #end()}. The checks are only switched off if the platform supports it (see
+     * {@link org.apache.ddlutils.PlatformInfo#isConstraintDisablingSupported()}), but other
+     * platforms may still prepare the connection for the load, e.g. by keeping the identity
+     * override switched on for a table until the beans of the next table are inserted.<br/>
+     * If the foreign key checks are switched off, then the sink will only delay the insertion
+     * of beans if this is necessary to determine the values of referenced identity columns.
+     *
+     * @param useFastLoadMode <code>true</code> if the fast load mode shall be used
+     */
+    public void setUseFastLoadMode(boolean useFastLoadMode)
+    {
+        _useFastLoadMode = useFastLoadMode;
+    }
+
+    /**
+     * Determines whether the sink reserves the values of identity columns in advance instead of
+     * letting the database generate them.
+     *
+     * @return <code>true</code> if identity values are reserved in advance (<code>false</code> per default)
+     */
+    public boolean isPreallocateIdentityValues()
+    {
+        return _preallocateIdentityValues;
+    }
+
+    /**
+     * Specifies whether the sink shall reserve the values of identity columns in blocks of the
+     * batch size, and assign them to the beans itself instead of letting the database generate
+     * them. If the progress object (see {@link #setProgress(DataProgress)}) knows the estimated
+     * number of rows of a table, then no more values than that are reserved. Since the new identity values are then known right away, the sink does not have to
+     * read them back from the database after each insert, and beans that are referenced by other
+     * beans can be inserted in batches. This is only done if identity override is off and the
+     * platform supports it (see {@link org.apache.ddlutils.PlatformInfo#isIdentityValuePreallocationSupported()}).
+     * Note that the identity override is switched on for the connection of the sink while
+     * inserting the beans, so that the reserved values are used.
+     *
+     * @param preallocateIdentityValues <code>true</code> if identity values shall be reserved in advance
+     */
+    public void setPreallocateIdentityValues(boolean preallocateIdentityValues)
+    {
+        _preallocateIdentityValues = preallocateIdentityValues;
+    }
+
+    /**
+     * Returns the object that tracks the progress of the insertion.
+     *
+     * @return The progress object or <code>null</code> if the progress is not tracked
+     */
+    public DataProgress getProgress()
+    {
+        return _progress;
+    }
+
+    /**
+     * Sets the object that tracks the progress of the insertion. The sink starts it in
+     * {@link #start()}, finishes it in {@link #end()}, and adds the rows once they have
+     * been written to the database.
+     *
+     * @param progress The progress object
+     */
+    public void setProgress(DataProgress progress)
+    {
+        _progress = progress;
+    }
+
+    /**
+     * Specifies the tables whose rows have all been inserted into the database already, e.g. by
+     * another sink. Beans that reference rows of these tables are then not delayed.
+     *
+     * @param tables The tables
+     */
+    void setCompletedTables(Table[] tables)
+    {
+        _completedTables.clear();
+        for (int idx = 0; idx < tables.length; idx++)
+        {
+            _completedTables.put(tables[idx], tables[idx]);
+        }
+    }
+
+    /**
+     * Determines whether there are beans that wait for the insertion of the rows that
+     * they reference.
+     *
+     * @return <code>true</code> if there are waiting beans
+     */
+    boolean hasWaitingBeans()
+    {
+        return !_waitingObjects.isEmpty();
+    }
+
+    /**
+     * Returns the map of original to processed identities.
+     *
+     * @return The identity map
+     */
+    IdentityMap getIdentityMap()
+    {
+        return _identityMap;
+    }
+
+    /**
+     * Specifies the map of original to processed identities. Sinks that insert the beans of
+     * different tables in parallel share the map, so that beans can reference rows whose
+     * identity values were generated by the database for another sink.
+     *
+     * @param identityMap The identity map
+     */
+    void setIdentityMap(IdentityMap identityMap)
+    {
+        _identityMap = identityMap;
+    }
+
+    /**
+     * Specifies whether the fast load mode shall only prepare the session of the connection of
+     * this sink. This is used by sinks that insert in parallel while another connection prepares
+     * the tables for the bulk load, on platforms that switch off the constraint checks per session
+     * (see {@link org.apache.ddlutils.PlatformInfo#isBulkLoadStateSessionScoped()}).
+     *
+     * @param sessionOnly <code>true</code> if only the session shall be prepared
+     */
+    void setBulkLoadSessionOnly(boolean sessionOnly)
+    {
+        _bulkLoadSessionOnly = sessionOnly;
+    }
+
+    /**
+     * Determines whether the fast load mode shall only prepare the session of the connection of
+     * this sink.
+     *
+     * @return <code>true</code> if only the session shall be prepared
+     */
+    boolean isBulkLoadSessionOnly()
+    {
+        return _bulkLoadSessionOnly;
+    }
+
+    /**
+     * Returns the model for which the bulk load is prepared.
+     * 
+     * @return The model, which has no tables if only the session is prepared
+     */
+    private Database getBulkLoadModel()
+    {
+        return _bulkLoadSessionOnly ? new Database() : _model;
+    }
+
     /**
      * {@inheritDoc}
      */
     public void end() throws DataSinkException
     {
-        purgeBatchQueue();
+        // purging the queue can release beans that waited for the purged ones
+        while (!_batchQueue.isEmpty())
+        {
+            purgeBatchQueue();
+        }
+        restoreIdentityOverride();
         if (_connection != null)
         {
             try
             {
-                _connection.close();
+                if (_bulkLoadPrepared)
+                {
+                    _bulkLoadPrepared = false;
+                    _platform.afterBulkLoad(_connection, getBulkLoadModel());
+                }
             }
-            catch (SQLException ex)
+            catch (DatabaseOperationException ex)
             {
                 throw new DataSinkException(ex);
             }
+            finally
+            {
+                // the connection may come from a pool or be bound to the thread
+                _platform.returnConnection(_connection);
+                _connection = null;
+            }
+        }
+        if (_progress != null)
+        {
+            _progress.finish();
         }
         if (!_waitingObjects.isEmpty())
         {
@@ -259,7 +596,72 @@ public class DataToDatabaseSink implements DataSink
     {
         _fkTables.clear();
         _waitingObjects.clear();
-        if (_ensureFkOrder)
+        _tablesWithGeneratedIdentity.clear();
+        _preallocatedIdentityValues.clear();
+        _preallocatedValueCounts.clear();
+        _preallocatingIdentityValues = _preallocateIdentityValues &&
+                                       !isIdentityOverridden() &&
+                                       _platform.getPlatformInfo().isIdentityOverrideAllowed() &&
+                                       _platform.getPlatformInfo().isIdentityValuePreallocationSupported();
+        if (!isIdentityOverridden() && !_preallocatingIdentityValues)
+        {
+            for (int tableIdx = 0; tableIdx < _model.getTableCount(); tableIdx++)
+            {
+                Table table = _model.getTable(tableIdx);
+
+                if (table.getAutoIncrementColumns().length > 0)
+                {
+                    _tablesWithGeneratedIdentity.put(table, table);
+                }
+            }
+        }
+        _bulkLoadPrepared = false;
+        _connection       = null;
+        _batchQueueBytes  = 0;
+        _batchSizer       = null;
+        if (_useBatchMode && _useAdaptiveBatchSize)
+        {
+            _batchSizer = new AdaptiveBatchSizer();
+            _batchSizer.setInitialBatchSize(_batchSize);
+            _batchSizer.setMinBatchSize(_minBatchSize);
+            _batchSizer.setMaxBatchSize(_maxBatchSize);
+            _batchSizer.setTargetBatchDuration(_targetBatchDuration);
+            _batchSizer.setMaxBatchBytes(_maxBatchBytes);
+        }
+        if (_progress != null)
+        {
+            _progress.start();
+        }
+        try
+        {
+            _connection                  = _platform.borrowConnection();
+            _batchIdentityValuesReadable = _useBatchMode && _platform.isBatchIdentityValuesReadable(_connection);
+            if (_useFastLoadMode)
+            {
+                _platform.beforeBulkLoad(_connection, getBulkLoadModel());
+                _bulkLoadPrepared = true;
+            }
+        }
+        catch (DatabaseOperationException ex)
+        {
+            if (_connection != null)
+            {
+                _platform.returnConnection(_connection);
+                _connection = null;
+            }
+            throw new DataSinkException(ex);
+        }
+        if (_preallocatingIdentityValues)
+        {
+            // the reserved values are inserted like identity values given by the beans, but
+            // only by this sink, so we switch on the identity override just for our connection
+            _platform.setIdentityOverrideOn(_connection, true);
+        }
+        // with the constraint checks switched off, we only need to delay beans
+        // if the values of referenced identity columns are generated by the database
+        _constraintsDisabled = _bulkLoadPrepared && _platform.getPlatformInfo().isConstraintDisablingSupported();
+        _trackFkOrder        = _ensureFkOrder && (!_constraintsDisabled || isIdentityRemappingNecessary());
+        if (_trackFkOrder)
         {
             for (int tableIdx = 0; tableIdx < _model.getTableCount(); tableIdx++)
             {
@@ -269,17 +671,170 @@ public class DataToDatabaseSink implements DataSink
                 {
                     ForeignKey curFk = table.getForeignKey(fkIdx);
     
-                    _fkTables.add(curFk.getForeignTable());
+                    _fkTables.put(curFk.getForeignTable(), curFk.getForeignTable());
                 }
             }
         }
-        try
+    }
+
+    /**
+     * Determines whether the values of identity columns are taken from the beans instead of being
+     * generated by the database.
+     * 
+     * @return <code>true</code> if the identity values are overridden
+     */
+    private boolean isIdentityOverridden()
+    {
+        return _platform.isIdentityOverrideOn() && _platform.getPlatformInfo().isIdentityOverrideAllowed();
+    }
+
+    /**
+     * Determines whether the database will generate values for columns that are referenced
+     * by foreign keys, in which case the referencing beans have to be updated with these values.
+     * 
+     * @return <code>true</code> if referenced identity values are generated by the database
+     */
+    private boolean isIdentityRemappingNecessary()
+    {
+        if (isIdentityOverridden() && !_preallocatingIdentityValues)
         {
-            _connection = _platform.borrowConnection();
+            return false;
         }
-        catch (DatabaseOperationException ex)
+        for (int tableIdx = 0; tableIdx < _model.getTableCount(); tableIdx++)
         {
-            throw new DataSinkException(ex);
+            Table table = _model.getTable(tableIdx);
+
+            for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++)
+            {
+                ForeignKey curFk = table.getForeignKey(fkIdx);
+
+                for (int refIdx = 0; refIdx < curFk.getReferenceCount(); refIdx++)
+                {
+                    if (curFk.getReference(refIdx).getForeignColumn().isAutoIncrement())
+                    {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the connection to the platform after an error, and tries to switch the
+     * constraint checks back on if they were switched off.
+     */
+    private void releaseConnectionAfterError()
+    {
+        restoreIdentityOverride();
+        if (_bulkLoadPrepared)
+        {
+            _bulkLoadPrepared = false;
+            try
+            {
+                _platform.afterBulkLoad(_connection, getBulkLoadModel());
+            }
+            catch (DatabaseOperationException ex)
+            {
+                _log.warn("Could not switch the constraint checks back on", ex);
+            }
+        }
+        _platform.returnConnection(_connection);
+        _connection = null;
+    }
+
+    /**
+     * Discards the beans that have not been inserted yet, and returns the connection to the
+     * platform. This is used when the insertion is cancelled because of an error elsewhere.
+     */
+    void abort()
+    {
+        _batchQueue.clear();
+        _batchQueueIdentities.clear();
+        _waitingObjects.clear();
+        if (_connection != null)
+        {
+            releaseConnectionAfterError();
+        }
+    }
+
+    /**
+     * Switches the identity override for the connection of the sink back off if it was
+     * switched on for inserting the reserved identity values.
+     */
+    private void restoreIdentityOverride()
+    {
+        if (_preallocatingIdentityValues)
+        {
+            _preallocatingIdentityValues = false;
+            if (_connection != null)
+            {
+                _platform.setIdentityOverrideOn(_connection, false);
+            }
+        }
+    }
+
+    /**
+     * Determines how many values to reserve for the given identity column. This is the batch
+     * size, but at most the number of rows of the table that are still expected according to
+     * the progress object.
+     * 
+     * @param table  The table
+     * @param column The identity column
+     * @return The number of values to reserve
+     */
+    private int getNumValuesToPreallocate(Table table, Column column)
+    {
+        int numValues = Math.max(_batchSize, 1);
+
+        if (_progress != null)
+        {
+            long estimatedRows = _progress.getEstimatedRowCount(table.getName());
+            Long numReserved   = (Long)_preallocatedValueCounts.get(column);
+            long remainingRows = estimatedRows - (numReserved == null ? 0 : numReserved.longValue());
+
+            // if the estimate turns out to be too low, we simply continue with full blocks
+            if ((estimatedRows >= 0) && (remainingRows > 0) && (remainingRows < numValues))
+            {
+                numValues = (int)remainingRows;
+            }
+        }
+        return numValues;
+    }
+
+    /**
+     * Assigns reserved values to the identity columns of the given bean, reserving a new block
+     * of values for a column if necessary.
+     * 
+     * @param table The table of the bean
+     * @param bean  The bean
+     */
+    private void assignPreallocatedIdentityValues(Table table, DynaBean bean) throws DataSinkException
+    {
+        Column[] columns = table.getAutoIncrementColumns();
+
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            LinkedList values = (LinkedList)_preallocatedIdentityValues.get(columns[idx]);
+
+            if ((values == null) || values.isEmpty())
+            {
+                try
+                {
+                    Long numReserved = (Long)_preallocatedValueCounts.get(columns[idx]);
+
+                    values = new LinkedList(Arrays.asList(_platform.preallocateIdentityValues(_connection, table, columns[idx], getNumValuesToPreallocate(table, columns[idx]))));
+                    _preallocatedValueCounts.put(columns[idx],
+                                                 new Long((numReserved == null ? 0 : numReserved.longValue()) + values.size()));
+                }
+                catch (DatabaseOperationException ex)
+                {
+                    releaseConnectionAfterError();
+                    throw new DataSinkException(ex);
+                }
+                _preallocatedIdentityValues.put(columns[idx], values);
+            }
+            bean.set(columns[idx].getName(), values.removeFirst());
         }
     }
 
@@ -291,26 +846,34 @@ public class DataToDatabaseSink implements DataSink
         Table    table        = _model.getDynaClassFor(bean).getTable();
         Identity origIdentity = buildIdentityFromPKs(table, bean);
 
-        if (_ensureFkOrder && (table.getForeignKeyCount() > 0))
+        if (_trackFkOrder && (table.getForeignKeyCount() > 0))
         {
             WaitingObject waitingObj = new WaitingObject(bean, origIdentity);
 
             for (int idx = 0; idx < table.getForeignKeyCount(); idx++)
             {
-                ForeignKey fk         = table.getForeignKey(idx);
-                Identity   fkIdentity = buildIdentityFromFK(table, fk, bean);
+                ForeignKey fk           = table.getForeignKey(idx);
+                Table      foreignTable = fk.getForeignTable();
+                boolean    completed    = _completedTables.containsKey(foreignTable);
 
-                if ((fkIdentity != null) && !fkIdentity.equals(origIdentity))
+                // the rows of completed tables only have to be looked up if the database
+                // generated their identity values
+                if (!completed || _tablesWithGeneratedIdentity.containsKey(foreignTable))
                 {
-                    Identity processedIdentity = (Identity)_identityMap.get(fkIdentity);
+                    Identity fkIdentity = buildIdentityFromFK(table, fk, bean);
 
-                    if (processedIdentity != null)
-                    {
-                        updateFKColumns(bean, fkIdentity.getForeignKeyName(), processedIdentity);
-                    }
-                    else
+                    if ((fkIdentity != null) && !fkIdentity.equals(origIdentity))
                     {
-                        waitingObj.addPendingFK(fkIdentity);
+                        Identity processedIdentity = _identityMap.get(fkIdentity);
+
+                        if (processedIdentity != null)
+                        {
+                            updateFKColumns(bean, fkIdentity.getForeignKeyName(), processedIdentity);
+                        }
+                        else if (!completed)
+                        {
+                            waitingObj.addPendingFK(fkIdentity);
+                        }
                     }
                 }
             }
@@ -321,7 +884,7 @@ public class DataToDatabaseSink implements DataSink
                     StringBuffer msg = new StringBuffer();
 
                     msg.append("Defering insertion of row ");
-                    msg.append(buildIdentityFromPKs(table, bean).toString());
+                    msg.append(origIdentity.toString());
                     msg.append(" because it is waiting for:");
                     for (Iterator it = waitingObj.getPendingFKs(); it.hasNext();)
                     {
@@ -331,20 +894,39 @@ public class DataToDatabaseSink implements DataSink
                     _log.debug(msg.toString());
                 }
                 _waitingObjects.add(waitingObj);
+                if (_platform.getMetricsCollector() != null)
+                {
+                    _platform.getMetricsCollector().increment(MetricsCollector.ROWS_DEFERRED, 1);
+                }
                 return;
             }
         }
 
-        insertBeanIntoDatabase(table, bean);
+        boolean identityKnown = insertBeanIntoDatabase(table, bean, origIdentity);
 
         if (_log.isDebugEnabled())
         {
             _log.debug("Inserted bean " + origIdentity);
         }
+        if (identityKnown)
+        {
+            insertWaitingBeans(table, origIdentity, bean);
+        }
+    }
 
-        if (_ensureFkOrder && _fkTables.contains(table))
+    /**
+     * Records the identity of the given bean that has been inserted into the database, and inserts the
+     * beans that have been waiting for it.
+     * 
+     * @param table        The table of the inserted bean
+     * @param origIdentity The original identity of the bean
+     * @param bean         The bean
+     */
+    private void insertWaitingBeans(Table table, Identity origIdentity, DynaBean bean) throws DataSinkException
+    {
+        if (_trackFkOrder && _fkTables.containsKey(table))
         {
-            Identity  newIdentity  = buildIdentityFromPKs(table, bean);
+            Identity  newIdentity  = isIdentityChangedOnInsert(table) ? buildIdentityFromPKs(table, bean) : origIdentity;
             ArrayList finishedObjs = new ArrayList();
 
             _identityMap.put(origIdentity, newIdentity);
@@ -357,7 +939,7 @@ public class DataToDatabaseSink implements DataSink
             while (!identitiesToCheck.isEmpty() && !_waitingObjects.isEmpty())
             {
                 Identity curIdentity    = (Identity)identitiesToCheck.get(0);
-                Identity curNewIdentity = (Identity)_identityMap.get(curIdentity);
+                Identity curNewIdentity = _identityMap.get(curIdentity);
 
                 identitiesToCheck.remove(0);
                 finishedObjs.clear();
@@ -383,12 +965,15 @@ public class DataToDatabaseSink implements DataSink
                     Table    tableForObj = _model.getDynaClassFor(finishedObj).getTable();
                     Identity objIdentity = buildIdentityFromPKs(tableForObj, finishedObj);
 
-                    insertBeanIntoDatabase(tableForObj, finishedObj);
-                    
-                    Identity newObjIdentity = buildIdentityFromPKs(tableForObj, finishedObj);
+                    // if the identity of the object is only known after the batch has been
+                    // purged, then the objects waiting for it will be handled at that point
+                    if (insertBeanIntoDatabase(tableForObj, finishedObj, objIdentity))
+                    {
+                        Identity newObjIdentity = isIdentityChangedOnInsert(tableForObj) ? buildIdentityFromPKs(tableForObj, finishedObj) : objIdentity;
 
-                    _identityMap.put(objIdentity, newObjIdentity);
-                    identitiesToCheck.add(objIdentity);
+                        _identityMap.put(objIdentity, newObjIdentity);
+                        identitiesToCheck.add(objIdentity);
+                    }
                     if (_log.isDebugEnabled())
                     {
                         _log.debug("Inserted deferred row " + objIdentity);
@@ -399,62 +984,264 @@ public class DataToDatabaseSink implements DataSink
     }
 
     /**
-     * Inserts the bean into the database or batch queue.
+     * Determines whether the primary key values of the beans of the given table can change
+     * when the beans are inserted, because the identity values are defined by the database
+     * or preallocated.
      * 
      * @param table The table
-     * @param bean  The bean
+     * @return <code>true</code> if the identity of the beans can change
+     */
+    private boolean isIdentityChangedOnInsert(Table table)
+    {
+        return _tablesWithGeneratedIdentity.containsKey(table) ||
+               (_preallocatingIdentityValues && (table.getAutoIncrementColumns().length > 0));
+    }
+
+    /**
+     * Inserts the bean into the database or batch queue. If the bean is queued and the database
+     * defines the values of its primary key columns that other beans refer to, then the beans
+     * waiting for it are inserted when the batch queue is purged.
+     * 
+     * @param table        The table
+     * @param bean         The bean
+     * @param origIdentity The original identity of the bean
+     * @return <code>true</code> if the final identity of the bean is known at this point
      */
-    private void insertBeanIntoDatabase(Table table, DynaBean bean) throws DataSinkException
+    private boolean insertBeanIntoDatabase(Table table, DynaBean bean, Identity origIdentity) throws DataSinkException
     {
+        if (_preallocatingIdentityValues)
+        {
+            assignPreallocatedIdentityValues(table, bean);
+        }
         if (_useBatchMode)
         {
-            _batchQueue.add(bean);
-            if (_batchQueue.size() >= _batchSize)
+            boolean identityDeferred = _trackFkOrder &&
+                                       _fkTables.containsKey(table) &&
+                                       _tablesWithGeneratedIdentity.containsKey(table);
+
+            if (identityDeferred && !_batchIdentityValuesReadable)
             {
+                // the identity values cannot be read back for batches, so we have
+                // to insert the bean directly (after the ones that are queued)
                 purgeBatchQueue();
+                insertSingleBeanIntoDatabase(table, bean);
+                return true;
+            }
+            _batchQueue.add(bean);
+            _batchQueueIdentities.add(identityDeferred ? origIdentity : null);
+            if (_batchSizer == null)
+            {
+                if (_batchQueue.size() >= _batchSize)
+                {
+                    purgeBatchQueue();
+                }
+            }
+            else
+            {
+                _batchQueueBytes += AdaptiveBatchSizer.estimateSize(bean);
+                if ((_batchQueue.size() >= _batchSizer.getBatchSize(table)) ||
+                    ((_maxBatchBytes > 0) && (_batchQueueBytes >= _maxBatchBytes)))
+                {
+                    purgeBatchQueue();
+                }
             }
+            return !identityDeferred;
         }
         else
         {
             insertSingleBeanIntoDatabase(table, bean);
+            return true;
         }
     }
 
     /**
-     * Purges the batch queue by inserting the objects into the database.
+     * Purges the batch queue by inserting the objects into the database. Afterwards, the objects that
+     * are waiting for objects in the batch whose identity was defined by the database, are processed.
+     * Note that these may be put into the batch queue again.
      */
     private void purgeBatchQueue() throws DataSinkException
     {
         if (!_batchQueue.isEmpty())
         {
+            ArrayList beans      = _batchQueue;
+            ArrayList identities = _batchQueueIdentities;
+            boolean   success    = false;
+
+            // purging can add new beans to the queue, so we use a new one
+            _batchQueue           = new ArrayList();
+            _batchQueueIdentities = new ArrayList();
+            _batchQueueBytes      = 0;
+            // without constraint checks, the beans can be inserted with one batch per table
+            if (_constraintsDisabled)
+            {
+                groupByTable(beans, identities);
+            }
             try
             {
-                _platform.insert(_connection, _model, _batchQueue);
+                long startTime = System.currentTimeMillis();
+
+                _platform.insert(_connection, _model, beans);
                 if (!_connection.getAutoCommit())
                 {
                     _connection.commit();
                 }
+                if (_batchSizer != null)
+                {
+                    adaptBatchSizes(beans, System.currentTimeMillis() - startTime);
+                }
                 if (_log.isDebugEnabled())
                 {
-                    _log.debug("Inserted " + _batchQueue.size() + " rows in batch mode ");
+                    _log.debug("Inserted " + beans.size() + " rows in batch mode ");
                 }
+                if (_progress != null)
+                {
+                    addRowsToProgress(beans);
+                }
+                success = true;
             }
             catch (Exception ex)
             {
                 if (_haltOnErrors)
                 {
-                    _platform.returnConnection(_connection);
+                    releaseConnectionAfterError();
                     throw new DataSinkException(ex);
                 }
                 else
                 {
-                    _log.warn("Exception while inserting " + _batchQueue.size() + " rows via batch mode into the database", ex);
+                    _log.warn("Exception while inserting " + beans.size() + " rows via batch mode into the database", ex);
+                }
+            }
+            for (int idx = 0; success && (idx < beans.size()); idx++)
+            {
+                Identity origIdentity = (Identity)identities.get(idx);
+
+                if (origIdentity != null)
+                {
+                    DynaBean bean = (DynaBean)beans.get(idx);
+
+                    insertWaitingBeans(_model.getDynaClassFor(bean).getTable(), origIdentity, bean);
                 }
             }
-            _batchQueue.clear();
         }
     }
     
+    /**
+     * Sorts the given beans (and their original identities) by their tables, retaining the
+     * order of the beans of each table.
+     * 
+     * @param beans      The beans
+     * @param identities The original identities of the beans
+     */
+    private void groupByTable(ArrayList beans, ArrayList identities)
+    {
+        LinkedHashMap beansPerClass      = new LinkedHashMap();
+        LinkedHashMap identitiesPerClass = new LinkedHashMap();
+
+        for (int idx = 0; idx < beans.size(); idx++)
+        {
+            DynaBean     bean       = (DynaBean)beans.get(idx);
+            SqlDynaClass dynaClass  = _model.getDynaClassFor(bean);
+            ArrayList    classBeans = (ArrayList)beansPerClass.get(dynaClass);
+
+            if (classBeans == null)
+            {
+                classBeans = new ArrayList();
+                beansPerClass.put(dynaClass, classBeans);
+                identitiesPerClass.put(dynaClass, new ArrayList());
+            }
+            classBeans.add(bean);
+            ((ArrayList)identitiesPerClass.get(dynaClass)).add(identities.get(idx));
+        }
+        if (beansPerClass.size() > 1)
+        {
+            beans.clear();
+            identities.clear();
+            for (Iterator it = beansPerClass.keySet().iterator(); it.hasNext();)
+            {
+                Object dynaClass = it.next();
+
+                beans.addAll((ArrayList)beansPerClass.get(dynaClass));
+                identities.addAll((ArrayList)identitiesPerClass.get(dynaClass));
+            }
+        }
+    }
+
+    /**
+     * Passes the measurements of an executed batch to the batch sizer. The duration of the
+     * batch is attributed to the tables of the beans in proportion to the estimated sizes
+     * of their beans.
+     * 
+     * @param beans    The inserted beans
+     * @param duration The time in milliseconds that the batch took
+     */
+    private void adaptBatchSizes(ArrayList beans, long duration)
+    {
+        IdentityHashMap rowsPerTable  = new IdentityHashMap();
+        IdentityHashMap bytesPerTable = new IdentityHashMap();
+        long            totalBytes    = 0;
+
+        for (Iterator it = beans.iterator(); it.hasNext();)
+        {
+            DynaBean bean     = (DynaBean)it.next();
+            Table    table    = _model.getDynaClassFor(bean).getTable();
+            long     numBytes = AdaptiveBatchSizer.estimateSize(bean);
+            long[]   rows     = (long[])rowsPerTable.get(table);
+
+            if (rows == null)
+            {
+                rows = new long[1];
+                rowsPerTable.put(table, rows);
+                bytesPerTable.put(table, new long[1]);
+            }
+            rows[0]++;
+            ((long[])bytesPerTable.get(table))[0] += numBytes;
+            totalBytes += numBytes;
+        }
+        for (Iterator it = rowsPerTable.keySet().iterator(); it.hasNext();)
+        {
+            Table table         = (Table)it.next();
+            int   numRows       = (int)((long[])rowsPerTable.get(table))[0];
+            long  numBytes      = ((long[])bytesPerTable.get(table))[0];
+            long  tableDuration = totalBytes > 0 ? duration * numBytes / totalBytes
+                                                 : duration * numRows / beans.size();
+            int   oldBatchSize  = _batchSizer.getBatchSize(table);
+            int   newBatchSize  = _batchSizer.batchExecuted(table, numRows, numBytes, tableDuration);
+
+            if ((newBatchSize != oldBatchSize) && _log.isDebugEnabled())
+            {
+                _log.debug("Changed the batch size for table " + table.getName() + " from " + oldBatchSize + " to " + newBatchSize);
+            }
+        }
+    }
+
+    /**
+     * Adds the given inserted beans to the progress, one call per run of beans of the same table.
+     * 
+     * @param beans The beans
+     */
+    private void addRowsToProgress(ArrayList beans)
+    {
+        Table table   = null;
+        int   numRows = 0;
+
+        for (Iterator it = beans.iterator(); it.hasNext();)
+        {
+            Table beanTable = _model.getDynaClassFor((DynaBean)it.next()).getTable();
+
+            if ((table != null) && (beanTable != table))
+            {
+                _progress.addRows(table.getName(), numRows);
+                numRows = 0;
+            }
+            table = beanTable;
+            numRows++;
+        }
+        if (numRows > 0)
+        {
+            _progress.addRows(table.getName(), numRows);
+        }
+    }
+
     /**
      * Directly inserts the given bean into the database.
      * 
@@ -468,7 +1255,7 @@ public class DataToDatabaseSink implements DataSink
             boolean    needTwoStepInsert = false;
             ForeignKey selfRefFk         = null;
 
-            if (!_platform.isIdentityOverrideOn() &&
+            if (!_platform.isIdentityOverrideOn(_connection) &&
                 _tablesWithSelfIdentityReference.contains(table))
             {
                 selfRefFk = table.getSelfReferencingForeignKey();
@@ -520,12 +1307,16 @@ public class DataToDatabaseSink implements DataSink
             {
                 _connection.commit();
             }
+            if (_progress != null)
+            {
+                _progress.addRows(table.getName(), 1);
+            }
         }
         catch (Exception ex)
         {
             if (_haltOnErrors)
             {
-                _platform.returnConnection(_connection);
+                releaseConnectionAfterError();
                 throw new DataSinkException(ex);
             }
             else
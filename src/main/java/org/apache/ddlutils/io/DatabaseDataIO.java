@@ -19,26 +19,37 @@ package org.apache.ddlutils.io;
  * under the License.
  */
 
+import java.io.File;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.beanutils.DynaBean;
 import org.apache.commons.collections.map.ListOrderedMap;
+import org.apache.ddlutils.DatabaseOperationException;
 import org.apache.ddlutils.DdlUtilsException;
 import org.apache.ddlutils.Platform;
+import org.apache.ddlutils.metrics.MetricsCollector;
 import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.model.Table;
+import org.apache.ddlutils.platform.CreationParameters;
+import org.apache.ddlutils.platform.ModelBasedResultSetIterator;
 
 /**
  * Provides basic live database data <-> XML functionality.
@@ -55,8 +66,36 @@ public class DatabaseDataIO
     private boolean _ensureFKOrder = true;
     /** Whether we should use batch mode. */
     private boolean _useBatchMode;
+    /** Whether the constraint checks of the database shall be switched off while inserting data. */
+    private boolean _useFastLoadMode;
+    /** Whether the values of identity columns shall be reserved in advance while inserting data. */
+    private boolean _preallocateIdentityValues;
     /** The maximum number of objects to insert in one batch. */
     private Integer _batchSize;
+    /** Whether the batch size shall be adapted per table while inserting data. */
+    private boolean _useAdaptiveBatchSize;
+    /** The smallest batch size when adapting the batch size. */
+    private Integer _minBatchSize;
+    /** The largest batch size when adapting the batch size. */
+    private Integer _maxBatchSize;
+    /** The time in milliseconds that a batch should take when adapting the batch size. */
+    private Long _targetBatchDuration;
+    /** The maximum number of bytes in a batch when adapting the batch size. */
+    private Long _maxBatchBytes;
+    /** The maximum number of indices that are created in parallel after a bulk load. */
+    private int _indexCreationThreads = Runtime.getRuntime().availableProcessors();
+    /** Whether indices created after a bulk load shall be created online. */
+    private boolean _useOnlineIndexCreation;
+    /** The maximum number of tables that are read in parallel when copying data between databases. */
+    private int _copyThreads = 1;
+    /** The maximum number of table groups that are inserted in parallel when writing data to a database. */
+    private int _loadThreads = 1;
+    /** The maximum number of data files that are loaded in parallel when writing data to a database. */
+    private int _fileThreads = 1;
+    /** The listeners that are informed about the progress of the data operations. */
+    private ArrayList _progressListeners = new ArrayList();
+    /** Whether to count the rows of the tables for the progress if the database has no statistics. */
+    private boolean _countRowsForProgress;
 
     /** Whether DdlUtils should search for the schema of the tables. @deprecated */
     private boolean _determineSchema;
@@ -113,6 +152,50 @@ public class DatabaseDataIO
         _useBatchMode = useBatchMode;
     }
 
+    /**
+     * Determines whether the foreign key checks of the database are switched off while inserting
+     * data into the database.
+     * 
+     * @return <code>true</code> if the fast load mode is used
+     */
+    public boolean getUseFastLoadMode()
+    {
+        return _useFastLoadMode;
+    }
+
+    /**
+     * Specifies whether the foreign key checks (and where possible, the index maintenance) of the
+     * database shall be switched off while inserting data into the database.
+     * 
+     * @param useFastLoadMode <code>true</code> if the fast load mode shall be used
+     */
+    public void setUseFastLoadMode(boolean useFastLoadMode)
+    {
+        _useFastLoadMode = useFastLoadMode;
+    }
+
+    /**
+     * Determines whether the values of identity columns are reserved in advance while inserting
+     * data into the database.
+     * 
+     * @return <code>true</code> if identity values are reserved in advance
+     */
+    public boolean getPreallocateIdentityValues()
+    {
+        return _preallocateIdentityValues;
+    }
+
+    /**
+     * Specifies whether the values of identity columns shall be reserved in advance while
+     * inserting data into the database, instead of being read back after each insert.
+     * 
+     * @param preallocateIdentityValues <code>true</code> if identity values shall be reserved in advance
+     */
+    public void setPreallocateIdentityValues(boolean preallocateIdentityValues)
+    {
+        _preallocateIdentityValues = preallocateIdentityValues;
+    }
+
     /**
      * Returns the batch size override.
      * 
@@ -134,6 +217,111 @@ public class DatabaseDataIO
         _batchSize = batchSize;
     }
 
+    /**
+     * Determines whether the batch size is adapted per table while inserting data in batch mode.
+     * 
+     * @return <code>true</code> if the batch size is adapted
+     */
+    public boolean isUseAdaptiveBatchSize()
+    {
+        return _useAdaptiveBatchSize;
+    }
+
+    /**
+     * Specifies whether the batch size shall be adapted per table while inserting data in batch
+     * mode (see {@link DataToDatabaseSink#setUseAdaptiveBatchSize(boolean)}).
+     * 
+     * @param useAdaptiveBatchSize <code>true</code> if the batch size shall be adapted
+     */
+    public void setUseAdaptiveBatchSize(boolean useAdaptiveBatchSize)
+    {
+        _useAdaptiveBatchSize = useAdaptiveBatchSize;
+    }
+
+    /**
+     * Returns the override of the smallest batch size when adapting the batch size.
+     * 
+     * @return The batch size if different from the default, <code>null</code> otherwise
+     */
+    public Integer getMinBatchSize()
+    {
+        return _minBatchSize;
+    }
+
+    /**
+     * Sets the smallest batch size when adapting the batch size.
+     * 
+     * @param minBatchSize The batch size if different from the default, or <code>null</code> if
+     *                     the default shall be used
+     */
+    public void setMinBatchSize(Integer minBatchSize)
+    {
+        _minBatchSize = minBatchSize;
+    }
+
+    /**
+     * Returns the override of the largest batch size when adapting the batch size.
+     * 
+     * @return The batch size if different from the default, <code>null</code> otherwise
+     */
+    public Integer getMaxBatchSize()
+    {
+        return _maxBatchSize;
+    }
+
+    /**
+     * Sets the largest batch size when adapting the batch size.
+     * 
+     * @param maxBatchSize The batch size if different from the default, or <code>null</code> if
+     *                     the default shall be used
+     */
+    public void setMaxBatchSize(Integer maxBatchSize)
+    {
+        _maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Returns the override of the time that a batch should take when adapting the batch size.
+     * 
+     * @return The time in milliseconds if different from the default, <code>null</code> otherwise
+     */
+    public Long getTargetBatchDuration()
+    {
+        return _targetBatchDuration;
+    }
+
+    /**
+     * Sets the time that a batch should take when adapting the batch size.
+     * 
+     * @param targetBatchDuration The time in milliseconds if different from the default, or
+     *                            <code>null</code> if the default shall be used
+     */
+    public void setTargetBatchDuration(Long targetBatchDuration)
+    {
+        _targetBatchDuration = targetBatchDuration;
+    }
+
+    /**
+     * Returns the override of the maximum number of bytes in a batch when adapting the batch size.
+     * 
+     * @return The number of bytes if different from the default, <code>null</code> otherwise
+     */
+    public Long getMaxBatchBytes()
+    {
+        return _maxBatchBytes;
+    }
+
+    /**
+     * Sets the maximum number of bytes in a batch when adapting the batch size.
+     * 
+     * @param maxBatchBytes The number of bytes if different from the default, or <code>null</code>
+     *                      if the default shall be used
+     */
+    public void setMaxBatchBytes(Long maxBatchBytes)
+    {
+        _maxBatchBytes = maxBatchBytes;
+    }
+
     /**
      * Determines whether the sink delays the insertion of beans so that the beans referenced by it
      * via foreignkeys are already inserted into the database.
@@ -159,6 +347,299 @@ public class DatabaseDataIO
         _ensureFKOrder = ensureFKOrder;
     }
 
+    /**
+     * Returns the maximum number of tables whose indices are created in parallel after a bulk
+     * load. Per default, this is the number of processors available to the JVM.
+     *
+     * @return The number of tables
+     */
+    public int getIndexCreationThreads()
+    {
+        return _indexCreationThreads;
+    }
+
+    /**
+     * Sets the maximum number of tables whose indices are created in parallel after a bulk
+     * load. Each of them uses its own database connection.
+     *
+     * @param indexCreationThreads The number of tables
+     */
+    public void setIndexCreationThreads(int indexCreationThreads)
+    {
+        _indexCreationThreads = indexCreationThreads;
+    }
+
+    /**
+     * Determines whether the indices that are created after a bulk load are created online,
+     * i.e. without locking out concurrent changes to the tables. Default is <code>false</code>.
+     *
+     * @return <code>true</code> if indices are created online
+     */
+    public boolean isUseOnlineIndexCreation()
+    {
+        return _useOnlineIndexCreation;
+    }
+
+    /**
+     * Specifies whether the indices that are created after a bulk load shall be created online,
+     * i.e. without locking out concurrent changes to the tables. This is only useful if the tables
+     * are accessed during the index creation, as online creation usually takes longer, and is
+     * ignored for databases that don't support it.
+     *
+     * @param useOnlineIndexCreation <code>true</code> if indices shall be created online
+     */
+    public void setUseOnlineIndexCreation(boolean useOnlineIndexCreation)
+    {
+        _useOnlineIndexCreation = useOnlineIndexCreation;
+    }
+
+    /**
+     * Returns the maximum number of tables that are read in parallel from the source database
+     * when copying data between databases. Default is <code>1</code>.
+     *
+     * @return The number of tables
+     */
+    public int getCopyThreads()
+    {
+        return _copyThreads;
+    }
+
+    /**
+     * Sets the maximum number of tables that are read in parallel from the source database
+     * when copying data between databases. Each of them uses its own database connection.
+     * Only tables that do not depend on each other via foreign keys are read in parallel.
+     *
+     * @param copyThreads The number of tables
+     */
+    public void setCopyThreads(int copyThreads)
+    {
+        _copyThreads = copyThreads;
+    }
+
+    /**
+     * Returns the maximum number of table groups that are inserted in parallel when writing
+     * data into a database. Default is <code>1</code>.
+     *
+     * @return The number of table groups
+     */
+    public int getLoadThreads()
+    {
+        return _loadThreads;
+    }
+
+    /**
+     * Sets the maximum number of table groups that are inserted in parallel when writing data
+     * into a database. If this is more than <code>1</code>, then a {@link ParallelDataToDatabaseSink}
+     * is used, where each worker uses its own database connection.
+     *
+     * @param loadThreads The number of table groups
+     */
+    public void setLoadThreads(int loadThreads)
+    {
+        _loadThreads = loadThreads;
+    }
+
+    /**
+     * Returns the maximum number of data files that are read and written into the database
+     * in parallel. Default is <code>1</code>.
+     *
+     * @return The number of files
+     */
+    public int getFileThreads()
+    {
+        return _fileThreads;
+    }
+
+    /**
+     * Sets the maximum number of data files that are read and written into the database in
+     * parallel. If this is more than <code>1</code>, then multiple files are loaded via a
+     * {@link ParallelDataLoader}, where each worker uses its own data reader, sink and database
+     * connection. Files that depend on each other via foreign keys are still loaded one after
+     * the other.
+     *
+     * @param fileThreads The number of files
+     */
+    public void setFileThreads(int fileThreads)
+    {
+        _fileThreads = fileThreads;
+    }
+
+    /**
+     * Adds a listener that is informed about the progress of the data operations. For every
+     * operation, a new {@link DataProgress} object is created.
+     *
+     * @param listener The listener
+     */
+    public void addProgressListener(ProgressListener listener)
+    {
+        _progressListeners.add(listener);
+    }
+
+    /**
+     * Removes a progress listener.
+     *
+     * @param listener The listener
+     */
+    public void removeProgressListener(ProgressListener listener)
+    {
+        _progressListeners.remove(listener);
+    }
+
+    /**
+     * Determines whether the rows of the tables are counted when writing the data of a database
+     * to XML or copying it, if the database has no statistics about the number of rows.
+     * Default is <code>false</code>.
+     *
+     * @return <code>true</code> if the rows are counted
+     */
+    public boolean isCountRowsForProgress()
+    {
+        return _countRowsForProgress;
+    }
+
+    /**
+     * Specifies whether the rows of the tables shall be counted when writing the data of a database
+     * to XML or copying it, if the database has no statistics about the number of rows. The row
+     * counts are only used for estimating the remaining time of the operation, and are only
+     * determined if there are progress listeners. Note that counting the rows can take some time
+     * for large tables.
+     *
+     * @param countRowsForProgress <code>true</code> if the rows shall be counted
+     */
+    public void setCountRowsForProgress(boolean countRowsForProgress)
+    {
+        _countRowsForProgress = countRowsForProgress;
+    }
+
+    /**
+     * Creates a progress object for a new data operation if there are progress listeners.
+     * 
+     * @return The progress object or <code>null</code> if there are no listeners
+     */
+    private DataProgress createProgress()
+    {
+        if (_progressListeners.isEmpty())
+        {
+            return null;
+        }
+
+        DataProgress progress = new DataProgress();
+
+        for (Iterator it = _progressListeners.iterator(); it.hasNext();)
+        {
+            progress.addProgressListener((ProgressListener)it.next());
+        }
+        return progress;
+    }
+
+    /**
+     * Determines the estimated row counts of the given tables for the progress. These are taken from
+     * the table statistics of the database, or if the database has none, and row counting is switched
+     * on, by counting the rows.
+     * 
+     * @param platform The platform; needs to be connected to a live database
+     * @param tables   The tables
+     * @param progress The progress object
+     */
+    private void estimateRowCounts(Platform platform, Table[] tables, DataProgress progress)
+    {
+        Connection connection = platform.borrowConnection();
+
+        try
+        {
+            DatabaseMetaData metaData = connection.getMetaData();
+
+            for (int idx = 0; idx < tables.length; idx++)
+            {
+                long numRows = getRowCountFromStatistics(metaData, tables[idx]);
+
+                if ((numRows < 0) && _countRowsForProgress)
+                {
+                    numRows = countRows(platform, connection, tables[idx]);
+                }
+                if (numRows >= 0)
+                {
+                    progress.setEstimatedRowCount(tables[idx].getName(), numRows);
+                }
+            }
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while determining the row counts of the tables", ex);
+        }
+        finally
+        {
+            platform.returnConnection(connection);
+        }
+    }
+
+    /**
+     * Returns the number of rows of the given table as recorded in the statistics of the database.
+     * 
+     * @param metaData The database metadata
+     * @param table    The table
+     * @return The number of rows or <code>-1</code> if the database has no statistics for the table
+     */
+    private long getRowCountFromStatistics(DatabaseMetaData metaData, Table table)
+    {
+        ResultSet result = null;
+
+        try
+        {
+            result = metaData.getIndexInfo(null, null, table.getName(), false, true);
+            while (result.next())
+            {
+                if (result.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic)
+                {
+                    return result.getLong("CARDINALITY");
+                }
+            }
+        }
+        catch (SQLException ex)
+        {
+            // not all drivers support this, so we simply have no estimate then
+        }
+        finally
+        {
+            if (result != null)
+            {
+                try
+                {
+                    result.close();
+                }
+                catch (SQLException ex)
+                {
+                    // ignored
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Counts the rows of the given table.
+     * 
+     * @param platform   The platform
+     * @param connection The connection
+     * @param table      The table
+     * @return The number of rows
+     */
+    private long countRows(Platform platform, Connection connection, Table table) throws SQLException
+    {
+        Statement statement = connection.createStatement();
+
+        try
+        {
+            ResultSet result = statement.executeQuery(platform.getSqlBuilder().getCountSql(table));
+
+            return result.next() ? result.getLong(1) : 0;
+        }
+        finally
+        {
+            statement.close();
+        }
+    }
+
     /**
      * Specifies whether DdlUtils should try to find the schema of the tables when reading data
      * from a live database.
@@ -276,7 +757,7 @@ public class DatabaseDataIO
      */
     public void writeDataToXML(Platform platform, String path, String xmlEncoding) throws DdlUtilsException
     {
-        writeDataToXML(platform, getConfiguredDataWriter(path, xmlEncoding));
+        writeDataToXML(platform, platform.readModelFromDatabase("unnamed"), path, xmlEncoding);
     }
 
     /**
@@ -290,7 +771,14 @@ public class DatabaseDataIO
      */
     public void writeDataToXML(Platform platform, Database model, String path, String xmlEncoding)
     {
-        writeDataToXML(platform, model, getConfiguredDataWriter(path, xmlEncoding));
+        try
+        {
+            writeDataToXML(platform, model, new FileOutputStream(path), xmlEncoding);
+        }
+        catch (IOException ex)
+        {
+            throw new DdlUtilsException(ex);
+        }
     }
 
     /**
@@ -303,7 +791,7 @@ public class DatabaseDataIO
      */
     public void writeDataToXML(Platform platform, OutputStream output, String xmlEncoding)
     {
-        writeDataToXML(platform, getConfiguredDataWriter(output, xmlEncoding));
+        writeDataToXML(platform, platform.readModelFromDatabase("unnamed"), output, xmlEncoding);
     }
 
     /**
@@ -317,7 +805,25 @@ public class DatabaseDataIO
      */
     public void writeDataToXML(Platform platform, Database model, OutputStream output, String xmlEncoding)
     {
-        writeDataToXML(platform, model, getConfiguredDataWriter(output, xmlEncoding));
+        DataProgress progress = createProgress();
+
+        if ((platform.getMetricsCollector() == null) && (progress == null))
+        {
+            writeDataToXML(platform, model, getConfiguredDataWriter(output, xmlEncoding), null);
+        }
+        else
+        {
+            CountingOutputStream countingOutput = new CountingOutputStream(output, progress);
+
+            try
+            {
+                writeDataToXML(platform, model, getConfiguredDataWriter(countingOutput, xmlEncoding), progress);
+            }
+            finally
+            {
+                recordBytesWritten(platform, countingOutput.getCount());
+            }
+        }
     }
 
     /**
@@ -354,33 +860,125 @@ public class DatabaseDataIO
      * @param platform The platform; needs to be connected to a live database
      * @param writer   The data writer
      */
-    public void writeDataToXML(Platform platform, DataWriter writer)
+    public void writeDataToXML(Platform platform, DataWriter writer)
+    {
+        writeDataToXML(platform, platform.readModelFromDatabase("unnamed"), writer);
+    }
+
+    /**
+     * Writes the data contained in the database to which the given platform is connected, as XML
+     * to the given data writer.
+     *  
+     * @param platform The platform; needs to be connected to a live database
+     * @param model    The model for which to retrieve and write the data
+     * @param writer   The data writer
+     */
+    public void writeDataToXML(Platform platform, Database model, DataWriter writer)
+    {
+        writeDataToXML(platform, model, writer, createProgress());
+    }
+
+    /**
+     * Writes the data contained in the database to which the given platform is connected, as XML
+     * to the given data writer.
+     *  
+     * @param platform The platform; needs to be connected to a live database
+     * @param model    The model for which to retrieve and write the data
+     * @param writer   The data writer
+     * @param progress The progress object to which the written rows are added, can be <code>null</code>
+     */
+    private void writeDataToXML(Platform platform, Database model, DataWriter writer, DataProgress progress)
+    {
+        registerConverters(writer.getConverterConfiguration());
+
+        // TODO: An advanced algorithm could be employed here that writes individual
+        //       objects related by foreign keys, in the correct order
+        List tables = sortTables(model.getTables());
+
+        if (progress != null)
+        {
+            estimateRowCounts(platform, model.getTables(), progress);
+            progress.start();
+        }
+        try
+        {
+            writer.writeDocumentStart();
+            for (Iterator it = tables.iterator(); it.hasNext();)
+            {
+                writeDataForTableToXML(platform, model, (Table)it.next(), writer, progress);
+            }
+            writer.writeDocumentEnd();
+        }
+        finally
+        {
+            if (progress != null)
+            {
+                progress.finish();
+            }
+        }
+    }
+
+    /**
+     * Writes the data contained in the database to which the given platform is connected, as
+     * CSV files into the given directory, one file per table named after the table.
+     *  
+     * @param platform  The platform; needs to be connected to a live database
+     * @param directory The directory to write the files to; will be created if necessary
+     * @see Platform#exportTableToCsv(Connection, Table, File)
+     */
+    public void writeDataToCsv(Platform platform, File directory) throws DdlUtilsException
     {
-        writeDataToXML(platform, platform.readModelFromDatabase("unnamed"), writer);
+        writeDataToCsv(platform, platform.readModelFromDatabase("unnamed"), directory);
     }
 
     /**
-     * Writes the data contained in the database to which the given platform is connected, as XML
-     * to the given data writer.
+     * Writes the data contained in the database to which the given platform is connected, as
+     * CSV files into the given directory, one file per table named after the table. The rows
+     * are not read as beans but written directly, using the native export facilities of the
+     * database where available.
      *  
-     * @param platform The platform; needs to be connected to a live database
-     * @param model    The model for which to retrieve and write the data
-     * @param writer   The data writer
+     * @param platform  The platform; needs to be connected to a live database
+     * @param model     The model for which to retrieve and write the data
+     * @param directory The directory to write the files to; will be created if necessary
+     * @see Platform#exportTableToCsv(Connection, Table, File)
      */
-    public void writeDataToXML(Platform platform, Database model, DataWriter writer)
+    public void writeDataToCsv(Platform platform, Database model, File directory) throws DdlUtilsException
     {
-        registerConverters(writer.getConverterConfiguration());
+        if (!directory.isDirectory() && !directory.mkdirs())
+        {
+            throw new DdlUtilsException("Could not create the directory " + directory.getAbsolutePath());
+        }
 
-        // TODO: An advanced algorithm could be employed here that writes individual
-        //       objects related by foreign keys, in the correct order
-        List tables = sortTables(model.getTables());
+        DataProgress progress   = createProgress();
+        Connection   connection = platform.borrowConnection();
+
+        if (progress != null)
+        {
+            progress.start();
+        }
+        try
+        {
+            for (int idx = 0; idx < model.getTableCount(); idx++)
+            {
+                Table table = model.getTable(idx);
+                File  file  = new File(directory, table.getName() + ".csv");
 
-        writer.writeDocumentStart();
-        for (Iterator it = tables.iterator(); it.hasNext();)
+                platform.exportTableToCsv(connection, table, file);
+                recordBytesWritten(platform, file.length());
+                if (progress != null)
+                {
+                    progress.addBytes(file.length());
+                }
+            }
+        }
+        finally
         {
-            writeDataForTableToXML(platform, model, (Table)it.next(), writer);
+            platform.returnConnection(connection);
+            if (progress != null)
+            {
+                progress.finish();
+            }
         }
-        writer.writeDocumentEnd();
     }
 
     /**
@@ -390,8 +988,29 @@ public class DatabaseDataIO
      * @return The sorted tables
      */
     private List sortTables(Table[] tables)
+    {
+        ArrayList result = new ArrayList();
+        List      levels = getTableLevels(tables);
+
+        for (Iterator it = levels.iterator(); it.hasNext();)
+        {
+            result.addAll((List)it.next());
+        }
+        return result;
+    }
+
+    /**
+     * Groups the given tables into levels according to their foreign key order. The tables of
+     * a level only refer to tables of previous levels or to themselves. Tables within circular
+     * dependencies are returned as the last level.
+     * 
+     * @param tables The tables
+     * @return The levels, which are lists of tables
+     */
+    private List getTableLevels(Table[] tables)
     {
         ArrayList      result    = new ArrayList();
+        ArrayList      level     = new ArrayList();
         HashSet        processed = new HashSet();
         ListOrderedMap pending   = new ListOrderedMap();
 
@@ -401,7 +1020,7 @@ public class DatabaseDataIO
 
             if (table.getForeignKeyCount() == 0)
             {
-                result.add(table);
+                level.add(table);
                 processed.add(table);
             }
             else
@@ -420,12 +1039,17 @@ public class DatabaseDataIO
                 pending.put(table, waitedFor);
             }
         }
+        if (!level.isEmpty())
+        {
+            result.add(level);
+        }
 
         HashSet newProcessed = new HashSet();
 
         while (!processed.isEmpty() && !pending.isEmpty())
         {
             newProcessed.clear();
+            level = new ArrayList();
             for (Iterator it = pending.entrySet().iterator(); it.hasNext();)
             {
                 Map.Entry entry     = (Map.Entry)it.next();
@@ -436,10 +1060,14 @@ public class DatabaseDataIO
                 if (waitedFor.isEmpty())
                 {
                     it.remove();
-                    result.add(table);
+                    level.add(table);
                     newProcessed.add(table);
                 }
             }
+            if (!level.isEmpty())
+            {
+                result.add(level);
+            }
             processed.clear();
 
             HashSet tmp = processed;
@@ -448,9 +1076,9 @@ public class DatabaseDataIO
             newProcessed = tmp;
         }
         // the remaining are within circular dependencies
-        for (Iterator it = pending.keySet().iterator(); it.hasNext();)
+        if (!pending.isEmpty())
         {
-            result.add(it.next());
+            result.add(new ArrayList(pending.keySet()));
         }
         return result;
     }
@@ -462,8 +1090,9 @@ public class DatabaseDataIO
      * @param model    The database model
      * @param table    The table 
      * @param writer   The data writer
+     * @param progress The progress object to which the written rows are added, can be <code>null</code>
      */
-    private void writeDataForTableToXML(Platform platform, Database model, Table table, DataWriter writer)
+    private void writeDataForTableToXML(Platform platform, Database model, Table table, DataWriter writer, DataProgress progress)
     {
         Table[]      tables = { table };
         StringBuffer query  = new StringBuffer();
@@ -489,14 +1118,7 @@ public class DatabaseDataIO
             {
                 if (connection != null)
                 {
-                    try
-                    {
-                        connection.close();
-                    }
-                    catch (SQLException ex)
-                    {
-                        // ignored
-                    }
+                    platform.returnConnection(connection);
                 }
             }
         }
@@ -535,7 +1157,9 @@ public class DatabaseDataIO
             query.append(platform.getPlatformInfo().getDelimiterToken());
         }
 
-        writer.write(platform.query(model, query.toString(), tables));
+        Iterator beans = platform.query(model, query.toString(), tables);
+
+        writer.write(progress == null ? beans : new ProgressIterator(beans, table.getName(), progress));
     }
 
     /**
@@ -548,21 +1172,69 @@ public class DatabaseDataIO
      */
     public DataReader getConfiguredDataReader(Platform platform, Database model) throws DdlUtilsException
     {
-        DataToDatabaseSink sink     = new DataToDatabaseSink(platform, model);
-        DataReader         reader   = new DataReader();
+        DataReader reader = new DataReader();
+
+        DataToDatabaseSink sink = getConfiguredDataSink(platform, model);
+
+        reader.setModel(model);
+        reader.setSink(sink);
+        reader.setProgress(sink.getProgress());
+        reader.setMetricsCollector(platform.getMetricsCollector());
+        registerConverters(reader.getConverterConfiguration());
+        return reader;
+    }
+
+    /**
+     * Returns a data sink instance configured for the given platform (which needs to
+     * be connected to a live database) and model.
+     * 
+     * @param platform The database
+     * @param model    The model
+     * @return The data sink
+     */
+    public DataToDatabaseSink getConfiguredDataSink(Platform platform, Database model) throws DdlUtilsException
+    {
+        DataToDatabaseSink sink;
+
+        if (_loadThreads > 1)
+        {
+            ParallelDataToDatabaseSink parallelSink = new ParallelDataToDatabaseSink(platform, model);
 
+            parallelSink.setThreadCount(_loadThreads);
+            sink = parallelSink;
+        }
+        else
+        {
+            sink = new DataToDatabaseSink(platform, model);
+        }
         sink.setHaltOnErrors(_failOnError);
         sink.setEnsureForeignKeyOrder(_ensureFKOrder);
         sink.setUseBatchMode(_useBatchMode);
+        sink.setUseFastLoadMode(_useFastLoadMode);
+        sink.setPreallocateIdentityValues(_preallocateIdentityValues);
         if (_batchSize != null)
         {
             sink.setBatchSize(_batchSize.intValue());
         }
-        
-        reader.setModel(model);
-        reader.setSink(sink);
-        registerConverters(reader.getConverterConfiguration());
-        return reader;
+        sink.setUseAdaptiveBatchSize(_useAdaptiveBatchSize);
+        if (_minBatchSize != null)
+        {
+            sink.setMinBatchSize(_minBatchSize.intValue());
+        }
+        if (_maxBatchSize != null)
+        {
+            sink.setMaxBatchSize(_maxBatchSize.intValue());
+        }
+        if (_targetBatchDuration != null)
+        {
+            sink.setTargetBatchDuration(_targetBatchDuration.longValue());
+        }
+        if (_maxBatchBytes != null)
+        {
+            sink.setMaxBatchBytes(_maxBatchBytes.longValue());
+        }
+        sink.setProgress(createProgress());
+        return sink;
     }
 
     /**
@@ -603,7 +1275,8 @@ public class DatabaseDataIO
 
     /**
      * Reads the data from the indicated files and writes it to the database to which the given
-     * platform is connected. Only data that matches the given model will be written.
+     * platform is connected. Only data that matches the given model will be written. If more
+     * than one file thread is configured, then the files are loaded in parallel where possible.
      * 
      * @param platform The platform, must be connected to a live database
      * @param model    The model to which to constrain the written data
@@ -611,14 +1284,44 @@ public class DatabaseDataIO
      */
     public void writeDataToDatabase(Platform platform, Database model, String[] files) throws DdlUtilsException
     {
-        DataReader dataReader = getConfiguredDataReader(platform, model); 
+        if ((_fileThreads > 1) && (files != null) && (files.length > 1))
+        {
+            ParallelDataLoader loader   = new ParallelDataLoader(this, platform, model);
+            DataProgress       progress = createProgress();
 
-        dataReader.getSink().start();
-        for (int idx = 0; (files != null) && (idx < files.length); idx++)
+            for (int idx = 0; (progress != null) && (idx < files.length); idx++)
+            {
+                progress.addExpectedBytes(new File(files[idx]).length());
+            }
+            loader.setThreadCount(_fileThreads);
+            loader.load(files, progress);
+        }
+        else
         {
-            writeDataToDatabase(dataReader, files[idx]);
+            DataReader dataReader = getConfiguredDataReader(platform, model); 
+
+            for (int idx = 0; (files != null) && (dataReader.getProgress() != null) && (idx < files.length); idx++)
+            {
+                dataReader.getProgress().addExpectedBytes(new File(files[idx]).length());
+            }
+            DataToDatabaseSink sink = (DataToDatabaseSink)dataReader.getSink();
+
+            sink.start();
+            try
+            {
+                for (int idx = 0; (files != null) && (idx < files.length); idx++)
+                {
+                    writeDataToDatabase(dataReader, files[idx]);
+                }
+            }
+            catch (RuntimeException ex)
+            {
+                // switches the constraint checks back on and returns the connection
+                sink.abort();
+                throw ex;
+            }
+            sink.end();
         }
-        dataReader.getSink().end();
     }
 
     /**
@@ -631,14 +1334,24 @@ public class DatabaseDataIO
      */
     public void writeDataToDatabase(Platform platform, Database model, InputStream[] inputs) throws DdlUtilsException
     {
-        DataReader dataReader = getConfiguredDataReader(platform, model); 
+        DataReader         dataReader = getConfiguredDataReader(platform, model); 
+        DataToDatabaseSink sink       = (DataToDatabaseSink)dataReader.getSink();
 
-        dataReader.getSink().start();
-        for (int idx = 0; (inputs != null) && (idx < inputs.length); idx++)
+        sink.start();
+        try
         {
-            writeDataToDatabase(dataReader, inputs[idx]);
+            for (int idx = 0; (inputs != null) && (idx < inputs.length); idx++)
+            {
+                writeDataToDatabase(dataReader, inputs[idx]);
+            }
         }
-        dataReader.getSink().end();
+        catch (RuntimeException ex)
+        {
+            // switches the constraint checks back on and returns the connection
+            sink.abort();
+            throw ex;
+        }
+        sink.end();
     }
 
     /**
@@ -651,14 +1364,242 @@ public class DatabaseDataIO
      */
     public void writeDataToDatabase(Platform platform, Database model, Reader[] inputs) throws DdlUtilsException
     {
-        DataReader dataReader = getConfiguredDataReader(platform, model); 
+        DataReader         dataReader = getConfiguredDataReader(platform, model); 
+        DataToDatabaseSink sink       = (DataToDatabaseSink)dataReader.getSink();
 
-        dataReader.getSink().start();
-        for (int idx = 0; (inputs != null) && (idx < inputs.length); idx++)
+        sink.start();
+        try
         {
-            writeDataToDatabase(dataReader, inputs[idx]);
+            for (int idx = 0; (inputs != null) && (idx < inputs.length); idx++)
+            {
+                writeDataToDatabase(dataReader, inputs[idx]);
+            }
+        }
+        catch (RuntimeException ex)
+        {
+            // switches the constraint checks back on and returns the connection
+            sink.abort();
+            throw ex;
+        }
+        sink.end();
+    }
+
+    /**
+     * Copies the data contained in the database to which the source platform is connected,
+     * into the database to which the target platform is connected. The tables must exist in
+     * the target database already.
+     * 
+     * @param sourcePlatform The platform to read the data from; needs to be connected to a live database
+     * @param targetPlatform The platform to write the data to; needs to be connected to a live database
+     */
+    public void copyData(Platform sourcePlatform, Platform targetPlatform) throws DdlUtilsException
+    {
+        copyData(sourcePlatform, sourcePlatform.readModelFromDatabase("unnamed"), targetPlatform);
+    }
+
+    /**
+     * Copies the data contained in the database to which the source platform is connected,
+     * into the database to which the target platform is connected, without an intermediate
+     * file. The rows are streamed table by table in foreign key order into the target database,
+     * using the same mechanisms as {@link #writeDataToDatabase(Platform, Database, String[])}.
+     * If more than one copy thread is configured, then tables that do not depend on each other
+     * are read in parallel.
+     * 
+     * @param sourcePlatform The platform to read the data from; needs to be connected to a live database
+     * @param model          The model for which to copy the data; the tables must exist in both databases
+     * @param targetPlatform The platform to write the data to; needs to be connected to a live database
+     */
+    public void copyData(Platform sourcePlatform, Database model, Platform targetPlatform) throws DdlUtilsException
+    {
+        DataToDatabaseSink sink = getConfiguredDataSink(targetPlatform, model);
+
+        if (sink.getProgress() != null)
+        {
+            estimateRowCounts(sourcePlatform, model.getTables(), sink.getProgress());
         }
-        dataReader.getSink().end();
+        sink.start();
+        try
+        {
+            for (Iterator it = getTableLevels(model.getTables()).iterator(); it.hasNext();)
+            {
+                List tables = (List)it.next();
+
+                if ((_copyThreads > 1) && (tables.size() > 1))
+                {
+                    copyTablesInParallel(sourcePlatform, model, tables, sink);
+                }
+                else
+                {
+                    for (Iterator tableIt = tables.iterator(); tableIt.hasNext();)
+                    {
+                        copyDataForTable(sourcePlatform, model, (Table)tableIt.next(), sink, 1);
+                    }
+                }
+            }
+        }
+        catch (RuntimeException ex)
+        {
+            // switches the constraint checks back on and returns the connection
+            sink.abort();
+            throw ex;
+        }
+        sink.end();
+    }
+
+    /**
+     * Reads the given tables in parallel from the source database and passes their rows to
+     * the sink. Each of the worker threads uses its own connection.
+     * 
+     * @param sourcePlatform The platform to read the data from
+     * @param model          The model
+     * @param tables         The tables to copy
+     * @param sink           The sink that writes the data
+     */
+    private void copyTablesInParallel(final Platform sourcePlatform, final Database model, List tables, final DataToDatabaseSink sink) throws DdlUtilsException
+    {
+        final Iterator tableIt   = tables.iterator();
+        final List     failures  = Collections.synchronizedList(new ArrayList());
+        final int      chunkSize = Math.max(sink.getBatchSize(), 1);
+        Thread[]       workers   = new Thread[Math.min(_copyThreads, tables.size())];
+
+        for (int idx = 0; idx < workers.length; idx++)
+        {
+            workers[idx] = new Thread(new Runnable() {
+                public void run()
+                {
+                    try
+                    {
+                        while (failures.isEmpty())
+                        {
+                            Table table = null;
+
+                            synchronized (tableIt)
+                            {
+                                if (!tableIt.hasNext())
+                                {
+                                    break;
+                                }
+                                table = (Table)tableIt.next();
+                            }
+                            copyDataForTable(sourcePlatform, model, table, sink, chunkSize);
+                        }
+                    }
+                    catch (RuntimeException ex)
+                    {
+                        failures.add(ex);
+                    }
+                }
+            }, "DdlUtils copy worker " + idx);
+            workers[idx].start();
+        }
+        try
+        {
+            for (int idx = 0; idx < workers.length; idx++)
+            {
+                workers[idx].join();
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            throw new DdlUtilsException("Interrupted while waiting for the data to be copied", ex);
+        }
+        if (!failures.isEmpty())
+        {
+            throw (RuntimeException)failures.get(0);
+        }
+    }
+
+    /**
+     * Reads the rows of the given table from the source database and passes them to the sink.
+     * The rows are handed over in chunks of the given size, during which the sink is locked.
+     * 
+     * @param sourcePlatform The platform to read the data from
+     * @param model          The model
+     * @param table          The table to copy
+     * @param sink           The sink that writes the data
+     * @param chunkSize      The number of rows to hand over at once
+     */
+    private void copyDataForTable(Platform sourcePlatform, Database model, Table table, DataSink sink, int chunkSize) throws DdlUtilsException
+    {
+        String    sql   = sourcePlatform.getSqlBuilder().getSelectSql(table, table.getColumns());
+        Iterator  it    = sourcePlatform.query(model, sql, new Table[] { table });
+        ArrayList chunk = new ArrayList(chunkSize);
+
+        try
+        {
+            while (it.hasNext())
+            {
+                chunk.add(it.next());
+                if (chunk.size() >= chunkSize)
+                {
+                    addBeansToSink(sink, chunk);
+                }
+            }
+            addBeansToSink(sink, chunk);
+        }
+        finally
+        {
+            if (it instanceof ModelBasedResultSetIterator)
+            {
+                ((ModelBasedResultSetIterator)it).cleanUp();
+            }
+        }
+    }
+
+    /**
+     * Passes the given beans to the sink and clears the list.
+     * 
+     * @param sink  The sink
+     * @param beans The beans
+     */
+    private void addBeansToSink(DataSink sink, List beans)
+    {
+        synchronized (sink)
+        {
+            for (Iterator it = beans.iterator(); it.hasNext();)
+            {
+                sink.addBean((DynaBean)it.next());
+            }
+        }
+        beans.clear();
+    }
+
+    /**
+     * Creates the tables of the given model and loads the data from the indicated files into them
+     * in bulk-load mode. The tables are first created without their indices and foreign keys, so
+     * that these don't have to be maintained while the data is inserted. Afterwards the indices are
+     * created in parallel, and finally the foreign keys are added.
+     * 
+     * @param platform        The platform, must be connected to a live database
+     * @param model           The model to create and to which to constrain the written data
+     * @param params          The parameters used in the creation of the tables
+     * @param dropTablesFirst Whether to drop the tables prior to creating them (anew)
+     * @param files           The XML data files
+     */
+    public void writeModelAndDataToDatabase(Platform platform, Database model, CreationParameters params, boolean dropTablesFirst, String[] files) throws DdlUtilsException
+    {
+        platform.createTablesForBulkLoad(model, params, dropTablesFirst, !_failOnError);
+        writeDataToDatabase(platform, model, files);
+        platform.createIndicesAndForeignKeys(model, _indexCreationThreads, _useOnlineIndexCreation, !_failOnError);
+    }
+
+    /**
+     * Creates the tables of the given model and loads the data from the given input readers into
+     * them in bulk-load mode. The tables are first created without their indices and foreign keys,
+     * so that these don't have to be maintained while the data is inserted. Afterwards the indices
+     * are created in parallel, and finally the foreign keys are added.
+     * 
+     * @param platform        The platform, must be connected to a live database
+     * @param model           The model to create and to which to constrain the written data
+     * @param params          The parameters used in the creation of the tables
+     * @param dropTablesFirst Whether to drop the tables prior to creating them (anew)
+     * @param inputs          The input readers for the XML data
+     */
+    public void writeModelAndDataToDatabase(Platform platform, Database model, CreationParameters params, boolean dropTablesFirst, Reader[] inputs) throws DdlUtilsException
+    {
+        platform.createTablesForBulkLoad(model, params, dropTablesFirst, !_failOnError);
+        writeDataToDatabase(platform, model, inputs);
+        platform.createIndicesAndForeignKeys(model, _indexCreationThreads, _useOnlineIndexCreation, !_failOnError);
     }
 
     /**
@@ -772,4 +1713,131 @@ public class DatabaseDataIO
             throw new DdlUtilsException(ex);
         }
     }
+
+    /**
+     * Records the number of bytes written into a data file, if the platform collects metrics.
+     * 
+     * @param platform The platform
+     * @param numBytes The number of bytes
+     */
+    private void recordBytesWritten(Platform platform, long numBytes)
+    {
+        if (platform.getMetricsCollector() != null)
+        {
+            platform.getMetricsCollector().increment(MetricsCollector.BYTES_WRITTEN, numBytes);
+        }
+    }
+
+    /**
+     * Output stream that counts the bytes written through it.
+     */
+    private static class CountingOutputStream extends FilterOutputStream
+    {
+        /** The progress to which the written bytes are added, if any. */
+        private final DataProgress _progress;
+        /** The number of bytes written so far. */
+        private long _count;
+
+        /**
+         * Creates a new counting output stream.
+         * 
+         * @param output   The output stream to write to
+         * @param progress The progress to which the written bytes are added, can be <code>null</code>
+         */
+        public CountingOutputStream(OutputStream output, DataProgress progress)
+        {
+            super(output);
+            _progress = progress;
+        }
+
+        /**
+         * Returns the number of bytes written so far.
+         * 
+         * @return The number of bytes
+         */
+        public long getCount()
+        {
+            return _count;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void write(int value) throws IOException
+        {
+            out.write(value);
+            _count++;
+            if (_progress != null)
+            {
+                _progress.addBytes(1);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void write(byte[] data, int offset, int length) throws IOException
+        {
+            out.write(data, offset, length);
+            _count += length;
+            if (_progress != null)
+            {
+                _progress.addBytes(length);
+            }
+        }
+    }
+
+    /**
+     * Iterator that adds the rows that it returns to a progress object.
+     */
+    private static class ProgressIterator implements Iterator
+    {
+        /** The iterator that returns the rows. */
+        private final Iterator _beans;
+        /** The name of the table of the rows. */
+        private final String _tableName;
+        /** The progress. */
+        private final DataProgress _progress;
+
+        /**
+         * Creates a new progress iterator.
+         * 
+         * @param beans     The iterator that returns the rows
+         * @param tableName The name of the table of the rows
+         * @param progress  The progress
+         */
+        public ProgressIterator(Iterator beans, String tableName, DataProgress progress)
+        {
+            _beans     = beans;
+            _tableName = tableName;
+            _progress  = progress;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean hasNext()
+        {
+            return _beans.hasNext();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Object next()
+        {
+            Object bean = _beans.next();
+
+            _progress.addRows(_tableName, 1);
+            return bean;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void remove()
+        {
+            _beans.remove();
+        }
+    }
 }
@@ -107,6 +107,16 @@ public class Identity
         return _columnValues.get(name);
     }
 
+    /**
+     * Returns the number of identity columns.
+     * 
+     * @return The number of columns
+     */
+    public int getColumnCount()
+    {
+        return _columnValues.size();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -119,7 +129,8 @@ public class Identity
 
         Identity otherIdentity = (Identity)obj;
 
-        if (!_table.equals(otherIdentity._table))
+        // comparing the tables is expensive, and the identities usually share the table objects
+        if ((_table != otherIdentity._table) && !_table.equals(otherIdentity._table))
         {
             return false;
         }
@@ -156,7 +167,9 @@ public class Identity
      */
     public int hashCode()
     {
-        return toString().hashCode();
+        String tableName = _table.getName();
+
+        return (tableName == null ? 0 : tableName.hashCode()) ^ _columnValues.hashCode();
     }
 
     /**
@@ -0,0 +1,528 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+import org.apache.ddlutils.model.Column;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Maps the original identities of inserted rows to the identities that the rows have in
+ * the database, which differ when the database generated the primary key values. The map
+ * can be used by multiple threads at the same time: the entries are distributed over a
+ * number of stripes which are locked independently of each other.<br/>
+ * The identities of tables with a single integer primary key column are not stored as
+ * {@link Identity} objects but as pairs of <code>long</code> values in an open addressing
+ * hash table, which takes only a fraction of the memory.
+ * 
+ * @version $Revision: $
+ */
+public class IdentityMap
+{
+    /** The default number of stripes. */
+    public static final int DEFAULT_STRIPE_COUNT = 16;
+
+    /** The primary key columns of the tables that have exactly one primary key column. */
+    private final IdentityHashMap _keyColumns = new IdentityHashMap();
+    /** The stripes. */
+    private final Stripe[] _stripes;
+
+    /**
+     * Creates a new identity map for the tables of the given model.
+     * 
+     * @param model The database model
+     */
+    public IdentityMap(Database model)
+    {
+        this(model, DEFAULT_STRIPE_COUNT);
+    }
+
+    /**
+     * Creates a new identity map for the tables of the given model.
+     * 
+     * @param model       The database model
+     * @param stripeCount The number of stripes, which is rounded up to the next power of two
+     */
+    public IdentityMap(Database model, int stripeCount)
+    {
+        int count = 1;
+
+        while (count < stripeCount)
+        {
+            count <<= 1;
+        }
+        _stripes = new Stripe[count];
+        for (int idx = 0; idx < count; idx++)
+        {
+            _stripes[idx] = new Stripe();
+        }
+        for (int tableIdx = 0; tableIdx < model.getTableCount(); tableIdx++)
+        {
+            Table    table     = model.getTable(tableIdx);
+            Column[] pkColumns = table.getPrimaryKeyColumns();
+
+            if (pkColumns.length == 1)
+            {
+                _keyColumns.put(table, pkColumns[0]);
+            }
+        }
+    }
+
+    /**
+     * Records the identity that a row has in the database.
+     * 
+     * @param origIdentity The original identity of the row
+     * @param newIdentity  The identity of the row in the database
+     */
+    public void put(Identity origIdentity, Identity newIdentity)
+    {
+        Table  table   = origIdentity.getTable();
+        Column column  = (Column)_keyColumns.get(table);
+        Object origKey = getKeyValue(column, origIdentity);
+        Object newKey  = getKeyValue(column, newIdentity);
+
+        if ((origKey != null) && (newKey != null))
+        {
+            long   key    = ((Number)origKey).longValue();
+            Stripe stripe = _stripes[getStripeIndex(table, key)];
+
+            synchronized (stripe)
+            {
+                if (stripe.putKey(table, key, (Number)newKey))
+                {
+                    return;
+                }
+                stripe.put(origIdentity, newIdentity);
+            }
+        }
+        else
+        {
+            Stripe stripe = _stripes[getStripeIndex(origIdentity, origKey)];
+
+            synchronized (stripe)
+            {
+                stripe.put(origIdentity, newIdentity);
+            }
+        }
+    }
+
+    /**
+     * Returns the identity that the row with the given original identity has in the database.
+     * 
+     * @param origIdentity The original identity of the row
+     * @return The identity of the row in the database, or <code>null</code> if the row has not
+     *         been recorded yet
+     */
+    public Identity get(Identity origIdentity)
+    {
+        Table  table   = origIdentity.getTable();
+        Column column  = (Column)_keyColumns.get(table);
+        Object origKey = getKeyValue(column, origIdentity);
+        Stripe stripe  = _stripes[getStripeIndex(origIdentity, origKey)];
+        Number newKey  = null;
+
+        synchronized (stripe)
+        {
+            if (origKey != null)
+            {
+                newKey = stripe.getKey(table, ((Number)origKey).longValue());
+            }
+            if (newKey == null)
+            {
+                return stripe.get(origIdentity);
+            }
+        }
+
+        Identity result = new Identity(table);
+
+        result.setColumnValue(column.getName(), newKey);
+        return result;
+    }
+
+    /**
+     * Returns the number of recorded identities.
+     * 
+     * @return The number of identities
+     */
+    public int size()
+    {
+        int result = 0;
+
+        for (int idx = 0; idx < _stripes.length; idx++)
+        {
+            synchronized (_stripes[idx])
+            {
+                result += _stripes[idx].size();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes all recorded identities.
+     */
+    public void clear()
+    {
+        for (int idx = 0; idx < _stripes.length; idx++)
+        {
+            synchronized (_stripes[idx])
+            {
+                _stripes[idx].clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the value of the given identity if it consists only of the value of the given
+     * primary key column, and this value is an integer number that fits into a <code>long</code>.
+     * 
+     * @param column   The primary key column, can be <code>null</code>
+     * @param identity The identity
+     * @return The value or <code>null</code> if the identity cannot be encoded as a number
+     */
+    private Object getKeyValue(Column column, Identity identity)
+    {
+        if ((column == null) || (identity.getColumnCount() != 1))
+        {
+            return null;
+        }
+
+        Object value = identity.getColumnValue(column.getName());
+
+        if ((value instanceof Integer) || (value instanceof Long) ||
+            (value instanceof Short) || (value instanceof Byte))
+        {
+            return value;
+        }
+        else if (value instanceof BigDecimal)
+        {
+            BigDecimal decimal = (BigDecimal)value;
+
+            if ((decimal.scale() == 0) && (decimal.unscaledValue().bitLength() < 64))
+            {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Determines the stripe for an identity.
+     * 
+     * @param identity The identity
+     * @param keyValue The numeric value of the identity if it has one
+     * @return The index of the stripe
+     */
+    private int getStripeIndex(Identity identity, Object keyValue)
+    {
+        if (keyValue != null)
+        {
+            return getStripeIndex(identity.getTable(), ((Number)keyValue).longValue());
+        }
+        else
+        {
+            return spread(identity.hashCode()) & (_stripes.length - 1);
+        }
+    }
+
+    /**
+     * Determines the stripe for an identity that is given by a number.
+     * 
+     * @param table The table of the identity
+     * @param key   The numeric value of the identity
+     * @return The index of the stripe
+     */
+    private int getStripeIndex(Table table, long key)
+    {
+        return spread(System.identityHashCode(table) + 31 * (int)(key ^ (key >>> 32))) & (_stripes.length - 1);
+    }
+
+    /**
+     * Spreads the bits of the given hash code so that consecutive values end up
+     * in different buckets.
+     * 
+     * @param hashCode The hash code
+     * @return The spread hash code
+     */
+    private static int spread(int hashCode)
+    {
+        int result = hashCode * 0x9E3779B9;
+
+        return result ^ (result >>> 16);
+    }
+
+    /**
+     * One stripe of the map. The methods must be called with the stripe locked.
+     */
+    private static class Stripe
+    {
+        /** The identities that are not stored as numbers. */
+        private final HashMap _identities = new HashMap();
+        /** The numerically stored identities per table. */
+        private final IdentityHashMap _numericKeys = new IdentityHashMap();
+
+        /**
+         * Returns the identity that is stored for the given one.
+         * 
+         * @param origIdentity The original identity
+         * @return The identity or <code>null</code>
+         */
+        public Identity get(Identity origIdentity)
+        {
+            return _identities.isEmpty() ? null : (Identity)_identities.get(origIdentity);
+        }
+
+        /**
+         * Stores an identity.
+         * 
+         * @param origIdentity The original identity
+         * @param newIdentity  The new identity
+         */
+        public void put(Identity origIdentity, Identity newIdentity)
+        {
+            _identities.put(origIdentity, newIdentity);
+        }
+
+        /**
+         * Returns the numeric identity that is stored for the given one.
+         * 
+         * @param table   The table
+         * @param origKey The original numeric identity
+         * @return The new numeric identity or <code>null</code>
+         */
+        public Number getKey(Table table, long origKey)
+        {
+            NumericKeys keys = (NumericKeys)_numericKeys.get(table);
+
+            return keys == null ? null : keys.get(origKey);
+        }
+
+        /**
+         * Stores a numeric identity.
+         * 
+         * @param table   The table
+         * @param origKey The original numeric identity
+         * @param newKey  The new numeric identity
+         * @return <code>false</code> if the identity could not be stored as a number
+         */
+        public boolean putKey(Table table, long origKey, Number newKey)
+        {
+            NumericKeys keys = (NumericKeys)_numericKeys.get(table);
+
+            if (keys == null)
+            {
+                keys = new NumericKeys(newKey.getClass());
+                _numericKeys.put(table, keys);
+            }
+            return keys.put(origKey, newKey);
+        }
+
+        /**
+         * Returns the number of stored identities.
+         * 
+         * @return The number of identities
+         */
+        public int size()
+        {
+            int result = _identities.size();
+
+            for (Iterator it = _numericKeys.values().iterator(); it.hasNext();)
+            {
+                result += ((NumericKeys)it.next()).size();
+            }
+            return result;
+        }
+
+        /**
+         * Removes all identities.
+         */
+        public void clear()
+        {
+            _identities.clear();
+            _numericKeys.clear();
+        }
+    }
+
+    /**
+     * An open addressing hash table that maps the numeric original identities of a table
+     * to the numeric identities in the database.
+     */
+    private static class NumericKeys
+    {
+        /** The initial capacity of the table. */
+        private static final int INITIAL_CAPACITY = 16;
+
+        /** The type of the values of the primary key column. */
+        private final Class _valueType;
+        /** The original identities. */
+        private long[] _keys = new long[INITIAL_CAPACITY];
+        /** The new identities. */
+        private long[] _values = new long[INITIAL_CAPACITY];
+        /** Which slots of the table are used. */
+        private boolean[] _used = new boolean[INITIAL_CAPACITY];
+        /** The number of stored identities. */
+        private int _size;
+
+        /**
+         * Creates a new table.
+         * 
+         * @param valueType The type of the values of the primary key column
+         */
+        public NumericKeys(Class valueType)
+        {
+            _valueType = valueType;
+        }
+
+        /**
+         * Returns the number of stored identities.
+         * 
+         * @return The number of identities
+         */
+        public int size()
+        {
+            return _size;
+        }
+
+        /**
+         * Returns the new identity for the given original one.
+         * 
+         * @param key The original identity
+         * @return The new identity or <code>null</code>
+         */
+        public Number get(long key)
+        {
+            int slot = findSlot(_keys, _used, key);
+
+            return _used[slot] ? toNumber(_values[slot]) : null;
+        }
+
+        /**
+         * Stores the new identity for the given original one.
+         * 
+         * @param key   The original identity
+         * @param value The new identity
+         * @return <code>false</code> if the new identity is not of the type of the other identities
+         */
+        public boolean put(long key, Number value)
+        {
+            if (value.getClass() != _valueType)
+            {
+                return false;
+            }
+
+            int slot = findSlot(_keys, _used, key);
+
+            if (!_used[slot])
+            {
+                // we keep the table at most two thirds full
+                if (3 * (_size + 1) > 2 * _keys.length)
+                {
+                    grow();
+                    slot = findSlot(_keys, _used, key);
+                }
+                _used[slot] = true;
+                _keys[slot] = key;
+                _size++;
+            }
+            _values[slot] = value.longValue();
+            return true;
+        }
+
+        /**
+         * Doubles the capacity of the table.
+         */
+        private void grow()
+        {
+            long[]    oldKeys   = _keys;
+            long[]    oldValues = _values;
+            boolean[] oldUsed   = _used;
+
+            _keys   = new long[oldKeys.length * 2];
+            _values = new long[oldKeys.length * 2];
+            _used   = new boolean[oldKeys.length * 2];
+            for (int idx = 0; idx < oldKeys.length; idx++)
+            {
+                if (oldUsed[idx])
+                {
+                    int slot = findSlot(_keys, _used, oldKeys[idx]);
+
+                    _used[slot]   = true;
+                    _keys[slot]   = oldKeys[idx];
+                    _values[slot] = oldValues[idx];
+                }
+            }
+        }
+
+        /**
+         * Finds the slot that contains the given key, or the free slot where it would be stored.
+         * 
+         * @param keys The keys
+         * @param used Which slots are used
+         * @param key  The key
+         * @return The slot
+         */
+        private static int findSlot(long[] keys, boolean[] used, long key)
+        {
+            int mask = keys.length - 1;
+            int slot = spread((int)(key ^ (key >>> 32))) & mask;
+
+            while (used[slot] && (keys[slot] != key))
+            {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Converts the given value to the type of the primary key column.
+         * 
+         * @param value The value
+         * @return The number
+         */
+        private Number toNumber(long value)
+        {
+            if (_valueType == Integer.class)
+            {
+                return new Integer((int)value);
+            }
+            else if (_valueType == Long.class)
+            {
+                return new Long(value);
+            }
+            else if (_valueType == Short.class)
+            {
+                return new Short((short)value);
+            }
+            else if (_valueType == Byte.class)
+            {
+                return new Byte((byte)value);
+            }
+            else
+            {
+                return BigDecimal.valueOf(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.text.DecimalFormat;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A progress listener that periodically logs the progress of a data operation at info level,
+ * i.e. the number of processed rows and bytes, the throughput, the estimated remaining time
+ * and the table that is currently processed. When the operation has finished, it logs the
+ * totals and the number of rows and throughput of each table.
+ *
+ * @version $Revision: $
+ */
+public class LoggingProgressListener implements ProgressListener
+{
+    /** The log to write to. */
+    private final Log _log;
+    /** The minimum time in milliseconds between two progress messages. */
+    private final long _interval;
+    /** The time of the last progress message. */
+    private long _lastLogTime;
+    /** The name of the table whose rows were processed last. */
+    private String _currentTableName;
+
+    /**
+     * Creates a new listener that logs to the log of this class.
+     *
+     * @param interval The minimum time in milliseconds between two progress messages
+     */
+    public LoggingProgressListener(long interval)
+    {
+        this(LogFactory.getLog(LoggingProgressListener.class), interval);
+    }
+
+    /**
+     * Creates a new listener.
+     *
+     * @param log      The log to write to
+     * @param interval The minimum time in milliseconds between two progress messages
+     */
+    public LoggingProgressListener(Log log, long interval)
+    {
+        _log      = log;
+        _interval = interval;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized void started(DataProgress progress)
+    {
+        _lastLogTime      = System.currentTimeMillis();
+        _currentTableName = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void rowsProcessed(DataProgress progress, String tableName, int numRows)
+    {
+        synchronized (this)
+        {
+            _currentTableName = tableName;
+        }
+        logProgressIfDue(progress);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void bytesProcessed(DataProgress progress, long numBytes)
+    {
+        logProgressIfDue(progress);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void finished(DataProgress progress)
+    {
+        if (_log.isInfoEnabled())
+        {
+            String[]      tableNames = progress.getTableNames();
+            DecimalFormat format     = new DecimalFormat("0.0");
+
+            _log.info("Finished after " + formatTime(progress.getElapsedTime()) + ": " + progress.getRowCount() +
+                      " rows (" + format.format(progress.getRowsPerSecond()) + " rows/s)" + formatBytes(progress));
+            for (int idx = 0; idx < tableNames.length; idx++)
+            {
+                _log.info("  " + tableNames[idx] + ": " + progress.getRowCount(tableNames[idx]) +
+                          " rows (" + format.format(progress.getRowsPerSecond(tableNames[idx])) + " rows/s)");
+            }
+        }
+    }
+
+    /**
+     * Logs the progress if the interval has passed since the last message.
+     *
+     * @param progress The progress
+     */
+    private void logProgressIfDue(DataProgress progress)
+    {
+        String tableName;
+
+        synchronized (this)
+        {
+            long now = System.currentTimeMillis();
+
+            if (now - _lastLogTime < _interval)
+            {
+                return;
+            }
+            _lastLogTime = now;
+            tableName    = _currentTableName;
+        }
+        if (_log.isInfoEnabled())
+        {
+            DecimalFormat format   = new DecimalFormat("0.0");
+            StringBuffer  msg      = new StringBuffer();
+            double        fraction = progress.getCompletedFraction();
+
+            msg.append("Processed ");
+            msg.append(progress.getRowCount());
+            msg.append(" rows (");
+            msg.append(format.format(progress.getRowsPerSecond()));
+            msg.append(" rows/s)");
+            msg.append(formatBytes(progress));
+            if (fraction >= 0.0)
+            {
+                msg.append(", ");
+                msg.append((int)(fraction * 100));
+                msg.append("% done, about ");
+                msg.append(formatTime(progress.getEstimatedTimeRemaining()));
+                msg.append(" remaining");
+            }
+            if (tableName != null)
+            {
+                long estimatedRows = progress.getEstimatedRowCount(tableName);
+
+                msg.append("; current table ");
+                msg.append(tableName);
+                msg.append(": ");
+                msg.append(progress.getRowCount(tableName));
+                if (estimatedRows >= 0)
+                {
+                    msg.append(" of about ");
+                    msg.append(estimatedRows);
+                }
+                msg.append(" rows (");
+                msg.append(format.format(progress.getRowsPerSecond(tableName)));
+                msg.append(" rows/s)");
+            }
+            _log.info(msg.toString());
+        }
+    }
+
+    /**
+     * Formats the number of processed bytes for the log messages.
+     *
+     * @param progress The progress
+     * @return The text, which is empty if no bytes were processed
+     */
+    private String formatBytes(DataProgress progress)
+    {
+        long numBytes = progress.getByteCount();
+
+        if (numBytes == 0)
+        {
+            return "";
+        }
+        return ", " + new DecimalFormat("0.0").format(numBytes / (1024.0 * 1024.0)) + " MB";
+    }
+
+    /**
+     * Formats the given time as <code>hh:mm:ss</code>.
+     *
+     * @param time The time in milliseconds
+     * @return The formatted time
+     */
+    private String formatTime(long time)
+    {
+        DecimalFormat format  = new DecimalFormat("00");
+        long          seconds = time / 1000;
+
+        return format.format(seconds / 3600) + ":" + format.format((seconds / 60) % 60) + ":" + format.format(seconds % 60);
+    }
+}
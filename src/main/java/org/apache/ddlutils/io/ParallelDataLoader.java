@@ -0,0 +1,771 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ddlutils.DatabaseOperationException;
+import org.apache.ddlutils.DdlUtilsException;
+import org.apache.ddlutils.Platform;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Reads multiple data files in parallel and writes their data into the database. Each worker
+ * thread uses its own {@link DataReader} and {@link DataToDatabaseSink} configured by a
+ * {@link DatabaseDataIO}, and thus its own database connection.<br/>
+ * The files are first scanned for the tables that they contain data for. Files whose rows may
+ * reference each other are combined into one job that is read by one worker: this is the case
+ * for files containing data of the same self-referencing table, or of tables whose foreign keys
+ * form a cycle (see {@link TableGroups}). All other files are separate jobs, so the chunks of a
+ * large table are loaded in parallel even if other tables reference that table. A job is started
+ * only after all jobs containing data of the tables that it references are done; jobs that would
+ * depend on each other are combined. The workers share one {@link IdentityMap} so that rows can
+ * reference rows whose identity values were generated by the database for another job.<br/>
+ * If the fast load mode is used, the constraint checks are switched off once for all workers
+ * via a separate connection. On platforms where this only affects the session of that connection
+ * (see {@link org.apache.ddlutils.PlatformInfo#isBulkLoadStateSessionScoped()}), the sinks of
+ * the workers additionally switch them off for the sessions of their own connections.
+ * 
+ * @version $Revision: $
+ */
+public class ParallelDataLoader
+{
+    /** Our log. */
+    private final Log _log = LogFactory.getLog(ParallelDataLoader.class);
+
+    /** Creates the readers and sinks. */
+    private final DatabaseDataIO _dataIO;
+    /** The database platform. */
+    private final Platform _platform;
+    /** The database model. */
+    private final Database _model;
+    /** The maximum number of jobs that are loaded at the same time. */
+    private int _threadCount = Runtime.getRuntime().availableProcessors();
+    /** The jobs of the current load. */
+    private List _jobs;
+    /** Maps the original identities of the inserted rows to their identities in the database. */
+    private IdentityMap _identityMap;
+    /** The first error that occurred in a worker. */
+    private RuntimeException _failure;
+    /** Counts the starts and completions of the jobs of the current load. */
+    private int _eventCount;
+
+    /**
+     * Creates a new loader.
+     * 
+     * @param dataIO   The object that creates the readers and sinks
+     * @param platform The database platform
+     * @param model    The database model
+     */
+    public ParallelDataLoader(DatabaseDataIO dataIO, Platform platform, Database model)
+    {
+        _dataIO   = dataIO;
+        _platform = platform;
+        _model    = model;
+    }
+
+    /**
+     * Returns the maximum number of jobs that are loaded at the same time.
+     *
+     * @return The number of threads
+     */
+    public int getThreadCount()
+    {
+        return _threadCount;
+    }
+
+    /**
+     * Sets the maximum number of jobs that are loaded at the same time.
+     *
+     * @param threadCount The number of threads
+     */
+    public void setThreadCount(int threadCount)
+    {
+        _threadCount = threadCount;
+    }
+
+    /**
+     * Loads the data of the given files into the database.
+     * 
+     * @param files    The XML data files
+     * @param progress The progress of the load, can be <code>null</code>
+     */
+    public void load(String[] files, DataProgress progress) throws DdlUtilsException
+    {
+        Connection bulkLoadConnection = null;
+
+        _jobs        = createJobs(files);
+        _identityMap = new IdentityMap(_model);
+        _failure     = null;
+        _eventCount  = 0;
+        if (progress != null)
+        {
+            progress.start();
+        }
+        if (_dataIO.getUseFastLoadMode())
+        {
+            // the constraint checks are switched off once for all workers
+            bulkLoadConnection = _platform.borrowConnection();
+            try
+            {
+                _platform.beforeBulkLoad(bulkLoadConnection, _model);
+            }
+            catch (DatabaseOperationException ex)
+            {
+                _platform.returnConnection(bulkLoadConnection);
+                throw ex;
+            }
+        }
+        try
+        {
+            runWorkers(progress);
+        }
+        finally
+        {
+            if (bulkLoadConnection != null)
+            {
+                try
+                {
+                    _platform.afterBulkLoad(bulkLoadConnection, _model);
+                }
+                finally
+                {
+                    _platform.returnConnection(bulkLoadConnection);
+                }
+            }
+            if (progress != null)
+            {
+                progress.finish();
+            }
+        }
+        if (_failure != null)
+        {
+            throw _failure;
+        }
+    }
+
+    /**
+     * Returns the jobs of the last load.
+     * 
+     * @return The jobs
+     */
+    List getJobs()
+    {
+        return _jobs;
+    }
+
+    /**
+     * Starts the workers and waits until they are done.
+     * 
+     * @param progress The progress of the load, can be <code>null</code>
+     */
+    private void runWorkers(final DataProgress progress) throws DdlUtilsException
+    {
+        Thread[] workers = new Thread[Math.max(1, Math.min(_threadCount, _jobs.size()))];
+
+        for (int idx = 0; idx < workers.length; idx++)
+        {
+            workers[idx] = new Thread(new Runnable() {
+                public void run()
+                {
+                    try
+                    {
+                        LoadJob job = takeNextJob();
+
+                        while (job != null)
+                        {
+                            loadJob(job, progress);
+                            job = takeNextJob();
+                        }
+                    }
+                    catch (RuntimeException ex)
+                    {
+                        synchronized (ParallelDataLoader.this)
+                        {
+                            if (_failure == null)
+                            {
+                                _failure = ex;
+                            }
+                            ParallelDataLoader.this.notifyAll();
+                        }
+                    }
+                }
+            }, "DdlUtils file load worker " + idx);
+            workers[idx].start();
+        }
+        try
+        {
+            for (int idx = 0; idx < workers.length; idx++)
+            {
+                workers[idx].join();
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            throw new DdlUtilsException("Interrupted while waiting for the data to be loaded", ex);
+        }
+    }
+
+    /**
+     * Waits until there is a job whose referenced jobs are done, and assigns it to the
+     * current worker.
+     * 
+     * @return The job, or <code>null</code> if all jobs are done or a worker has failed
+     */
+    private synchronized LoadJob takeNextJob()
+    {
+        try
+        {
+            while (_failure == null)
+            {
+                boolean allCompleted = true;
+
+                for (Iterator it = _jobs.iterator(); it.hasNext();)
+                {
+                    LoadJob job = (LoadJob)it.next();
+
+                    if (!job.isCompleted())
+                    {
+                        allCompleted = false;
+                        if (!job.isAssigned() && job.areReferencedJobsCompleted())
+                        {
+                            job.setAssigned(true);
+                            job.setStartIndex(_eventCount++);
+                            return job;
+                        }
+                    }
+                }
+                if (allCompleted)
+                {
+                    return null;
+                }
+                wait();
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            throw new DdlUtilsException("Interrupted while waiting for the next data file", ex);
+        }
+        return null;
+    }
+
+    /**
+     * Reads the files of the given job and writes their data into the database.
+     * 
+     * @param job      The job
+     * @param progress The progress of the load, can be <code>null</code>
+     */
+    private void loadJob(LoadJob job, DataProgress progress) throws DdlUtilsException
+    {
+        DataReader         reader = _dataIO.getConfiguredDataReader(_platform, _model);
+        DataToDatabaseSink sink   = (DataToDatabaseSink)reader.getSink();
+        DataProgress       part   = progress == null ? null : progress.createPart();
+        List               tables = new ArrayList();
+
+        // the fast load mode is prepared by us except for the sessions of the sink,
+        // and reserving identity values changes the platform for all workers
+        if (_dataIO.getUseFastLoadMode() && _platform.getPlatformInfo().isBulkLoadStateSessionScoped())
+        {
+            sink.setUseFastLoadMode(true);
+            sink.setBulkLoadSessionOnly(true);
+        }
+        else
+        {
+            sink.setUseFastLoadMode(false);
+        }
+        sink.setPreallocateIdentityValues(false);
+        sink.setProgress(part);
+        reader.setProgress(part);
+        for (int idx = 0; idx < _model.getTableCount(); idx++)
+        {
+            if (!job.containsTable(_model.getTable(idx)))
+            {
+                tables.add(_model.getTable(idx));
+            }
+        }
+        sink.setCompletedTables((Table[])tables.toArray(new Table[tables.size()]));
+        sink.setIdentityMap(_identityMap);
+        sink.start();
+        try
+        {
+            for (Iterator it = job.getFiles().iterator(); it.hasNext();)
+            {
+                String file = (String)it.next();
+
+                _dataIO.writeDataToDatabase(reader, file);
+                if (_log.isDebugEnabled())
+                {
+                    _log.debug("Written data from file " + file + " to database");
+                }
+            }
+        }
+        catch (RuntimeException ex)
+        {
+            sink.abort();
+            throw ex;
+        }
+        sink.end();
+        synchronized (this)
+        {
+            job.setCompleted(true);
+            job.setCompletionIndex(_eventCount++);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Divides the given files into jobs, and determines which jobs have to be done before
+     * the others.
+     * 
+     * @param files The files
+     * @return The jobs
+     */
+    private List createJobs(String[] files) throws DdlUtilsException
+    {
+        DataReader  scanner      = new DataReader();
+        TableGroups groups       = new TableGroups(_model);
+        int[]       jobOfFile    = new int[files.length];
+        Table[][]   tablesOfFile = new Table[files.length][];
+        int[]       firstFileOfGroup;
+
+        scanner.setModel(_model);
+
+        // files with data of the same self-referencing table or of tables in the same cycle have
+        // to be loaded together, whereas the rows of other tables only reference rows of other
+        // jobs that are done before
+        firstFileOfGroup = new int[groups.getGroupCount()];
+        for (int idx = 0; idx < firstFileOfGroup.length; idx++)
+        {
+            firstFileOfGroup[idx] = -1;
+        }
+        for (int fileIdx = 0; fileIdx < files.length; fileIdx++)
+        {
+            jobOfFile[fileIdx]    = fileIdx;
+            tablesOfFile[fileIdx] = scanner.determineTables(new File(files[fileIdx]));
+            for (int tableIdx = 0; tableIdx < tablesOfFile[fileIdx].length; tableIdx++)
+            {
+                Table table    = tablesOfFile[fileIdx][tableIdx];
+                int   groupIdx = groups.getGroupIndex(table);
+
+                if ((groups.getTables(groupIdx).length > 1) || isSelfReferencing(table))
+                {
+                    if (firstFileOfGroup[groupIdx] < 0)
+                    {
+                        firstFileOfGroup[groupIdx] = fileIdx;
+                    }
+                    else
+                    {
+                        joinJobs(jobOfFile, firstFileOfGroup[groupIdx], fileIdx);
+                    }
+                }
+            }
+        }
+
+        // jobs that depend on each other are combined
+        boolean joined = true;
+
+        while (joined)
+        {
+            int[][]   referencedJobs = determineReferencedJobs(jobOfFile, tablesOfFile);
+            boolean[] finished       = new boolean[files.length];
+
+            joined = false;
+            for (int fileIdx = 0; !joined && (fileIdx < files.length); fileIdx++)
+            {
+                joined = joinCycles(jobOfFile, referencedJobs, findJob(jobOfFile, fileIdx), new ArrayList(), finished);
+            }
+        }
+
+        // finally we create the jobs
+        int[][]   referencedJobs = determineReferencedJobs(jobOfFile, tablesOfFile);
+        LoadJob[] jobs           = new LoadJob[files.length];
+        List      result         = new ArrayList();
+
+        for (int fileIdx = 0; fileIdx < files.length; fileIdx++)
+        {
+            int jobIdx = findJob(jobOfFile, fileIdx);
+
+            if (jobs[jobIdx] == null)
+            {
+                jobs[jobIdx] = new LoadJob();
+                result.add(jobs[jobIdx]);
+            }
+            jobs[jobIdx].addFile(files[fileIdx], tablesOfFile[fileIdx]);
+        }
+        for (int jobIdx = 0; jobIdx < jobs.length; jobIdx++)
+        {
+            for (int idx = 0; (jobs[jobIdx] != null) && (idx < referencedJobs[jobIdx].length); idx++)
+            {
+                jobs[jobIdx].addReferencedJob(jobs[referencedJobs[jobIdx][idx]]);
+            }
+        }
+        if (_log.isDebugEnabled())
+        {
+            _log.debug("Loading " + files.length + " data files in " + result.size() + " jobs");
+        }
+        return result;
+    }
+
+    /**
+     * Determines whether the given table has a foreign key to itself.
+     * 
+     * @param table The table
+     * @return <code>true</code> if the table references itself
+     */
+    private boolean isSelfReferencing(Table table)
+    {
+        for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++)
+        {
+            if (table.getForeignKey(fkIdx).getForeignTable() == table)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of the job of the indicated file, which is the index of one of its files.
+     * 
+     * @param jobOfFile The job indices by file, only up to date for the files representing a job
+     * @param fileIdx   The index of the file
+     * @return The index of the job
+     */
+    private int findJob(int[] jobOfFile, int fileIdx)
+    {
+        int jobIdx = fileIdx;
+
+        while (jobOfFile[jobIdx] != jobIdx)
+        {
+            jobIdx = jobOfFile[jobIdx];
+        }
+        jobOfFile[fileIdx] = jobIdx;
+        return jobIdx;
+    }
+
+    /**
+     * Puts the two indicated files into the same job.
+     * 
+     * @param jobOfFile The job indices by file
+     * @param fileIdx1  The index of the first file
+     * @param fileIdx2  The index of the second file
+     */
+    private void joinJobs(int[] jobOfFile, int fileIdx1, int fileIdx2)
+    {
+        jobOfFile[findJob(jobOfFile, fileIdx2)] = findJob(jobOfFile, fileIdx1);
+    }
+
+    /**
+     * Determines for each job the other jobs containing data of the tables that the tables of the
+     * job reference.
+     * 
+     * @param jobOfFile    The job indices by file
+     * @param tablesOfFile The tables by file
+     * @return The indices of the referenced jobs, by job index; empty for indices that aren't jobs
+     */
+    private int[][] determineReferencedJobs(int[] jobOfFile, Table[][] tablesOfFile)
+    {
+        IdentityHashMap jobsOfTable    = new IdentityHashMap();
+        int[][]         referencedJobs = new int[jobOfFile.length][];
+
+        for (int fileIdx = 0; fileIdx < jobOfFile.length; fileIdx++)
+        {
+            Integer jobIdx = new Integer(findJob(jobOfFile, fileIdx));
+
+            for (int tableIdx = 0; tableIdx < tablesOfFile[fileIdx].length; tableIdx++)
+            {
+                List jobIndices = (List)jobsOfTable.get(tablesOfFile[fileIdx][tableIdx]);
+
+                if (jobIndices == null)
+                {
+                    jobIndices = new ArrayList();
+                    jobsOfTable.put(tablesOfFile[fileIdx][tableIdx], jobIndices);
+                }
+                if (!jobIndices.contains(jobIdx))
+                {
+                    jobIndices.add(jobIdx);
+                }
+            }
+        }
+        for (int jobIdx = 0; jobIdx < jobOfFile.length; jobIdx++)
+        {
+            List result = new ArrayList();
+
+            for (int fileIdx = 0; fileIdx < jobOfFile.length; fileIdx++)
+            {
+                if (findJob(jobOfFile, fileIdx) == jobIdx)
+                {
+                    for (int tableIdx = 0; tableIdx < tablesOfFile[fileIdx].length; tableIdx++)
+                    {
+                        Table table = tablesOfFile[fileIdx][tableIdx];
+
+                        for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++)
+                        {
+                            List jobIndices = (List)jobsOfTable.get(table.getForeignKey(fkIdx).getForeignTable());
+
+                            for (int idx = 0; (jobIndices != null) && (idx < jobIndices.size()); idx++)
+                            {
+                                Integer refJobIdx = (Integer)jobIndices.get(idx);
+
+                                if ((refJobIdx.intValue() != jobIdx) && !result.contains(refJobIdx))
+                                {
+                                    result.add(refJobIdx);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            referencedJobs[jobIdx] = new int[result.size()];
+            for (int idx = 0; idx < result.size(); idx++)
+            {
+                referencedJobs[jobIdx][idx] = ((Integer)result.get(idx)).intValue();
+            }
+        }
+        return referencedJobs;
+    }
+
+    /**
+     * Searches depth-first for a cycle of references between jobs starting at the given job,
+     * and combines the jobs on the first cycle that is found.
+     * 
+     * @param jobOfFile      The job indices by file
+     * @param referencedJobs The indices of the referenced jobs by job index
+     * @param jobIdx         The index of the current job
+     * @param path           The indices of the jobs on the path to the current job
+     * @param finished       The jobs from which no cycle can be reached
+     * @return <code>true</code> if jobs were combined
+     */
+    private boolean joinCycles(int[] jobOfFile, int[][] referencedJobs, int jobIdx, List path, boolean[] finished)
+    {
+        Integer key     = new Integer(jobIdx);
+        int     pathIdx = path.indexOf(key);
+
+        if (finished[jobIdx])
+        {
+            return false;
+        }
+        if (pathIdx >= 0)
+        {
+            for (int idx = pathIdx + 1; idx < path.size(); idx++)
+            {
+                joinJobs(jobOfFile, jobIdx, ((Integer)path.get(idx)).intValue());
+            }
+            return true;
+        }
+        path.add(key);
+        for (int idx = 0; idx < referencedJobs[jobIdx].length; idx++)
+        {
+            if (joinCycles(jobOfFile, referencedJobs, referencedJobs[jobIdx][idx], path, finished))
+            {
+                return true;
+            }
+        }
+        path.remove(path.size() - 1);
+        finished[jobIdx] = true;
+        return false;
+    }
+
+    /**
+     * A group of files that is loaded by one worker with one reader and sink.
+     */
+    static class LoadJob
+    {
+        /** The files in the order in which they were given. */
+        private final List _files = new ArrayList();
+        /** The tables for which the files contain data. */
+        private final IdentityHashMap _tables = new IdentityHashMap();
+        /** The jobs that have to be done before this one. */
+        private final List _referencedJobs = new ArrayList();
+        /** Whether a worker loads this job. */
+        private boolean _assigned;
+        /** Whether the data of this job has been loaded. */
+        private boolean _completed;
+        /** The number of job starts and completions before this job was started. */
+        private int _startIndex = -1;
+        /** The number of job starts and completions before this job was completed. */
+        private int _completionIndex = -1;
+
+        /**
+         * Adds a file to this job.
+         * 
+         * @param file   The file
+         * @param tables The tables for which the file contains data
+         */
+        public void addFile(String file, Table[] tables)
+        {
+            _files.add(file);
+            for (int idx = 0; idx < tables.length; idx++)
+            {
+                _tables.put(tables[idx], tables[idx]);
+            }
+        }
+
+        /**
+         * Returns the files of this job.
+         * 
+         * @return The files
+         */
+        public List getFiles()
+        {
+            return _files;
+        }
+
+        /**
+         * Determines whether the files of this job contain data for the given table.
+         * 
+         * @param table The table
+         * @return <code>true</code> if there is data for the table
+         */
+        public boolean containsTable(Table table)
+        {
+            return _tables.containsKey(table);
+        }
+
+        /**
+         * Returns the jobs that have to be done before this one.
+         * 
+         * @return The jobs
+         */
+        public List getReferencedJobs()
+        {
+            return _referencedJobs;
+        }
+
+        /**
+         * Adds a job that has to be done before this one.
+         * 
+         * @param job The job
+         */
+        public void addReferencedJob(LoadJob job)
+        {
+            _referencedJobs.add(job);
+        }
+
+        /**
+         * Determines whether the jobs that have to be done before this one are done.
+         * 
+         * @return <code>true</code> if the referenced jobs are completed
+         */
+        public boolean areReferencedJobsCompleted()
+        {
+            for (Iterator it = _referencedJobs.iterator(); it.hasNext();)
+            {
+                if (!((LoadJob)it.next()).isCompleted())
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Determines whether a worker loads this job.
+         * 
+         * @return <code>true</code> if the job is assigned to a worker
+         */
+        public boolean isAssigned()
+        {
+            return _assigned;
+        }
+
+        /**
+         * Specifies whether a worker loads this job.
+         * 
+         * @param assigned <code>true</code> if the job is assigned to a worker
+         */
+        public void setAssigned(boolean assigned)
+        {
+            _assigned = assigned;
+        }
+
+        /**
+         * Determines whether the data of this job has been loaded.
+         * 
+         * @return <code>true</code> if the job is completed
+         */
+        public boolean isCompleted()
+        {
+            return _completed;
+        }
+
+        /**
+         * Specifies whether the data of this job has been loaded.
+         * 
+         * @param completed <code>true</code> if the job is completed
+         */
+        public void setCompleted(boolean completed)
+        {
+            _completed = completed;
+        }
+
+        /**
+         * Returns the number of job starts and completions in the load before this job was
+         * started.
+         * 
+         * @return The index, or <code>-1</code> if the job has not been started
+         */
+        public int getStartIndex()
+        {
+            return _startIndex;
+        }
+
+        /**
+         * Sets the number of job starts and completions in the load before this job was
+         * started.
+         * 
+         * @param startIndex The index
+         */
+        public void setStartIndex(int startIndex)
+        {
+            _startIndex = startIndex;
+        }
+
+        /**
+         * Returns the number of job starts and completions in the load before this job was
+         * completed.
+         * 
+         * @return The index, or <code>-1</code> if the job has not been completed
+         */
+        public int getCompletionIndex()
+        {
+            return _completionIndex;
+        }
+
+        /**
+         * Sets the number of job starts and completions in the load before this job was
+         * completed.
+         * 
+         * @param completionIndex The index
+         */
+        public void setCompletionIndex(int completionIndex)
+        {
+            _completionIndex = completionIndex;
+        }
+    }
+}
@@ -0,0 +1,1059 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ddlutils.DatabaseOperationException;
+import org.apache.ddlutils.Platform;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Data sink that inserts the beans into the database using multiple worker threads. The tables
+ * are divided into groups (see {@link TableGroups}), and the beans are queued per group. Each
+ * worker takes a group, and inserts its beans with a {@link DataToDatabaseSink} that uses its
+ * own connection. The groups are scheduled according to the foreign keys: a group is only
+ * inserted after all groups that it references have been completely inserted and committed.<br/>
+ * The queues are bounded by four times the batch size. If a worker inserts the beans of the
+ * group, then adding a bean to a full queue waits for the worker. The beans of groups that
+ * have to wait for the groups referenced by them, or for a free worker, are instead written
+ * to a temporary data file once the queue is full, and are read from there when the group
+ * is inserted. A worker whose group gets no beans for the maximum idle time (see
+ * {@link #setMaxIdleTime(long)}) commits the inserted rows and releases the group if another
+ * group waits for a worker; the group is continued later on by the next free worker.<br/>
+ * Tables that reference each other in a cycle are in the same group. The workers share one
+ * {@link IdentityMap}, so that beans can use the identity values that the database generated
+ * for the beans of referenced groups. Within a group,
+ * the order of the beans is ensured in the same way as by the {@link DataToDatabaseSink}. The
+ * values of identity columns are not reserved in advance by this sink. If the fast load mode is
+ * used, the constraint checks are switched off once for all workers via a separate connection.
+ * On platforms where this only affects the session of that connection (see
+ * {@link org.apache.ddlutils.PlatformInfo#isBulkLoadStateSessionScoped()}), each worker
+ * additionally switches them off for the session of its own connection. If only the sessions
+ * shall be prepared because the tables have already been prepared elsewhere, then the separate
+ * connection is not used.
+ * 
+ * @version $Revision: $
+ */
+public class ParallelDataToDatabaseSink extends DataToDatabaseSink
+{
+    /** Our log. */
+    private final Log _log = LogFactory.getLog(ParallelDataToDatabaseSink.class);
+
+    /** The database platform. */
+    private final Platform _platform;
+    /** The database model. */
+    private final Database _model;
+    /** The maximum number of groups that are inserted at the same time. */
+    private int _threadCount = Runtime.getRuntime().availableProcessors();
+    /** The time in milliseconds after which a worker releases a group that gets no beans. */
+    private long _maxIdleTime = 1000;
+    /** The groups of tables that are inserted independently. */
+    private TableGroups _tableGroups;
+    /** The state of the groups in the current insertion process. */
+    private LoadGroup[] _loadGroups;
+    /** The worker threads. */
+    private Thread[] _workers;
+    /** Whether all beans have been added in the current insertion process. */
+    private boolean _inputFinished;
+    /** The first error that occurred in a worker. */
+    private RuntimeException _failure;
+    /** The connection via which the constraint checks have been switched off. */
+    private Connection _bulkLoadConnection;
+    /** The tables whose rows have all been inserted already by someone else. */
+    private Table[] _completedTables = new Table[0];
+    /** The maximum number of groups that were inserted at the same time. */
+    private int _maxActiveGroups;
+    /** The number of times that a worker released a group before it was completed. */
+    private int _releaseCount;
+
+    /**
+     * Creates a new sink instance.
+     * 
+     * @param platform The database platform
+     * @param model    The database model
+     */
+    public ParallelDataToDatabaseSink(Platform platform, Database model)
+    {
+        super(platform, model);
+        _platform = platform;
+        _model    = model;
+    }
+
+    /**
+     * Returns the maximum number of table groups that are inserted at the same time, each
+     * via its own connection. Per default, this is the number of processors available to
+     * the JVM.
+     *
+     * @return The number of threads
+     */
+    public int getThreadCount()
+    {
+        return _threadCount;
+    }
+
+    /**
+     * Sets the maximum number of table groups that are inserted at the same time, each
+     * via its own connection.
+     *
+     * @param threadCount The number of threads
+     */
+    public void setThreadCount(int threadCount)
+    {
+        _threadCount = threadCount;
+    }
+
+    /**
+     * Returns the time after which a worker releases its group if the group gets no beans
+     * and another group waits for a worker. Per default, this is one second.
+     *
+     * @return The time in milliseconds
+     */
+    public long getMaxIdleTime()
+    {
+        return _maxIdleTime;
+    }
+
+    /**
+     * Sets the time after which a worker releases its group if the group gets no beans
+     * and another group waits for a worker.
+     *
+     * @param maxIdleTime The time in milliseconds
+     */
+    public void setMaxIdleTime(long maxIdleTime)
+    {
+        _maxIdleTime = maxIdleTime;
+    }
+
+    /**
+     * Returns the maximum number of beans that were held in memory for one group during
+     * the last insertion process.
+     *
+     * @return The number of beans
+     */
+    int getMaxQueueSize()
+    {
+        int result = 0;
+
+        for (int idx = 0; idx < _loadGroups.length; idx++)
+        {
+            synchronized (_loadGroups[idx])
+            {
+                result = Math.max(result, _loadGroups[idx].getMaxQueueSize());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of beans that were written to temporary files during the last
+     * insertion process.
+     *
+     * @return The number of beans
+     */
+    int getSpilledBeanCount()
+    {
+        int result = 0;
+
+        for (int idx = 0; idx < _loadGroups.length; idx++)
+        {
+            synchronized (_loadGroups[idx])
+            {
+                result += _loadGroups[idx].getSpilledBeanCount();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the maximum number of groups that were inserted at the same time during
+     * the last insertion process.
+     *
+     * @return The number of groups
+     */
+    synchronized int getMaxActiveGroups()
+    {
+        return _maxActiveGroups;
+    }
+
+    /**
+     * Returns the number of times that a worker released a group before it was completed
+     * during the last insertion process.
+     *
+     * @return The number of releases
+     */
+    synchronized int getReleaseCount()
+    {
+        return _releaseCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    void setCompletedTables(Table[] tables)
+    {
+        _completedTables = tables;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    void abort()
+    {
+        fail(new DataSinkException("The insertion has been aborted"));
+        try
+        {
+            end();
+        }
+        catch (DataSinkException ex)
+        {
+            // expected as we've set the failure
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void start() throws DataSinkException
+    {
+        _tableGroups     = new TableGroups(_model);
+        _loadGroups      = new LoadGroup[_tableGroups.getGroupCount()];
+        _inputFinished   = false;
+        _failure         = null;
+        _maxActiveGroups = 0;
+        _releaseCount    = 0;
+        for (int idx = 0; idx < _loadGroups.length; idx++)
+        {
+            _loadGroups[idx] = new LoadGroup(idx);
+        }
+        if (getProgress() != null)
+        {
+            getProgress().start();
+        }
+        if (isUseFastLoadMode() && !isBulkLoadSessionOnly())
+        {
+            _bulkLoadConnection = _platform.borrowConnection();
+            try
+            {
+                _platform.beforeBulkLoad(_bulkLoadConnection, _model);
+            }
+            catch (DatabaseOperationException ex)
+            {
+                _platform.returnConnection(_bulkLoadConnection);
+                _bulkLoadConnection = null;
+                throw new DataSinkException(ex);
+            }
+        }
+        _workers = new Thread[Math.max(1, Math.min(_threadCount, _loadGroups.length))];
+        for (int idx = 0; idx < _workers.length; idx++)
+        {
+            _workers[idx] = new Thread(new Runnable() {
+                public void run()
+                {
+                    runWorker();
+                }
+            }, "DdlUtils load worker " + idx);
+            // the workers shall not keep the JVM alive if the sink is abandoned without calling end()
+            _workers[idx].setDaemon(true);
+            _workers[idx].start();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void addBean(DynaBean bean) throws DataSinkException
+    {
+        Table     table   = _model.getDynaClassFor(bean).getTable();
+        LoadGroup group   = _loadGroups[_tableGroups.getGroupIndex(table)];
+        int       limit   = 4 * Math.max(getBatchSize(), 1);
+        boolean   aborted;
+        boolean   waiting = false;
+
+        synchronized (group)
+        {
+            try
+            {
+                while (!group.isAborted() && group.isAssigned() && (group.getQueue().size() >= limit))
+                {
+                    group.wait();
+                }
+            }
+            catch (InterruptedException ex)
+            {
+                throw new DataSinkException("Interrupted while waiting for the load workers", ex);
+            }
+            aborted = group.isAborted();
+            if (!aborted)
+            {
+                if (!group.hasInput())
+                {
+                    if (group.isAssigned())
+                    {
+                        // the worker of the group waits for beans
+                        group.notifyAll();
+                    }
+                    else
+                    {
+                        waiting = true;
+                    }
+                }
+                group.addBean(bean);
+                if (!group.isAssigned() && (group.getQueue().size() >= limit))
+                {
+                    // nobody takes the beans yet, so we move them out of the memory
+                    group.spill();
+                }
+            }
+        }
+        if (aborted)
+        {
+            throw new DataSinkException("Cannot add the bean because a load worker has failed", getFailure());
+        }
+        if (waiting)
+        {
+            synchronized (this)
+            {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void end() throws DataSinkException
+    {
+        synchronized (this)
+        {
+            _inputFinished = true;
+            notifyAll();
+        }
+        for (int idx = 0; idx < _loadGroups.length; idx++)
+        {
+            synchronized (_loadGroups[idx])
+            {
+                _loadGroups[idx].setInputFinished(true);
+                _loadGroups[idx].notifyAll();
+            }
+        }
+        try
+        {
+            for (int idx = 0; idx < _workers.length; idx++)
+            {
+                _workers[idx].join();
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            throw new DataSinkException("Interrupted while waiting for the load workers", ex);
+        }
+        finally
+        {
+            for (int idx = 0; idx < _loadGroups.length; idx++)
+            {
+                synchronized (_loadGroups[idx])
+                {
+                    _loadGroups[idx].discardSpillFile();
+                }
+            }
+            if (_bulkLoadConnection != null)
+            {
+                try
+                {
+                    _platform.afterBulkLoad(_bulkLoadConnection, _model);
+                }
+                catch (DatabaseOperationException ex)
+                {
+                    if (_failure == null)
+                    {
+                        _failure = new DataSinkException(ex);
+                    }
+                }
+                finally
+                {
+                    _platform.returnConnection(_bulkLoadConnection);
+                    _bulkLoadConnection = null;
+                }
+            }
+        }
+        if (getProgress() != null)
+        {
+            getProgress().finish();
+        }
+        if (_failure != null)
+        {
+            throw _failure;
+        }
+    }
+
+    /**
+     * Returns the first error that occurred in a worker.
+     * 
+     * @return The error or <code>null</code>
+     */
+    private synchronized RuntimeException getFailure()
+    {
+        return _failure;
+    }
+
+    /**
+     * Records the given error unless there already is one, and stops the insertion of all
+     * groups.
+     * 
+     * @param ex The error
+     */
+    private void fail(RuntimeException ex)
+    {
+        synchronized (this)
+        {
+            if (_failure == null)
+            {
+                _failure = ex;
+            }
+            notifyAll();
+        }
+        for (int idx = 0; idx < _loadGroups.length; idx++)
+        {
+            synchronized (_loadGroups[idx])
+            {
+                _loadGroups[idx].setAborted(true);
+                _loadGroups[idx].notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Creates the sink that inserts the beans of the given group.
+     * 
+     * @param group The group
+     * @return The sink
+     */
+    private DataToDatabaseSink createGroupSink(LoadGroup group)
+    {
+        DataToDatabaseSink sink             = new DataToDatabaseSink(_platform, _model);
+        int[]              referencedGroups = _tableGroups.getReferencedGroups(group.getIndex());
+        List               completedTables  = new ArrayList(Arrays.asList(_completedTables));
+
+        sink.setHaltOnErrors(isHaltOnErrors());
+        sink.setEnsureForeignKeyOrder(isEnsureFkOrder());
+        sink.setUseBatchMode(isUseBatchMode());
+        sink.setBatchSize(getBatchSize());
+        sink.setUseAdaptiveBatchSize(isUseAdaptiveBatchSize());
+        sink.setMinBatchSize(getMinBatchSize());
+        sink.setMaxBatchSize(getMaxBatchSize());
+        sink.setTargetBatchDuration(getTargetBatchDuration());
+        sink.setMaxBatchBytes(getMaxBatchBytes());
+        if (isUseFastLoadMode() && _platform.getPlatformInfo().isBulkLoadStateSessionScoped())
+        {
+            sink.setUseFastLoadMode(true);
+            sink.setBulkLoadSessionOnly(true);
+        }
+        for (int idx = 0; idx < referencedGroups.length; idx++)
+        {
+            Table[] tables = _tableGroups.getTables(referencedGroups[idx]);
+
+            for (int tableIdx = 0; tableIdx < tables.length; tableIdx++)
+            {
+                completedTables.add(tables[tableIdx]);
+            }
+        }
+        sink.setCompletedTables((Table[])completedTables.toArray(new Table[completedTables.size()]));
+        sink.setIdentityMap(getIdentityMap());
+        if (getProgress() != null)
+        {
+            sink.setProgress(getProgress().createPart());
+        }
+        return sink;
+    }
+
+    /**
+     * Inserts the beans of the groups that are ready until all groups are done.
+     */
+    private void runWorker()
+    {
+        try
+        {
+            LoadGroup group = takeNextGroup();
+
+            while (group != null)
+            {
+                loadGroup(group);
+                group = takeNextGroup();
+            }
+        }
+        catch (RuntimeException ex)
+        {
+            fail(ex);
+        }
+    }
+
+    /**
+     * Waits until there is a group whose beans can be inserted, and assigns it to the
+     * current worker.
+     * 
+     * @return The group, or <code>null</code> if all groups are done or a worker has failed
+     */
+    private synchronized LoadGroup takeNextGroup()
+    {
+        try
+        {
+            while (_failure == null)
+            {
+                boolean allCompleted = true;
+
+                for (int idx = 0; idx < _loadGroups.length; idx++)
+                {
+                    LoadGroup group = _loadGroups[idx];
+
+                    if (!group.isCompleted())
+                    {
+                        allCompleted = false;
+                        if (isWaitingForWorker(group))
+                        {
+                            int activeGroups = 0;
+
+                            synchronized (group)
+                            {
+                                group.setAssigned(true);
+                            }
+                            for (int activeIdx = 0; activeIdx < _loadGroups.length; activeIdx++)
+                            {
+                                if (_loadGroups[activeIdx].isAssigned())
+                                {
+                                    activeGroups++;
+                                }
+                            }
+                            _maxActiveGroups = Math.max(_maxActiveGroups, activeGroups);
+                            return group;
+                        }
+                    }
+                }
+                if (allCompleted)
+                {
+                    return null;
+                }
+                wait();
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            throw new DataSinkException("Interrupted while waiting for the next table group", ex);
+        }
+        return null;
+    }
+
+    /**
+     * Determines whether the given group can be inserted but is not assigned to a worker.
+     * The caller has to hold the lock of this sink.
+     * 
+     * @param group The group
+     * @return <code>true</code> if the group waits for a worker
+     */
+    private boolean isWaitingForWorker(LoadGroup group)
+    {
+        if (group.isCompleted() || !areReferencedGroupsCompleted(group))
+        {
+            return false;
+        }
+        synchronized (group)
+        {
+            return !group.isAssigned() && (_inputFinished || group.hasInput());
+        }
+    }
+
+    /**
+     * Determines whether a group other than the given one waits for a worker.
+     * 
+     * @param group The group of the calling worker
+     * @return <code>true</code> if another group waits
+     */
+    private synchronized boolean isOtherGroupWaiting(LoadGroup group)
+    {
+        for (int idx = 0; idx < _loadGroups.length; idx++)
+        {
+            if ((_loadGroups[idx] != group) && isWaitingForWorker(_loadGroups[idx]))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines whether all groups referenced by the given group have been inserted.
+     * 
+     * @param group The group
+     * @return <code>true</code> if the referenced groups are completed
+     */
+    private boolean areReferencedGroupsCompleted(LoadGroup group)
+    {
+        int[] referencedGroups = _tableGroups.getReferencedGroups(group.getIndex());
+
+        for (int idx = 0; idx < referencedGroups.length; idx++)
+        {
+            if (!_loadGroups[referencedGroups[idx]].isCompleted())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Inserts the beans of the given group until all beans have been added to this sink, or
+     * until the group has been idle for too long while another group waits for a worker.
+     * 
+     * @param group The group
+     */
+    private void loadGroup(LoadGroup group) throws DataSinkException
+    {
+        DataToDatabaseSink sink      = null;
+        List               beans     = new ArrayList();
+        long               lastInput = System.currentTimeMillis();
+        boolean            aborted   = false;
+        boolean            released  = false;
+
+        try
+        {
+            while (!aborted && !released)
+            {
+                File    spillFile = null;
+                boolean idle      = false;
+
+                synchronized (group)
+                {
+                    if (!group.isAborted() && !group.hasInput() && !group.isInputFinished())
+                    {
+                        group.wait(_maxIdleTime);
+                    }
+                    aborted = group.isAborted();
+                    if (aborted)
+                    {
+                        break;
+                    }
+                    else if (group.hasInput())
+                    {
+                        spillFile = group.takeSpillFile();
+                        beans.addAll(group.getQueue());
+                        group.getQueue().clear();
+                        // the producer may wait for room in the queue
+                        group.notifyAll();
+                    }
+                    else if (group.isInputFinished())
+                    {
+                        break;
+                    }
+                    else
+                    {
+                        idle = true;
+                    }
+                }
+                if (idle)
+                {
+                    // rows that wait for other rows can only be inserted by the current sink
+                    released = (System.currentTimeMillis() - lastInput >= _maxIdleTime) &&
+                               ((sink == null) || !sink.hasWaitingBeans()) &&
+                               isOtherGroupWaiting(group);
+                }
+                else
+                {
+                    if (sink == null)
+                    {
+                        sink = createGroupSink(group);
+                        sink.start();
+                    }
+                    if (spillFile != null)
+                    {
+                        readSpillFile(spillFile, sink);
+                    }
+                    for (Iterator it = beans.iterator(); it.hasNext();)
+                    {
+                        sink.addBean((DynaBean)it.next());
+                    }
+                    beans.clear();
+                    lastInput = System.currentTimeMillis();
+                }
+            }
+            if (sink != null)
+            {
+                if (aborted)
+                {
+                    sink.abort();
+                }
+                else
+                {
+                    sink.end();
+                }
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            if (sink != null)
+            {
+                sink.abort();
+            }
+            throw new DataSinkException("Interrupted while waiting for beans", ex);
+        }
+        catch (RuntimeException ex)
+        {
+            if (sink != null)
+            {
+                sink.abort();
+            }
+            throw ex;
+        }
+        synchronized (this)
+        {
+            synchronized (group)
+            {
+                group.setAssigned(false);
+                // if released, then the producer shall now write the beans to a file instead of waiting
+                group.notifyAll();
+            }
+            if (released)
+            {
+                _releaseCount++;
+            }
+            else
+            {
+                group.setCompleted(true);
+            }
+            notifyAll();
+        }
+        if (_log.isDebugEnabled())
+        {
+            if (released)
+            {
+                _log.debug("Released table group " + group.getIndex() + " because it got no rows for " + _maxIdleTime + " ms");
+            }
+            else
+            {
+                _log.debug("Finished inserting the rows of table group " + group.getIndex());
+            }
+        }
+    }
+
+    /**
+     * Passes the beans in the given temporary file to the sink, and deletes the file.
+     * 
+     * @param spillFile The file
+     * @param sink      The sink
+     */
+    private void readSpillFile(File spillFile, DataSink sink) throws DataSinkException
+    {
+        DataReader reader = new DataReader();
+
+        reader.setModel(_model);
+        reader.setSink(sink);
+        try
+        {
+            reader.read(spillFile);
+        }
+        catch (DdlUtilsXMLException ex)
+        {
+            throw new DataSinkException("Could not read the rows from the temporary file " + spillFile, ex);
+        }
+        finally
+        {
+            spillFile.delete();
+        }
+    }
+
+    /**
+     * Holds the queued beans of a group of tables and the state of its insertion. The queue
+     * and the temporary file are guarded by the lock of the group, whereas the completion
+     * state is guarded by the lock of the sink. The assignment is changed while holding both.
+     */
+    private static class LoadGroup
+    {
+        /** The index of the group. */
+        private final int _index;
+        /** The beans that have not been passed to the sink of the group yet. */
+        private final List _queue = new ArrayList();
+        /** The temporary file that holds the beans that were queued before the current ones. */
+        private File _spillFile;
+        /** The stream to the temporary file. */
+        private OutputStream _spillStream;
+        /** The writer for the temporary file. */
+        private DataWriter _spillWriter;
+        /** The maximum number of beans that were in the queue at the same time. */
+        private int _maxQueueSize;
+        /** The number of beans that were written to temporary files. */
+        private int _spilledBeanCount;
+        /** Whether a worker inserts the beans of this group. */
+        private boolean _assigned;
+        /** Whether all beans have been added to the sink. */
+        private boolean _inputFinished;
+        /** Whether the insertion has been stopped because of an error. */
+        private boolean _aborted;
+        /** Whether all beans of this group have been inserted. */
+        private boolean _completed;
+
+        /**
+         * Creates a new group state.
+         * 
+         * @param index The index of the group
+         */
+        public LoadGroup(int index)
+        {
+            _index = index;
+        }
+
+        /**
+         * Returns the index of the group.
+         * 
+         * @return The index
+         */
+        public int getIndex()
+        {
+            return _index;
+        }
+
+        /**
+         * Returns the queued beans.
+         * 
+         * @return The beans
+         */
+        public List getQueue()
+        {
+            return _queue;
+        }
+
+        /**
+         * Adds a bean to the queue.
+         * 
+         * @param bean The bean
+         */
+        public void addBean(DynaBean bean)
+        {
+            _queue.add(bean);
+            _maxQueueSize = Math.max(_maxQueueSize, _queue.size());
+        }
+
+        /**
+         * Determines whether there are beans in the queue or in the temporary file.
+         * 
+         * @return <code>true</code> if there are beans to insert
+         */
+        public boolean hasInput()
+        {
+            return !_queue.isEmpty() || (_spillFile != null);
+        }
+
+        /**
+         * Appends the queued beans to the temporary file, and clears the queue.
+         */
+        public void spill() throws DataSinkException
+        {
+            try
+            {
+                if (_spillFile == null)
+                {
+                    _spillFile   = File.createTempFile("ddlutils", ".xml");
+                    _spillStream = new BufferedOutputStream(new FileOutputStream(_spillFile));
+                    _spillWriter = new DataWriter(_spillStream, "UTF-8");
+                    _spillWriter.writeDocumentStart();
+                }
+                _spillWriter.write(_queue);
+            }
+            catch (IOException ex)
+            {
+                throw new DataSinkException("Could not write the rows of table group " + _index + " to a temporary file", ex);
+            }
+            catch (DdlUtilsXMLException ex)
+            {
+                throw new DataSinkException("Could not write the rows of table group " + _index + " to a temporary file", ex);
+            }
+            _spilledBeanCount += _queue.size();
+            _queue.clear();
+        }
+
+        /**
+         * Completes the temporary file and returns it. The group then has no temporary file
+         * until the next call to {@link #spill()}.
+         * 
+         * @return The file or <code>null</code> if there is none
+         */
+        public File takeSpillFile() throws DataSinkException
+        {
+            File result = _spillFile;
+
+            if (result != null)
+            {
+                try
+                {
+                    _spillWriter.writeDocumentEnd();
+                    _spillStream.close();
+                }
+                catch (IOException ex)
+                {
+                    throw new DataSinkException("Could not write the rows of table group " + _index + " to a temporary file", ex);
+                }
+                catch (DdlUtilsXMLException ex)
+                {
+                    throw new DataSinkException("Could not write the rows of table group " + _index + " to a temporary file", ex);
+                }
+                finally
+                {
+                    _spillFile   = null;
+                    _spillStream = null;
+                    _spillWriter = null;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Deletes the temporary file if there is one, e.g. because the insertion failed.
+         */
+        public void discardSpillFile()
+        {
+            if (_spillFile != null)
+            {
+                try
+                {
+                    _spillStream.close();
+                }
+                catch (IOException ex)
+                {
+                    // we're deleting the file anyway
+                }
+                _spillFile.delete();
+                _spillFile   = null;
+                _spillStream = null;
+                _spillWriter = null;
+            }
+        }
+
+        /**
+         * Returns the maximum number of beans that were in the queue at the same time.
+         * 
+         * @return The number of beans
+         */
+        public int getMaxQueueSize()
+        {
+            return _maxQueueSize;
+        }
+
+        /**
+         * Returns the number of beans that were written to temporary files.
+         * 
+         * @return The number of beans
+         */
+        public int getSpilledBeanCount()
+        {
+            return _spilledBeanCount;
+        }
+
+        /**
+         * Determines whether a worker inserts the beans of this group.
+         * 
+         * @return <code>true</code> if the group is assigned to a worker
+         */
+        public boolean isAssigned()
+        {
+            return _assigned;
+        }
+
+        /**
+         * Specifies whether a worker inserts the beans of this group.
+         * 
+         * @param assigned <code>true</code> if the group is assigned to a worker
+         */
+        public void setAssigned(boolean assigned)
+        {
+            _assigned = assigned;
+        }
+
+        /**
+         * Determines whether all beans have been added to the sink.
+         * 
+         * @return <code>true</code> if the input has ended
+         */
+        public boolean isInputFinished()
+        {
+            return _inputFinished;
+        }
+
+        /**
+         * Specifies whether all beans have been added to the sink.
+         * 
+         * @param inputFinished <code>true</code> if the input has ended
+         */
+        public void setInputFinished(boolean inputFinished)
+        {
+            _inputFinished = inputFinished;
+        }
+
+        /**
+         * Determines whether the insertion has been stopped because of an error.
+         * 
+         * @return <code>true</code> if the insertion has been aborted
+         */
+        public boolean isAborted()
+        {
+            return _aborted;
+        }
+
+        /**
+         * Specifies whether the insertion has been stopped because of an error.
+         * 
+         * @param aborted <code>true</code> if the insertion has been aborted
+         */
+        public void setAborted(boolean aborted)
+        {
+            _aborted = aborted;
+        }
+
+        /**
+         * Determines whether all beans of this group have been inserted.
+         * 
+         * @return <code>true</code> if the group is completed
+         */
+        public boolean isCompleted()
+        {
+            return _completed;
+        }
+
+        /**
+         * Specifies whether all beans of this group have been inserted.
+         * 
+         * @param completed <code>true</code> if the group is completed
+         */
+        public void setCompleted(boolean completed)
+        {
+            _completed = completed;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Is informed about the progress of long-running data operations such as writing data
+ * from XML files into the database, writing the data of a database to XML, or copying
+ * data between databases. The listener methods can be called by multiple threads at the
+ * same time, and are called for every processed row, so implementations should be fast.
+ *
+ * @version $Revision: $
+ * @see DatabaseDataIO#addProgressListener(ProgressListener)
+ */
+public interface ProgressListener
+{
+    /**
+     * Called when the operation starts.
+     *
+     * @param progress The progress of the operation
+     */
+    public void started(DataProgress progress);
+
+    /**
+     * Called when rows have been processed, i.e. written into the database or into the output.
+     *
+     * @param progress  The progress of the operation
+     * @param tableName The name of the table of the rows
+     * @param numRows   The number of rows
+     */
+    public void rowsProcessed(DataProgress progress, String tableName, int numRows);
+
+    /**
+     * Called when bytes have been read from the input or written to the output.
+     *
+     * @param progress The progress of the operation
+     * @param numBytes The number of bytes
+     */
+    public void bytesProcessed(DataProgress progress, long numBytes);
+
+    /**
+     * Called when the operation has finished, successfully or not.
+     *
+     * @param progress The progress of the operation
+     */
+    public void finished(DataProgress progress);
+}
@@ -0,0 +1,330 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.ForeignKey;
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Divides the tables of a model into groups that can be loaded independently of each other
+ * as long as the groups that they reference via foreign keys have been loaded before. Tables
+ * whose foreign keys form a cycle are put into the same group, as are tables that have been
+ * joined explicitly, e.g. because the rows of one need the identity values generated for the
+ * rows of the other. The groups are ordered so that a group only references groups that come
+ * before it.
+ *
+ * @version $Revision: $
+ */
+public class TableGroups
+{
+    /** The model. */
+    private final Database _model;
+    /** Maps each table to the table that represents its group while joining. */
+    private final IdentityHashMap _representatives = new IdentityHashMap();
+    /** The groups, each a list of tables, in foreign key order; <code>null</code> if not yet determined. */
+    private List _groups;
+    /** Maps each table to the index of its group. */
+    private IdentityHashMap _groupIndices;
+    /** The indices of the groups referenced by each group. */
+    private int[][] _referencedGroups;
+
+    /**
+     * Creates the groups for the given model.
+     *
+     * @param model The model
+     */
+    public TableGroups(Database model)
+    {
+        _model = model;
+        for (int idx = 0; idx < model.getTableCount(); idx++)
+        {
+            _representatives.put(model.getTable(idx), model.getTable(idx));
+        }
+    }
+
+    /**
+     * Puts the two tables into the same group.
+     *
+     * @param table1 The first table
+     * @param table2 The second table
+     */
+    public void join(Table table1, Table table2)
+    {
+        Table rep1 = getRepresentative(table1);
+        Table rep2 = getRepresentative(table2);
+
+        if (rep1 != rep2)
+        {
+            _representatives.put(rep2, rep1);
+            _groups = null;
+        }
+    }
+
+    /**
+     * Returns the number of groups.
+     *
+     * @return The number of groups
+     */
+    public int getGroupCount()
+    {
+        determineGroups();
+        return _groups.size();
+    }
+
+    /**
+     * Returns the tables of the indicated group in the order of the model.
+     *
+     * @param groupIdx The index of the group
+     * @return The tables
+     */
+    public Table[] getTables(int groupIdx)
+    {
+        determineGroups();
+
+        List tables = (List)_groups.get(groupIdx);
+
+        return (Table[])tables.toArray(new Table[tables.size()]);
+    }
+
+    /**
+     * Returns the index of the group of the given table.
+     *
+     * @param table The table
+     * @return The index of the group, or <code>-1</code> if the table is not part of the model
+     */
+    public int getGroupIndex(Table table)
+    {
+        determineGroups();
+
+        Integer groupIdx = (Integer)_groupIndices.get(table);
+
+        return groupIdx == null ? -1 : groupIdx.intValue();
+    }
+
+    /**
+     * Returns the indices of the groups that contain tables referenced by the tables of the
+     * indicated group. All of these are smaller than the index of the group itself.
+     *
+     * @param groupIdx The index of the group
+     * @return The indices of the referenced groups in ascending order
+     */
+    public int[] getReferencedGroups(int groupIdx)
+    {
+        determineGroups();
+        return _referencedGroups[groupIdx];
+    }
+
+    /**
+     * Returns the table that represents the group of the given table while joining.
+     *
+     * @param table The table
+     * @return The representative
+     */
+    private Table getRepresentative(Table table)
+    {
+        Table rep = table;
+
+        while (_representatives.get(rep) != rep)
+        {
+            rep = (Table)_representatives.get(rep);
+        }
+        // shortening the path for the next time
+        _representatives.put(table, rep);
+        return rep;
+    }
+
+    /**
+     * Determines the groups and their order if they are not yet known.
+     */
+    private void determineGroups()
+    {
+        if (_groups != null)
+        {
+            return;
+        }
+
+        // the groups that reference each other directly or indirectly are joined
+        boolean joined = true;
+
+        while (joined)
+        {
+            IdentityHashMap finishedReps = new IdentityHashMap();
+
+            joined = false;
+            for (int idx = 0; !joined && (idx < _model.getTableCount()); idx++)
+            {
+                joined = joinCycles(getRepresentative(_model.getTable(idx)), new ArrayList(), finishedReps);
+            }
+        }
+
+        // then we order them so that referenced groups come first
+        IdentityHashMap visitedReps = new IdentityHashMap();
+        List            orderedReps = new ArrayList();
+
+        for (int idx = 0; idx < _model.getTableCount(); idx++)
+        {
+            addInForeignKeyOrder(getRepresentative(_model.getTable(idx)), visitedReps, orderedReps);
+        }
+
+        _groups       = new ArrayList();
+        _groupIndices = new IdentityHashMap();
+        for (int idx = 0; idx < orderedReps.size(); idx++)
+        {
+            _groups.add(new ArrayList());
+            _groupIndices.put(orderedReps.get(idx), new Integer(idx));
+        }
+        for (int idx = 0; idx < _model.getTableCount(); idx++)
+        {
+            Table   table    = _model.getTable(idx);
+            Integer groupIdx = (Integer)_groupIndices.get(getRepresentative(table));
+
+            ((List)_groups.get(groupIdx.intValue())).add(table);
+            _groupIndices.put(table, groupIdx);
+        }
+
+        _referencedGroups = new int[_groups.size()][];
+        for (int groupIdx = 0; groupIdx < _groups.size(); groupIdx++)
+        {
+            boolean[] referenced = new boolean[groupIdx];
+            int       count      = 0;
+
+            for (Iterator it = getReferencedRepresentatives(getRepresentative((Table)((List)_groups.get(groupIdx)).get(0))).iterator(); it.hasNext();)
+            {
+                int refGroupIdx = ((Integer)_groupIndices.get(it.next())).intValue();
+
+                if (!referenced[refGroupIdx])
+                {
+                    referenced[refGroupIdx] = true;
+                    count++;
+                }
+            }
+            _referencedGroups[groupIdx] = new int[count];
+            for (int idx = 0, pos = 0; idx < groupIdx; idx++)
+            {
+                if (referenced[idx])
+                {
+                    _referencedGroups[groupIdx][pos++] = idx;
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches depth-first for a cycle of references between groups starting at the given
+     * group, and joins the groups on the first cycle that is found.
+     *
+     * @param rep          The representative of the current group
+     * @param path         The representatives of the groups on the path to the current group
+     * @param finishedReps The representatives of the groups from which no cycle can be reached
+     * @return <code>true</code> if groups were joined
+     */
+    private boolean joinCycles(Table rep, List path, IdentityHashMap finishedReps)
+    {
+        if (finishedReps.containsKey(rep))
+        {
+            return false;
+        }
+        for (int pathIdx = 0; pathIdx < path.size(); pathIdx++)
+        {
+            if (path.get(pathIdx) == rep)
+            {
+                for (int idx = pathIdx + 1; idx < path.size(); idx++)
+                {
+                    join(rep, (Table)path.get(idx));
+                }
+                return true;
+            }
+        }
+        path.add(rep);
+        for (Iterator it = getReferencedRepresentatives(rep).iterator(); it.hasNext();)
+        {
+            if (joinCycles((Table)it.next(), path, finishedReps))
+            {
+                return true;
+            }
+        }
+        path.remove(path.size() - 1);
+        finishedReps.put(rep, rep);
+        return false;
+    }
+
+    /**
+     * Adds the given group after the groups referenced by it to the ordered list.
+     *
+     * @param rep         The representative of the group
+     * @param visitedReps The representatives of the groups that have already been visited
+     * @param orderedReps The ordered representatives
+     */
+    private void addInForeignKeyOrder(Table rep, IdentityHashMap visitedReps, List orderedReps)
+    {
+        if (!visitedReps.containsKey(rep))
+        {
+            visitedReps.put(rep, rep);
+            for (Iterator it = getReferencedRepresentatives(rep).iterator(); it.hasNext();)
+            {
+                addInForeignKeyOrder((Table)it.next(), visitedReps, orderedReps);
+            }
+            orderedReps.add(rep);
+        }
+    }
+
+    /**
+     * Returns the representatives of the other groups referenced by the tables of the given group.
+     *
+     * @param rep The representative of the group
+     * @return The representatives of the referenced groups
+     */
+    private List getReferencedRepresentatives(Table rep)
+    {
+        List            result  = new ArrayList();
+        IdentityHashMap visited = new IdentityHashMap();
+
+        for (int tableIdx = 0; tableIdx < _model.getTableCount(); tableIdx++)
+        {
+            Table table = _model.getTable(tableIdx);
+
+            if (getRepresentative(table) == rep)
+            {
+                for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++)
+                {
+                    ForeignKey fk = table.getForeignKey(fkIdx);
+
+                    if (fk.getForeignTable() != null)
+                    {
+                        Table refRep = getRepresentative(fk.getForeignTable());
+
+                        if ((refRep != rep) && !visited.containsKey(refRep))
+                        {
+                            visited.put(refRep, refRep);
+                            result.add(refRep);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+}
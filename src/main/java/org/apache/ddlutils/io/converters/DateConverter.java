@@ -21,45 +21,29 @@ package org.apache.ddlutils.io.converters;
 
 import java.sql.Date;
 import java.sql.Types;
-import java.util.Calendar;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
-
-import org.apache.ddlutils.DdlUtilsException;
+import java.util.TimeZone;
 
 /**
  * Converts between {@link java.sql.Date} and {@link java.lang.String} using the standard
- * representation "yyyy", or "yyyy-mm", or "yyyy-mm-dd".
+ * representation "yyyy", or "yyyy-mm", or "yyyy-mm-dd". The converter has no mutable state
+ * and can thus be used by multiple threads concurrently.
  * 
  * @version $Revision: 289996 $
  */
 public class DateConverter implements SqlTypeConverter 
 {
-    /** The regular expression pattern for the parsing of ISO dates. */
-    private Pattern _datePattern;
-	/** The calendar object to convert to/from dates. */
-	private Calendar _calendar;
+    /** The time zone in which the dates are interpreted. */
+    private final TimeZone _timeZone;
 
-	/**
-	 * Creates a new date converter object.
-	 */
-	public DateConverter()
-	{
-        try
-        {
-            _datePattern = Pattern.compile("(\\d{2,4})(?:\\-(\\d{2}))?(?:\\-(\\d{2}))?.*");
-        }
-        catch (PatternSyntaxException ex)
-        {
-            throw new DdlUtilsException(ex);
-        }
-
-        _calendar = Calendar.getInstance();
-		_calendar.setLenient(false);
-	}
+    /**
+     * Creates a new date converter object that uses the default time zone.
+     */
+    public DateConverter()
+    {
+        _timeZone = TimeZone.getDefault();
+    }
 
-	/**
+    /**
      * {@inheritDoc}
      */
     public Object convertFromString(String textRep, int sqlTypeCode) throws ConversionException
@@ -72,46 +56,33 @@ public class DateConverter implements SqlTypeConverter
         {
             // we're not using {@link java.sql.Date#valueOf(String)} as this method is too strict
             // it only parses the full spec "yyyy-mm-dd"
-            Matcher matcher = _datePattern.matcher(textRep);
-            int     year    = 1970;
-            int     month   = 1;
-            int     day     = 1;
+            int numYearDigits = 0;
 
-            if (matcher.matches())
+            while ((numYearDigits < 4) && (numYearDigits < textRep.length()) && DateTimeParser.isDigit(textRep.charAt(numYearDigits)))
             {
-                int numGroups = matcher.groupCount();
-
-                try
-                {
-                    year = Integer.parseInt(matcher.group(1));
-                    if ((numGroups >= 2) && (matcher.group(2) != null))
-                    {
-                        month = Integer.parseInt(matcher.group(2));
-                    }
-                    if ((numGroups >= 3) && (matcher.group(3) != null))
-                    {
-                        day = Integer.parseInt(matcher.group(3));
-                    }
-                }
-                catch (NumberFormatException ex)
-                {
-                    throw new ConversionException("Not a valid date : " + textRep, ex);
-                }
-                _calendar.clear();
-                try
-                {
-                    _calendar.set(year, month - 1, day);
-                    return new Date(_calendar.getTimeInMillis());
-                }
-                catch (IllegalArgumentException ex)
-                {
-                    throw new ConversionException("Not a valid date : " + textRep, ex);
-                }
+                numYearDigits++;
             }
-            else
+            if (numYearDigits < 2)
             {
                 throw new ConversionException("Not a valid date : " + textRep);
             }
+
+            int year  = DateTimeParser.parseNumber(textRep, 0, numYearDigits);
+            int month = 1;
+            int day   = 1;
+            int pos   = numYearDigits;
+
+            // anything after the recognized parts is ignored
+            if (DateTimeParser.isTwoDigitField(textRep, pos, '-'))
+            {
+                month = DateTimeParser.parseNumber(textRep, pos + 1, pos + 3);
+                pos  += 3;
+                if (DateTimeParser.isTwoDigitField(textRep, pos, '-'))
+                {
+                    day = DateTimeParser.parseNumber(textRep, pos + 1, pos + 3);
+                }
+            }
+            return new Date(DateTimeParser.getTimeInMillis(_timeZone, textRep, "date", year, month, day, 0, 0, 0));
         }
         else
         {
@@ -0,0 +1,234 @@
+package org.apache.ddlutils.io.converters;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Contains the parsing code shared by the date, time and timestamp converters. The methods
+ * only use their arguments and immutable objects, so they can be called by multiple threads
+ * concurrently. Points in time are computed directly instead of via a {@link Calendar},
+ * except for dates before the switch to the gregorian calendar and for local times close to
+ * a change of the offset of the time zone (e.g. daylight saving time).
+ * 
+ * @version $Revision: $
+ */
+final class DateTimeParser
+{
+    /** The number of milliseconds per day. */
+    private static final long MILLIS_PER_DAY = 24L * 60L * 60L * 1000L;
+    /** The first year for which the time is computed directly. For earlier years, a calendar
+        is used because of the switch from the julian to the gregorian calendar in 1582. */
+    private static final int MIN_DIRECTLY_COMPUTED_YEAR = 1583;
+
+    /**
+     * Not intended to be instantiated.
+     */
+    private DateTimeParser()
+    {}
+
+    /**
+     * Determines the point in time of the given local date and time in the given time zone.
+     * 
+     * @param timeZone The time zone
+     * @param textRep  The text from which the values were parsed, for use in error messages
+     * @param typeName The name of the parsed type, for use in error messages
+     * @param year     The year
+     * @param month    The month, starting with 1
+     * @param day      The day of the month
+     * @param hours    The hours
+     * @param minutes  The minutes
+     * @param seconds  The seconds
+     * @return The time in milliseconds since January 1, 1970, 00:00:00 GMT
+     */
+    static long getTimeInMillis(TimeZone timeZone, String textRep, String typeName, int year, int month, int day, int hours, int minutes, int seconds) throws ConversionException
+    {
+        if (year < MIN_DIRECTLY_COMPUTED_YEAR)
+        {
+            return getTimeInMillisViaCalendar(timeZone, textRep, typeName, year, month, day, hours, minutes, seconds);
+        }
+        if (!isValidDate(year, month, day))
+        {
+            throw new ConversionException("Not a valid " + typeName + " : " + textRep);
+        }
+
+        // days since 1970-01-01, computed via 400 year cycles starting at March 1
+        int  yearOfMarch = (month <= 2 ? year - 1 : year);
+        int  cycle       = yearOfMarch / 400;
+        int  yearOfCycle = yearOfMarch - cycle * 400;
+        int  dayOfYear   = (153 * ((month + 9) % 12) + 2) / 5 + day - 1;
+        long days        = cycle * 146097L + yearOfCycle * 365 + yearOfCycle / 4 - yearOfCycle / 100 + dayOfYear - 719468;
+        long localMillis = days * MILLIS_PER_DAY + ((hours * 60L + minutes) * 60L + seconds) * 1000L;
+        int  offset      = timeZone.getOffset(localMillis);
+
+        // close to a change of the offset of the time zone, we let the calendar decide how
+        // to interpret the local time
+        if ((offset != timeZone.getOffset(localMillis - MILLIS_PER_DAY)) ||
+            (offset != timeZone.getOffset(localMillis + MILLIS_PER_DAY)))
+        {
+            return getTimeInMillisViaCalendar(timeZone, textRep, typeName, year, month, day, hours, minutes, seconds);
+        }
+        return localMillis - offset;
+    }
+
+    /**
+     * Determines the point in time of the given local date and time in the given time zone
+     * using a new calendar object.
+     * 
+     * @param timeZone The time zone
+     * @param textRep  The text from which the values were parsed, for use in error messages
+     * @param typeName The name of the parsed type, for use in error messages
+     * @param year     The year
+     * @param month    The month, starting with 1
+     * @param day      The day of the month
+     * @param hours    The hours
+     * @param minutes  The minutes
+     * @param seconds  The seconds
+     * @return The time in milliseconds since January 1, 1970, 00:00:00 GMT
+     */
+    private static long getTimeInMillisViaCalendar(TimeZone timeZone, String textRep, String typeName, int year, int month, int day, int hours, int minutes, int seconds) throws ConversionException
+    {
+        Calendar calendar = Calendar.getInstance(timeZone);
+
+        calendar.setLenient(false);
+        calendar.clear();
+        try
+        {
+            calendar.set(year, month - 1, day, hours, minutes, seconds);
+            return calendar.getTimeInMillis();
+        }
+        catch (IllegalArgumentException ex)
+        {
+            throw new ConversionException("Not a valid " + typeName + " : " + textRep, ex);
+        }
+    }
+
+    /**
+     * Determines whether the given values denote a day in the gregorian calendar.
+     * 
+     * @param year  The year
+     * @param month The month, starting with 1
+     * @param day   The day of the month
+     * @return <code>true</code> if the date is valid
+     */
+    static boolean isValidDate(int year, int month, int day)
+    {
+        return (month >= 1) && (month <= 12) && (day >= 1) && (day <= getDaysInMonth(year, month));
+    }
+
+    /**
+     * Returns the number of days of the given month in the gregorian calendar.
+     * 
+     * @param year  The year
+     * @param month The month, starting with 1
+     * @return The number of days
+     */
+    private static int getDaysInMonth(int year, int month)
+    {
+        switch (month)
+        {
+            case 2:
+                return ((year % 4 == 0) && ((year % 100 != 0) || (year % 400 == 0))) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Determines whether the text starts with a date of the form "yyyy-mm-dd" followed by
+     * a whitespace character.
+     * 
+     * @param text The text
+     * @return <code>true</code> if the text starts with a date
+     */
+    static boolean hasDatePrefix(String text)
+    {
+        if (text.length() < 11)
+        {
+            return false;
+        }
+        for (int idx = 0; idx < 10; idx++)
+        {
+            char c = text.charAt(idx);
+
+            if (((idx == 4) || (idx == 7)) ? (c != '-') : !isDigit(c))
+            {
+                return false;
+            }
+        }
+
+        char c = text.charAt(10);
+
+        return (c == ' ') || (c == '\t') || (c == '\n') || (c == '\u000B') || (c == '\f') || (c == '\r');
+    }
+
+    /**
+     * Determines whether the text contains the given separator followed by two digits at
+     * the indicated position.
+     * 
+     * @param text      The text
+     * @param pos       The position
+     * @param separator The separator
+     * @return <code>true</code> if there is such a field
+     */
+    static boolean isTwoDigitField(String text, int pos, char separator)
+    {
+        return (pos + 3 <= text.length()) &&
+               (text.charAt(pos) == separator) &&
+               isDigit(text.charAt(pos + 1)) &&
+               isDigit(text.charAt(pos + 2));
+    }
+
+    /**
+     * Determines whether the character is an ASCII digit.
+     * 
+     * @param c The character
+     * @return <code>true</code> if the character is a digit
+     */
+    static boolean isDigit(char c)
+    {
+        return (c >= '0') && (c <= '9');
+    }
+
+    /**
+     * Parses the digits in the given range of the text.
+     * 
+     * @param text  The text
+     * @param start The start of the range
+     * @param end   The end of the range (exclusive)
+     * @return The number
+     */
+    static int parseNumber(String text, int start, int end)
+    {
+        int result = 0;
+
+        for (int idx = start; idx < end; idx++)
+        {
+            result = result * 10 + (text.charAt(idx) - '0');
+        }
+        return result;
+    }
+}
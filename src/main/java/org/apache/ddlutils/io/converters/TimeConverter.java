@@ -21,45 +21,29 @@ package org.apache.ddlutils.io.converters;
 
 import java.sql.Time;
 import java.sql.Types;
-import java.util.Calendar;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
-
-import org.apache.ddlutils.DdlUtilsException;
+import java.util.TimeZone;
 
 /**
  * Converts between {@link java.sql.Time} and {@link java.lang.String} using the standard
- * representation "hh:mm:ss".
+ * representation "hh:mm:ss". The converter has no mutable state and can thus be used by
+ * multiple threads concurrently.
  * 
  * @version $Revision: 289996 $
  */
 public class TimeConverter implements SqlTypeConverter 
 {
-    /** The regular expression pattern for the parsing of ISO times. */
-    private Pattern _timePattern;
-	/** The calendar object to convert to/from times. */
-	private Calendar _calendar;
-
-	/**
-	 * Creates a new time converter object.
-	 */
-	public TimeConverter()
-	{
-        try
-        {
-            _timePattern = Pattern.compile("(?:\\d{4}\\-\\d{2}\\-\\d{2}\\s)?(\\d{2})(?::(\\d{2}))?(?::(\\d{2}))?(?:\\..*)?");
-        }
-        catch (PatternSyntaxException ex)
-        {
-            throw new DdlUtilsException(ex);
-        }
+    /** The time zone in which the times are interpreted. */
+    private final TimeZone _timeZone;
 
-        _calendar = Calendar.getInstance();
-		_calendar.setLenient(false);
-	}
+    /**
+     * Creates a new time converter object that uses the default time zone.
+     */
+    public TimeConverter()
+    {
+        _timeZone = TimeZone.getDefault();
+    }
 
-	/**
+    /**
      * {@inheritDoc}
      */
     public Object convertFromString(String textRep, int sqlTypeCode) throws ConversionException
@@ -72,48 +56,36 @@ public class TimeConverter implements SqlTypeConverter
         {
             // we're not using {@link java.sql.Time#valueOf(String)} as this method is too strict
             // it only parses the full spec "hh:mm:ss"
-            Matcher matcher = _timePattern.matcher(textRep);
-            int     hours   = 0;
-            int     minutes = 0;
-            int     seconds = 0;
+            int pos     = (DateTimeParser.hasDatePrefix(textRep) ? 11 : 0);
+            int hours   = 0;
+            int minutes = 0;
+            int seconds = 0;
 
-            if (matcher.matches())
+            if ((pos + 2 > textRep.length()) || !DateTimeParser.isDigit(textRep.charAt(pos)) || !DateTimeParser.isDigit(textRep.charAt(pos + 1)))
             {
-                int numGroups = matcher.groupCount();
-
-                try
-                {
-                    hours = Integer.parseInt(matcher.group(1));
-                    if ((numGroups >= 2) && (matcher.group(2) != null))
-                    {
-                        minutes = Integer.parseInt(matcher.group(2));
-                    }
-                    if ((numGroups >= 3) && (matcher.group(3) != null))
-                    {
-                        seconds = Integer.parseInt(matcher.group(3));
-                    }
-                }
-                catch (NumberFormatException ex)
-                {
-                    throw new ConversionException("Not a valid time : " + textRep, ex);
-                }
-                _calendar.clear();
-                try
-                {
-                    _calendar.set(Calendar.HOUR_OF_DAY, hours);
-                    _calendar.set(Calendar.MINUTE, minutes);
-                    _calendar.set(Calendar.SECOND, seconds);
-                    return new Time(_calendar.getTimeInMillis());
-                }
-                catch (IllegalArgumentException ex)
+                throw new ConversionException("Not a valid time : " + textRep);
+            }
+            hours = DateTimeParser.parseNumber(textRep, pos, pos + 2);
+            pos  += 2;
+            if (DateTimeParser.isTwoDigitField(textRep, pos, ':'))
+            {
+                minutes = DateTimeParser.parseNumber(textRep, pos + 1, pos + 3);
+                pos    += 3;
+                if (DateTimeParser.isTwoDigitField(textRep, pos, ':'))
                 {
-                    throw new ConversionException("Not a valid time : " + textRep, ex);
+                    seconds = DateTimeParser.parseNumber(textRep, pos + 1, pos + 3);
+                    pos    += 3;
                 }
             }
-            else
+            // fractions of a second are ignored
+            if (((pos < textRep.length()) && (textRep.charAt(pos) != '.')) ||
+                (hours > 23) || (minutes > 59) || (seconds > 59))
             {
                 throw new ConversionException("Not a valid time : " + textRep);
             }
+
+            // the time is relative to January 1, 1970 in the time zone of the converter
+            return new Time(DateTimeParser.getTimeInMillis(_timeZone, textRep, "time", 1970, 1, 1, hours, minutes, seconds));
         }
         else
         {
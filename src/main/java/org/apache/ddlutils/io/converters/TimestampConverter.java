@@ -21,15 +21,28 @@ package org.apache.ddlutils.io.converters;
 
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.util.TimeZone;
 
 /**
  * Converts between {@link java.sql.Timestamp} and {@link java.lang.String} using the standard
- * representation "yyyy-mm-dd hh:mm:ss.fffffffff".
+ * representation "yyyy-mm-dd hh:mm:ss.fffffffff". The converter has no mutable state and can
+ * thus be used by multiple threads concurrently.
  * 
  * @version $Revision: 289996 $
  */
 public class TimestampConverter implements SqlTypeConverter 
 {
+    /** The time zone in which the timestamps are interpreted. */
+    private final TimeZone _timeZone;
+
+    /**
+     * Creates a new timestamp converter object that uses the default time zone.
+     */
+    public TimestampConverter()
+    {
+        _timeZone = TimeZone.getDefault();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -41,7 +54,11 @@ public class TimestampConverter implements SqlTypeConverter
         }
         else if (sqlTypeCode == Types.TIMESTAMP)
         {
-            return Timestamp.valueOf(textRep);
+            Timestamp result = parseTimestamp(textRep);
+
+            // anything that is not a valid timestamp in the standard representation is left to
+            // {@link java.sql.Timestamp#valueOf(String)} which also produces the error messages
+            return result != null ? result : Timestamp.valueOf(textRep);
         }
         else
         {
@@ -49,6 +66,70 @@ public class TimestampConverter implements SqlTypeConverter
         }
     }
 
+    /**
+     * Parses the given text if it is a valid timestamp of the form "yyyy-mm-dd hh:mm:ss" with
+     * an optional fraction of up to nine digits. Unlike {@link java.sql.Timestamp#valueOf(String)},
+     * this does not create intermediate strings and does not use a calendar in most cases.
+     * 
+     * @param textRep The text
+     * @return The timestamp or <code>null</code> if the text is not of this form
+     */
+    private Timestamp parseTimestamp(String textRep) throws ConversionException
+    {
+        if ((textRep.length() < 19) ||
+            !DateTimeParser.hasDatePrefix(textRep) ||
+            (textRep.charAt(10) != ' ') ||
+            !DateTimeParser.isDigit(textRep.charAt(11)) ||
+            !DateTimeParser.isDigit(textRep.charAt(12)) ||
+            !DateTimeParser.isTwoDigitField(textRep, 13, ':') ||
+            !DateTimeParser.isTwoDigitField(textRep, 16, ':'))
+        {
+            return null;
+        }
+
+        int year    = DateTimeParser.parseNumber(textRep, 0, 4);
+        int month   = DateTimeParser.parseNumber(textRep, 5, 7);
+        int day     = DateTimeParser.parseNumber(textRep, 8, 10);
+        int hours   = DateTimeParser.parseNumber(textRep, 11, 13);
+        int minutes = DateTimeParser.parseNumber(textRep, 14, 16);
+        int seconds = DateTimeParser.parseNumber(textRep, 17, 19);
+        int nanos   = 0;
+
+        if (textRep.length() > 19)
+        {
+            int numFractionDigits = textRep.length() - 20;
+
+            if ((textRep.charAt(19) != '.') || (numFractionDigits < 1) || (numFractionDigits > 9))
+            {
+                return null;
+            }
+            for (int idx = 20; idx < textRep.length(); idx++)
+            {
+                if (!DateTimeParser.isDigit(textRep.charAt(idx)))
+                {
+                    return null;
+                }
+            }
+            nanos = DateTimeParser.parseNumber(textRep, 20, textRep.length());
+            for (int idx = numFractionDigits; idx < 9; idx++)
+            {
+                nanos *= 10;
+            }
+        }
+        // {@link java.sql.Timestamp#valueOf(String)} is lenient about out-of-range values,
+        // so we leave these to it
+        if ((year < 1) || !DateTimeParser.isValidDate(year, month, day) ||
+            (hours > 23) || (minutes > 59) || (seconds > 59))
+        {
+            return null;
+        }
+
+        Timestamp result = new Timestamp(DateTimeParser.getTimeInMillis(_timeZone, textRep, "timestamp", year, month, day, hours, minutes, seconds));
+
+        result.setNanos(nanos);
+        return result;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,68 @@
+package org.apache.ddlutils.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Receives the metrics that DdlUtils publishes while it works. There are two kinds
+ * of metrics: counters which are increased by some amount (e.g. the number of rows
+ * written into a table), and values which are recorded individually (e.g. the time
+ * that a JDBC call took, or the size of a batch). Implementations have to be usable
+ * by multiple threads at the same time, and should be fast as they are called for
+ * every JDBC round trip.
+ *
+ * @version $Revision: $
+ */
+public interface MetricsCollector
+{
+    /** The time in milliseconds of a JDBC call that executes a statement. */
+    public static final String JDBC_STATEMENT_TIME = "jdbc.statementTime";
+    /** The number of statements in an executed JDBC batch. */
+    public static final String JDBC_BATCH_SIZE = "jdbc.batchSize";
+    /** The time in milliseconds of a call that reads database metadata. */
+    public static final String METADATA_CALL_TIME = "jdbc.metadataCallTime";
+    /** The time in milliseconds that it took to generate the sql for a model operation. */
+    public static final String SQL_GENERATION_TIME = "sql.generationTime";
+    /** The prefix of the counters for the rows read from a database table; followed by the table name. */
+    public static final String ROWS_READ_PREFIX = "rows.read.";
+    /** The prefix of the counters for the rows written into a database table; followed by the table name. */
+    public static final String ROWS_WRITTEN_PREFIX = "rows.written.";
+    /** The prefix of the counters for the rows parsed from data XML; followed by the table name. */
+    public static final String ROWS_PARSED_PREFIX = "rows.parsed.";
+    /** The number of rows whose insertion was deferred until the rows they reference were inserted. */
+    public static final String ROWS_DEFERRED = "rows.deferred";
+    /** The number of bytes written into data files. */
+    public static final String BYTES_WRITTEN = "bytes.written";
+
+    /**
+     * Increases the counter of the given name.
+     *
+     * @param name   The name of the counter
+     * @param amount The amount to add
+     */
+    public void increment(String name, long amount);
+
+    /**
+     * Records a value for the metric of the given name.
+     *
+     * @param name  The name of the metric
+     * @param value The value
+     */
+    public void record(String name, long value);
+}
@@ -0,0 +1,154 @@
+package org.apache.ddlutils.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A metrics collector that keeps the metrics in memory. It can be queried directly,
+ * or published via JMX with the <code>org.apache.ddlutils.metrics.jmx.MetricsMBean</code>.
+ * The registry lock only guards the lookup of the statistics; values are added to a
+ * statistic under the lock of that statistic, so threads that record different metrics
+ * do not wait for each other.
+ *
+ * @version $Revision: $
+ */
+public class MetricsRegistry implements MetricsCollector
+{
+    /** The statistics keyed by the metric names. */
+    private final Map _statistics = new HashMap();
+
+    /**
+     * {@inheritDoc}
+     */
+    public void increment(String name, long amount)
+    {
+        record(name, amount);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void record(String name, long value)
+    {
+        getOrCreateStatistic(name).add(value);
+    }
+
+    /**
+     * Returns the statistic for the metric of the given name, and creates it if necessary.
+     *
+     * @param name The name of the metric
+     * @return The statistic
+     */
+    private synchronized Statistic getOrCreateStatistic(String name)
+    {
+        Statistic statistic = (Statistic)_statistics.get(name);
+
+        if (statistic == null)
+        {
+            statistic = new Statistic(name);
+            _statistics.put(name, statistic);
+        }
+        return statistic;
+    }
+
+    /**
+     * Returns the names of the metrics for which values have been recorded.
+     *
+     * @return The names in alphabetical order
+     */
+    public synchronized String[] getNames()
+    {
+        return (String[])new TreeMap(_statistics).keySet().toArray(new String[_statistics.size()]);
+    }
+
+    /**
+     * Returns a copy of the statistic for the metric of the given name.
+     *
+     * @param name The name of the metric
+     * @return The statistic or <code>null</code> if no value has been recorded for the metric
+     */
+    public synchronized Statistic getStatistic(String name)
+    {
+        Statistic statistic = (Statistic)_statistics.get(name);
+
+        return statistic == null ? null : new Statistic(statistic);
+    }
+
+    /**
+     * Returns the value of the counter of the given name.
+     *
+     * @param name The name of the counter
+     * @return The value of the counter, <code>0</code> if it has not been incremented yet
+     */
+    public synchronized long getCount(String name)
+    {
+        Statistic statistic = (Statistic)_statistics.get(name);
+
+        return statistic == null ? 0 : statistic.getSum();
+    }
+
+    /**
+     * Returns copies of the statistics of all metrics.
+     *
+     * @return The statistics in the alphabetical order of their names
+     */
+    public synchronized List getStatistics()
+    {
+        List result = new ArrayList();
+
+        for (Iterator it = new TreeMap(_statistics).values().iterator(); it.hasNext();)
+        {
+            result.add(new Statistic((Statistic)it.next()));
+        }
+        return result;
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public synchronized void reset()
+    {
+        _statistics.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String toString()
+    {
+        StringBuffer result = new StringBuffer();
+
+        for (Iterator it = getStatistics().iterator(); it.hasNext();)
+        {
+            result.append(it.next());
+            if (it.hasNext())
+            {
+                result.append("\n");
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,167 @@
+package org.apache.ddlutils.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Summarizes the values of one metric: how many values were recorded and their
+ * sum, minimum and maximum. For counters, the sum is the value of the counter.
+ * Objects of this class are thread-safe; the {@link MetricsRegistry} hands
+ * out copies so that the values returned by the getters are consistent.
+ *
+ * @version $Revision: $
+ */
+public class Statistic
+{
+    /** The name of the metric. */
+    private final String _name;
+    /** The number of recorded values. */
+    private long _count;
+    /** The sum of the recorded values. */
+    private long _sum;
+    /** The smallest recorded value. */
+    private long _min;
+    /** The largest recorded value. */
+    private long _max;
+
+    /**
+     * Creates a new statistic without any values.
+     *
+     * @param name The name of the metric
+     */
+    public Statistic(String name)
+    {
+        _name = name;
+    }
+
+    /**
+     * Creates a copy of the given statistic.
+     *
+     * @param source The statistic to copy
+     */
+    public Statistic(Statistic source)
+    {
+        _name = source._name;
+        synchronized (source)
+        {
+            _count = source._count;
+            _sum   = source._sum;
+            _min   = source._min;
+            _max   = source._max;
+        }
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value The value
+     */
+    public synchronized void add(long value)
+    {
+        if ((_count == 0) || (value < _min))
+        {
+            _min = value;
+        }
+        if ((_count == 0) || (value > _max))
+        {
+            _max = value;
+        }
+        _count++;
+        _sum += value;
+    }
+
+    /**
+     * Returns the name of the metric.
+     *
+     * @return The name
+     */
+    public String getName()
+    {
+        return _name;
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return The number of values
+     */
+    public synchronized long getCount()
+    {
+        return _count;
+    }
+
+    /**
+     * Returns the sum of the recorded values.
+     *
+     * @return The sum
+     */
+    public synchronized long getSum()
+    {
+        return _sum;
+    }
+
+    /**
+     * Returns the smallest recorded value.
+     *
+     * @return The minimum, or <code>0</code> if no value was recorded
+     */
+    public synchronized long getMin()
+    {
+        return _min;
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return The maximum, or <code>0</code> if no value was recorded
+     */
+    public synchronized long getMax()
+    {
+        return _max;
+    }
+
+    /**
+     * Returns the average of the recorded values.
+     *
+     * @return The average, or <code>0</code> if no value was recorded
+     */
+    public synchronized double getMean()
+    {
+        return _count == 0 ? 0.0 : (double)_sum / _count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized String toString()
+    {
+        StringBuffer result = new StringBuffer();
+
+        result.append(_name);
+        result.append(": count=");
+        result.append(_count);
+        result.append(", sum=");
+        result.append(_sum);
+        result.append(", min=");
+        result.append(_min);
+        result.append(", max=");
+        result.append(_max);
+        return result.toString();
+    }
+}
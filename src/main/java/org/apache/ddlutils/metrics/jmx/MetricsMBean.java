@@ -0,0 +1,202 @@
+package org.apache.ddlutils.metrics.jmx;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanConstructorInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanNotificationInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+
+import org.apache.ddlutils.metrics.MetricsRegistry;
+import org.apache.ddlutils.metrics.Statistic;
+
+/**
+ * Publishes the metrics of a {@link MetricsRegistry} via JMX. For every metric, there
+ * are the read-only attributes <code>&lt;name&gt;.count</code>, <code>&lt;name&gt;.sum</code>,
+ * <code>&lt;name&gt;.min</code>, <code>&lt;name&gt;.max</code> and <code>&lt;name&gt;.mean</code>,
+ * and the operation <code>reset</code> clears the registry. This class requires the JMX API,
+ * which is part of the JDK since version 5; it is the only class of DdlUtils that does, and
+ * the rest of DdlUtils does not use it. Register it with an MBean server like this:
+ * <pre>
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(registry),
+ *                                                          new ObjectName("org.apache.ddlutils:type=Metrics"));
+ * </pre>
+ *
+ * @version $Revision: $
+ */
+public class MetricsMBean implements DynamicMBean
+{
+    /** The suffixes of the attributes of each metric. */
+    private static final String[] ATTRIBUTE_SUFFIXES = { ".count", ".sum", ".min", ".max", ".mean" };
+    /** The name of the reset operation. */
+    private static final String RESET_OPERATION = "reset";
+
+    /** The published registry. */
+    private final MetricsRegistry _registry;
+
+    /**
+     * Creates a new MBean for the given registry.
+     *
+     * @param registry The registry
+     */
+    public MetricsMBean(MetricsRegistry registry)
+    {
+        _registry = registry;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object getAttribute(String attribute) throws AttributeNotFoundException
+    {
+        int dotPos = attribute.lastIndexOf('.');
+
+        if (dotPos > 0)
+        {
+            Statistic statistic = _registry.getStatistic(attribute.substring(0, dotPos));
+            String    suffix    = attribute.substring(dotPos);
+
+            if (statistic != null)
+            {
+                if (".count".equals(suffix))
+                {
+                    return new Long(statistic.getCount());
+                }
+                else if (".sum".equals(suffix))
+                {
+                    return new Long(statistic.getSum());
+                }
+                else if (".min".equals(suffix))
+                {
+                    return new Long(statistic.getMin());
+                }
+                else if (".max".equals(suffix))
+                {
+                    return new Long(statistic.getMax());
+                }
+                else if (".mean".equals(suffix))
+                {
+                    return new Double(statistic.getMean());
+                }
+            }
+        }
+        throw new AttributeNotFoundException("Unknown attribute " + attribute);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public AttributeList getAttributes(String[] attributes)
+    {
+        AttributeList result = new AttributeList();
+
+        for (int idx = 0; idx < attributes.length; idx++)
+        {
+            try
+            {
+                result.add(new Attribute(attributes[idx], getAttribute(attributes[idx])));
+            }
+            catch (AttributeNotFoundException ex)
+            {
+                // metrics that have not been recorded yet, are skipped
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException
+    {
+        throw new AttributeNotFoundException("The attribute " + attribute.getName() + " is read-only");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public AttributeList setAttributes(AttributeList attributes)
+    {
+        return new AttributeList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException
+    {
+        if (RESET_OPERATION.equals(actionName))
+        {
+            _registry.reset();
+            return null;
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName), "Unknown operation " + actionName);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public MBeanInfo getMBeanInfo()
+    {
+        String[] names      = _registry.getNames();
+        List     attributes = new ArrayList();
+
+        for (int nameIdx = 0; nameIdx < names.length; nameIdx++)
+        {
+            for (int suffixIdx = 0; suffixIdx < ATTRIBUTE_SUFFIXES.length; suffixIdx++)
+            {
+                String suffix = ATTRIBUTE_SUFFIXES[suffixIdx];
+
+                attributes.add(new MBeanAttributeInfo(names[nameIdx] + suffix,
+                                                      ".mean".equals(suffix) ? Double.class.getName() : Long.class.getName(),
+                                                      "The " + suffix.substring(1) + " of " + names[nameIdx],
+                                                      true,
+                                                      false,
+                                                      false));
+            }
+        }
+
+        MBeanAttributeInfo[] attributeInfos = (MBeanAttributeInfo[])attributes.toArray(new MBeanAttributeInfo[attributes.size()]);
+        MBeanOperationInfo[] operationInfos = new MBeanOperationInfo[] {
+                                                  new MBeanOperationInfo(RESET_OPERATION,
+                                                                         "Removes all recorded metrics",
+                                                                         new MBeanParameterInfo[0],
+                                                                         "void",
+                                                                         MBeanOperationInfo.ACTION)
+                                              };
+
+        return new MBeanInfo(getClass().getName(),
+                             "DdlUtils metrics",
+                             attributeInfos,
+                             new MBeanConstructorInfo[0],
+                             operationInfos,
+                             new MBeanNotificationInfo[0]);
+    }
+}
@@ -61,6 +61,32 @@ public class CloneHelper
         return result;
     }
 
+    /**
+     * Returns a copy-on-write clone of the given model. Initially, the clone shares all
+     * tables with the source model, and a table is only copied when it is changed via
+     * the clone (see {@link Database#getModifiableTable(Table)}). Thus, deriving a model
+     * that differs only in a few tables from a big source model is a lot cheaper than
+     * a {@link #clone(Database) deep clone}. Note that the source model must not be
+     * changed as long as the clone is in use.
+     *
+     * @param source The source model
+     * @return The clone
+     */
+    public Database copyOnWriteClone(Database source)
+    {
+        Database result = new Database();
+
+        result.setName(source.getName());
+        result.setIdMethod(source.getIdMethod());
+        result.setVersion(source.getVersion());
+
+        for (int tableIdx = 0; tableIdx < source.getTableCount(); tableIdx++)
+        {
+            result.addSharedTable(source.getTable(tableIdx));
+        }
+        return result;
+    }
+
     /**
      * Returns a clone of the given table.
      * 
@@ -24,7 +24,9 @@ import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -56,8 +58,11 @@ public class Database implements Serializable
     private String _version;
     /** The tables. */
     private ArrayList _tables = new ArrayList();
-    /** The dyna class cache for this model. */
-    private transient DynaClassCache _dynaClassCache = null;
+    /** The dyna class cache for this model, which synchronizes its lookups itself. */
+    private final DynaClassCache _dynaClassCache = new DynaClassCache();
+    /** The tables that this model shares with the model that it was cloned from via
+        {@link CloneHelper#copyOnWriteClone(Database)}; these are used as the keys of the map. */
+    private transient IdentityHashMap _sharedTables = null;
 
     /**
      * Creates an empty model without a name.
@@ -255,6 +260,7 @@ public class Database implements Serializable
         if (table != null)
         {
             _tables.remove(table);
+            removeDynaClasses(Collections.singleton(table));
         }
     }
 
@@ -265,7 +271,7 @@ public class Database implements Serializable
      */
     public void removeTable(int idx)
     {
-        _tables.remove(idx);
+        removeDynaClasses(Collections.singleton(_tables.remove(idx)));
     }
 
     /**
@@ -276,6 +282,7 @@ public class Database implements Serializable
     public void removeTables(Table[] tables)
     {
         _tables.removeAll(Arrays.asList(tables));
+        removeDynaClasses(Arrays.asList(tables));
     }
 
     /**
@@ -290,6 +297,114 @@ public class Database implements Serializable
 
         allTables.removeAll(Arrays.asList(tables));
         _tables.removeAll(allTables);
+        removeDynaClasses(allTables);
+    }
+
+    /**
+     * Adds a table that is shared with another model. Shared tables will not be changed
+     * via this model, instead {@link #getModifiableTable(Table)} will replace them with
+     * a private copy before they are changed.
+     * 
+     * @param table The shared table
+     */
+    void addSharedTable(Table table)
+    {
+        if (table != null)
+        {
+            if (_sharedTables == null)
+            {
+                _sharedTables = new IdentityHashMap();
+            }
+            _sharedTables.put(table, table);
+            _tables.add(table);
+        }
+    }
+
+    /**
+     * Determines whether the given table is shared with another model, i.e. whether this
+     * model has been created via {@link CloneHelper#copyOnWriteClone(Database)} and the table
+     * has not been changed since then.
+     * 
+     * @param table The table
+     * @return <code>true</code> if the table is shared with another model
+     */
+    public boolean isSharedTable(Table table)
+    {
+        return (_sharedTables != null) && _sharedTables.containsKey(table);
+    }
+
+    /**
+     * Returns a version of the given table of this model that can be changed without
+     * affecting other models. If the table is shared with another model, then it is
+     * replaced in this model by a deep copy which is then returned. Foreign keys in
+     * this model that reference the shared table are changed to reference the copy
+     * instead, which in turn requires copying shared tables with such foreign keys.
+     * For tables that are not shared, this method simply returns the table itself.<br/>
+     * Any code that changes the tables of a model created by
+     * {@link CloneHelper#copyOnWriteClone(Database)} shall use this method to get
+     * the table that it changes.
+     * 
+     * @param table The table of this model
+     * @return The table that can be changed
+     */
+    public Table getModifiableTable(Table table)
+    {
+        if (!isSharedTable(table))
+        {
+            return table;
+        }
+
+        CloneHelper cloneHelper = new CloneHelper();
+        Table       copy        = cloneHelper.clone(table, true, false, this, true);
+
+        _sharedTables.remove(table);
+        for (int tableIdx = 0; tableIdx < _tables.size(); tableIdx++)
+        {
+            if (_tables.get(tableIdx) == table)
+            {
+                _tables.set(tableIdx, copy);
+                break;
+            }
+        }
+        removeDynaClasses(Collections.singleton(table));
+        // we clone the foreign keys after replacing the table so that self-references use the copy
+        for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++)
+        {
+            copy.addForeignKey(cloneHelper.clone(table.getForeignKey(fkIdx), copy, this, true));
+        }
+        for (int tableIdx = 0; tableIdx < _tables.size(); tableIdx++)
+        {
+            Table curTable = (Table)_tables.get(tableIdx);
+
+            if (curTable != copy)
+            {
+                for (int fkIdx = 0; fkIdx < curTable.getForeignKeyCount(); fkIdx++)
+                {
+                    ForeignKey curFk = curTable.getForeignKey(fkIdx);
+
+                    if (curFk.getForeignTable() == table)
+                    {
+                        if (isSharedTable(curTable))
+                        {
+                            // the copy will resolve all of its foreign keys against this model
+                            getModifiableTable(curTable);
+                            break;
+                        }
+                        else
+                        {
+                            curFk.setForeignTable(copy);
+                            for (int refIdx = 0; refIdx < curFk.getReferenceCount(); refIdx++)
+                            {
+                                Reference curRef = curFk.getReference(refIdx);
+
+                                curRef.setForeignColumn(copy.findColumn(curRef.getForeignColumnName(), true));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return copy;
     }
 
     // Helper methods
@@ -570,26 +685,26 @@ public class Database implements Serializable
     }
 
     /**
-     * Returns the dyna class cache. If none is available yet, a new one will be created.
-     * 
-     * @return The dyna class cache
+     * Resets the dyna class cache. This should be done for instance when a column
+     * has been added or removed to a table.
      */
-    private DynaClassCache getDynaClassCache()
+    public void resetDynaClassCache()
     {
-        if (_dynaClassCache == null)
-        {
-            _dynaClassCache = new DynaClassCache();
-        }
-        return _dynaClassCache;
+        _dynaClassCache.clear();
     }
 
     /**
-     * Resets the dyna class cache. This should be done for instance when a column
-     * has been added or removed to a table.
+     * Removes the dyna classes of the given tables from the dyna class cache, so that the
+     * cache does not keep tables alive that are no longer part of this model.
+     * 
+     * @param tables The tables
      */
-    public void resetDynaClassCache()
+    private void removeDynaClasses(Collection tables)
     {
-        _dynaClassCache = null;
+        for (Iterator it = tables.iterator(); it.hasNext();)
+        {
+            _dynaClassCache.removeDynaClass((Table)it.next());
+        }
     }
     
     /**
@@ -604,7 +719,7 @@ public class Database implements Serializable
     {
         Table table = findTable(tableName);
 
-        return table != null ? getDynaClassCache().getDynaClass(table) : null;
+        return table != null ? _dynaClassCache.getDynaClass(table) : null;
     }
 
     /**
@@ -615,7 +730,7 @@ public class Database implements Serializable
      */
     public SqlDynaClass getDynaClassFor(DynaBean bean)
     {
-        return getDynaClassCache().getDynaClass(bean);
+        return _dynaClassCache.getDynaClass(bean);
     }
 
     /**
@@ -626,7 +741,7 @@ public class Database implements Serializable
      */
     public DynaBean createDynaBeanFor(Table table) throws SqlDynaException
     {
-        return getDynaClassCache().createNewInstance(table);
+        return _dynaClassCache.createNewInstance(table);
     }
 
     /**
@@ -639,7 +754,7 @@ public class Database implements Serializable
      */
     public DynaBean createDynaBeanFor(String tableName, boolean caseSensitive) throws SqlDynaException
     {
-        return getDynaClassCache().createNewInstance(findTable(tableName, caseSensitive));
+        return _dynaClassCache.createNewInstance(findTable(tableName, caseSensitive));
     }
 
     /**
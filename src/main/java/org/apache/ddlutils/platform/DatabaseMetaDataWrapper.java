@@ -24,6 +24,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.regex.Pattern;
 
+import org.apache.ddlutils.metrics.MetricsCollector;
+
 /**
  * Wrapper class for database meta data that stores additional info.
  */
@@ -39,6 +41,8 @@ public class DatabaseMetaDataWrapper
     private String _schemaPattern;
     /** The table types to process. */
     private String[] _tableTypes;
+    /** The collector of the metrics, if any. */
+    private MetricsCollector _metricsCollector;
 
     /**
      * Returns the database meta data.
@@ -60,6 +64,26 @@ public class DatabaseMetaDataWrapper
         _metaData = metaData;
     }
 
+    /**
+     * Returns the collector that receives the times of the meta data calls.
+     *
+     * @return The metrics collector or <code>null</code> if no metrics are collected
+     */
+    public MetricsCollector getMetricsCollector()
+    {
+        return _metricsCollector;
+    }
+
+    /**
+     * Sets the collector that receives the times of the meta data calls.
+     *
+     * @param metricsCollector The metrics collector or <code>null</code> if no metrics shall be collected
+     */
+    public void setMetricsCollector(MetricsCollector metricsCollector)
+    {
+        _metricsCollector = metricsCollector;
+    }
+
     /**
      * Returns the catalog in the database to read.
      *
@@ -193,7 +217,11 @@ public class DatabaseMetaDataWrapper
      */
     public ResultSet getTables(String tableNamePattern) throws SQLException
     {
-        return getMetaData().getTables(getCatalog(), getSchemaPattern(), tableNamePattern, getTableTypes());
+        long      startTime = System.currentTimeMillis();
+        ResultSet result    = getMetaData().getTables(getCatalog(), getSchemaPattern(), tableNamePattern, getTableTypes());
+
+        recordCallTime(startTime);
+        return result;
     }
 
     /**
@@ -208,7 +236,11 @@ public class DatabaseMetaDataWrapper
      */
     public ResultSet getColumns(String tableNamePattern, String columnNamePattern) throws SQLException
     {
-        return getMetaData().getColumns(getCatalog(), getSchemaPattern(), tableNamePattern, columnNamePattern);
+        long      startTime = System.currentTimeMillis();
+        ResultSet result    = getMetaData().getColumns(getCatalog(), getSchemaPattern(), tableNamePattern, columnNamePattern);
+
+        recordCallTime(startTime);
+        return result;
     }
 
     /**
@@ -222,7 +254,11 @@ public class DatabaseMetaDataWrapper
      */
     public ResultSet getPrimaryKeys(String tableNamePattern) throws SQLException
     {
-        return getMetaData().getPrimaryKeys(getCatalog(), getSchemaPattern(), tableNamePattern);
+        long      startTime = System.currentTimeMillis();
+        ResultSet result    = getMetaData().getPrimaryKeys(getCatalog(), getSchemaPattern(), tableNamePattern);
+
+        recordCallTime(startTime);
+        return result;
     }
 
     /**
@@ -236,7 +272,11 @@ public class DatabaseMetaDataWrapper
      */
     public ResultSet getForeignKeys(String tableNamePattern) throws SQLException
     {
-        return getMetaData().getImportedKeys(getCatalog(), getSchemaPattern(), tableNamePattern);
+        long      startTime = System.currentTimeMillis();
+        ResultSet result    = getMetaData().getImportedKeys(getCatalog(), getSchemaPattern(), tableNamePattern);
+
+        recordCallTime(startTime);
+        return result;
     }
 
     /**
@@ -252,6 +292,23 @@ public class DatabaseMetaDataWrapper
      */
     public ResultSet getIndices(String tableNamePattern, boolean unique, boolean approximate) throws SQLException
     {
-        return getMetaData().getIndexInfo(getCatalog(), getSchemaPattern(), tableNamePattern, unique, approximate);
+        long      startTime = System.currentTimeMillis();
+        ResultSet result    = getMetaData().getIndexInfo(getCatalog(), getSchemaPattern(), tableNamePattern, unique, approximate);
+
+        recordCallTime(startTime);
+        return result;
+    }
+
+    /**
+     * Records the time of a meta data call, if metrics are collected.
+     * 
+     * @param startTime The time when the call started
+     */
+    private void recordCallTime(long startTime)
+    {
+        if (_metricsCollector != null)
+        {
+            _metricsCollector.record(MetricsCollector.METADATA_CALL_TIME, System.currentTimeMillis() - startTime);
+        }
     }
 }
@@ -534,6 +534,7 @@ public class JdbcModelReader
             DatabaseMetaDataWrapper metaData = new DatabaseMetaDataWrapper();
 
             metaData.setMetaData(_connection.getMetaData());
+            metaData.setMetricsCollector(getPlatform().getMetricsCollector());
             metaData.setCatalog(catalog == null ? getDefaultCatalogPattern() : catalog);
             metaData.setSchemaPattern(schemaPattern == null ? getDefaultSchemaPattern() : schemaPattern);
             metaData.setTableTypes((tableTypes == null) || (tableTypes.length == 0) ? getDefaultTableTypes() : tableTypes);
@@ -1225,6 +1226,7 @@ public class JdbcModelReader
             DatabaseMetaDataWrapper metaData = new DatabaseMetaDataWrapper();
 
             metaData.setMetaData(connection.getMetaData());
+            metaData.setMetricsCollector(getPlatform().getMetricsCollector());
             metaData.setCatalog(getDefaultCatalogPattern());
             metaData.setSchemaPattern(schemaPattern == null ? getDefaultSchemaPattern() : schemaPattern);
             metaData.setTableTypes(getDefaultTableTypes());
@@ -38,6 +38,7 @@ import org.apache.commons.collections.map.ListOrderedMap;
 import org.apache.ddlutils.DatabaseOperationException;
 import org.apache.ddlutils.dynabean.SqlDynaBean;
 import org.apache.ddlutils.dynabean.SqlDynaClass;
+import org.apache.ddlutils.metrics.MetricsCollector;
 import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.model.Table;
@@ -54,6 +55,8 @@ public class ModelBasedResultSetIterator implements Iterator
 {
     /** The platform. */
     private PlatformImplBase _platform;
+    /** The connection of the result set as handed out by the platform, if known. */
+    private Connection _connection;
     /** The base result set. */
     private ResultSet _resultSet;
     /** The dyna class to use for creating beans. */
@@ -70,6 +73,8 @@ public class ModelBasedResultSetIterator implements Iterator
     private boolean _isAtEnd = false;
     /** Whether to close the statement and connection after finishing. */
     private boolean _cleanUpAfterFinish;
+    /** The number of rows read since the last time they were recorded in the metrics. */
+    private int _numRowsRead;
 
     /**
      * Creates a new iterator.
@@ -83,10 +88,31 @@ public class ModelBasedResultSetIterator implements Iterator
      *                           the iteration, upon on exception, or when this iterator is garbage collected
      */
     public ModelBasedResultSetIterator(PlatformImplBase platform, Database model, ResultSet resultSet, Table[] queryHints, boolean cleanUpAfterFinish) throws DatabaseOperationException
+    {
+        this(platform, model, null, resultSet, queryHints, cleanUpAfterFinish);
+    }
+
+    /**
+     * Creates a new iterator. The given connection is returned to the platform after finishing
+     * the iteration; this should be the connection that the platform handed out, as the one
+     * returned by the statement of the result set may be a wrapper or the wrapped connection
+     * which a connection pool would not recognize.
+     * 
+     * @param platform           The platform
+     * @param model              The database model
+     * @param connection         The connection of the result set (optional)
+     * @param resultSet          The result set
+     * @param queryHints         The tables that were queried in the query that produced the given result set
+     *                           (optional)
+     * @param cleanUpAfterFinish Whether to close the statement and connection after finishing
+     *                           the iteration, upon on exception, or when this iterator is garbage collected
+     */
+    public ModelBasedResultSetIterator(PlatformImplBase platform, Database model, Connection connection, ResultSet resultSet, Table[] queryHints, boolean cleanUpAfterFinish) throws DatabaseOperationException
     {
         if (resultSet != null)
         {
             _platform           = platform;
+            _connection         = connection;
             _resultSet          = resultSet;
             _cleanUpAfterFinish = cleanUpAfterFinish;
             _caseSensitive      = _platform.isDelimitedIdentifierModeOn();
@@ -261,6 +287,7 @@ public class ModelBasedResultSetIterator implements Iterator
                     bean.set(propName, value);
                 }
                 _needsAdvancing = true;
+                _numRowsRead++;
                 return bean;
             }
             catch (Exception ex)
@@ -285,6 +312,7 @@ public class ModelBasedResultSetIterator implements Iterator
         else
         {
             _needsAdvancing = true;
+            _numRowsRead++;
         }
     }
     
@@ -333,14 +361,18 @@ public class ModelBasedResultSetIterator implements Iterator
      */
     public void cleanUp()
     {
+        recordRowsRead();
         if (_cleanUpAfterFinish && (_resultSet != null))
         {
-            Connection conn = null;
+            Connection conn = _connection;
             try
             {
                 Statement stmt = _resultSet.getStatement();
 
-                conn = stmt.getConnection();
+                if (conn == null)
+                {
+                    conn = stmt.getConnection();
+                }
 
                 // also closes the resultset
                 _platform.closeStatement(stmt);
@@ -350,8 +382,25 @@ public class ModelBasedResultSetIterator implements Iterator
                 // we ignore it
             }
             _platform.returnConnection(conn);
-            _resultSet = null;
+            _connection = null;
+            _resultSet  = null;
+        }
+    }
+
+    /**
+     * Records the number of rows read so far in the metrics of the platform, if it collects
+     * metrics and the rows belong to a single table.
+     */
+    private void recordRowsRead()
+    {
+        MetricsCollector metricsCollector = _platform.getMetricsCollector();
+
+        if ((metricsCollector != null) && (_numRowsRead > 0) && (_dynaClass instanceof SqlDynaClass))
+        {
+            metricsCollector.increment(MetricsCollector.ROWS_READ_PREFIX + ((SqlDynaClass)_dynaClass).getTableName(),
+                                       _numRowsRead);
         }
+        _numRowsRead = 0;
     }
 
     /**
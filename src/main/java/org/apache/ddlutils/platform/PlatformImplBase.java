@@ -19,8 +19,15 @@ package org.apache.ddlutils.platform;
  * under the License.
  */
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
@@ -28,11 +35,14 @@ import java.sql.BatchUpdateException;
 import java.sql.Blob;
 import java.sql.Clob;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -43,9 +53,11 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.apache.commons.beanutils.DynaBean;
 import org.apache.commons.beanutils.PropertyUtils;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.Predicate;
 import org.apache.commons.logging.Log;
@@ -76,6 +88,8 @@ import org.apache.ddlutils.alteration.TableChange;
 import org.apache.ddlutils.alteration.TableDefinitionChangesPredicate;
 import org.apache.ddlutils.dynabean.SqlDynaClass;
 import org.apache.ddlutils.dynabean.SqlDynaProperty;
+import org.apache.ddlutils.io.BinaryObjectsHelper;
+import org.apache.ddlutils.metrics.MetricsCollector;
 import org.apache.ddlutils.model.CloneHelper;
 import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
@@ -114,12 +128,22 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
     private boolean _delimitedIdentifierModeOn;
     /** Whether identity override is enabled. */
     private boolean _identityOverrideOn;
+    /** The connections for which identity override is enabled in addition to the platform setting. */
+    private Map _identityOverrideConnections = Collections.synchronizedMap(new WeakHashMap());
     /** Whether read foreign keys shall be sorted alphabetically. */
     private boolean _foreignKeysSorted;
     /** Whether to use the default ON UPDATE action if the specified one is unsupported. */
     private boolean _useDefaultOnUpdateActionIfUnsupported = true;
     /** Whether to use the default ON DELETE action if the specified one is unsupported. */
     private boolean _useDefaultOnDeleteActionIfUnsupported = true;
+    /** Whether SQL scripts are evaluated using JDBC statement batches. */
+    private boolean _batchedEvaluationOn = false;
+    /** The maximum number of SQL commands in one evaluation batch. */
+    private int _evaluationBatchSize = 100;
+    /** Whether batch inserts use a database-specific bulk insertion mechanism. */
+    private boolean _nativeBulkInsertOn = false;
+    /** The collector of the metrics, if any. */
+    private MetricsCollector _metricsCollector;
 
     /**
      * {@inheritDoc}
@@ -241,6 +265,29 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         _identityOverrideOn = identityOverrideOn;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isIdentityOverrideOn(Connection connection)
+    {
+        return _identityOverrideOn || ((connection != null) && _identityOverrideConnections.containsKey(connection));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setIdentityOverrideOn(Connection connection, boolean identityOverrideOn)
+    {
+        if (identityOverrideOn)
+        {
+            _identityOverrideConnections.put(connection, Boolean.TRUE);
+        }
+        else
+        {
+            _identityOverrideConnections.remove(connection);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -290,234 +337,164 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
     }
 
     /**
-     * Returns the log for this platform.
-     * 
-     * @return The log
+     * {@inheritDoc}
      */
-    protected Log getLog()
+    public boolean isBatchedEvaluationOn()
     {
-        return _log;
+        return _batchedEvaluationOn;
     }
 
     /**
-     * Logs any warnings associated to the given connection. Note that the connection needs
-     * to be open for this.
-     * 
-     * @param connection The open connection
+     * {@inheritDoc}
      */
-    protected void logWarnings(Connection connection) throws SQLException
+    public void setBatchedEvaluationOn(boolean batchedEvaluationOn)
     {
-        SQLWarning warning = connection.getWarnings();
-
-        while (warning != null)
-        {
-            getLog().warn(warning.getLocalizedMessage(), warning.getCause());
-            warning = warning.getNextWarning();
-        }
+        _batchedEvaluationOn = batchedEvaluationOn;
     }
 
     /**
      * {@inheritDoc}
      */
-    public int evaluateBatch(String sql, boolean continueOnError) throws DatabaseOperationException
+    public int getEvaluationBatchSize()
     {
-        Connection connection = borrowConnection();
-
-        try
-        {
-            return evaluateBatch(connection, sql, continueOnError);
-        }
-        finally
-        {
-            returnConnection(connection);
-        }
+        return _evaluationBatchSize;
     }
 
     /**
      * {@inheritDoc}
      */
-    public int evaluateBatch(Connection connection, String sql, boolean continueOnError) throws DatabaseOperationException
+    public void setEvaluationBatchSize(int batchSize)
     {
-        Statement statement    = null;
-        int       errors       = 0;
-        int       commandCount = 0;
-
-        // we tokenize the SQL along the delimiters, and we also make sure that only delimiters
-        // at the end of a line or the end of the string are used (row mode)
-        try
-        {
-            statement = connection.createStatement();
-
-            SqlTokenizer tokenizer = new SqlTokenizer(sql);
-
-            while (tokenizer.hasMoreStatements())
-            {
-                String command = tokenizer.getNextStatement();
-                
-                // ignore whitespace
-                command = command.trim();
-                if (command.length() == 0)
-                {
-                    continue;
-                }
-                
-                commandCount++;
-                
-                if (_log.isDebugEnabled())
-                {
-                    _log.debug("About to execute SQL " + command);
-                }
-                try
-                {
-                    int results = statement.executeUpdate(command);
-
-                    if (_log.isDebugEnabled())
-                    {
-                        _log.debug("After execution, " + results + " row(s) have been changed");
-                    }
-                }
-                catch (SQLException ex)
-                {
-                    if (continueOnError)
-                    {
-                        // Since the user deciced to ignore this error, we log the error
-                        // on level warn, and the exception itself on level debug
-                        _log.warn("SQL Command " + command + " failed with: " + ex.getMessage());
-                        if (_log.isDebugEnabled())
-                        {
-                            _log.debug(ex);
-                        }
-                        errors++;
-                    }
-                    else
-                    {
-                        throw new DatabaseOperationException("Error while executing SQL "+command, ex);
-                    }
-                }
-
-                // lets display any warnings
-                SQLWarning warning = connection.getWarnings();
-
-                while (warning != null)
-                {
-                    _log.warn(warning.toString());
-                    warning = warning.getNextWarning();
-                }
-                connection.clearWarnings();
-            }
-            _log.info("Executed "+ commandCount + " SQL command(s) with " + errors + " error(s)");
-        }
-        catch (SQLException ex)
-        {
-            throw new DatabaseOperationException("Error while executing SQL", ex);
-        }
-        finally
+        if (batchSize <= 0)
         {
-            closeStatement(statement);
+            throw new IllegalArgumentException("The evaluation batch size must be positive");
         }
-
-        return errors;
+        _evaluationBatchSize = batchSize;
     }
 
     /**
      * {@inheritDoc}
      */
-    public void shutdownDatabase() throws DatabaseOperationException
+    public boolean isNativeBulkInsertOn()
     {
-        Connection connection = borrowConnection();
-
-        try
-        {
-            shutdownDatabase(connection);
-        }
-        finally
-        {
-            returnConnection(connection);
-        }
+        return _nativeBulkInsertOn;
     }
 
     /**
      * {@inheritDoc}
      */
-    public void shutdownDatabase(Connection connection) throws DatabaseOperationException
+    public void setNativeBulkInsertOn(boolean nativeBulkInsertOn)
     {
-        // Per default do nothing as most databases don't need this
+        _nativeBulkInsertOn = nativeBulkInsertOn;
     }
 
     /**
      * {@inheritDoc}
      */
-    public void createDatabase(String jdbcDriverClassName, String connectionUrl, String username, String password, Map parameters) throws DatabaseOperationException, UnsupportedOperationException
+    public MetricsCollector getMetricsCollector()
     {
-        throw new UnsupportedOperationException("Database creation is not supported for the database platform "+getName());
+        return _metricsCollector;
     }
 
     /**
      * {@inheritDoc}
      */
-    public void dropDatabase(String jdbcDriverClassName, String connectionUrl, String username, String password) throws DatabaseOperationException, UnsupportedOperationException
+    public void setMetricsCollector(MetricsCollector metricsCollector)
     {
-        throw new UnsupportedOperationException("Database deletion is not supported for the database platform "+getName());
+        _metricsCollector = metricsCollector;
     }
 
     /**
-     * {@inheritDoc}
+     * Records the time of a JDBC call that executed a statement, if metrics are collected.
+     * 
+     * @param startTime The time when the call started
      */
-    public void createTables(Database model, boolean dropTablesFirst, boolean continueOnError) throws DatabaseOperationException
+    protected void recordStatementTime(long startTime)
     {
-        createModel(model, dropTablesFirst, continueOnError);
+        if (_metricsCollector != null)
+        {
+            _metricsCollector.record(MetricsCollector.JDBC_STATEMENT_TIME, System.currentTimeMillis() - startTime);
+        }
     }
 
     /**
-     * {@inheritDoc}
+     * Records the size of an executed JDBC batch, if metrics are collected.
+     * 
+     * @param batchSize The number of statements in the batch
      */
-    public void createTables(Database model, CreationParameters params, boolean dropTablesFirst, boolean continueOnError) throws DatabaseOperationException
+    protected void recordBatchSize(int batchSize)
     {
-        createModel(model, params, dropTablesFirst, continueOnError);
+        if (_metricsCollector != null)
+        {
+            _metricsCollector.record(MetricsCollector.JDBC_BATCH_SIZE, batchSize);
+        }
     }
 
     /**
-     * {@inheritDoc}
+     * Records the time that it took to generate the sql for a model operation, if
+     * metrics are collected.
+     * 
+     * @param startTime The time when the generation started
      */
-    public void createTables(Connection connection, Database model, boolean dropTablesFirst, boolean continueOnError) throws DatabaseOperationException
+    protected void recordSqlGenerationTime(long startTime)
     {
-        createModel(connection, model, dropTablesFirst, continueOnError);
+        if (_metricsCollector != null)
+        {
+            _metricsCollector.record(MetricsCollector.SQL_GENERATION_TIME, System.currentTimeMillis() - startTime);
+        }
     }
 
     /**
-     * {@inheritDoc}
+     * Records that rows were written into the given table, if metrics are collected.
+     * 
+     * @param table   The table
+     * @param numRows The number of rows
      */
-    public void createTables(Connection connection, Database model, CreationParameters params, boolean dropTablesFirst, boolean continueOnError) throws DatabaseOperationException
+    protected void recordRowsWritten(Table table, int numRows)
     {
-        createModel(connection, model, params, dropTablesFirst, continueOnError);
+        if ((_metricsCollector != null) && (numRows > 0))
+        {
+            _metricsCollector.increment(MetricsCollector.ROWS_WRITTEN_PREFIX + table.getName(), numRows);
+        }
     }
 
     /**
-     * {@inheritDoc}
+     * Returns the log for this platform.
+     * 
+     * @return The log
      */
-    public String getCreateTablesSql(Database model, boolean dropTablesFirst, boolean continueOnError)
+    protected Log getLog()
     {
-        return getCreateModelSql(model, dropTablesFirst, continueOnError);
+        return _log;
     }
 
     /**
-     * {@inheritDoc}
+     * Logs any warnings associated to the given connection. Note that the connection needs
+     * to be open for this.
+     * 
+     * @param connection The open connection
      */
-    public String getCreateTablesSql(Database model, CreationParameters params, boolean dropTablesFirst, boolean continueOnError)
+    protected void logWarnings(Connection connection) throws SQLException
     {
-        return getCreateModelSql(model, params, dropTablesFirst, continueOnError);
+        SQLWarning warning = connection.getWarnings();
+
+        while (warning != null)
+        {
+            getLog().warn(warning.getLocalizedMessage(), warning.getCause());
+            warning = warning.getNextWarning();
+        }
     }
 
     /**
      * {@inheritDoc}
      */
-    public void createModel(Database model, boolean dropTablesFirst, boolean continueOnError) throws DatabaseOperationException
+    public int evaluateBatch(String sql, boolean continueOnError) throws DatabaseOperationException
     {
         Connection connection = borrowConnection();
 
         try
         {
-            createModel(connection, model, dropTablesFirst, continueOnError);
+            return evaluateBatch(connection, sql, continueOnError);
         }
         finally
         {
@@ -528,23 +505,23 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
     /**
      * {@inheritDoc}
      */
-    public void createModel(Connection connection, Database model, boolean dropTablesFirst, boolean continueOnError) throws DatabaseOperationException
+    public int evaluateBatch(Connection connection, String sql, boolean continueOnError) throws DatabaseOperationException
     {
-        String sql = getCreateModelSql(model, dropTablesFirst, continueOnError);
-
-        evaluateBatch(connection, sql, continueOnError);
+        // we tokenize the SQL along the delimiters, and we also make sure that only delimiters
+        // at the end of a line or the end of the string are used (row mode)
+        return evaluateBatch(connection, new SqlTokenizer(sql), continueOnError);
     }
 
     /**
      * {@inheritDoc}
      */
-    public void createModel(Database model, CreationParameters params, boolean dropTablesFirst, boolean continueOnError) throws DatabaseOperationException
+    public int evaluateBatch(Reader sql, boolean continueOnError) throws DatabaseOperationException
     {
         Connection connection = borrowConnection();
 
         try
         {
-            createModel(connection, model, params, dropTablesFirst, continueOnError);
+            return evaluateBatch(connection, sql, continueOnError);
         }
         finally
         {
@@ -555,190 +532,316 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
     /**
      * {@inheritDoc}
      */
-    public void createModel(Connection connection, Database model, CreationParameters params, boolean dropTablesFirst, boolean continueOnError) throws DatabaseOperationException
+    public int evaluateBatch(Connection connection, Reader sql, boolean continueOnError) throws DatabaseOperationException
     {
-        String sql = getCreateModelSql(model, params, dropTablesFirst, continueOnError);
-
-        evaluateBatch(connection, sql, continueOnError);
+        return evaluateBatch(connection, new SqlTokenizer(sql), continueOnError);
     }
 
     /**
      * {@inheritDoc}
      */
-    public String getCreateModelSql(Database model, boolean dropTablesFirst, boolean continueOnError)
+    public int evaluateBatch(File sqlFile, boolean continueOnError) throws DatabaseOperationException
     {
-        String sql = null;
+        FileReader reader = null;
 
         try
         {
-            StringWriter buffer = new StringWriter();
-
-            getSqlBuilder().setWriter(buffer);
-            getSqlBuilder().createTables(model, dropTablesFirst);
-            sql = buffer.toString();
+            reader = new FileReader(sqlFile);
+            return evaluateBatch(reader, continueOnError);
         }
-        catch (IOException e)
+        catch (IOException ex)
         {
-            // won't happen because we're using a string writer
+            throw new DatabaseOperationException("Could not read the sql file " + sqlFile.getAbsolutePath(), ex);
+        }
+        finally
+        {
+            if (reader != null)
+            {
+                try
+                {
+                    reader.close();
+                }
+                catch (IOException ex)
+                {
+                    _log.warn("Could not close reader for file " + sqlFile.getAbsolutePath());
+                }
+            }
         }
-        return sql;
     }
 
     /**
-     * {@inheritDoc}
+     * Executes the sql statements returned by the given tokenizer. If batched evaluation is on
+     * and supported by both the platform and the JDBC driver, then consecutive statements are
+     * sent to the database in JDBC statement batches of at most {@link #getEvaluationBatchSize()}
+     * statements, and warnings are only collected once per batch. Otherwise the statements are
+     * executed one by one.
+     * 
+     * @param connection      The connection to the database
+     * @param tokenizer       The tokenizer that returns the sql statements
+     * @param continueOnError Whether to continue executing the sql commands when an error occurred
+     * @return The number of errors
      */
-    public String getCreateModelSql(Database model, CreationParameters params, boolean dropTablesFirst, boolean continueOnError)
+    protected int evaluateBatch(Connection connection, SqlTokenizer tokenizer, boolean continueOnError) throws DatabaseOperationException
     {
-        String sql = null;
+        Statement statement    = null;
+        int       errors       = 0;
+        int       commandCount = 0;
 
         try
         {
-            StringWriter buffer = new StringWriter();
+            statement = connection.createStatement();
 
-            getSqlBuilder().setWriter(buffer);
-            getSqlBuilder().createTables(model, params, dropTablesFirst);
-            sql = buffer.toString();
+            boolean useBatches = isStatementBatchingUsed(connection, continueOnError);
+            List    commands   = new ArrayList();
+
+            while (tokenizer.hasMoreStatements())
+            {
+                String command = tokenizer.getNextStatement();
+                
+                // ignore whitespace
+                command = command.trim();
+                if (command.length() == 0)
+                {
+                    continue;
+                }
+                
+                commandCount++;
+
+                if (useBatches)
+                {
+                    commands.add(command);
+                    if (commands.size() >= getEvaluationBatchSize())
+                    {
+                        errors += executeCommandBatch(connection, statement, commands, continueOnError);
+                        commands.clear();
+                    }
+                }
+                else
+                {
+                    errors += executeCommand(connection, statement, command, continueOnError);
+                }
+            }
+            if (commands.size() == 1)
+            {
+                // no need for a batch here; this also allows for commands that cannot be executed
+                // as part of a batch (e.g. CREATE INDEX CONCURRENTLY in PostgreSQL)
+                errors += executeCommand(connection, statement, (String)commands.get(0), continueOnError);
+            }
+            else if (!commands.isEmpty())
+            {
+                errors += executeCommandBatch(connection, statement, commands, continueOnError);
+            }
+            _log.info("Executed "+ commandCount + " SQL command(s) with " + errors + " error(s)");
         }
-        catch (IOException e)
+        catch (SQLException ex)
         {
-            // won't happen because we're using a string writer
+            throw new DatabaseOperationException("Error while executing SQL", ex);
+        }
+        finally
+        {
+            closeStatement(statement);
         }
-        return sql;
-    }
 
-    /**
-     * Returns the model comparator to be used for this platform. This method is intendeded
-     * to be redefined by platforms that need to customize the model reader.
-     * 
-     * @return The model comparator
-     */
-    protected ModelComparator getModelComparator()
-    {
-        return new ModelComparator(getPlatformInfo(),
-                                   getTableDefinitionChangesPredicate(),
-                                   isDelimitedIdentifierModeOn());
+        return errors;
     }
 
     /**
-     * Returns the predicate that defines which changes are supported by the platform.
+     * Determines whether the sql commands evaluated via the given connection shall be sent in
+     * JDBC statement batches. If errors shall be ignored and the connection is in auto-commit
+     * mode, then batches are only used if the database commits each command of a batch on its
+     * own (see {@link PlatformInfo#isBatchCommandsCommittedIndividually()}). Otherwise a failed
+     * command could undo the successful commands of the same batch.
      * 
-     * @return The predicate
+     * @param connection      The connection to the database
+     * @param continueOnError Whether to continue when a command failed
+     * @return <code>true</code> if statement batches shall be used
      */
-    protected TableDefinitionChangesPredicate getTableDefinitionChangesPredicate()
+    protected boolean isStatementBatchingUsed(Connection connection, boolean continueOnError) throws SQLException
     {
-        return new DefaultTableDefinitionChangesPredicate();
+        if (!isBatchedEvaluationOn() ||
+            (getEvaluationBatchSize() <= 1) ||
+            !getPlatformInfo().isStatementBatchingSupported() ||
+            !connection.getMetaData().supportsBatchUpdates())
+        {
+            return false;
+        }
+        return !continueOnError ||
+               !connection.getAutoCommit() ||
+               getPlatformInfo().isBatchCommandsCommittedIndividually();
     }
-    
+
     /**
-     * {@inheritDoc}
+     * Executes a single sql command and logs the warnings that it produced.
+     * 
+     * @param connection      The connection to the database
+     * @param statement       The statement to use
+     * @param command         The sql command
+     * @param continueOnError Whether to continue when the command failed
+     * @return The number of errors, i.e. <code>1</code> if the command failed and <code>0</code> otherwise
      */
-    public List getChanges(Database currentModel, Database desiredModel)
+    private int executeCommand(Connection connection, Statement statement, String command, boolean continueOnError) throws SQLException, DatabaseOperationException
     {
-        List changes = getModelComparator().compare(currentModel, desiredModel);
+        int errors = 0;
 
-        return sortChanges(changes);
+        if (_log.isDebugEnabled())
+        {
+            _log.debug("About to execute SQL " + command);
+        }
+        long startTime = System.currentTimeMillis();
+
+        try
+        {
+            int results = statement.executeUpdate(command);
+
+            if (_log.isDebugEnabled())
+            {
+                _log.debug("After execution, " + results + " row(s) have been changed");
+            }
+        }
+        catch (SQLException ex)
+        {
+            handleCommandError(command, ex, continueOnError);
+            errors++;
+        }
+        finally
+        {
+            recordStatementTime(startTime);
+        }
+
+        // lets display any warnings
+        logAndClearWarnings(connection);
+        return errors;
     }
 
     /**
-     * Sorts the changes so that they can be executed by the database. E.g. tables need to be created before
-     * they can be referenced by foreign keys, indexes should be dropped before a table is dropped etc.
+     * Executes the given sql commands in one or more JDBC statement batches. If a command
+     * fails, then the failure is reported for that command. Drivers that stop processing a
+     * batch at the first failed command, are handed the remaining commands in a new batch.
      * 
-     * @param changes The original changes
-     * @return The sorted changes - this can be the original list object or a new one
+     * @param connection      The connection to the database
+     * @param statement       The statement to use
+     * @param commands        The sql commands
+     * @param continueOnError Whether to continue when a command failed
+     * @return The number of failed commands
      */
-    protected List sortChanges(List changes)
+    private int executeCommandBatch(Connection connection, Statement statement, List commands, boolean continueOnError) throws SQLException, DatabaseOperationException
     {
-        final Map typeOrder = new HashMap();
-
-        typeOrder.put(RemoveForeignKeyChange.class, new Integer(0));
-        typeOrder.put(RemoveIndexChange.class,      new Integer(1));
-        typeOrder.put(RemoveTableChange.class,      new Integer(2));
-        typeOrder.put(RecreateTableChange.class,    new Integer(3));
-        typeOrder.put(RemovePrimaryKeyChange.class, new Integer(3));
-        typeOrder.put(RemoveColumnChange.class,     new Integer(4));
-        typeOrder.put(ColumnDefinitionChange.class, new Integer(5));
-        typeOrder.put(ColumnOrderChange.class,      new Integer(5));
-        typeOrder.put(AddColumnChange.class,        new Integer(5));
-        typeOrder.put(PrimaryKeyChange.class,       new Integer(5));
-        typeOrder.put(AddPrimaryKeyChange.class,    new Integer(6));
-        typeOrder.put(AddTableChange.class,         new Integer(7));
-        typeOrder.put(AddIndexChange.class,         new Integer(8));
-        typeOrder.put(AddForeignKeyChange.class,    new Integer(9));
+        int errors   = 0;
+        int startIdx = 0;
 
-        Collections.sort(changes, new Comparator()
+        while (startIdx < commands.size())
         {
-            public int compare(Object objA, Object objB)
+            for (int idx = startIdx; idx < commands.size(); idx++)
             {
-                Integer orderValueA = (Integer)typeOrder.get(objA.getClass());
-                Integer orderValueB = (Integer)typeOrder.get(objB.getClass());
+                statement.addBatch((String)commands.get(idx));
+            }
+            if (_log.isDebugEnabled())
+            {
+                _log.debug("About to execute a batch of " + (commands.size() - startIdx) + " SQL command(s), starting with " + commands.get(startIdx));
+            }
+            long startTime = System.currentTimeMillis();
 
-                if (orderValueA == null)
-                {
-                    return (orderValueB == null ? 0 : 1);
-                }
-                else if (orderValueB == null)
+            recordBatchSize(commands.size() - startIdx);
+            try
+            {
+                statement.executeBatch();
+                startIdx = commands.size();
+            }
+            catch (BatchUpdateException ex)
+            {
+                int[]        results = ex.getUpdateCounts();
+                SQLException cause   = ex.getNextException() != null ? ex.getNextException() : ex;
+
+                statement.clearBatch();
+                if ((results == null) || (results.length < commands.size() - startIdx))
                 {
-                    return -1;
+                    // the driver stopped at the first failed command, so we report it and resubmit
+                    // the ones after it
+                    int failedIdx = startIdx + (results == null ? 0 : results.length);
+
+                    handleCommandError((String)commands.get(failedIdx), cause, continueOnError);
+                    errors++;
+                    startIdx = failedIdx + 1;
                 }
                 else
                 {
-                    return orderValueA.compareTo(orderValueB);
+                    // the driver processed all commands
+                    for (int idx = 0; idx < results.length; idx++)
+                    {
+                        if (results[idx] == Statement.EXECUTE_FAILED)
+                        {
+                            handleCommandError((String)commands.get(startIdx + idx), cause, continueOnError);
+                            errors++;
+                        }
+                    }
+                    startIdx = commands.size();
                 }
             }
-        });
-    	return changes;
+            finally
+            {
+                recordStatementTime(startTime);
+            }
+        }
+
+        // lets display any warnings
+        logAndClearWarnings(connection);
+        return errors;
     }
 
     /**
-     * {@inheritDoc}
+     * Handles the failure of a sql command during evaluation of a batch of commands. If the
+     * user decided to ignore errors, then the failure is only logged, otherwise an exception
+     * is thrown.
+     * 
+     * @param command         The failed sql command
+     * @param ex              The exception
+     * @param continueOnError Whether to continue when a command failed
      */
-    public void alterTables(Database desiredModel, boolean continueOnError) throws DatabaseOperationException
+    private void handleCommandError(String command, SQLException ex, boolean continueOnError) throws DatabaseOperationException
     {
-        Connection connection = borrowConnection();
-
-        try
+        if (continueOnError)
         {
-            Database currentModel = readModelFromDatabase(connection, desiredModel.getName());
-
-            alterModel(currentModel, desiredModel, continueOnError);
+            // Since the user deciced to ignore this error, we log the error
+            // on level warn, and the exception itself on level debug
+            _log.warn("SQL Command " + command + " failed with: " + ex.getMessage());
+            if (_log.isDebugEnabled())
+            {
+                _log.debug(ex);
+            }
         }
-        finally
+        else
         {
-            returnConnection(connection);
+            throw new DatabaseOperationException("Error while executing SQL "+command, ex);
         }
     }
 
     /**
-     * {@inheritDoc}
+     * Logs and then clears any warnings associated to the given connection.
+     * 
+     * @param connection The open connection
      */
-    public void alterTables(Database desiredModel, CreationParameters params, boolean continueOnError) throws DatabaseOperationException
+    private void logAndClearWarnings(Connection connection) throws SQLException
     {
-        Connection connection = borrowConnection();
-
-        try
-        {
-            Database currentModel = readModelFromDatabase(connection, desiredModel.getName());
+        SQLWarning warning = connection.getWarnings();
 
-            alterModel(currentModel, desiredModel, params, continueOnError);
-        }
-        finally
+        while (warning != null)
         {
-            returnConnection(connection);
+            _log.warn(warning.toString());
+            warning = warning.getNextWarning();
         }
+        connection.clearWarnings();
     }
 
     /**
      * {@inheritDoc}
      */
-    public void alterTables(String catalog, String schema, String[] tableTypes, Database desiredModel, boolean continueOnError) throws DatabaseOperationException
+    public void shutdownDatabase() throws DatabaseOperationException
     {
         Connection connection = borrowConnection();
 
         try
         {
-            Database currentModel = readModelFromDatabase(connection, desiredModel.getName(), catalog, schema, tableTypes);
-
-            alterModel(currentModel, desiredModel, continueOnError);
+            shutdownDatabase(connection);
         }
         finally
         {
@@ -749,93 +852,85 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
     /**
      * {@inheritDoc}
      */
-    public void alterTables(String catalog, String schema, String[] tableTypes, Database desiredModel, CreationParameters params, boolean continueOnError) throws DatabaseOperationException
+    public void shutdownDatabase(Connection connection) throws DatabaseOperationException
     {
-        Connection connection = borrowConnection();
-
-        try
-        {
-            Database currentModel = readModelFromDatabase(connection, desiredModel.getName(), catalog, schema, tableTypes);
-
-            alterModel(currentModel, desiredModel, params, continueOnError);
-        }
-        finally
-        {
-            returnConnection(connection);
-        }
+        // Per default do nothing as most databases don't need this
     }
 
     /**
      * {@inheritDoc}
      */
-    public void alterTables(Connection connection, Database desiredModel, boolean continueOnError) throws DatabaseOperationException
+    public void createDatabase(String jdbcDriverClassName, String connectionUrl, String username, String password, Map parameters) throws DatabaseOperationException, UnsupportedOperationException
     {
-        Database currentModel = readModelFromDatabase(connection, desiredModel.getName());
-
-        alterModel(currentModel, desiredModel, continueOnError);
+        throw new UnsupportedOperationException("Database creation is not supported for the database platform "+getName());
     }
 
     /**
      * {@inheritDoc}
      */
-    public void alterTables(Connection connection, Database desiredModel, CreationParameters params, boolean continueOnError) throws DatabaseOperationException
+    public void dropDatabase(String jdbcDriverClassName, String connectionUrl, String username, String password) throws DatabaseOperationException, UnsupportedOperationException
     {
-        Database currentModel = readModelFromDatabase(connection, desiredModel.getName());
-
-        alterModel(currentModel, desiredModel, params, continueOnError);
+        throw new UnsupportedOperationException("Database deletion is not supported for the database platform "+getName());
     }
 
     /**
      * {@inheritDoc}
      */
-    public void alterTables(Connection connection, String catalog, String schema, String[] tableTypes, Database desiredModel, boolean continueOnError) throws DatabaseOperationException
+    public void createTables(Database model, boolean dropTablesFirst, boolean continueOnError) throws DatabaseOperationException
     {
-        Database currentModel = readModelFromDatabase(connection, desiredModel.getName(), catalog, schema, tableTypes);
-
-        alterModel(currentModel, desiredModel, continueOnError);
+        createModel(model, dropTablesFirst, continueOnError);
     }
 
     /**
      * {@inheritDoc}
      */
-    public void alterTables(Connection connection, String catalog, String schema, String[] tableTypes, Database desiredModel, CreationParameters params, boolean continueOnError) throws DatabaseOperationException
+    public void createTables(Database model, CreationParameters params, boolean dropTablesFirst, boolean continueOnError) throws DatabaseOperationException
     {
-        Database currentModel = readModelFromDatabase(connection, desiredModel.getName(), catalog, schema, tableTypes);
+        createModel(model, params, dropTablesFirst, continueOnError);
+    }
 
-        alterModel(currentModel, desiredModel, params, continueOnError);
+    /**
+     * {@inheritDoc}
+     */
+    public void createTables(Connection connection, Database model, boolean dropTablesFirst, boolean continueOnError) throws DatabaseOperationException
+    {
+        createModel(connection, model, dropTablesFirst, continueOnError);
     }
 
     /**
      * {@inheritDoc}
      */
-    public String getAlterTablesSql(Database desiredModel) throws DatabaseOperationException
+    public void createTables(Connection connection, Database model, CreationParameters params, boolean dropTablesFirst, boolean continueOnError) throws DatabaseOperationException
     {
-        Connection connection = borrowConnection();
+        createModel(connection, model, params, dropTablesFirst, continueOnError);
+    }
 
-        try
-        {
-            Database currentModel = readModelFromDatabase(connection, desiredModel.getName());
+    /**
+     * {@inheritDoc}
+     */
+    public String getCreateTablesSql(Database model, boolean dropTablesFirst, boolean continueOnError)
+    {
+        return getCreateModelSql(model, dropTablesFirst, continueOnError);
+    }
 
-            return getAlterModelSql(currentModel, desiredModel);
-        }
-        finally
-        {
-            returnConnection(connection);
-        }
+    /**
+     * {@inheritDoc}
+     */
+    public String getCreateTablesSql(Database model, CreationParameters params, boolean dropTablesFirst, boolean continueOnError)
+    {
+        return getCreateModelSql(model, params, dropTablesFirst, continueOnError);
     }
 
     /**
      * {@inheritDoc}
      */
-    public String getAlterTablesSql(Database desiredModel, CreationParameters params) throws DatabaseOperationException
+    public void createModel(Database model, boolean dropTablesFirst, boolean continueOnError) throws DatabaseOperationException
     {
         Connection connection = borrowConnection();
 
         try
         {
-            Database currentModel = readModelFromDatabase(connection, desiredModel.getName());
-
-            return getAlterModelSql(currentModel, desiredModel, params);
+            createModel(connection, model, dropTablesFirst, continueOnError);
         }
         finally
         {
@@ -846,34 +941,23 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
     /**
      * {@inheritDoc}
      */
-    public String getAlterTablesSql(String catalog, String schema, String[] tableTypes, Database desiredModel) throws DatabaseOperationException
+    public void createModel(Connection connection, Database model, boolean dropTablesFirst, boolean continueOnError) throws DatabaseOperationException
     {
-        Connection connection = borrowConnection();
-
-        try
-        {
-            Database currentModel = readModelFromDatabase(connection, desiredModel.getName(), catalog, schema, tableTypes);
+        String sql = getCreateModelSql(model, dropTablesFirst, continueOnError);
 
-            return getAlterModelSql(currentModel, desiredModel);
-        }
-        finally
-        {
-            returnConnection(connection);
-        }
+        evaluateBatch(connection, sql, continueOnError);
     }
 
     /**
      * {@inheritDoc}
      */
-    public String getAlterTablesSql(String catalog, String schema, String[] tableTypes, Database desiredModel, CreationParameters params) throws DatabaseOperationException
+    public void createModel(Database model, CreationParameters params, boolean dropTablesFirst, boolean continueOnError) throws DatabaseOperationException
     {
         Connection connection = borrowConnection();
 
         try
         {
-            Database currentModel = readModelFromDatabase(connection, desiredModel.getName(), catalog, schema, tableTypes);
-
-            return getAlterModelSql(currentModel, desiredModel, params);
+            createModel(connection, model, params, dropTablesFirst, continueOnError);
         }
         finally
         {
@@ -884,148 +968,375 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
     /**
      * {@inheritDoc}
      */
-    public String getAlterTablesSql(Connection connection, Database desiredModel) throws DatabaseOperationException
+    public void createModel(Connection connection, Database model, CreationParameters params, boolean dropTablesFirst, boolean continueOnError) throws DatabaseOperationException
     {
-        Database currentModel = readModelFromDatabase(connection, desiredModel.getName());
+        String sql = getCreateModelSql(model, params, dropTablesFirst, continueOnError);
 
-        return getAlterModelSql(currentModel, desiredModel);
+        evaluateBatch(connection, sql, continueOnError);
     }
 
     /**
      * {@inheritDoc}
      */
-    public String getAlterTablesSql(Connection connection, Database desiredModel, CreationParameters params) throws DatabaseOperationException
+    public String getCreateModelSql(Database model, boolean dropTablesFirst, boolean continueOnError)
     {
-        Database currentModel = readModelFromDatabase(connection, desiredModel.getName());
+        long   startTime = System.currentTimeMillis();
+        String sql       = null;
 
-        return getAlterModelSql(currentModel, desiredModel, params);
-    }
+        try
+        {
+            StringWriter buffer = new StringWriter();
 
-    /**
-     * {@inheritDoc}
-     */
-    public String getAlterTablesSql(Connection connection, String catalog, String schema, String[] tableTypes, Database desiredModel) throws DatabaseOperationException
-    {
-        Database currentModel = readModelFromDatabase(connection, desiredModel.getName(), catalog, schema, tableTypes);
-
-        return getAlterModelSql(currentModel, desiredModel);
+            getSqlBuilder().setWriter(buffer);
+            getSqlBuilder().createTables(model, dropTablesFirst);
+            sql = buffer.toString();
+        }
+        catch (IOException e)
+        {
+            // won't happen because we're using a string writer
+        }
+        recordSqlGenerationTime(startTime);
+        return sql;
     }
 
     /**
      * {@inheritDoc}
      */
-    public String getAlterTablesSql(Connection connection, String catalog, String schema, String[] tableTypes, Database desiredModel, CreationParameters params) throws DatabaseOperationException
+    public String getCreateModelSql(Database model, CreationParameters params, boolean dropTablesFirst, boolean continueOnError)
     {
-        Database currentModel = readModelFromDatabase(connection, desiredModel.getName(), catalog, schema, tableTypes);
+        long   startTime = System.currentTimeMillis();
+        String sql       = null;
 
-        return getAlterModelSql(currentModel, desiredModel, params);
+        try
+        {
+            StringWriter buffer = new StringWriter();
+
+            getSqlBuilder().setWriter(buffer);
+            getSqlBuilder().createTables(model, params, dropTablesFirst);
+            sql = buffer.toString();
+        }
+        catch (IOException e)
+        {
+            // won't happen because we're using a string writer
+        }
+        recordSqlGenerationTime(startTime);
+        return sql;
     }
 
     /**
      * {@inheritDoc}
      */
-    public String getAlterModelSql(Database currentModel, Database desiredModel) throws DatabaseOperationException
+    public void createTablesForBulkLoad(Database model, CreationParameters params, boolean dropTablesFirst, boolean continueOnError) throws DatabaseOperationException
     {
-        return getAlterModelSql(currentModel, desiredModel, null);
+        String sql = getCreateTablesForBulkLoadSql(model, params, dropTablesFirst, continueOnError);
+
+        evaluateBatch(sql, continueOnError);
     }
 
     /**
      * {@inheritDoc}
      */
-    public String getAlterModelSql(Database currentModel, Database desiredModel, CreationParameters params) throws DatabaseOperationException
+    public String getCreateTablesForBulkLoadSql(Database model, CreationParameters params, boolean dropTablesFirst, boolean continueOnError)
     {
-        List   changes = getChanges(currentModel, desiredModel);
-        String sql     = null;
+        long   startTime = System.currentTimeMillis();
+        String sql       = null;
 
         try
         {
             StringWriter buffer = new StringWriter();
 
             getSqlBuilder().setWriter(buffer);
-            processChanges(currentModel, changes, params);
+            getSqlBuilder().createTablesForBulkLoad(model, params, dropTablesFirst);
             sql = buffer.toString();
         }
-        catch (IOException ex)
+        catch (IOException e)
         {
             // won't happen because we're using a string writer
         }
+        recordSqlGenerationTime(startTime);
         return sql;
     }
 
     /**
      * {@inheritDoc}
      */
-    public void alterModel(Database currentModel, Database desiredModel, boolean continueOnError) throws DatabaseOperationException
+    public void createIndicesAndForeignKeys(Database model, int numThreads, boolean online, boolean continueOnError) throws DatabaseOperationException
     {
-        Connection connection = borrowConnection();
+        List   indexSql = new ArrayList();
+        String fkSql    = null;
 
+        // the sql builder is not thread-safe, so we generate the sql for all indices upfront,
+        // one script per table
         try
         {
-            alterModel(connection, currentModel, desiredModel, continueOnError);
+            StringWriter buffer = new StringWriter();
+
+            getSqlBuilder().setWriter(buffer);
+            if (getPlatformInfo().isIndicesSupported())
+            {
+                for (int tableIdx = 0; tableIdx < model.getTableCount(); tableIdx++)
+                {
+                    buffer.getBuffer().setLength(0);
+                    getSqlBuilder().createIndexes(model.getTable(tableIdx), online);
+                    if (buffer.getBuffer().length() > 0)
+                    {
+                        indexSql.add(buffer.toString());
+                    }
+                }
+            }
+            if (!getPlatformInfo().isForeignKeysEmbedded())
+            {
+                buffer.getBuffer().setLength(0);
+                getSqlBuilder().createForeignKeys(model);
+                fkSql = buffer.toString();
+            }
         }
-        finally
+        catch (IOException e)
         {
-            returnConnection(connection);
+            // won't happen because we're using a string writer
+        }
+
+        evaluateInParallel(indexSql, numThreads, continueOnError);
+        if (fkSql != null)
+        {
+            evaluateBatch(fkSql, continueOnError);
         }
     }
 
     /**
      * {@inheritDoc}
      */
-    public void alterModel(Database currentModel, Database desiredModel, CreationParameters params, boolean continueOnError) throws DatabaseOperationException
+    public void beforeBulkLoad(Connection connection, Database model) throws DatabaseOperationException
     {
-        Connection connection = borrowConnection();
+        if (getPlatformInfo().isConstraintDisablingSupported())
+        {
+            String sql = null;
+
+            try
+            {
+                StringWriter buffer = new StringWriter();
+
+                getSqlBuilder().setWriter(buffer);
+                getSqlBuilder().disableConstraintsForBulkLoad(model);
+                sql = buffer.toString();
+            }
+            catch (IOException e)
+            {
+                // won't happen because we're using a string writer
+            }
+            evaluateBatch(connection, sql, false);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void afterBulkLoad(Connection connection, Database model) throws DatabaseOperationException
+    {
+        if (getPlatformInfo().isConstraintDisablingSupported())
+        {
+            String sql = null;
+
+            try
+            {
+                StringWriter buffer = new StringWriter();
+
+                getSqlBuilder().setWriter(buffer);
+                getSqlBuilder().enableConstraintsAfterBulkLoad(model);
+                sql = buffer.toString();
+            }
+            catch (IOException e)
+            {
+                // won't happen because we're using a string writer
+            }
+            evaluateBatch(connection, sql, false);
+        }
+    }
+
+    /**
+     * Executes the given sql scripts in parallel. Each of the worker threads uses its own
+     * connection, and evaluates the scripts one after the other via
+     * {@link #evaluateBatch(Connection, String, boolean)}. If an error occurs and errors
+     * shall not be ignored, then the workers finish the current script and the error is
+     * rethrown after all of them have finished.
+     * 
+     * @param scripts         The sql scripts
+     * @param numThreads      The maximum number of scripts to execute in parallel
+     * @param continueOnError Whether to continue executing the sql commands when an error occurred
+     * @return The number of errors
+     */
+    protected int evaluateInParallel(List scripts, int numThreads, final boolean continueOnError) throws DatabaseOperationException
+    {
+        final Iterator scriptIt   = scripts.iterator();
+        final List     failures   = Collections.synchronizedList(new ArrayList());
+        final int[]    errorCount = new int[1];
+        Thread[]       workers    = new Thread[Math.max(1, Math.min(numThreads, scripts.size()))];
 
+        for (int idx = 0; idx < workers.length; idx++)
+        {
+            workers[idx] = new Thread(new Runnable() {
+                public void run()
+                {
+                    Connection connection = null;
+
+                    try
+                    {
+                        connection = borrowConnection();
+                        while (failures.isEmpty())
+                        {
+                            String script = null;
+
+                            synchronized (scriptIt)
+                            {
+                                if (!scriptIt.hasNext())
+                                {
+                                    break;
+                                }
+                                script = (String)scriptIt.next();
+                            }
+
+                            int errors = evaluateBatch(connection, script, continueOnError);
+
+                            synchronized (errorCount)
+                            {
+                                errorCount[0] += errors;
+                            }
+                        }
+                    }
+                    catch (RuntimeException ex)
+                    {
+                        failures.add(ex);
+                    }
+                    finally
+                    {
+                        returnConnection(connection);
+                    }
+                }
+            }, "DdlUtils SQL worker " + idx);
+            workers[idx].start();
+        }
         try
         {
-            alterModel(connection, currentModel, desiredModel, params, continueOnError);
+            for (int idx = 0; idx < workers.length; idx++)
+            {
+                workers[idx].join();
+            }
         }
-        finally
+        catch (InterruptedException ex)
         {
-            returnConnection(connection);
+            throw new DatabaseOperationException("Interrupted while waiting for the sql to be executed", ex);
+        }
+        if (!failures.isEmpty())
+        {
+            RuntimeException failure = (RuntimeException)failures.get(0);
+
+            if (failure instanceof DatabaseOperationException)
+            {
+                throw failure;
+            }
+            else
+            {
+                throw new DatabaseOperationException(failure);
+            }
         }
+        return errorCount[0];
     }
 
     /**
-     * {@inheritDoc}
+     * Returns the model comparator to be used for this platform. This method is intendeded
+     * to be redefined by platforms that need to customize the model reader.
+     * 
+     * @return The model comparator
      */
-    public void alterModel(Connection connection, Database currentModel, Database desiredModel, boolean continueOnError) throws DatabaseOperationException
+    protected ModelComparator getModelComparator()
     {
-        String sql = getAlterModelSql(currentModel, desiredModel);
-
-        evaluateBatch(connection, sql, continueOnError);
+        return new ModelComparator(getPlatformInfo(),
+                                   getTableDefinitionChangesPredicate(),
+                                   isDelimitedIdentifierModeOn());
     }
 
+    /**
+     * Returns the predicate that defines which changes are supported by the platform.
+     * 
+     * @return The predicate
+     */
+    protected TableDefinitionChangesPredicate getTableDefinitionChangesPredicate()
+    {
+        return new DefaultTableDefinitionChangesPredicate();
+    }
+    
     /**
      * {@inheritDoc}
      */
-    public void alterModel(Connection connection, Database currentModel, Database desiredModel, CreationParameters params, boolean continueOnError) throws DatabaseOperationException
+    public List getChanges(Database currentModel, Database desiredModel)
     {
-        String sql = getAlterModelSql(currentModel, desiredModel, params);
+        List changes = getModelComparator().compare(currentModel, desiredModel);
 
-        evaluateBatch(connection, sql, continueOnError);
+        return sortChanges(changes);
     }
 
-	/**
-     * {@inheritDoc}
+    /**
+     * Sorts the changes so that they can be executed by the database. E.g. tables need to be created before
+     * they can be referenced by foreign keys, indexes should be dropped before a table is dropped etc.
+     * 
+     * @param changes The original changes
+     * @return The sorted changes - this can be the original list object or a new one
      */
-    public void dropTable(Connection connection, Database model, Table table, boolean continueOnError) throws DatabaseOperationException
+    protected List sortChanges(List changes)
     {
-        String sql = getDropTableSql(model, table, continueOnError);
+        final Map typeOrder = new HashMap();
 
-        evaluateBatch(connection, sql, continueOnError);
+        typeOrder.put(RemoveForeignKeyChange.class, new Integer(0));
+        typeOrder.put(RemoveIndexChange.class,      new Integer(1));
+        typeOrder.put(RemoveTableChange.class,      new Integer(2));
+        typeOrder.put(RecreateTableChange.class,    new Integer(3));
+        typeOrder.put(RemovePrimaryKeyChange.class, new Integer(3));
+        typeOrder.put(RemoveColumnChange.class,     new Integer(4));
+        typeOrder.put(ColumnDefinitionChange.class, new Integer(5));
+        typeOrder.put(ColumnOrderChange.class,      new Integer(5));
+        typeOrder.put(AddColumnChange.class,        new Integer(5));
+        typeOrder.put(PrimaryKeyChange.class,       new Integer(5));
+        typeOrder.put(AddPrimaryKeyChange.class,    new Integer(6));
+        typeOrder.put(AddTableChange.class,         new Integer(7));
+        typeOrder.put(AddIndexChange.class,         new Integer(8));
+        typeOrder.put(AddForeignKeyChange.class,    new Integer(9));
+
+        Collections.sort(changes, new Comparator()
+        {
+            public int compare(Object objA, Object objB)
+            {
+                Integer orderValueA = (Integer)typeOrder.get(objA.getClass());
+                Integer orderValueB = (Integer)typeOrder.get(objB.getClass());
+
+                if (orderValueA == null)
+                {
+                    return (orderValueB == null ? 0 : 1);
+                }
+                else if (orderValueB == null)
+                {
+                    return -1;
+                }
+                else
+                {
+                    return orderValueA.compareTo(orderValueB);
+                }
+            }
+        });
+    	return changes;
     }
 
     /**
      * {@inheritDoc}
      */
-    public void dropTable(Database model, Table table, boolean continueOnError) throws DatabaseOperationException
+    public void alterTables(Database desiredModel, boolean continueOnError) throws DatabaseOperationException
     {
         Connection connection = borrowConnection();
 
         try
         {
-            dropTable(connection, model, table, continueOnError);
+            Database currentModel = readModelFromDatabase(connection, desiredModel.getName());
+
+            alterModel(currentModel, desiredModel, continueOnError);
         }
         finally
         {
@@ -1036,59 +1347,53 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
     /**
      * {@inheritDoc}
      */
-    public String getDropTableSql(Database model, Table table, boolean continueOnError)
+    public void alterTables(Database desiredModel, CreationParameters params, boolean continueOnError) throws DatabaseOperationException
     {
-        String sql = null;
+        Connection connection = borrowConnection();
 
         try
         {
-            StringWriter buffer = new StringWriter();
+            Database currentModel = readModelFromDatabase(connection, desiredModel.getName());
 
-            getSqlBuilder().setWriter(buffer);
-            getSqlBuilder().dropTable(model, table);
-            sql = buffer.toString();
+            alterModel(currentModel, desiredModel, params, continueOnError);
         }
-        catch (IOException e)
+        finally
         {
-            // won't happen because we're using a string writer
+            returnConnection(connection);
         }
-        return sql;
     }
 
     /**
      * {@inheritDoc}
      */
-    public void dropTables(Database model, boolean continueOnError) throws DatabaseOperationException
+    public void alterTables(String catalog, String schema, String[] tableTypes, Database desiredModel, boolean continueOnError) throws DatabaseOperationException
     {
-        dropModel(model, continueOnError);
-    }
+        Connection connection = borrowConnection();
 
-    /**
-     * {@inheritDoc}
-     */
-    public void dropTables(Connection connection, Database model, boolean continueOnError) throws DatabaseOperationException
-    {
-        dropModel(connection, model, continueOnError);
-    }
+        try
+        {
+            Database currentModel = readModelFromDatabase(connection, desiredModel.getName(), catalog, schema, tableTypes);
 
-    /**
-     * {@inheritDoc}
-     */
-    public String getDropTablesSql(Database model, boolean continueOnError)
-    {
-        return getDropModelSql(model);
+            alterModel(currentModel, desiredModel, continueOnError);
+        }
+        finally
+        {
+            returnConnection(connection);
+        }
     }
 
     /**
      * {@inheritDoc}
      */
-    public void dropModel(Database model, boolean continueOnError) throws DatabaseOperationException
+    public void alterTables(String catalog, String schema, String[] tableTypes, Database desiredModel, CreationParameters params, boolean continueOnError) throws DatabaseOperationException
     {
         Connection connection = borrowConnection();
 
         try
         {
-            dropModel(connection, model, continueOnError);
+            Database currentModel = readModelFromDatabase(connection, desiredModel.getName(), catalog, schema, tableTypes);
+
+            alterModel(currentModel, desiredModel, params, continueOnError);
         }
         finally
         {
@@ -1099,871 +1404,1862 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
     /**
      * {@inheritDoc}
      */
-    public void dropModel(Connection connection, Database model, boolean continueOnError) throws DatabaseOperationException 
+    public void alterTables(Connection connection, Database desiredModel, boolean continueOnError) throws DatabaseOperationException
     {
-        String sql = getDropModelSql(model);
+        Database currentModel = readModelFromDatabase(connection, desiredModel.getName());
 
-        evaluateBatch(connection, sql, continueOnError);
+        alterModel(currentModel, desiredModel, continueOnError);
     }
 
     /**
      * {@inheritDoc}
      */
-    public String getDropModelSql(Database model) 
+    public void alterTables(Connection connection, Database desiredModel, CreationParameters params, boolean continueOnError) throws DatabaseOperationException
     {
-        String sql = null;
+        Database currentModel = readModelFromDatabase(connection, desiredModel.getName());
 
-        try
-        {
-            StringWriter buffer = new StringWriter();
+        alterModel(currentModel, desiredModel, params, continueOnError);
+    }
 
-            getSqlBuilder().setWriter(buffer);
-            getSqlBuilder().dropTables(model);
-            sql = buffer.toString();
-        }
-        catch (IOException e)
-        {
-            // won't happen because we're using a string writer
-        }
-        return sql;
+    /**
+     * {@inheritDoc}
+     */
+    public void alterTables(Connection connection, String catalog, String schema, String[] tableTypes, Database desiredModel, boolean continueOnError) throws DatabaseOperationException
+    {
+        Database currentModel = readModelFromDatabase(connection, desiredModel.getName(), catalog, schema, tableTypes);
+
+        alterModel(currentModel, desiredModel, continueOnError);
     }
 
     /**
-     * Processes the given changes in the specified order. Basically, this method finds the
-     * appropriate handler method (one of the <code>processChange</code> methods) defined in
-     * the concrete sql builder for each change, and invokes it.
-     * 
-     * @param model   The database model; this object is not going to be changed by this method
-     * @param changes The changes
-     * @param params  The parameters used in the creation of new tables. Note that for existing
-     *                tables, the parameters won't be applied
-     * @return The changed database model
+     * {@inheritDoc}
      */
-    protected Database processChanges(Database           model,
-                                      Collection         changes,
-                                      CreationParameters params) throws IOException, DdlUtilsException
+    public void alterTables(Connection connection, String catalog, String schema, String[] tableTypes, Database desiredModel, CreationParameters params, boolean continueOnError) throws DatabaseOperationException
     {
-        Database currentModel = new CloneHelper().clone(model);
+        Database currentModel = readModelFromDatabase(connection, desiredModel.getName(), catalog, schema, tableTypes);
 
-        for (Iterator it = changes.iterator(); it.hasNext();)
-        {
-            invokeChangeHandler(currentModel, params, (ModelChange)it.next());
-        }
-        return currentModel;
+        alterModel(currentModel, desiredModel, params, continueOnError);
     }
 
     /**
-     * Invokes the change handler (one of the <code>processChange</code> methods) for the given
-     * change object.
-     * 
-     * @param currentModel The current database schema
-     * @param params       The parameters used in the creation of new tables. Note that for existing
-     *                     tables, the parameters won't be applied
-     * @param change       The change object
+     * {@inheritDoc}
      */
-    private void invokeChangeHandler(Database           currentModel,
-                                     CreationParameters params,
-                                     ModelChange        change) throws IOException
+    public String getAlterTablesSql(Database desiredModel) throws DatabaseOperationException
     {
-        Class curClass = getClass();
+        Connection connection = borrowConnection();
 
-        // find the handler for the change
-        while ((curClass != null) && !Object.class.equals(curClass))
+        try
         {
-            try
-            {
-                Method method = null;
-
-                try
-                {
-                    method = curClass.getDeclaredMethod("processChange",
-                                                        new Class[] { Database.class,
-                                                                      CreationParameters.class,
-                                                                      change.getClass() });
-                }
-                catch (NoSuchMethodException ex)
-                {
-                    // we actually expect this one
-                }
+            Database currentModel = readModelFromDatabase(connection, desiredModel.getName());
 
-                if (method != null)
-                {
-                    method.invoke(this, new Object[] { currentModel, params, change });
-                    return;
-                }
-                else
-                {
-                    curClass = curClass.getSuperclass();
-                }
-            }
-            catch (InvocationTargetException ex)
-            {
-                if (ex.getTargetException() instanceof IOException)
-                {
-                    throw (IOException)ex.getTargetException();
-                }
-                else
-                {
-                    throw new DdlUtilsException(ex.getTargetException());
-                }
-            }
-            catch (Exception ex)
-            {
-                throw new DdlUtilsException(ex);
-            }
+            return getAlterModelSql(currentModel, desiredModel);
+        }
+        finally
+        {
+            returnConnection(connection);
         }
-        throw new DdlUtilsException("No handler for change of type " + change.getClass().getName() + " defined");
     }
 
     /**
-     * Finds the table changed by the change object in the given model.
-     *  
-     * @param currentModel The model to find the table in
-     * @param change       The table change
-     * @return The table
-     * @throws ModelException If the table could not be found
+     * {@inheritDoc}
      */
-    protected Table findChangedTable(Database currentModel, TableChange change) throws ModelException
+    public String getAlterTablesSql(Database desiredModel, CreationParameters params) throws DatabaseOperationException
     {
-        Table table = currentModel.findTable(change.getChangedTable(),
-                                             getPlatformInfo().isDelimitedIdentifiersSupported());
+        Connection connection = borrowConnection();
 
-        if (table == null)
+        try
         {
-            throw new ModelException("Could not find table " + change.getChangedTable() + " in the given model");
+            Database currentModel = readModelFromDatabase(connection, desiredModel.getName());
+
+            return getAlterModelSql(currentModel, desiredModel, params);
         }
-        else
+        finally
         {
-            return table;
+            returnConnection(connection);
         }
     }
 
     /**
-     * Finds the index changed by the change object in the given model.
-     *  
-     * @param currentModel The model to find the index in
-     * @param change       The index change
-     * @return The index
-     * @throws ModelException If the index could not be found
+     * {@inheritDoc}
      */
-    protected Index findChangedIndex(Database currentModel, IndexChange change) throws ModelException
+    public String getAlterTablesSql(String catalog, String schema, String[] tableTypes, Database desiredModel) throws DatabaseOperationException
     {
-        Index index = change.findChangedIndex(currentModel,
-                                              getPlatformInfo().isDelimitedIdentifiersSupported());
+        Connection connection = borrowConnection();
 
-        if (index == null)
+        try
         {
-            throw new ModelException("Could not find the index to change in table " + change.getChangedTable() + " in the given model");
+            Database currentModel = readModelFromDatabase(connection, desiredModel.getName(), catalog, schema, tableTypes);
+
+            return getAlterModelSql(currentModel, desiredModel);
         }
-        else
+        finally
         {
-            return index;
+            returnConnection(connection);
         }
     }
 
     /**
-     * Finds the foreign key changed by the change object in the given model.
-     *  
-     * @param currentModel The model to find the foreign key in
-     * @param change       The foreign key change
-     * @return The foreign key
-     * @throws ModelException If the foreign key could not be found
+     * {@inheritDoc}
      */
-    protected ForeignKey findChangedForeignKey(Database currentModel, ForeignKeyChange change) throws ModelException
+    public String getAlterTablesSql(String catalog, String schema, String[] tableTypes, Database desiredModel, CreationParameters params) throws DatabaseOperationException
     {
-        ForeignKey fk = change.findChangedForeignKey(currentModel,
-                                                     getPlatformInfo().isDelimitedIdentifiersSupported());
+        Connection connection = borrowConnection();
 
-        if (fk == null)
+        try
         {
-            throw new ModelException("Could not find the foreign key to change in table " + change.getChangedTable() + " in the given model");
+            Database currentModel = readModelFromDatabase(connection, desiredModel.getName(), catalog, schema, tableTypes);
+
+            return getAlterModelSql(currentModel, desiredModel, params);
         }
-        else
+        finally
         {
-            return fk;
+            returnConnection(connection);
         }
     }
 
     /**
-     * Processes a change representing the addition of a table.
-     * 
-     * @param currentModel The current database schema
-     * @param params       The parameters used in the creation of new tables. Note that for existing
-     *                     tables, the parameters won't be applied
-     * @param change       The change object
+     * {@inheritDoc}
      */
-    public void processChange(Database           currentModel,
-                              CreationParameters params,
-                              AddTableChange     change) throws IOException
+    public String getAlterTablesSql(Connection connection, Database desiredModel) throws DatabaseOperationException
     {
-        getSqlBuilder().createTable(currentModel,
-                                    change.getNewTable(),
-                                    params == null ? null : params.getParametersFor(change.getNewTable()));
-        change.apply(currentModel, isDelimitedIdentifierModeOn());
+        Database currentModel = readModelFromDatabase(connection, desiredModel.getName());
+
+        return getAlterModelSql(currentModel, desiredModel);
     }
 
     /**
-     * Processes a change representing the removal of a table.
-     * 
-     * @param currentModel The current database schema
-     * @param params       The parameters used in the creation of new tables. Note that for existing
-     *                     tables, the parameters won't be applied
-     * @param change       The change object
+     * {@inheritDoc}
      */
-    public void processChange(Database           currentModel,
-                              CreationParameters params,
-                              RemoveTableChange  change) throws IOException, ModelException
+    public String getAlterTablesSql(Connection connection, Database desiredModel, CreationParameters params) throws DatabaseOperationException
     {
-        Table changedTable = findChangedTable(currentModel, change);
+        Database currentModel = readModelFromDatabase(connection, desiredModel.getName());
 
-        getSqlBuilder().dropTable(changedTable);
-        change.apply(currentModel, isDelimitedIdentifierModeOn());
+        return getAlterModelSql(currentModel, desiredModel, params);
     }
 
     /**
-     * Processes a change representing the addition of a foreign key.
-     * 
-     * @param currentModel The current database schema
-     * @param params       The parameters used in the creation of new tables. Note that for existing
-     *                     tables, the parameters won't be applied
-     * @param change       The change object
+     * {@inheritDoc}
      */
-    public void processChange(Database            currentModel,
-                              CreationParameters  params,
-                              AddForeignKeyChange change) throws IOException
+    public String getAlterTablesSql(Connection connection, String catalog, String schema, String[] tableTypes, Database desiredModel) throws DatabaseOperationException
     {
-        Table changedTable = findChangedTable(currentModel, change);
+        Database currentModel = readModelFromDatabase(connection, desiredModel.getName(), catalog, schema, tableTypes);
 
-        getSqlBuilder().createForeignKey(currentModel,
-                                         changedTable,
-                                         change.getNewForeignKey());
-        change.apply(currentModel, isDelimitedIdentifierModeOn());
+        return getAlterModelSql(currentModel, desiredModel);
     }
 
     /**
-     * Processes a change representing the removal of a foreign key.
-     * 
-     * @param currentModel The current database schema
-     * @param params       The parameters used in the creation of new tables. Note that for existing
-     *                     tables, the parameters won't be applied
-     * @param change       The change object
+     * {@inheritDoc}
      */
-    public void processChange(Database               currentModel,
-                              CreationParameters     params,
-                              RemoveForeignKeyChange change) throws IOException, ModelException
+    public String getAlterTablesSql(Connection connection, String catalog, String schema, String[] tableTypes, Database desiredModel, CreationParameters params) throws DatabaseOperationException
     {
-        Table      changedTable = findChangedTable(currentModel, change);
-        ForeignKey changedFk    = findChangedForeignKey(currentModel, change);
+        Database currentModel = readModelFromDatabase(connection, desiredModel.getName(), catalog, schema, tableTypes);
 
-        getSqlBuilder().dropForeignKey(changedTable, changedFk);
-        change.apply(currentModel, isDelimitedIdentifierModeOn());
+        return getAlterModelSql(currentModel, desiredModel, params);
     }
 
     /**
-     * Processes a change representing the addition of an index.
-     * 
-     * @param currentModel The current database schema
-     * @param params       The parameters used in the creation of new tables. Note that for existing
-     *                     tables, the parameters won't be applied
-     * @param change       The change object
+     * {@inheritDoc}
      */
-    public void processChange(Database           currentModel,
-                              CreationParameters params,
-                              AddIndexChange     change) throws IOException
+    public String getAlterModelSql(Database currentModel, Database desiredModel) throws DatabaseOperationException
     {
-        Table changedTable = findChangedTable(currentModel, change);
-
-        getSqlBuilder().createIndex(changedTable, change.getNewIndex());
-        change.apply(currentModel, isDelimitedIdentifierModeOn());
-    }
+        return getAlterModelSql(currentModel, desiredModel, null);
+    }
 
     /**
-     * Processes a change representing the removal of an index.
-     * 
-     * @param currentModel The current database schema
-     * @param params       The parameters used in the creation of new tables. Note that for existing
-     *                     tables, the parameters won't be applied
-     * @param change       The change object
+     * {@inheritDoc}
      */
-    public void processChange(Database           currentModel,
-                              CreationParameters params,
-                              RemoveIndexChange  change) throws IOException, ModelException
+    public String getAlterModelSql(Database currentModel, Database desiredModel, CreationParameters params) throws DatabaseOperationException
     {
-        Table changedTable = findChangedTable(currentModel, change);
-        Index changedIndex = findChangedIndex(currentModel, change);
+        long   startTime = System.currentTimeMillis();
+        List   changes   = getChanges(currentModel, desiredModel);
+        String sql       = null;
 
-        getSqlBuilder().dropIndex(changedTable, changedIndex);
-        change.apply(currentModel, isDelimitedIdentifierModeOn());
+        try
+        {
+            StringWriter buffer = new StringWriter();
+
+            getSqlBuilder().setWriter(buffer);
+            processChanges(currentModel, changes, params);
+            sql = buffer.toString();
+        }
+        catch (IOException ex)
+        {
+            // won't happen because we're using a string writer
+        }
+        recordSqlGenerationTime(startTime);
+        return sql;
     }
 
     /**
-     * Processes a change representing the addition of a column.
-     * 
-     * @param currentModel The current database schema
-     * @param params       The parameters used in the creation of new tables. Note that for existing
-     *                     tables, the parameters won't be applied
-     * @param change       The change object
+     * {@inheritDoc}
      */
-    public void processChange(Database           currentModel,
-                              CreationParameters params,
-                              AddColumnChange    change) throws IOException
+    public void alterModel(Database currentModel, Database desiredModel, boolean continueOnError) throws DatabaseOperationException
     {
-        Table changedTable = findChangedTable(currentModel, change);
+        Connection connection = borrowConnection();
 
-        getSqlBuilder().addColumn(currentModel, changedTable, change.getNewColumn());
-        change.apply(currentModel, isDelimitedIdentifierModeOn());
+        try
+        {
+            alterModel(connection, currentModel, desiredModel, continueOnError);
+        }
+        finally
+        {
+            returnConnection(connection);
+        }
     }
 
     /**
-     * Processes a change representing the addition of a primary key.
-     * 
-     * @param currentModel The current database schema
-     * @param params       The parameters used in the creation of new tables. Note that for existing
-     *                     tables, the parameters won't be applied
-     * @param change       The change object
+     * {@inheritDoc}
      */
-    public void processChange(Database            currentModel,
-                              CreationParameters  params,
-                              AddPrimaryKeyChange change) throws IOException
+    public void alterModel(Database currentModel, Database desiredModel, CreationParameters params, boolean continueOnError) throws DatabaseOperationException
     {
-        Table    changedTable  = findChangedTable(currentModel, change);
-        String[] pkColumnNames = change.getPrimaryKeyColumns();
-        Column[] pkColumns     = new Column[pkColumnNames.length];
+        Connection connection = borrowConnection();
 
-        for (int colIdx = 0; colIdx < pkColumns.length; colIdx++)
+        try
         {
-            pkColumns[colIdx] = changedTable.findColumn(pkColumnNames[colIdx], isDelimitedIdentifierModeOn());
+            alterModel(connection, currentModel, desiredModel, params, continueOnError);
+        }
+        finally
+        {
+            returnConnection(connection);
         }
-        getSqlBuilder().createPrimaryKey(changedTable, pkColumns);
-        change.apply(currentModel, isDelimitedIdentifierModeOn());
     }
 
     /**
-     * Processes a change representing the recreation of a table.
-     * 
-     * @param currentModel The current database schema
-     * @param params       The parameters used in the creation of new tables. Note that for existing
-     *                     tables, the parameters won't be applied
-     * @param change       The change object
+     * {@inheritDoc}
      */
-    public void processChange(Database            currentModel,
-                              CreationParameters  params,
-                              RecreateTableChange change) throws IOException
+    public void alterModel(Connection connection, Database currentModel, Database desiredModel, boolean continueOnError) throws DatabaseOperationException
     {
-        // we can only copy the data if no required columns without default value and
-        // non-autoincrement have been added
-        boolean canMigrateData = true;
+        String sql = getAlterModelSql(currentModel, desiredModel);
 
-        for (Iterator it = change.getOriginalChanges().iterator(); canMigrateData && it.hasNext();)
-        {
-            TableChange curChange = (TableChange)it.next();
+        evaluateBatch(connection, sql, continueOnError);
+    }
 
-            if (curChange instanceof AddColumnChange)
-            {
-                AddColumnChange addColumnChange = (AddColumnChange)curChange;
+    /**
+     * {@inheritDoc}
+     */
+    public void alterModel(Connection connection, Database currentModel, Database desiredModel, CreationParameters params, boolean continueOnError) throws DatabaseOperationException
+    {
+        String sql = getAlterModelSql(currentModel, desiredModel, params);
 
-                if (addColumnChange.getNewColumn().isRequired() &&
-                    !addColumnChange.getNewColumn().isAutoIncrement() &&
-                    (addColumnChange.getNewColumn().getDefaultValue() == null))
-                {
-                    _log.warn("Data cannot be retained in table " + change.getChangedTable() + 
-                              " because of the addition of the required column " + addColumnChange.getNewColumn().getName());
-                    canMigrateData = false;
-                }
-            }
-        }
+        evaluateBatch(connection, sql, continueOnError);
+    }
 
-        Table changedTable = findChangedTable(currentModel, change);
-        Table targetTable  = change.getTargetTable();
-        Map   parameters   = (params == null ? null : params.getParametersFor(targetTable));
+	/**
+     * {@inheritDoc}
+     */
+    public void dropTable(Connection connection, Database model, Table table, boolean continueOnError) throws DatabaseOperationException
+    {
+        String sql = getDropTableSql(model, table, continueOnError);
 
-        if (canMigrateData)
-        {
-            Table tempTable = getTemporaryTableFor(targetTable);
+        evaluateBatch(connection, sql, continueOnError);
+    }
 
-            getSqlBuilder().createTemporaryTable(currentModel, tempTable, parameters);
-            getSqlBuilder().copyData(changedTable, tempTable);
-            // Note that we don't drop the indices here because the DROP TABLE will take care of that
-            // Likewise, foreign keys have already been dropped as necessary
-            getSqlBuilder().dropTable(changedTable);
-            getSqlBuilder().createTable(currentModel, targetTable, parameters);
-            getSqlBuilder().copyData(tempTable, targetTable);
-            getSqlBuilder().dropTemporaryTable(currentModel, tempTable);
+    /**
+     * {@inheritDoc}
+     */
+    public void dropTable(Database model, Table table, boolean continueOnError) throws DatabaseOperationException
+    {
+        Connection connection = borrowConnection();
+
+        try
+        {
+            dropTable(connection, model, table, continueOnError);
         }
-        else
+        finally
         {
-            getSqlBuilder().dropTable(changedTable);
-            getSqlBuilder().createTable(currentModel, targetTable, parameters);
+            returnConnection(connection);
         }
-
-        change.apply(currentModel, isDelimitedIdentifierModeOn());
     }
-    
+
     /**
-     * Creates a temporary table object that corresponds to the given table.
-     * Database-specific implementations may redefine this method if e.g. the
-     * database directly supports temporary tables. The default implementation
-     * simply appends an underscore to the table name and uses that as the
-     * table name.  
-     * 
-     * @param targetTable The target table
-     * @return The temporary table
+     * {@inheritDoc}
      */
-    protected Table getTemporaryTableFor(Table targetTable)
+    public String getDropTableSql(Database model, Table table, boolean continueOnError)
     {
-        CloneHelper cloneHelper = new CloneHelper();
-        Table       table       = new Table();
+        long   startTime = System.currentTimeMillis();
+        String sql       = null;
 
-        table.setCatalog(targetTable.getCatalog());
-        table.setSchema(targetTable.getSchema());
-        table.setName(targetTable.getName() + "_");
-        table.setType(targetTable.getType());
-        for (int idx = 0; idx < targetTable.getColumnCount(); idx++)
+        try
         {
-            // TODO: clone PK status ?
-            table.addColumn(cloneHelper.clone(targetTable.getColumn(idx), true));
+            StringWriter buffer = new StringWriter();
+
+            getSqlBuilder().setWriter(buffer);
+            getSqlBuilder().dropTable(model, table);
+            sql = buffer.toString();
+        }
+        catch (IOException e)
+        {
+            // won't happen because we're using a string writer
         }
+        recordSqlGenerationTime(startTime);
+        return sql;
+    }
 
-        return table;
+    /**
+     * {@inheritDoc}
+     */
+    public void dropTables(Database model, boolean continueOnError) throws DatabaseOperationException
+    {
+        dropModel(model, continueOnError);
     }
 
     /**
      * {@inheritDoc}
      */
-    public Iterator query(Database model, String sql) throws DatabaseOperationException
+    public void dropTables(Connection connection, Database model, boolean continueOnError) throws DatabaseOperationException
     {
-        return query(model, sql, (Table[])null);
+        dropModel(connection, model, continueOnError);
     }
 
     /**
      * {@inheritDoc}
      */
-    public Iterator query(Database model, String sql, Collection parameters) throws DatabaseOperationException
+    public String getDropTablesSql(Database model, boolean continueOnError)
     {
-        return query(model, sql, parameters, null);
+        return getDropModelSql(model);
     }
 
     /**
      * {@inheritDoc}
      */
-    public Iterator query(Database model, String sql, Table[] queryHints) throws DatabaseOperationException
+    public void dropModel(Database model, boolean continueOnError) throws DatabaseOperationException
     {
         Connection connection = borrowConnection();
-        Statement  statement  = null;
-        ResultSet  resultSet  = null;
-        Iterator   answer     = null;
 
         try
         {
-            statement = connection.createStatement();
-            resultSet = statement.executeQuery(sql);
-            answer    = createResultSetIterator(model, resultSet, queryHints);
-            return answer;
-        }
-        catch (SQLException ex)
-        {
-            throw new DatabaseOperationException("Error while performing a query", ex);
+            dropModel(connection, model, continueOnError);
         }
         finally
         {
-            // if any exceptions are thrown, close things down
-            // otherwise we're leaving it open for the iterator
-            if (answer == null)
-            {
-                closeStatement(statement);
-                returnConnection(connection);
-            }
+            returnConnection(connection);
         }
     }
 
     /**
      * {@inheritDoc}
      */
-    public Iterator query(Database model, String sql, Collection parameters, Table[] queryHints) throws DatabaseOperationException
+    public void dropModel(Connection connection, Database model, boolean continueOnError) throws DatabaseOperationException 
     {
-        Connection        connection = borrowConnection();
-        PreparedStatement statement  = null;
-        ResultSet         resultSet  = null;
-        Iterator          answer     = null;
+        String sql = getDropModelSql(model);
 
-        try
-        {
-            statement = connection.prepareStatement(sql);
+        evaluateBatch(connection, sql, continueOnError);
+    }
 
-            int paramIdx = 1;
+    /**
+     * {@inheritDoc}
+     */
+    public String getDropModelSql(Database model) 
+    {
+        long   startTime = System.currentTimeMillis();
+        String sql       = null;
 
-            for (Iterator iter = parameters.iterator(); iter.hasNext(); paramIdx++)
-            {
-                Object arg = iter.next();
+        try
+        {
+            StringWriter buffer = new StringWriter();
 
-                if (arg instanceof BigDecimal)
-                {
-                    // to avoid scale problems because setObject assumes a scale of 0
+            getSqlBuilder().setWriter(buffer);
+            getSqlBuilder().dropTables(model);
+            sql = buffer.toString();
+        }
+        catch (IOException e)
+        {
+            // won't happen because we're using a string writer
+        }
+        recordSqlGenerationTime(startTime);
+        return sql;
+    }
+
+    /**
+     * Processes the given changes in the specified order. Basically, this method finds the
+     * appropriate handler method (one of the <code>processChange</code> methods) defined in
+     * the concrete sql builder for each change, and invokes it.
+     * 
+     * @param model   The database model; this object is not going to be changed by this method
+     * @param changes The changes
+     * @param params  The parameters used in the creation of new tables. Note that for existing
+     *                tables, the parameters won't be applied
+     * @return The changed database model; this is a copy-on-write clone of the given model, i.e.
+     *         the tables that were not changed are shared with the given model
+     */
+    protected Database processChanges(Database           model,
+                                      Collection         changes,
+                                      CreationParameters params) throws IOException, DdlUtilsException
+    {
+        Database currentModel = new CloneHelper().copyOnWriteClone(model);
+
+        for (Iterator it = changes.iterator(); it.hasNext();)
+        {
+            invokeChangeHandler(currentModel, params, (ModelChange)it.next());
+        }
+        return currentModel;
+    }
+
+    /**
+     * Invokes the change handler (one of the <code>processChange</code> methods) for the given
+     * change object.
+     * 
+     * @param currentModel The current database schema
+     * @param params       The parameters used in the creation of new tables. Note that for existing
+     *                     tables, the parameters won't be applied
+     * @param change       The change object
+     */
+    private void invokeChangeHandler(Database           currentModel,
+                                     CreationParameters params,
+                                     ModelChange        change) throws IOException
+    {
+        Class curClass = getClass();
+
+        // find the handler for the change
+        while ((curClass != null) && !Object.class.equals(curClass))
+        {
+            try
+            {
+                Method method = null;
+
+                try
+                {
+                    method = curClass.getDeclaredMethod("processChange",
+                                                        new Class[] { Database.class,
+                                                                      CreationParameters.class,
+                                                                      change.getClass() });
+                }
+                catch (NoSuchMethodException ex)
+                {
+                    // we actually expect this one
+                }
+
+                if (method != null)
+                {
+                    method.invoke(this, new Object[] { currentModel, params, change });
+                    return;
+                }
+                else
+                {
+                    curClass = curClass.getSuperclass();
+                }
+            }
+            catch (InvocationTargetException ex)
+            {
+                if (ex.getTargetException() instanceof IOException)
+                {
+                    throw (IOException)ex.getTargetException();
+                }
+                else
+                {
+                    throw new DdlUtilsException(ex.getTargetException());
+                }
+            }
+            catch (Exception ex)
+            {
+                throw new DdlUtilsException(ex);
+            }
+        }
+        throw new DdlUtilsException("No handler for change of type " + change.getClass().getName() + " defined");
+    }
+
+    /**
+     * Finds the table changed by the change object in the given model.
+     *  
+     * @param currentModel The model to find the table in
+     * @param change       The table change
+     * @return The table
+     * @throws ModelException If the table could not be found
+     */
+    protected Table findChangedTable(Database currentModel, TableChange change) throws ModelException
+    {
+        Table table = currentModel.findTable(change.getChangedTable(),
+                                             getPlatformInfo().isDelimitedIdentifiersSupported());
+
+        if (table == null)
+        {
+            throw new ModelException("Could not find table " + change.getChangedTable() + " in the given model");
+        }
+        else
+        {
+            return table;
+        }
+    }
+
+    /**
+     * Finds the index changed by the change object in the given model.
+     *  
+     * @param currentModel The model to find the index in
+     * @param change       The index change
+     * @return The index
+     * @throws ModelException If the index could not be found
+     */
+    protected Index findChangedIndex(Database currentModel, IndexChange change) throws ModelException
+    {
+        Index index = change.findChangedIndex(currentModel,
+                                              getPlatformInfo().isDelimitedIdentifiersSupported());
+
+        if (index == null)
+        {
+            throw new ModelException("Could not find the index to change in table " + change.getChangedTable() + " in the given model");
+        }
+        else
+        {
+            return index;
+        }
+    }
+
+    /**
+     * Finds the foreign key changed by the change object in the given model.
+     *  
+     * @param currentModel The model to find the foreign key in
+     * @param change       The foreign key change
+     * @return The foreign key
+     * @throws ModelException If the foreign key could not be found
+     */
+    protected ForeignKey findChangedForeignKey(Database currentModel, ForeignKeyChange change) throws ModelException
+    {
+        ForeignKey fk = change.findChangedForeignKey(currentModel,
+                                                     getPlatformInfo().isDelimitedIdentifiersSupported());
+
+        if (fk == null)
+        {
+            throw new ModelException("Could not find the foreign key to change in table " + change.getChangedTable() + " in the given model");
+        }
+        else
+        {
+            return fk;
+        }
+    }
+
+    /**
+     * Processes a change representing the addition of a table.
+     * 
+     * @param currentModel The current database schema
+     * @param params       The parameters used in the creation of new tables. Note that for existing
+     *                     tables, the parameters won't be applied
+     * @param change       The change object
+     */
+    public void processChange(Database           currentModel,
+                              CreationParameters params,
+                              AddTableChange     change) throws IOException
+    {
+        getSqlBuilder().createTable(currentModel,
+                                    change.getNewTable(),
+                                    params == null ? null : params.getParametersFor(change.getNewTable()));
+        change.apply(currentModel, isDelimitedIdentifierModeOn());
+    }
+
+    /**
+     * Processes a change representing the removal of a table.
+     * 
+     * @param currentModel The current database schema
+     * @param params       The parameters used in the creation of new tables. Note that for existing
+     *                     tables, the parameters won't be applied
+     * @param change       The change object
+     */
+    public void processChange(Database           currentModel,
+                              CreationParameters params,
+                              RemoveTableChange  change) throws IOException, ModelException
+    {
+        Table changedTable = findChangedTable(currentModel, change);
+
+        getSqlBuilder().dropTable(changedTable);
+        change.apply(currentModel, isDelimitedIdentifierModeOn());
+    }
+
+    /**
+     * Processes a change representing the addition of a foreign key.
+     * 
+     * @param currentModel The current database schema
+     * @param params       The parameters used in the creation of new tables. Note that for existing
+     *                     tables, the parameters won't be applied
+     * @param change       The change object
+     */
+    public void processChange(Database            currentModel,
+                              CreationParameters  params,
+                              AddForeignKeyChange change) throws IOException
+    {
+        Table changedTable = findChangedTable(currentModel, change);
+
+        getSqlBuilder().createForeignKey(currentModel,
+                                         changedTable,
+                                         change.getNewForeignKey());
+        change.apply(currentModel, isDelimitedIdentifierModeOn());
+    }
+
+    /**
+     * Processes a change representing the removal of a foreign key.
+     * 
+     * @param currentModel The current database schema
+     * @param params       The parameters used in the creation of new tables. Note that for existing
+     *                     tables, the parameters won't be applied
+     * @param change       The change object
+     */
+    public void processChange(Database               currentModel,
+                              CreationParameters     params,
+                              RemoveForeignKeyChange change) throws IOException, ModelException
+    {
+        Table      changedTable = findChangedTable(currentModel, change);
+        ForeignKey changedFk    = findChangedForeignKey(currentModel, change);
+
+        getSqlBuilder().dropForeignKey(changedTable, changedFk);
+        change.apply(currentModel, isDelimitedIdentifierModeOn());
+    }
+
+    /**
+     * Processes a change representing the addition of an index.
+     * 
+     * @param currentModel The current database schema
+     * @param params       The parameters used in the creation of new tables. Note that for existing
+     *                     tables, the parameters won't be applied
+     * @param change       The change object
+     */
+    public void processChange(Database           currentModel,
+                              CreationParameters params,
+                              AddIndexChange     change) throws IOException
+    {
+        Table changedTable = findChangedTable(currentModel, change);
+
+        getSqlBuilder().createIndex(changedTable, change.getNewIndex());
+        change.apply(currentModel, isDelimitedIdentifierModeOn());
+    }
+
+    /**
+     * Processes a change representing the removal of an index.
+     * 
+     * @param currentModel The current database schema
+     * @param params       The parameters used in the creation of new tables. Note that for existing
+     *                     tables, the parameters won't be applied
+     * @param change       The change object
+     */
+    public void processChange(Database           currentModel,
+                              CreationParameters params,
+                              RemoveIndexChange  change) throws IOException, ModelException
+    {
+        Table changedTable = findChangedTable(currentModel, change);
+        Index changedIndex = findChangedIndex(currentModel, change);
+
+        getSqlBuilder().dropIndex(changedTable, changedIndex);
+        change.apply(currentModel, isDelimitedIdentifierModeOn());
+    }
+
+    /**
+     * Processes a change representing the addition of a column.
+     * 
+     * @param currentModel The current database schema
+     * @param params       The parameters used in the creation of new tables. Note that for existing
+     *                     tables, the parameters won't be applied
+     * @param change       The change object
+     */
+    public void processChange(Database           currentModel,
+                              CreationParameters params,
+                              AddColumnChange    change) throws IOException
+    {
+        Table changedTable = findChangedTable(currentModel, change);
+
+        getSqlBuilder().addColumn(currentModel, changedTable, change.getNewColumn());
+        change.apply(currentModel, isDelimitedIdentifierModeOn());
+    }
+
+    /**
+     * Processes a change representing the addition of a primary key.
+     * 
+     * @param currentModel The current database schema
+     * @param params       The parameters used in the creation of new tables. Note that for existing
+     *                     tables, the parameters won't be applied
+     * @param change       The change object
+     */
+    public void processChange(Database            currentModel,
+                              CreationParameters  params,
+                              AddPrimaryKeyChange change) throws IOException
+    {
+        Table    changedTable  = findChangedTable(currentModel, change);
+        String[] pkColumnNames = change.getPrimaryKeyColumns();
+        Column[] pkColumns     = new Column[pkColumnNames.length];
+
+        for (int colIdx = 0; colIdx < pkColumns.length; colIdx++)
+        {
+            pkColumns[colIdx] = changedTable.findColumn(pkColumnNames[colIdx], isDelimitedIdentifierModeOn());
+        }
+        getSqlBuilder().createPrimaryKey(changedTable, pkColumns);
+        change.apply(currentModel, isDelimitedIdentifierModeOn());
+    }
+
+    /**
+     * Processes a change representing the recreation of a table.
+     * 
+     * @param currentModel The current database schema
+     * @param params       The parameters used in the creation of new tables. Note that for existing
+     *                     tables, the parameters won't be applied
+     * @param change       The change object
+     */
+    public void processChange(Database            currentModel,
+                              CreationParameters  params,
+                              RecreateTableChange change) throws IOException
+    {
+        // we can only copy the data if no required columns without default value and
+        // non-autoincrement have been added
+        boolean canMigrateData = true;
+
+        for (Iterator it = change.getOriginalChanges().iterator(); canMigrateData && it.hasNext();)
+        {
+            TableChange curChange = (TableChange)it.next();
+
+            if (curChange instanceof AddColumnChange)
+            {
+                AddColumnChange addColumnChange = (AddColumnChange)curChange;
+
+                if (addColumnChange.getNewColumn().isRequired() &&
+                    !addColumnChange.getNewColumn().isAutoIncrement() &&
+                    (addColumnChange.getNewColumn().getDefaultValue() == null))
+                {
+                    _log.warn("Data cannot be retained in table " + change.getChangedTable() + 
+                              " because of the addition of the required column " + addColumnChange.getNewColumn().getName());
+                    canMigrateData = false;
+                }
+            }
+        }
+
+        Table changedTable = findChangedTable(currentModel, change);
+        Table targetTable  = change.getTargetTable();
+        Map   parameters   = (params == null ? null : params.getParametersFor(targetTable));
+
+        if (canMigrateData)
+        {
+            Table tempTable = getTemporaryTableFor(targetTable);
+
+            getSqlBuilder().createTemporaryTable(currentModel, tempTable, parameters);
+            getSqlBuilder().copyData(changedTable, tempTable);
+            // Note that we don't drop the indices here because the DROP TABLE will take care of that
+            // Likewise, foreign keys have already been dropped as necessary
+            getSqlBuilder().dropTable(changedTable);
+            getSqlBuilder().createTable(currentModel, targetTable, parameters);
+            getSqlBuilder().copyData(tempTable, targetTable);
+            getSqlBuilder().dropTemporaryTable(currentModel, tempTable);
+        }
+        else
+        {
+            getSqlBuilder().dropTable(changedTable);
+            getSqlBuilder().createTable(currentModel, targetTable, parameters);
+        }
+
+        change.apply(currentModel, isDelimitedIdentifierModeOn());
+    }
+    
+    /**
+     * Creates a temporary table object that corresponds to the given table.
+     * Database-specific implementations may redefine this method if e.g. the
+     * database directly supports temporary tables. The default implementation
+     * simply appends an underscore to the table name and uses that as the
+     * table name.  
+     * 
+     * @param targetTable The target table
+     * @return The temporary table
+     */
+    protected Table getTemporaryTableFor(Table targetTable)
+    {
+        CloneHelper cloneHelper = new CloneHelper();
+        Table       table       = new Table();
+
+        table.setCatalog(targetTable.getCatalog());
+        table.setSchema(targetTable.getSchema());
+        table.setName(targetTable.getName() + "_");
+        table.setType(targetTable.getType());
+        for (int idx = 0; idx < targetTable.getColumnCount(); idx++)
+        {
+            // TODO: clone PK status ?
+            table.addColumn(cloneHelper.clone(targetTable.getColumn(idx), true));
+        }
+
+        return table;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Iterator query(Database model, String sql) throws DatabaseOperationException
+    {
+        return query(model, sql, (Table[])null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Iterator query(Database model, String sql, Collection parameters) throws DatabaseOperationException
+    {
+        return query(model, sql, parameters, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Iterator query(Database model, String sql, Table[] queryHints) throws DatabaseOperationException
+    {
+        Connection connection = borrowConnection();
+        Statement  statement  = null;
+        ResultSet  resultSet  = null;
+        Iterator   answer     = null;
+
+        try
+        {
+            statement = connection.createStatement();
+            long startTime = System.currentTimeMillis();
+
+            resultSet = statement.executeQuery(sql);
+            recordStatementTime(startTime);
+            answer    = createResultSetIterator(model, connection, resultSet, queryHints);
+            return answer;
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while performing a query", ex);
+        }
+        finally
+        {
+            // if any exceptions are thrown, close things down
+            // otherwise we're leaving it open for the iterator
+            if (answer == null)
+            {
+                closeStatement(statement);
+                returnConnection(connection);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Iterator query(Database model, String sql, Collection parameters, Table[] queryHints) throws DatabaseOperationException
+    {
+        Connection        connection = borrowConnection();
+        PreparedStatement statement  = null;
+        ResultSet         resultSet  = null;
+        Iterator          answer     = null;
+
+        try
+        {
+            statement = connection.prepareStatement(sql);
+
+            int paramIdx = 1;
+
+            for (Iterator iter = parameters.iterator(); iter.hasNext(); paramIdx++)
+            {
+                Object arg = iter.next();
+
+                if (arg instanceof BigDecimal)
+                {
+                    // to avoid scale problems because setObject assumes a scale of 0
+                    statement.setBigDecimal(paramIdx, (BigDecimal)arg);
+                }
+                else
+                {
+                    statement.setObject(paramIdx, arg);
+                }
+            }
+            long startTime = System.currentTimeMillis();
+
+            resultSet = statement.executeQuery();
+            recordStatementTime(startTime);
+            answer    = createResultSetIterator(model, connection, resultSet, queryHints);
+            return answer;
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while performing a query", ex);
+        }
+        finally
+        {
+            // if any exceptions are thrown, close things down
+            // otherwise we're leaving it open for the iterator
+            if (answer == null)
+            {
+                closeStatement(statement);
+                returnConnection(connection);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List fetch(Database model, String sql) throws DatabaseOperationException
+    {
+        return fetch(model, sql, (Table[])null, 0, -1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List fetch(Database model, String sql, Table[] queryHints) throws DatabaseOperationException
+    {
+        return fetch(model, sql, queryHints, 0, -1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List fetch(Database model, String sql, int start, int end) throws DatabaseOperationException
+    {
+        return fetch(model, sql, (Table[])null, start, end);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List fetch(Database model, String sql, Table[] queryHints, int start, int end) throws DatabaseOperationException
+    {
+        Connection connection = borrowConnection();
+        Statement  statement  = null;
+        ResultSet  resultSet  = null;
+        List       result     = new ArrayList();
+
+        try
+        {
+            statement = connection.createStatement();
+            long startTime = System.currentTimeMillis();
+
+            resultSet = statement.executeQuery(sql);
+            recordStatementTime(startTime);
+
+            int rowIdx = 0;
+
+            for (ModelBasedResultSetIterator it = createResultSetIterator(model, connection, resultSet, queryHints); ((end < 0) || (rowIdx <= end)) && it.hasNext(); rowIdx++)
+            {
+                if (rowIdx >= start)
+                {
+                    result.add(it.next());
+                }
+                else
+                {
+                    it.advance();
+                }
+            }
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while fetching data from the database", ex);
+        } 
+        finally 
+        {
+            // the iterator should return the connection automatically
+            // so this is usually not necessary (but just in case)
+            closeStatement(statement);
+            returnConnection(connection);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List fetch(Database model, String sql, Collection parameters) throws DatabaseOperationException
+    {
+        return fetch(model, sql, parameters, null, 0, -1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List fetch(Database model, String sql, Collection parameters, int start, int end) throws DatabaseOperationException
+    {
+        return fetch(model, sql, parameters, null, start, end);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List fetch(Database model, String sql, Collection parameters, Table[] queryHints) throws DatabaseOperationException
+    {
+        return fetch(model, sql, parameters, queryHints, 0, -1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List fetch(Database model, String sql, Collection parameters, Table[] queryHints, int start, int end) throws DatabaseOperationException
+    {
+        Connection        connection = borrowConnection();
+        PreparedStatement statement  = null;
+        ResultSet         resultSet  = null;
+        List              result     = new ArrayList();
+
+        try
+        {
+            statement = connection.prepareStatement(sql);
+
+            int paramIdx = 1;
+
+            for (Iterator iter = parameters.iterator(); iter.hasNext(); paramIdx++)
+            {
+                Object arg = iter.next();
+
+                if (arg instanceof BigDecimal)
+                {
+                    // to avoid scale problems because setObject assumes a scale of 0
                     statement.setBigDecimal(paramIdx, (BigDecimal)arg);
                 }
                 else
                 {
-                    statement.setObject(paramIdx, arg);
+                    statement.setObject(paramIdx, arg);
+                }
+            }
+            long startTime = System.currentTimeMillis();
+
+            resultSet = statement.executeQuery();
+            recordStatementTime(startTime);
+
+            int rowIdx = 0;
+
+            for (ModelBasedResultSetIterator it = createResultSetIterator(model, connection, resultSet, queryHints); ((end < 0) || (rowIdx <= end)) && it.hasNext(); rowIdx++)
+            {
+                if (rowIdx >= start)
+                {
+                    result.add(it.next());
+                }
+                else
+                {
+                    it.advance();
+                }
+            }
+        }
+        catch (SQLException ex)
+        {
+            // any other exception comes from the iterator which closes the resources automatically
+            closeStatement(statement);
+            returnConnection(connection);
+            throw new DatabaseOperationException("Error while fetching data from the database", ex);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the SQL for inserting an object of the given type. If a concrete bean is given,
+     * then a concrete insert statement is created, otherwise an insert statement usable in a
+     * prepared statement is build. 
+     *
+     * @param model      The database model
+     * @param dynaClass  The type
+     * @param properties The properties to write
+     * @param bean       Optionally the concrete bean to insert
+     * @return The SQL required to insert an instance of the class
+     */
+    protected String createInsertSql(Database model, SqlDynaClass dynaClass, SqlDynaProperty[] properties, DynaBean bean)
+    {
+        Table   table        = model.findTable(dynaClass.getTableName());
+        HashMap columnValues = toColumnValues(properties, bean);
+
+        return _builder.getInsertSql(table, columnValues, bean == null);
+    }
+
+    /**
+     * Creates the SQL for querying for the id generated by the last insert of an object of the given type.
+     * 
+     * @param model     The database model
+     * @param dynaClass The type
+     * @return The SQL required for querying for the id, or <code>null</code> if the database does not
+     *         support this
+     */
+    protected String createSelectLastInsertIdSql(Database model, SqlDynaClass dynaClass)
+    {
+        Table table = model.findTable(dynaClass.getTableName());
+
+        return _builder.getSelectLastIdentityValues(table);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getInsertSql(Database model, DynaBean dynaBean)
+    {
+        SqlDynaClass      dynaClass  = model.getDynaClassFor(dynaBean);
+        SqlDynaProperty[] properties = dynaClass.getSqlDynaProperties();
+
+        if (properties.length == 0)
+        {
+            _log.info("Cannot insert instances of type " + dynaClass + " because it has no properties");
+            return null;
+        }
+
+        return createInsertSql(model, dynaClass, properties, dynaBean);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getInsertSql(Database model, Collection dynaBeans)
+    {
+        StringBuffer result    = new StringBuffer();
+        ArrayList    beans     = new ArrayList();
+        SqlDynaClass dynaClass = null;
+
+        for (Iterator it = dynaBeans.iterator(); it.hasNext();)
+        {
+            DynaBean     dynaBean     = (DynaBean)it.next();
+            SqlDynaClass curDynaClass = model.getDynaClassFor(dynaBean);
+
+            if ((curDynaClass != dynaClass) && !beans.isEmpty())
+            {
+                appendInsertSql(result, model, dynaClass, beans);
+                beans.clear();
+            }
+            dynaClass = curDynaClass;
+            beans.add(dynaBean);
+        }
+        if (!beans.isEmpty())
+        {
+            appendInsertSql(result, model, dynaClass, beans);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Appends the statements for inserting the given beans which all belong to the same table,
+     * to the given script.
+     * 
+     * @param script    The script
+     * @param model     The database model
+     * @param dynaClass The dyna class of the beans
+     * @param beans     The beans
+     */
+    private void appendInsertSql(StringBuffer script, Database model, SqlDynaClass dynaClass, List beans)
+    {
+        SqlDynaProperty[] properties = dynaClass.getSqlDynaProperties();
+
+        if (properties.length == 0)
+        {
+            _log.info("Cannot insert instances of type " + dynaClass + " because it has no properties");
+            return;
+        }
+        if (getPlatformInfo().isMultiRowInsertSupported())
+        {
+            Column[]  columns = new Column[properties.length];
+            int       maxRows = getPlatformInfo().getMaxRowsPerMultiRowInsert();
+            ArrayList rows    = new ArrayList();
+
+            for (int idx = 0; idx < properties.length; idx++)
+            {
+                columns[idx] = properties[idx].getColumn();
+            }
+            for (Iterator it = beans.iterator(); it.hasNext();)
+            {
+                rows.add(toColumnValues(properties, (DynaBean)it.next()));
+                if ((rows.size() == maxRows) || !it.hasNext())
+                {
+                    script.append(_builder.getMultiRowInsertSql(dynaClass.getTable(), columns, rows));
+                    script.append(getPlatformInfo().getSqlCommandDelimiter());
+                    script.append("\n");
+                    rows.clear();
+                }
+            }
+        }
+        else
+        {
+            for (Iterator it = beans.iterator(); it.hasNext();)
+            {
+                script.append(createInsertSql(model, dynaClass, properties, (DynaBean)it.next()));
+                script.append(getPlatformInfo().getSqlCommandDelimiter());
+                script.append("\n");
+            }
+        }
+    }
+
+    /**
+     * Returns all properties where the column is not non-autoincrement and for which the bean
+     * either has a value or the column hasn't got a default value, for the given dyna class.
+     * 
+     * @param connection The connection that will be used for the insertion
+     * @param model      The database model
+     * @param dynaClass  The dyna class
+     * @param bean       The bean
+     * @return The properties
+     */
+    protected SqlDynaProperty[] getPropertiesForInsertion(final Connection connection, Database model, SqlDynaClass dynaClass, final DynaBean bean)
+    {
+        SqlDynaProperty[] properties = dynaClass.getSqlDynaProperties();
+
+        Collection result = CollectionUtils.select(Arrays.asList(properties), new Predicate() {
+            public boolean evaluate(Object input) {
+                SqlDynaProperty prop = (SqlDynaProperty)input;
+
+                if (bean.get(prop.getName()) != null)
+                {
+                    // we ignore properties for which a value is present in the bean
+                    // only if they are identity and identity override is off or
+                    // the platform does not allow the override of the auto-increment
+                    // specification
+                    return !prop.getColumn().isAutoIncrement() ||
+                           (isIdentityOverrideOn(connection) && getPlatformInfo().isIdentityOverrideAllowed());
+                }
+                else
+                {
+                    // we also return properties without a value in the bean
+                    // if they ain't auto-increment and don't have a default value
+                    // in this case, a NULL is inserted
+                    return !prop.getColumn().isAutoIncrement() &&
+                           (prop.getColumn().getDefaultValue() == null);
                 }
             }
-            resultSet = statement.executeQuery();
-            answer    = createResultSetIterator(model, resultSet, queryHints);
-            return answer;
+        });
+
+        return (SqlDynaProperty[])result.toArray(new SqlDynaProperty[result.size()]);
+    }
+
+    /**
+     * Returns all identity properties whose value were defined by the database and which
+     * now need to be read back from the DB.
+     * 
+     * @param connection The connection that was used for the insertion
+     * @param model      The database model
+     * @param dynaClass  The dyna class
+     * @param bean       The bean
+     * @return The columns
+     */
+    protected Column[] getRelevantIdentityColumns(final Connection connection, Database model, SqlDynaClass dynaClass, final DynaBean bean)
+    {
+        SqlDynaProperty[] properties = dynaClass.getSqlDynaProperties();
+
+        Collection relevantProperties = CollectionUtils.select(Arrays.asList(properties), new Predicate() {
+            public boolean evaluate(Object input) {
+                SqlDynaProperty prop = (SqlDynaProperty)input;
+
+                // we only want those identity columns that were really specified by the DB
+                // if the platform allows specification of values for identity columns
+                // in INSERT/UPDATE statements, then we need to filter the corresponding
+                // columns out
+                return prop.getColumn().isAutoIncrement() &&
+                       (!isIdentityOverrideOn(connection) || !getPlatformInfo().isIdentityOverrideAllowed() || (bean.get(prop.getName()) == null));
+            }
+        });
+
+        Column[] columns = new Column[relevantProperties.size()];
+        int      idx     = 0;
+
+        for (Iterator propIt = relevantProperties.iterator(); propIt.hasNext(); idx++)
+        {
+            columns[idx] = ((SqlDynaProperty)propIt.next()).getColumn();
+        }
+        return columns;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void insert(Connection connection, Database model, DynaBean dynaBean) throws DatabaseOperationException
+    {
+        SqlDynaClass      dynaClass       = model.getDynaClassFor(dynaBean);
+        SqlDynaProperty[] properties      = getPropertiesForInsertion(connection, model, dynaClass, dynaBean);
+        Column[]          autoIncrColumns = getRelevantIdentityColumns(connection, model, dynaClass, dynaBean);
+
+        if ((properties.length == 0) && (autoIncrColumns.length == 0))
+        {
+            _log.warn("Cannot insert instances of type " + dynaClass + " because it has no usable properties");
+            return;
+        }
+
+        String insertSql        = createInsertSql(model, dynaClass, properties, null);
+        String queryIdentitySql = null;
+
+        if (_log.isDebugEnabled())
+        {
+            _log.debug("About to execute SQL: " + insertSql);
+        }
+
+        if (autoIncrColumns.length > 0)
+        {
+            if (!getPlatformInfo().isLastIdentityValueReadable())
+            {
+                _log.warn("The database does not support querying for auto-generated column values");
+            }
+            else
+            {
+                queryIdentitySql = createSelectLastInsertIdSql(model, dynaClass);
+            }
+        }
+
+        boolean           autoCommitMode = false;
+        PreparedStatement statement      = null;
+
+        try
+        {
+            if (!getPlatformInfo().isAutoCommitModeForLastIdentityValueReading())
+            {
+                autoCommitMode = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+            }
+
+            beforeInsert(connection, dynaClass.getTable());
+            
+            statement = connection.prepareStatement(insertSql);
+
+            for (int idx = 0; idx < properties.length; idx++ )
+            {
+                setObject(statement, idx + 1, dynaBean, properties[idx]);
+            }
+
+            long startTime = System.currentTimeMillis();
+            int  count     = statement.executeUpdate();
+
+            recordStatementTime(startTime);
+            recordRowsWritten(dynaClass.getTable(), count);
+
+            afterInsert(connection, dynaClass.getTable());
+
+            if (count != 1)
+            {
+                _log.warn("Attempted to insert a single row " + dynaBean +
+                          " in table " + dynaClass.getTableName() +
+                          " but changed " + count + " row(s)");
+            }
         }
         catch (SQLException ex)
         {
-            throw new DatabaseOperationException("Error while performing a query", ex);
+            throw new DatabaseOperationException("Error while inserting into the database: " + ex.getMessage(), ex);
         }
         finally
         {
-            // if any exceptions are thrown, close things down
-            // otherwise we're leaving it open for the iterator
-            if (answer == null)
+            closeStatement(statement);
+        }
+        if (queryIdentitySql != null)
+        {
+            Statement queryStmt       = null;
+            ResultSet lastInsertedIds = null;
+
+            try
+            {
+                if (getPlatformInfo().isAutoCommitModeForLastIdentityValueReading())
+                {
+                    // we'll commit the statement(s) if no auto-commit is enabled because
+                    // otherwise it is possible that the auto increment hasn't happened yet
+                    // (the db didn't actually perform the insert yet so no triggering of
+                    // sequences did occur)
+                    if (!connection.getAutoCommit())
+                    {
+                        connection.commit();
+                    }
+                }
+
+                queryStmt       = connection.createStatement();
+                long startTime = System.currentTimeMillis();
+
+                lastInsertedIds = queryStmt.executeQuery(queryIdentitySql);
+                recordStatementTime(startTime);
+
+                lastInsertedIds.next();
+
+                for (int idx = 0; idx < autoIncrColumns.length; idx++)
+                {
+                    // we're using the index rather than the name because we cannot know how
+                    // the SQL statement looks like; rather we assume that we get the values
+                    // back in the same order as the auto increment columns
+                    Object value = getObjectFromResultSet(lastInsertedIds, autoIncrColumns[idx], idx + 1);
+
+                    PropertyUtils.setProperty(dynaBean, autoIncrColumns[idx].getName(), value);
+                }
+            }
+            catch (NoSuchMethodException ex)
+            {
+                // Can't happen because we're using dyna beans
+            }
+            catch (IllegalAccessException ex)
+            {
+                // Can't happen because we're using dyna beans
+            }
+            catch (InvocationTargetException ex)
+            {
+                // Can't happen because we're using dyna beans
+            }
+            catch (SQLException ex)
+            {
+                throw new DatabaseOperationException("Error while retrieving the identity column value(s) from the database", ex);
+            }
+            finally
+            {
+                if (lastInsertedIds != null)
+                {
+                    try
+                    {
+                        lastInsertedIds.close();
+                    }
+                    catch (SQLException ex)
+                    {
+                        // we ignore this one
+                    }
+                }
+                closeStatement(statement);
+            }
+        }
+        if (!getPlatformInfo().isAutoCommitModeForLastIdentityValueReading())
+        {
+            try
+            {
+                // we need to do a manual commit now
+                connection.commit();
+                connection.setAutoCommit(autoCommitMode);
+            }
+            catch (SQLException ex)
+            {
+                throw new DatabaseOperationException(ex);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void insert(Database model, DynaBean dynaBean) throws DatabaseOperationException
+    {
+        Connection connection = borrowConnection();
+
+        try
+        {
+            insert(connection, model, dynaBean);
+        }
+        finally
+        {
+            returnConnection(connection);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void insert(Connection connection, Database model, Collection dynaBeans) throws DatabaseOperationException
+    {
+        if (!isNativeBulkInsertOn())
+        {
+            insertViaBatches(connection, model, dynaBeans);
+            recordRowsWritten(model, dynaBeans);
+            return;
+        }
+
+        ArrayList    beans     = new ArrayList();
+        SqlDynaClass dynaClass = null;
+
+        for (Iterator it = dynaBeans.iterator(); it.hasNext();)
+        {
+            DynaBean     dynaBean     = (DynaBean)it.next();
+            SqlDynaClass curDynaClass = model.getDynaClassFor(dynaBean);
+
+            if ((curDynaClass != dynaClass) && !beans.isEmpty())
             {
-                closeStatement(statement);
-                returnConnection(connection);
+                bulkInsert(connection, model, dynaClass, beans);
+                beans.clear();
             }
+            dynaClass = curDynaClass;
+            beans.add(dynaBean);
+        }
+        if (!beans.isEmpty())
+        {
+            bulkInsert(connection, model, dynaClass, beans);
         }
+        recordRowsWritten(model, dynaBeans);
     }
 
     /**
-     * {@inheritDoc}
+     * Records the number of rows written per table for the given beans, if metrics are collected.
+     * 
+     * @param model     The database model
+     * @param dynaBeans The beans that were written
      */
-    public List fetch(Database model, String sql) throws DatabaseOperationException
+    private void recordRowsWritten(Database model, Collection dynaBeans)
     {
-        return fetch(model, sql, (Table[])null, 0, -1);
-    }
+        if (_metricsCollector != null)
+        {
+            Table table   = null;
+            int   numRows = 0;
 
-    /**
-     * {@inheritDoc}
-     */
-    public List fetch(Database model, String sql, Table[] queryHints) throws DatabaseOperationException
-    {
-        return fetch(model, sql, queryHints, 0, -1);
-    }
+            for (Iterator it = dynaBeans.iterator(); it.hasNext();)
+            {
+                Table curTable = model.getDynaClassFor((DynaBean)it.next()).getTable();
 
-    /**
-     * {@inheritDoc}
-     */
-    public List fetch(Database model, String sql, int start, int end) throws DatabaseOperationException
-    {
-        return fetch(model, sql, (Table[])null, start, end);
+                if (curTable != table)
+                {
+                    if (table != null)
+                    {
+                        recordRowsWritten(table, numRows);
+                    }
+                    table   = curTable;
+                    numRows = 0;
+                }
+                numRows++;
+            }
+            if (table != null)
+            {
+                recordRowsWritten(table, numRows);
+            }
+        }
     }
 
     /**
      * {@inheritDoc}
      */
-    public List fetch(Database model, String sql, Table[] queryHints, int start, int end) throws DatabaseOperationException
+    public Object[] preallocateIdentityValues(Connection connection, Table table, Column column, int numValues) throws DatabaseOperationException
     {
-        Connection connection = borrowConnection();
-        Statement  statement  = null;
-        ResultSet  resultSet  = null;
-        List       result     = new ArrayList();
+        String sql = getSqlBuilder().getSelectNextIdentityValuesSql(table, column, numValues);
+
+        if (!getPlatformInfo().isIdentityValuePreallocationSupported() || (sql == null))
+        {
+            throw new DatabaseOperationException("The platform does not support the preallocation of identity values");
+        }
+
+        Statement statement = null;
+        ResultSet resultSet = null;
+        ArrayList result    = new ArrayList(numValues);
 
         try
         {
             statement = connection.createStatement();
-            resultSet = statement.executeQuery(sql);
+            long startTime = System.currentTimeMillis();
 
-            int rowIdx = 0;
-
-            for (ModelBasedResultSetIterator it = createResultSetIterator(model, resultSet, queryHints); ((end < 0) || (rowIdx <= end)) && it.hasNext(); rowIdx++)
+            resultSet = statement.executeQuery(sql);
+            recordStatementTime(startTime);
+            while ((result.size() < numValues) && resultSet.next())
             {
-                if (rowIdx >= start)
+                result.add(getObjectFromResultSet(resultSet, column, 1));
+            }
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while fetching the values for the auto-increment column " +
+                                                 column.getName() + " of table " + table.getName(), ex);
+        }
+        finally
+        {
+            if (resultSet != null)
+            {
+                try
                 {
-                    result.add(it.next());
+                    resultSet.close();
                 }
-                else
+                catch (SQLException ex)
                 {
-                    it.advance();
+                    // we ignore this one
                 }
             }
+            closeStatement(statement);
         }
-        catch (SQLException ex)
-        {
-            throw new DatabaseOperationException("Error while fetching data from the database", ex);
-        } 
-        finally 
+        if (result.size() < numValues)
         {
-            // the iterator should return the connection automatically
-            // so this is usually not necessary (but just in case)
-            closeStatement(statement);
-            returnConnection(connection);
+            throw new DatabaseOperationException("Could not fetch enough values for the auto-increment column " +
+                                                 column.getName() + " of table " + table.getName());
         }
-        return result;
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    public List fetch(Database model, String sql, Collection parameters) throws DatabaseOperationException
-    {
-        return fetch(model, sql, parameters, null, 0, -1);
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    public List fetch(Database model, String sql, Collection parameters, int start, int end) throws DatabaseOperationException
-    {
-        return fetch(model, sql, parameters, null, start, end);
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    public List fetch(Database model, String sql, Collection parameters, Table[] queryHints) throws DatabaseOperationException
-    {
-        return fetch(model, sql, parameters, queryHints, 0, -1);
+        return result.toArray();
     }
 
     /**
      * {@inheritDoc}
+     * This implementation reads the rows via a plain <code>SELECT</code> and writes the values
+     * as they are returned by the JDBC driver.
      */
-    public List fetch(Database model, String sql, Collection parameters, Table[] queryHints, int start, int end) throws DatabaseOperationException
+    public void exportTableToCsv(Connection connection, Table table, File file) throws DatabaseOperationException
     {
-        Connection        connection = borrowConnection();
-        PreparedStatement statement  = null;
-        ResultSet         resultSet  = null;
-        List              result     = new ArrayList();
+        Column[]     columns   = table.getColumns();
+        String       sql       = getSqlBuilder().getSelectSql(table, columns);
+        Statement    statement = null;
+        ResultSet    resultSet = null;
+        Writer       writer    = null;
+        StringBuffer row       = new StringBuffer();
 
+        if (getLog().isDebugEnabled())
+        {
+            getLog().debug("Exporting table " + table.getName() + " via SQL: " + sql);
+        }
         try
         {
-            statement = connection.prepareStatement(sql);
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+            writer.write(getCsvHeader(columns));
 
-            int paramIdx = 1;
+            statement = connection.createStatement();
+            long startTime = System.currentTimeMillis();
 
-            for (Iterator iter = parameters.iterator(); iter.hasNext(); paramIdx++)
+            resultSet = statement.executeQuery(sql);
+            recordStatementTime(startTime);
+            while (resultSet.next())
             {
-                Object arg = iter.next();
-
-                if (arg instanceof BigDecimal)
+                row.setLength(0);
+                for (int idx = 0; idx < columns.length; idx++)
                 {
-                    // to avoid scale problems because setObject assumes a scale of 0
-                    statement.setBigDecimal(paramIdx, (BigDecimal)arg);
+                    if (idx > 0)
+                    {
+                        row.append(',');
+                    }
+                    appendCsvValue(row, columns[idx].getTypeCode(), getObjectFromResultSet(resultSet, columns[idx], idx + 1));
                 }
-                else
+                row.append('\n');
+                writer.write(row.toString());
+            }
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while exporting table " + table.getName(), ex);
+        }
+        catch (IOException ex)
+        {
+            throw new DatabaseOperationException("Error while writing to file " + file.getAbsolutePath(), ex);
+        }
+        finally
+        {
+            if (resultSet != null)
+            {
+                try
                 {
-                    statement.setObject(paramIdx, arg);
+                    resultSet.close();
+                }
+                catch (SQLException ex)
+                {
+                    // we ignore this one
                 }
             }
-            resultSet = statement.executeQuery();
-
-            int rowIdx = 0;
-
-            for (ModelBasedResultSetIterator it = createResultSetIterator(model, resultSet, queryHints); ((end < 0) || (rowIdx <= end)) && it.hasNext(); rowIdx++)
+            closeStatement(statement);
+            if (writer != null)
             {
-                if (rowIdx >= start)
+                try
                 {
-                    result.add(it.next());
+                    writer.close();
                 }
-                else
+                catch (IOException ex)
                 {
-                    it.advance();
+                    getLog().warn("Could not close file " + file.getAbsolutePath(), ex);
                 }
             }
         }
-        catch (SQLException ex)
-        {
-            // any other exception comes from the iterator which closes the resources automatically
-            closeStatement(statement);
-            returnConnection(connection);
-            throw new DatabaseOperationException("Error while fetching data from the database", ex);
-        }
-        return result;
     }
 
     /**
-     * Creates the SQL for inserting an object of the given type. If a concrete bean is given,
-     * then a concrete insert statement is created, otherwise an insert statement usable in a
-     * prepared statement is build. 
-     *
-     * @param model      The database model
-     * @param dynaClass  The type
-     * @param properties The properties to write
-     * @param bean       Optionally the concrete bean to insert
-     * @return The SQL required to insert an instance of the class
+     * Returns the header line for a CSV file containing the values of the given columns,
+     * including the line terminator.
+     * 
+     * @param columns The columns
+     * @return The header line
      */
-    protected String createInsertSql(Database model, SqlDynaClass dynaClass, SqlDynaProperty[] properties, DynaBean bean)
+    protected String getCsvHeader(Column[] columns)
     {
-        Table   table        = model.findTable(dynaClass.getTableName());
-        HashMap columnValues = toColumnValues(properties, bean);
+        StringBuffer result = new StringBuffer();
 
-        return _builder.getInsertSql(table, columnValues, bean == null);
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (idx > 0)
+            {
+                result.append(',');
+            }
+            appendCsvValue(result, Types.VARCHAR, columns[idx].getName());
+        }
+        result.append('\n');
+        return result.toString();
     }
 
     /**
-     * Creates the SQL for querying for the id generated by the last insert of an object of the given type.
+     * Inserts the given beans which all belong to the same table, using the bulk insertion
+     * mechanism of the platform. This is called by {@link #insert(Connection, Database, Collection)}
+     * if native bulk inserts are switched on. This implementation uses multi-row <code>INSERT</code>
+     * statements if the database supports them (see {@link #isMultiRowInsertSupported(Connection)}),
+     * and JDBC statement batches otherwise.
      * 
-     * @param model     The database model
-     * @param dynaClass The type
-     * @return The SQL required for querying for the id, or <code>null</code> if the database does not
-     *         support this
+     * @param connection The connection
+     * @param model      The database model
+     * @param dynaClass  The dyna class of the beans
+     * @param beans      The beans
      */
-    protected String createSelectLastInsertIdSql(Database model, SqlDynaClass dynaClass)
+    protected void bulkInsert(Connection connection, Database model, SqlDynaClass dynaClass, List beans) throws DatabaseOperationException
     {
-        Table table = model.findTable(dynaClass.getTableName());
-
-        return _builder.getSelectLastIdentityValues(table);
+        if (isMultiRowInsertSupported(connection))
+        {
+            insertViaMultiRowInserts(connection, model, dynaClass, beans);
+        }
+        else
+        {
+            insertViaBatches(connection, model, beans);
+        }
     }
 
     /**
-     * {@inheritDoc}
+     * Inserts the given beans which all belong to the same table, via multi-row <code>INSERT</code>
+     * statements. The number of rows per statement is limited by the maximum number of rows and
+     * parameters per statement of the platform, and by {@link #getMaxMultiRowInsertSize(Connection)}.
+     * Beans whose identity values are generated by the database are inserted via statement batches
+     * though so that these values can be read back.
+     * 
+     * @param connection The connection
+     * @param model      The database model
+     * @param dynaClass  The dyna class of the beans
+     * @param beans      The beans
      */
-    public String getInsertSql(Database model, DynaBean dynaBean)
+    protected void insertViaMultiRowInserts(Connection connection, Database model, SqlDynaClass dynaClass, List beans) throws DatabaseOperationException
     {
-        SqlDynaClass      dynaClass  = model.getDynaClassFor(dynaBean);
-        SqlDynaProperty[] properties = dynaClass.getSqlDynaProperties();
+        DynaBean          firstBean       = (DynaBean)beans.get(0);
+        SqlDynaProperty[] properties      = getPropertiesForInsertion(connection, model, dynaClass, firstBean);
+        Column[]          autoIncrColumns = getRelevantIdentityColumns(connection, model, dynaClass, firstBean);
 
-        if (properties.length == 0)
+        if ((properties.length == 0) || (autoIncrColumns.length > 0))
         {
-            _log.info("Cannot insert instances of type " + dynaClass + " because it has no properties");
-            return null;
+            insertViaBatches(connection, model, beans);
+            return;
         }
 
-        return createInsertSql(model, dynaClass, properties, dynaBean);
-    }
+        Table    table   = dynaClass.getTable();
+        Column[] columns = new Column[properties.length];
 
-    /**
-     * Returns all properties where the column is not non-autoincrement and for which the bean
-     * either has a value or the column hasn't got a default value, for the given dyna class.
-     * 
-     * @param model     The database model
-     * @param dynaClass The dyna class
-     * @param bean      The bean
-     * @return The properties
-     */
-    private SqlDynaProperty[] getPropertiesForInsertion(Database model, SqlDynaClass dynaClass, final DynaBean bean)
-    {
-        SqlDynaProperty[] properties = dynaClass.getSqlDynaProperties();
+        for (int idx = 0; idx < properties.length; idx++)
+        {
+            columns[idx] = properties[idx].getColumn();
+        }
 
-        Collection result = CollectionUtils.select(Arrays.asList(properties), new Predicate() {
-            public boolean evaluate(Object input) {
-                SqlDynaProperty prop = (SqlDynaProperty)input;
+        int  maxRows  = getMaxRowsPerMultiRowInsert(properties.length);
+        long maxSize  = getMaxMultiRowInsertSize(connection);
+        // rough estimate of the size of the statement without the rows
+        long baseSize = _builder.getMultiRowInsertSql(table, columns, 0).length() + 64;
+        int  startIdx = 0;
 
-                if (bean.get(prop.getName()) != null)
-                {
-                    // we ignore properties for which a value is present in the bean
-                    // only if they are identity and identity override is off or
-                    // the platform does not allow the override of the auto-increment
-                    // specification
-                    return !prop.getColumn().isAutoIncrement() ||
-                           (isIdentityOverrideOn() && getPlatformInfo().isIdentityOverrideAllowed());
-                }
-                else
+        while (startIdx < beans.size())
+        {
+            long size   = baseSize;
+            int  endIdx = startIdx;
+
+            while ((endIdx < beans.size()) && ((maxRows < 0) || (endIdx - startIdx < maxRows)))
+            {
+                if (maxSize > 0)
                 {
-                    // we also return properties without a value in the bean
-                    // if they ain't auto-increment and don't have a default value
-                    // in this case, a NULL is inserted
-                    return !prop.getColumn().isAutoIncrement() &&
-                           (prop.getColumn().getDefaultValue() == null);
+                    long rowSize = estimateRowSize((DynaBean)beans.get(endIdx), properties);
+
+                    // we always add at least one row, the server will complain if it is too large
+                    if ((endIdx > startIdx) && (size + rowSize > maxSize))
+                    {
+                        break;
+                    }
+                    size += rowSize;
                 }
+                endIdx++;
             }
-        });
-
-        return (SqlDynaProperty[])result.toArray(new SqlDynaProperty[result.size()]);
+            executeMultiRowInsert(connection, table, columns, properties, beans.subList(startIdx, endIdx));
+            startIdx = endIdx;
+        }
     }
 
-    /**
-     * Returns all identity properties whose value were defined by the database and which
-     * now need to be read back from the DB.
-     * 
-     * @param model     The database model
-     * @param dynaClass The dyna class
-     * @param bean      The bean
-     * @return The columns
-     */
-    private Column[] getRelevantIdentityColumns(Database model, SqlDynaClass dynaClass, final DynaBean bean)
-    {
-        SqlDynaProperty[] properties = dynaClass.getSqlDynaProperties();
-
-        Collection relevantProperties = CollectionUtils.select(Arrays.asList(properties), new Predicate() {
-            public boolean evaluate(Object input) {
-                SqlDynaProperty prop = (SqlDynaProperty)input;
-
-                // we only want those identity columns that were really specified by the DB
-                // if the platform allows specification of values for identity columns
-                // in INSERT/UPDATE statements, then we need to filter the corresponding
-                // columns out
-                return prop.getColumn().isAutoIncrement() &&
-                       (!isIdentityOverrideOn() || !getPlatformInfo().isIdentityOverrideAllowed() || (bean.get(prop.getName()) == null));
-            }
-        });
-
-        Column[] columns = new Column[relevantProperties.size()];
-        int      idx     = 0;
+    /**
+     * Determines the maximum number of rows that a multi-row <code>INSERT</code> statement with
+     * placeholders can have, according to the limits of the platform.
+     * 
+     * @param numColumns The number of columns per row
+     * @return The maximum number of rows, or -1 if not limited
+     */
+    private int getMaxRowsPerMultiRowInsert(int numColumns)
+    {
+        int maxRows       = getPlatformInfo().getMaxRowsPerMultiRowInsert();
+        int maxParameters = getPlatformInfo().getMaxParametersPerStatement();
 
-        for (Iterator propIt = relevantProperties.iterator(); propIt.hasNext(); idx++)
+        if (maxParameters > 0)
         {
-            columns[idx] = ((SqlDynaProperty)propIt.next()).getColumn();
+            int maxRowsForParameters = Math.max(1, maxParameters / numColumns);
+
+            if ((maxRows < 0) || (maxRowsForParameters < maxRows))
+            {
+                maxRows = maxRowsForParameters;
+            }
         }
-        return columns;
+        return maxRows;
     }
 
     /**
-     * {@inheritDoc}
+     * Determines whether the database accessed via the given connection supports multi-row
+     * <code>INSERT</code> statements. This implementation returns the value of
+     * {@link PlatformInfo#isMultiRowInsertSupported()}. Platforms where this depends on the
+     * version of the database can override it.
+     * 
+     * @param connection The connection
+     * @return <code>true</code> if multi-row inserts can be used
      */
-    public void insert(Connection connection, Database model, DynaBean dynaBean) throws DatabaseOperationException
+    protected boolean isMultiRowInsertSupported(Connection connection) throws DatabaseOperationException
     {
-        SqlDynaClass      dynaClass       = model.getDynaClassFor(dynaBean);
-        SqlDynaProperty[] properties      = getPropertiesForInsertion(model, dynaClass, dynaBean);
-        Column[]          autoIncrColumns = getRelevantIdentityColumns(model, dynaClass, dynaBean);
+        return getPlatformInfo().isMultiRowInsertSupported();
+    }
 
-        if ((properties.length == 0) && (autoIncrColumns.length == 0))
-        {
-            _log.warn("Cannot insert instances of type " + dynaClass + " because it has no usable properties");
-            return;
-        }
+    /**
+     * Returns the maximum size in bytes that a multi-row <code>INSERT</code> statement including
+     * the values of the rows may have. This implementation returns -1, i.e. the size is not limited.
+     * 
+     * @param connection The connection
+     * @return The maximum size, or -1 if not limited
+     */
+    protected long getMaxMultiRowInsertSize(Connection connection)
+    {
+        return -1;
+    }
 
-        String insertSql        = createInsertSql(model, dynaClass, properties, null);
-        String queryIdentitySql = null;
+    /**
+     * Estimates the number of bytes that the values of the given bean take up in an
+     * <code>INSERT</code> statement.
+     * 
+     * @param bean       The bean
+     * @param properties The properties to insert
+     * @return The estimated size
+     */
+    protected long estimateRowSize(DynaBean bean, SqlDynaProperty[] properties)
+    {
+        // the parentheses and separators
+        long size = 4;
 
-        if (_log.isDebugEnabled())
+        for (int idx = 0; idx < properties.length; idx++)
         {
-            _log.debug("About to execute SQL: " + insertSql);
-        }
+            Object value = bean.get(properties[idx].getName());
 
-        if (autoIncrColumns.length > 0)
-        {
-            if (!getPlatformInfo().isLastIdentityValueReadable())
+            if (value instanceof String)
             {
-                _log.warn("The database does not support querying for auto-generated column values");
+                // encoding and escaping can take up to three bytes per character
+                size += 3 * ((String)value).length() + 4;
+            }
+            else if (value instanceof byte[])
+            {
+                // binary values are escaped or sent in hexadecimal form
+                size += 2 * ((byte[])value).length + 4;
             }
             else
             {
-                queryIdentitySql = createSelectLastInsertIdSql(model, dynaClass);
+                size += 32;
             }
         }
+        return size;
+    }
 
-        boolean           autoCommitMode = false;
-        PreparedStatement statement      = null;
+    /**
+     * Inserts the given beans via one multi-row <code>INSERT</code> statement.
+     * 
+     * @param connection The connection
+     * @param table      The table
+     * @param columns    The columns to insert
+     * @param properties The properties corresponding to the columns
+     * @param beans      The beans
+     */
+    private void executeMultiRowInsert(Connection connection, Table table, Column[] columns, SqlDynaProperty[] properties, List beans) throws DatabaseOperationException
+    {
+        String            sql       = _builder.getMultiRowInsertSql(table, columns, beans.size());
+        PreparedStatement statement = null;
 
+        if (_log.isDebugEnabled())
+        {
+            _log.debug("Inserting " + beans.size() + " rows into table " + table.getName() + " via a multi-row insert");
+        }
         try
         {
-            if (!getPlatformInfo().isAutoCommitModeForLastIdentityValueReading())
-            {
-                autoCommitMode = connection.getAutoCommit();
-                connection.setAutoCommit(false);
-            }
-
-            beforeInsert(connection, dynaClass.getTable());
-            
-            statement = connection.prepareStatement(insertSql);
+            int sqlIdx = 1;
 
-            for (int idx = 0; idx < properties.length; idx++ )
+            statement = connection.prepareStatement(sql);
+            for (Iterator it = beans.iterator(); it.hasNext();)
             {
-                setObject(statement, idx + 1, dynaBean, properties[idx]);
+                DynaBean bean = (DynaBean)it.next();
+
+                for (int idx = 0; idx < properties.length; idx++)
+                {
+                    setObject(statement, sqlIdx++, bean, properties[idx]);
+                }
             }
+            beforeInsert(connection, table);
 
-            int count = statement.executeUpdate();
+            long startTime = System.currentTimeMillis();
+            int  count     = statement.executeUpdate();
 
-            afterInsert(connection, dynaClass.getTable());
+            recordStatementTime(startTime);
+            recordBatchSize(beans.size());
 
-            if (count != 1)
+            afterInsert(connection, table);
+            if (count != beans.size())
             {
-                _log.warn("Attempted to insert a single row " + dynaBean +
-                          " in table " + dynaClass.getTableName() +
-                          " but changed " + count + " row(s)");
+                _log.warn("Attempted to insert " + beans.size() + " rows into table " + table.getName() + " but changed " + count + " rows");
             }
         }
         catch (SQLException ex)
@@ -1974,111 +3270,127 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         {
             closeStatement(statement);
         }
-        if (queryIdentitySql != null)
-        {
-            Statement queryStmt       = null;
-            ResultSet lastInsertedIds = null;
-
-            try
-            {
-                if (getPlatformInfo().isAutoCommitModeForLastIdentityValueReading())
-                {
-                    // we'll commit the statement(s) if no auto-commit is enabled because
-                    // otherwise it is possible that the auto increment hasn't happened yet
-                    // (the db didn't actually perform the insert yet so no triggering of
-                    // sequences did occur)
-                    if (!connection.getAutoCommit())
-                    {
-                        connection.commit();
-                    }
-                }
-
-                queryStmt       = connection.createStatement();
-                lastInsertedIds = queryStmt.executeQuery(queryIdentitySql);
-
-                lastInsertedIds.next();
+    }
 
-                for (int idx = 0; idx < autoIncrColumns.length; idx++)
-                {
-                    // we're using the index rather than the name because we cannot know how
-                    // the SQL statement looks like; rather we assume that we get the values
-                    // back in the same order as the auto increment columns
-                    Object value = getObjectFromResultSet(lastInsertedIds, autoIncrColumns[idx], idx + 1);
+    /**
+     * Writes the values of the given beans to a temporary file in CSV format, for use by the
+     * file import facilities of databases that run in the same process. The file uses UTF-8
+     * encoding and has no header line. The caller is responsible for deleting the file.
+     * 
+     * @param beans      The beans
+     * @param properties The properties to write, in the order of the columns in the file
+     * @return The file
+     * @see #appendCsvValue(StringBuffer, int, Object)
+     */
+    protected File writeCsvFile(List beans, SqlDynaProperty[] properties) throws IOException
+    {
+        File         file   = File.createTempFile("ddlutils", ".csv");
+        Writer       writer = null;
+        StringBuffer row    = new StringBuffer();
 
-                    PropertyUtils.setProperty(dynaBean, autoIncrColumns[idx].getName(), value);
-                }
-            }
-            catch (NoSuchMethodException ex)
-            {
-                // Can't happen because we're using dyna beans
-            }
-            catch (IllegalAccessException ex)
-            {
-                // Can't happen because we're using dyna beans
-            }
-            catch (InvocationTargetException ex)
-            {
-                // Can't happen because we're using dyna beans
-            }
-            catch (SQLException ex)
-            {
-                throw new DatabaseOperationException("Error while retrieving the identity column value(s) from the database", ex);
-            }
-            finally
+        try
+        {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+            for (Iterator it = beans.iterator(); it.hasNext();)
             {
-                if (lastInsertedIds != null)
+                DynaBean bean = (DynaBean)it.next();
+
+                row.setLength(0);
+                for (int idx = 0; idx < properties.length; idx++)
                 {
-                    try
-                    {
-                        lastInsertedIds.close();
-                    }
-                    catch (SQLException ex)
+                    if (idx > 0)
                     {
-                        // we ignore this one
+                        row.append(',');
                     }
+                    appendCsvValue(row, properties[idx].getColumn().getTypeCode(), bean.get(properties[idx].getName()));
                 }
-                closeStatement(statement);
+                row.append('\n');
+                writer.write(row.toString());
             }
         }
-        if (!getPlatformInfo().isAutoCommitModeForLastIdentityValueReading())
+        catch (IOException ex)
         {
-            try
+            if (writer != null)
             {
-                // we need to do a manual commit now
-                connection.commit();
-                connection.setAutoCommit(autoCommitMode);
+                writer.close();
+                writer = null;
             }
-            catch (SQLException ex)
+            file.delete();
+            throw ex;
+        }
+        finally
+        {
+            if (writer != null)
             {
-                throw new DatabaseOperationException(ex);
+                writer.close();
             }
         }
+        return file;
     }
 
     /**
-     * {@inheritDoc}
+     * Appends the value in CSV format to the given buffer. <code>NULL</code> is written as an
+     * empty field, strings are enclosed in double quotes (doubling the quotes within them), and
+     * binary values are written in hexadecimal form.
+     * 
+     * @param buffer   The buffer
+     * @param typeCode The JDBC type code of the column
+     * @param value    The value
      */
-    public void insert(Database model, DynaBean dynaBean) throws DatabaseOperationException
+    protected void appendCsvValue(StringBuffer buffer, int typeCode, Object value)
     {
-        Connection connection = borrowConnection();
+        if (value == null)
+        {
+            return;
+        }
+        else if (TypeMap.isBinaryType(typeCode))
+        {
+            byte[] bytes = (value instanceof byte[] ? (byte[])value : new BinaryObjectsHelper().serialize(value));
 
-        try
+            buffer.append(new String(Hex.encodeHex(bytes)));
+        }
+        else if (value instanceof String)
         {
-            insert(connection, model, dynaBean);
+            String text = (String)value;
+
+            buffer.append('"');
+            for (int idx = 0; idx < text.length(); idx++)
+            {
+                char c = text.charAt(idx);
+
+                if (c == '"')
+                {
+                    buffer.append('"');
+                }
+                buffer.append(c);
+            }
+            buffer.append('"');
         }
-        finally
+        else if ((value instanceof java.util.Date) &&
+                 !(value instanceof java.sql.Date) && !(value instanceof Time) && !(value instanceof Timestamp))
         {
-            returnConnection(connection);
+            buffer.append(new Timestamp(((java.util.Date)value).getTime()).toString());
+        }
+        else
+        {
+            buffer.append(value.toString());
         }
     }
 
     /**
-     * {@inheritDoc}
+     * Inserts the given beans via JDBC statement batches, one batch per consecutive run of beans
+     * of the same type.
+     * 
+     * @param connection The connection
+     * @param model      The database model
+     * @param dynaBeans  The beans
      */
-    public void insert(Connection connection, Database model, Collection dynaBeans) throws DatabaseOperationException
+    protected void insertViaBatches(Connection connection, Database model, Collection dynaBeans) throws DatabaseOperationException
     {
         SqlDynaClass      dynaClass              = null;
         SqlDynaProperty[] properties             = null;
+        Column[]          autoIncrColumns        = null;
+        ArrayList         batchBeans             = new ArrayList();
         PreparedStatement statement              = null;
         int               addedStmts             = 0;
         boolean           identityWarningPrinted = false;
@@ -2092,23 +3404,28 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
             {
                 if (dynaClass != null)
                 {
-                    executeBatch(statement, addedStmts, dynaClass.getTable());
+                    executeBatch(statement, addedStmts, dynaClass.getTable(), autoIncrColumns, batchBeans);
                     addedStmts = 0;
+                    batchBeans.clear();
                 }
 
-                dynaClass  = curDynaClass;
-                properties = getPropertiesForInsertion(model, curDynaClass, dynaBean);
+                dynaClass       = curDynaClass;
+                properties      = getPropertiesForInsertion(connection, model, curDynaClass, dynaBean);
+                autoIncrColumns = getRelevantIdentityColumns(connection, model, curDynaClass, dynaBean);
     
                 if (properties.length == 0)
                 {
                     _log.warn("Cannot insert instances of type " + dynaClass + " because it has no usable properties");
                     continue;
                 }
-                if (!identityWarningPrinted &&
-                    (getRelevantIdentityColumns(model, curDynaClass, dynaBean).length > 0))
+                if ((autoIncrColumns.length > 0) && !isBatchIdentityValuesReadable(connection))
                 {
-                    _log.warn("Updating the bean properties corresponding to auto-increment columns is not supported in batch mode");
-                    identityWarningPrinted = true;
+                    if (!identityWarningPrinted)
+                    {
+                        _log.warn("Updating the bean properties corresponding to auto-increment columns is not supported in batch mode");
+                        identityWarningPrinted = true;
+                    }
+                    autoIncrColumns = new Column[0];
                 }
 
                 String insertSql = createInsertSql(model, dynaClass, properties, null);
@@ -2119,7 +3436,14 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
                 }
                 try
                 {
-                    statement = connection.prepareStatement(insertSql);
+                    if (autoIncrColumns.length > 0)
+                    {
+                        statement = connection.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS);
+                    }
+                    else
+                    {
+                        statement = connection.prepareStatement(insertSql);
+                    }
                 }
                 catch (SQLException ex)
                 {
@@ -2134,6 +3458,10 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
                 }
                 statement.addBatch();
                 addedStmts++;
+                if (autoIncrColumns.length > 0)
+                {
+                    batchBeans.add(dynaBean);
+                }
             }
             catch (SQLException ex)
             {
@@ -2142,18 +3470,56 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         }
         if (dynaClass != null)
         {
-            executeBatch(statement, addedStmts, dynaClass.getTable());
+            executeBatch(statement, addedStmts, dynaClass.getTable(), autoIncrColumns, batchBeans);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isBatchIdentityValuesReadable(Connection connection) throws DatabaseOperationException
+    {
+        if (!getPlatformInfo().isBatchIdentityValuesReadable())
+        {
+            return false;
+        }
+        try
+        {
+            return isBatchIdentityValuesReadable(connection.getMetaData());
         }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while reading the database metadata", ex);
+        }
+    }
+
+    /**
+     * Determines whether the JDBC driver described by the given metadata returns the generated
+     * values of the identity columns for the rows inserted via a statement batch. This is only
+     * called if the platform supports it in general. This implementation checks that the driver
+     * supports {@link Statement#getGeneratedKeys()}. Platforms can override it to check e.g. the
+     * version of the driver.
+     * 
+     * @param metaData The database metadata
+     * @return <code>true</code> if the identity values of batch inserts can be read back
+     */
+    protected boolean isBatchIdentityValuesReadable(DatabaseMetaData metaData) throws SQLException
+    {
+        return metaData.supportsGetGeneratedKeys();
     }
 
     /**
      * Performs the batch for the given statement, and checks that the specified amount of rows have been changed.
+     * If identity columns are given, then their values as generated by the database are read back into the beans.
      * 
-     * @param statement The prepared statement
-     * @param numRows   The number of rows that should change
-     * @param table     The changed table
+     * @param statement       The prepared statement
+     * @param numRows         The number of rows that should change
+     * @param table           The changed table
+     * @param autoIncrColumns The identity columns whose values shall be read back
+     * @param beans           The beans in the order in which they were added to the batch; only
+     *                        used if there are identity columns to read back
      */
-    private void executeBatch(PreparedStatement statement, int numRows, Table table) throws DatabaseOperationException
+    protected void executeBatch(PreparedStatement statement, int numRows, Table table, Column[] autoIncrColumns, List beans) throws DatabaseOperationException
     {
         if (statement != null)
         {
@@ -2163,8 +3529,16 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
 
                 beforeInsert(connection, table);
 
-                int[] results = statement.executeBatch();
+                long  startTime = System.currentTimeMillis();
+                int[] results   = statement.executeBatch();
+
+                recordStatementTime(startTime);
+                recordBatchSize(numRows);
 
+                if (autoIncrColumns.length > 0)
+                {
+                    readGeneratedIdentityValues(statement, table, autoIncrColumns, beans);
+                }
                 closeStatement(statement);
                 afterInsert(connection, table);
 
@@ -2211,6 +3585,78 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         }
     }
 
+    /**
+     * Reads the identity values generated by the database for the rows inserted via the given
+     * batch statement, and sets them into the corresponding beans.
+     * 
+     * @param statement       The executed batch statement
+     * @param table           The table
+     * @param autoIncrColumns The identity columns whose values shall be read back
+     * @param beans           The beans in the order in which they were added to the batch
+     */
+    private void readGeneratedIdentityValues(PreparedStatement statement, Table table, Column[] autoIncrColumns, List beans) throws SQLException
+    {
+        ResultSet generatedKeys = statement.getGeneratedKeys();
+
+        if (generatedKeys == null)
+        {
+            _log.warn("The JDBC driver did not return the generated values of the identity columns of table " + table.getName());
+            return;
+        }
+        try
+        {
+            // some drivers return only the generated values in the order of the identity columns,
+            // others return all columns of the inserted rows in which case we use the column names
+            boolean useIdx     = (generatedKeys.getMetaData().getColumnCount() == autoIncrColumns.length);
+            int[]   columnIdxs = new int[autoIncrColumns.length];
+            int     beanIdx    = 0;
+
+            for (int idx = 0; idx < autoIncrColumns.length; idx++)
+            {
+                columnIdxs[idx] = useIdx ? idx + 1 : generatedKeys.findColumn(autoIncrColumns[idx].getName());
+            }
+            while ((beanIdx < beans.size()) && generatedKeys.next())
+            {
+                DynaBean bean = (DynaBean)beans.get(beanIdx++);
+
+                for (int idx = 0; idx < autoIncrColumns.length; idx++)
+                {
+                    Object value = getObjectFromResultSet(generatedKeys, autoIncrColumns[idx], columnIdxs[idx]);
+
+                    PropertyUtils.setProperty(bean, autoIncrColumns[idx].getName(), value);
+                }
+            }
+            if (beanIdx < beans.size())
+            {
+                _log.warn("The JDBC driver returned the generated values of the identity columns for only " + beanIdx +
+                          " of the " + beans.size() + " rows inserted into table " + table.getName());
+            }
+        }
+        catch (NoSuchMethodException ex)
+        {
+            // Can't happen because we're using dyna beans
+        }
+        catch (IllegalAccessException ex)
+        {
+            // Can't happen because we're using dyna beans
+        }
+        catch (InvocationTargetException ex)
+        {
+            // Can't happen because we're using dyna beans
+        }
+        finally
+        {
+            try
+            {
+                generatedKeys.close();
+            }
+            catch (SQLException ex)
+            {
+                // we ignore this one
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -2381,7 +3827,10 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
                 setObject(statement, sqlIndex++, dynaBean, primaryKeys[idx]);
             }
 
-            int count = statement.executeUpdate();
+            long startTime = System.currentTimeMillis();
+            int  count     = statement.executeUpdate();
+
+            recordStatementTime(startTime);
 
             afterUpdate(connection, dynaClass.getTable());
 
@@ -2462,7 +3911,10 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
                 setObject(statement, sqlIndex++, oldDynaBean, primaryKeys[idx]);
             }
 
-            int count = statement.executeUpdate();
+            long startTime = System.currentTimeMillis();
+            int  count     = statement.executeUpdate();
+
+            recordStatementTime(startTime);
 
             afterUpdate(connection, dynaClass.getTable());
 
@@ -2582,8 +4034,11 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
                 setObject(stmt, idx + 1, dynaBean, primaryKeys[idx]);
             }
 
+            long      startTime = System.currentTimeMillis();
             ResultSet resultSet = stmt.executeQuery();
 
+            recordStatementTime(startTime);
+
             return resultSet.next();
         }
         catch (SQLException ex)
@@ -2715,7 +4170,10 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
                 setObject(statement, idx + 1, dynaBean, primaryKeys[idx]);
             }
 
-            int count = statement.executeUpdate();
+            long startTime = System.currentTimeMillis();
+            int  count     = statement.executeUpdate();
+
+            recordStatementTime(startTime);
 
             if (count != 1)
             {
@@ -3155,13 +4613,15 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
      * Creates an iterator over the given result set.
      *
      * @param model      The database model
+     * @param connection The connection that was used for the query, which the iterator
+     *                   returns to the platform when it is done
      * @param resultSet  The result set to iterate over
      * @param queryHints The tables that were queried in the query that produced the
      *                   given result set (optional)
      * @return The iterator
      */
-    protected ModelBasedResultSetIterator createResultSetIterator(Database model, ResultSet resultSet, Table[] queryHints)
+    protected ModelBasedResultSetIterator createResultSetIterator(Database model, Connection connection, ResultSet resultSet, Table[] queryHints)
     {
-        return new ModelBasedResultSetIterator(this, model, resultSet, queryHints, true);
+        return new ModelBasedResultSetIterator(this, model, connection, resultSet, queryHints, true);
     }
 }
@@ -26,6 +26,7 @@ import java.sql.Types;
 import java.text.DateFormat;
 import java.text.NumberFormat;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -37,6 +38,7 @@ import org.apache.ddlutils.DdlUtilsException;
 import org.apache.ddlutils.Platform;
 import org.apache.ddlutils.PlatformInfo;
 import org.apache.ddlutils.model.CascadeActionEnum;
+import org.apache.ddlutils.model.CloneHelper;
 import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.model.ForeignKey;
@@ -420,6 +422,38 @@ public abstract class SqlBuilder
         createForeignKeys(database);
     }
 
+    /**
+     * Outputs the DDL required to drop (if requested) and (re)create all tables in the database model
+     * in preparation of a bulk load. In contrast to {@link #createTables(Database, CreationParameters, boolean)}
+     * the tables are created only with their primary keys. The indices and (external) foreign keys are
+     * expected to be created after the data has been loaded, via {@link #createIndexes(Table, boolean)}
+     * and {@link #createForeignKeys(Database)}, so that they don't have to be maintained during the load.
+     * 
+     * @param database   The database
+     * @param params     The parameters used in the creation
+     * @param dropTables Whether to drop tables before creating them
+     */
+    public void createTablesForBulkLoad(Database database, CreationParameters params, boolean dropTables) throws IOException
+    {
+        if (dropTables)
+        {
+            dropTables(database);
+        }
+
+        CloneHelper cloneHelper = new CloneHelper();
+
+        for (int idx = 0; idx < database.getTableCount(); idx++)
+        {
+            Table table = database.getTable(idx);
+
+            writeTableComment(table);
+            // the foreign keys are only needed for platforms that embed them
+            createTable(database,
+                        cloneHelper.clone(table, false, true, database, getPlatform().isDelimitedIdentifierModeOn()),
+                        params == null ? null : params.getParametersFor(table));
+        }
+    }
+
     /**
      * Outputs the DDL to create the given temporary table. Per default this is simply
      * a call to {@link #createTable(Database, Table, Map)}.
@@ -588,6 +622,18 @@ public abstract class SqlBuilder
      * @param table The table
      */
     public void createIndexes(Table table) throws IOException
+    {
+        createIndexes(table, false);
+    }
+
+    /**
+     * Writes the indexes for the given table using external index creation statements.
+     * 
+     * @param table  The table
+     * @param online Whether to create the indexes without locking out concurrent changes
+     *               to the table (if supported by the platform)
+     */
+    public void createIndexes(Table table, boolean online) throws IOException
     {
         for (int idx = 0; idx < table.getIndexCount(); idx++)
         {
@@ -597,7 +643,7 @@ public abstract class SqlBuilder
             {
                 throw new ModelException("Platform does not support non-unique indices");
             }
-            createIndex(table, index);
+            createIndex(table, index, online);
         }
     }
 
@@ -609,6 +655,22 @@ public abstract class SqlBuilder
      */
     public void createIndex(Table table, Index index) throws IOException
     {
+        createIndex(table, index, false);
+    }
+
+    /**
+     * Writes the given index for the table using an external index creation statement.
+     * 
+     * @param table  The table
+     * @param index  The index
+     * @param online Whether to create the index without locking out concurrent changes
+     *               to the table; this is ignored if the platform does not support it
+     *               (see {@link PlatformInfo#isOnlineIndexCreationSupported()})
+     */
+    public void createIndex(Table table, Index index, boolean online) throws IOException
+    {
+        boolean useOnlineCreation = online && getPlatformInfo().isOnlineIndexCreationSupported();
+
         if (!getPlatformInfo().isIndicesSupported())
         {
             throw new DdlUtilsException("This platform does not support indexes");
@@ -625,6 +687,10 @@ public abstract class SqlBuilder
                 print(" UNIQUE");
             }
             print(" INDEX ");
+            if (useOnlineCreation)
+            {
+                writeOnlineIndexCreationPrefix(table, index);
+            }
             printIdentifier(getIndexName(index));
             print(" ON ");
             printIdentifier(getTableName(table));
@@ -648,10 +714,61 @@ public abstract class SqlBuilder
             }
 
             print(")");
+            if (useOnlineCreation)
+            {
+                writeOnlineIndexCreationSuffix(table, index);
+            }
             printEndOfStatement();
         }
     }
 
+    /**
+     * Writes the part of an online index creation statement that comes directly before
+     * the index name. Per default, nothing is written.
+     * 
+     * @param table The table
+     * @param index The index
+     */
+    protected void writeOnlineIndexCreationPrefix(Table table, Index index) throws IOException
+    {
+    }
+
+    /**
+     * Writes the part of an online index creation statement that comes after the list
+     * of index columns. Per default, nothing is written.
+     * 
+     * @param table The table
+     * @param index The index
+     */
+    protected void writeOnlineIndexCreationSuffix(Table table, Index index) throws IOException
+    {
+    }
+
+    /**
+     * Writes the statements that switch off constraint checking (and where possible, index
+     * maintenance) for the tables of the given database prior to a bulk load of data. The
+     * default implementation writes nothing; platforms that support it will override this
+     * method. The statements written by this method are reverted by
+     * {@link #enableConstraintsAfterBulkLoad(Database)}.
+     * 
+     * @param database The database model
+     */
+    public void disableConstraintsForBulkLoad(Database database) throws IOException
+    {
+    }
+
+    /**
+     * Writes the statements that switch constraint checking (and index maintenance) back on
+     * after a bulk load of data. Where the database supports it, the statements will also
+     * validate the data that was loaded while the checks were switched off. The default
+     * implementation writes nothing.
+     * 
+     * @param database The database model
+     */
+    public void enableConstraintsAfterBulkLoad(Database database) throws IOException
+    {
+    }
+
     /**
      * Creates the external foreignkey creation statements for all tables in the database.
      * 
@@ -909,6 +1026,95 @@ public abstract class SqlBuilder
         return buffer.toString();
     }
 
+    /**
+     * Creates the SQL for inserting the given number of rows into the specified table in one go via
+     * a multi-row <code>INSERT</code> statement with placeholders for the column values. Note that
+     * this should only be used if the platform supports multi-row inserts, and that the limits
+     * of the platform for the number of rows and parameters per statement have to be respected.
+     * 
+     * @param table   The table
+     * @param columns The columns for which the rows contain values
+     * @param numRows The number of rows
+     * @return The insertion sql
+     * @see org.apache.ddlutils.PlatformInfo#isMultiRowInsertSupported()
+     */
+    public String getMultiRowInsertSql(Table table, Column[] columns, int numRows)
+    {
+        return createMultiRowInsertSql(table, columns, numRows, null);
+    }
+
+    /**
+     * Creates the SQL for inserting the given rows into the specified table in one go via a
+     * multi-row <code>INSERT</code> statement with concrete values. Note that this should only
+     * be used if the platform supports multi-row inserts, and that the limit of the platform for
+     * the number of rows per statement has to be respected.
+     * 
+     * @param table   The table
+     * @param columns The columns for which the rows contain values
+     * @param rows    The rows, each one a map of the column values indexed by the column names;
+     *                missing values are inserted as <code>NULL</code>
+     * @return The insertion sql
+     * @see org.apache.ddlutils.PlatformInfo#isMultiRowInsertSupported()
+     */
+    public String getMultiRowInsertSql(Table table, Column[] columns, List rows)
+    {
+        return createMultiRowInsertSql(table, columns, rows.size(), rows);
+    }
+
+    /**
+     * Creates the SQL for a multi-row <code>INSERT</code> statement.
+     * 
+     * @param table   The table
+     * @param columns The columns for which the rows contain values
+     * @param numRows The number of rows
+     * @param rows    The column values of the rows, or <code>null</code> if placeholders shall
+     *                be generated
+     * @return The insertion sql
+     */
+    private String createMultiRowInsertSql(Table table, Column[] columns, int numRows, List rows)
+    {
+        StringBuffer buffer = new StringBuffer("INSERT INTO ");
+
+        buffer.append(getDelimitedIdentifier(getTableName(table)));
+        buffer.append(" (");
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (idx > 0)
+            {
+                buffer.append(", ");
+            }
+            buffer.append(getDelimitedIdentifier(columns[idx].getName()));
+        }
+        buffer.append(") VALUES ");
+        for (int rowIdx = 0; rowIdx < numRows; rowIdx++)
+        {
+            Map columnValues = (rows == null ? null : (Map)rows.get(rowIdx));
+
+            if (rowIdx > 0)
+            {
+                buffer.append(", ");
+            }
+            buffer.append("(");
+            for (int idx = 0; idx < columns.length; idx++)
+            {
+                if (idx > 0)
+                {
+                    buffer.append(", ");
+                }
+                if (columnValues == null)
+                {
+                    buffer.append("?");
+                }
+                else
+                {
+                    buffer.append(getValueAsString(columns[idx], columnValues.get(columns[idx].getName())));
+                }
+            }
+            buffer.append(")");
+        }
+        return buffer.toString();
+    }
+
     /**
      * Creates the SQL for updating an object in the specified table.
      * If values are given then a concrete update statement is created, otherwise an
@@ -1104,6 +1310,42 @@ public abstract class SqlBuilder
         return buffer.toString();
     }
 
+    /**
+     * Creates the SQL for selecting the values of the given columns of all rows of the
+     * specified table.
+     * 
+     * @param table   The table
+     * @param columns The columns to select, in the order in which they shall be returned
+     * @return The select sql
+     */
+    public String getSelectSql(Table table, Column[] columns)
+    {
+        StringBuffer buffer = new StringBuffer("SELECT ");
+
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (idx > 0)
+            {
+                buffer.append(", ");
+            }
+            buffer.append(getDelimitedIdentifier(columns[idx].getName()));
+        }
+        buffer.append(" FROM ");
+        buffer.append(getDelimitedIdentifier(getTableName(table)));
+        return buffer.toString();
+    }
+
+    /**
+     * Creates the SQL for counting the rows of the specified table.
+     * 
+     * @param table The table
+     * @return The select sql
+     */
+    public String getCountSql(Table table)
+    {
+        return "SELECT COUNT(*) FROM " + getDelimitedIdentifier(getTableName(table));
+    }
+
     /**
      * Generates the string representation of the given value.
      * 
@@ -1195,6 +1437,22 @@ public abstract class SqlBuilder
         return null;
     }
 
+    /**
+     * Generates the SQL for reserving the given number of values for the given auto-increment
+     * column, which returns one value per row. A database that does not support this, will
+     * return <code>null</code>.
+     * 
+     * @param table     The table
+     * @param column    The auto-increment column
+     * @param numValues The number of values to reserve
+     * @return The sql, or <code>null</code> if the database does not support this
+     */
+    public String getSelectNextIdentityValuesSql(Table table, Column column, int numValues)
+    {
+        // No default possible as the databases are quite different in this respect
+        return null;
+    }
+
     //
     // implementation methods that may be overridden by specific database builders
     //
@@ -76,6 +76,10 @@ public class Db2Platform extends PlatformImplBase
         info.setIdentityColumnAutomaticallyRequired(true);
         info.setPrimaryKeyColumnsHaveToBeRequired(true);
         info.setMultipleIdentityColumnsSupported(false);
+        // DB2 limits the length of a statement (to 64k for DB2 v8)
+        info.setMultiRowInsertSupported(true);
+        info.setMaxRowsPerMultiRowInsert(1000);
+        info.setMaxParametersPerStatement(10000);
         info.setSupportedOnUpdateActions(new CascadeActionEnum[] { CascadeActionEnum.RESTRICT, CascadeActionEnum.NONE });
         info.setSupportedOnDeleteActions(new CascadeActionEnum[] { CascadeActionEnum.RESTRICT, CascadeActionEnum.CASCADE, CascadeActionEnum.SET_NULL, CascadeActionEnum.NONE });
 
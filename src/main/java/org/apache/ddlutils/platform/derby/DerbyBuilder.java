@@ -115,4 +115,64 @@ public class DerbyBuilder extends CloudscapeBuilder
             printIdentifier(getColumnName(sourceColumn));
         }
     }
+
+    /**
+     * Returns the statement that imports the rows from the given CSV file into the table via
+     * the <code>SYSCS_UTIL.SYSCS_IMPORT_DATA</code> procedure. The file is expected to have no
+     * header line and to contain the values in the order of the given columns.
+     * 
+     * @param table    The table
+     * @param columns  The columns for which the file contains values
+     * @param fileName The absolute path of the file
+     * @return The SQL
+     */
+    public String getCsvImportSql(Table table, Column[] columns, String fileName)
+    {
+        StringBuffer result    = new StringBuffer();
+        String       tableName = getTableName(table);
+
+        // the procedure expects the table name as stored in the database
+        if (!getPlatform().isDelimitedIdentifierModeOn())
+        {
+            tableName = tableName.toUpperCase();
+        }
+        result.append("CALL SYSCS_UTIL.SYSCS_IMPORT_DATA(NULL, '");
+        result.append(escapeStringValue(tableName));
+        result.append("', '");
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (idx > 0)
+            {
+                result.append(",");
+            }
+            result.append(escapeStringValue(getDelimitedIdentifier(columns[idx].getName())));
+        }
+        result.append("', NULL, '");
+        result.append(escapeStringValue(fileName));
+        result.append("', NULL, NULL, 'UTF-8', 0)");
+        return result.toString();
+    }
+
+    /**
+     * Returns the statement that writes the rows of the given table into a CSV file via
+     * the <code>SYSCS_UTIL.SYSCS_EXPORT_QUERY</code> procedure. The file has no header line
+     * and contains the values in the order of the given columns. Note that the file must
+     * not exist yet.
+     * 
+     * @param table    The table
+     * @param columns  The columns to write
+     * @param fileName The absolute path of the file
+     * @return The SQL
+     */
+    public String getCsvExportSql(Table table, Column[] columns, String fileName)
+    {
+        StringBuffer result = new StringBuffer();
+
+        result.append("CALL SYSCS_UTIL.SYSCS_EXPORT_QUERY('");
+        result.append(escapeStringValue(getSelectSql(table, columns)));
+        result.append("', '");
+        result.append(escapeStringValue(fileName));
+        result.append("', NULL, NULL, 'UTF-8')");
+        return result.toString();
+    }
 }
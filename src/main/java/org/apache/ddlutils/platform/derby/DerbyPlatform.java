@@ -19,19 +19,36 @@ package org.apache.ddlutils.platform.derby;
  * under the License.
  */
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.beanutils.DynaBean;
 import org.apache.ddlutils.DatabaseOperationException;
 import org.apache.ddlutils.PlatformInfo;
 import org.apache.ddlutils.alteration.AddColumnChange;
 import org.apache.ddlutils.alteration.TableChange;
 import org.apache.ddlutils.alteration.TableDefinitionChangesPredicate;
+import org.apache.ddlutils.dynabean.SqlDynaClass;
+import org.apache.ddlutils.dynabean.SqlDynaProperty;
 import org.apache.ddlutils.model.CascadeActionEnum;
+import org.apache.ddlutils.model.Column;
+import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.model.Table;
 import org.apache.ddlutils.platform.DefaultTableDefinitionChangesPredicate;
 import org.apache.ddlutils.platform.cloudscape.CloudscapePlatform;
@@ -51,6 +68,8 @@ public class DerbyPlatform extends CloudscapePlatform
     public static final String JDBC_DRIVER_EMBEDDED = "org.apache.derby.jdbc.EmbeddedDriver";
     /** The subprotocol used by the derby drivers. */
     public static final String JDBC_SUBPROTOCOL     = "derby";
+    /** The minimum number of rows for which the import from a CSV file is used by bulk inserts. */
+    private static final int MIN_ROWS_FOR_CSV_IMPORT = 500;
 
     /**
      * Creates a new Derby platform instance.
@@ -70,11 +89,224 @@ public class DerbyPlatform extends CloudscapePlatform
         info.setSupportedOnDeleteActions(new CascadeActionEnum[] { CascadeActionEnum.NONE, CascadeActionEnum.RESTRICT,
                                                                    CascadeActionEnum.CASCADE, CascadeActionEnum.SET_NULL });
         info.setDefaultOnDeleteAction(CascadeActionEnum.NONE);
+        // large multi-row inserts can exceed the size limit of the code generated by Derby
+        info.setMultiRowInsertSupported(true);
+        info.setMaxRowsPerMultiRowInsert(1000);
 
         setSqlBuilder(new DerbyBuilder(this));
         setModelReader(new DerbyModelReader(this));
     }
 
+    /**
+     * {@inheritDoc}
+     * Large numbers of beans are written to a temporary CSV file which is then imported via
+     * <code>SYSCS_UTIL.SYSCS_IMPORT_DATA</code>, if the database runs embedded in the same
+     * process. Since this procedure commits or rolls back the current transaction, it is only
+     * used if the connection is in auto-commit mode. Otherwise, and for beans whose identity
+     * values are generated by the database, the normal bulk insertion is used.
+     */
+    protected void bulkInsert(Connection connection, Database model, SqlDynaClass dynaClass, List beans) throws DatabaseOperationException
+    {
+        if ((beans.size() >= MIN_ROWS_FOR_CSV_IMPORT) && isEmbedded(connection) && isAutoCommitOn(connection))
+        {
+            DynaBean          firstBean       = (DynaBean)beans.get(0);
+            SqlDynaProperty[] properties      = getPropertiesForInsertion(connection, model, dynaClass, firstBean);
+            Column[]          autoIncrColumns = getRelevantIdentityColumns(connection, model, dynaClass, firstBean);
+
+            if ((properties.length > 0) && (autoIncrColumns.length == 0))
+            {
+                importFromCsvFile(connection, dynaClass.getTable(), properties, beans);
+                return;
+            }
+        }
+        super.bulkInsert(connection, model, dynaClass, beans);
+    }
+
+    /**
+     * Determines whether the database of the given connection runs in the same process, i.e.
+     * whether it can read files written by DdlUtils.
+     * 
+     * @param connection The connection
+     * @return <code>true</code> if the database is embedded
+     */
+    private boolean isEmbedded(Connection connection)
+    {
+        try
+        {
+            String url = connection.getMetaData().getURL();
+
+            return (url != null) && !url.startsWith("jdbc:derby://");
+        }
+        catch (SQLException ex)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Determines whether the given connection is in auto-commit mode.
+     * 
+     * @param connection The connection
+     * @return <code>true</code> if auto-commit mode is on
+     */
+    private boolean isAutoCommitOn(Connection connection)
+    {
+        try
+        {
+            return connection.getAutoCommit();
+        }
+        catch (SQLException ex)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Inserts the given beans by writing them to a temporary CSV file and importing this file.
+     * 
+     * @param connection The connection
+     * @param table      The table
+     * @param properties The properties to insert
+     * @param beans      The beans
+     */
+    private void importFromCsvFile(Connection connection, Table table, SqlDynaProperty[] properties, List beans) throws DatabaseOperationException
+    {
+        Column[]  columns   = new Column[properties.length];
+        File      file      = null;
+        Statement statement = null;
+
+        for (int idx = 0; idx < properties.length; idx++)
+        {
+            columns[idx] = properties[idx].getColumn();
+        }
+        try
+        {
+            file = writeCsvFile(beans, properties);
+
+            String sql = ((DerbyBuilder)getSqlBuilder()).getCsvImportSql(table, columns, file.getAbsolutePath());
+
+            if (getLog().isDebugEnabled())
+            {
+                getLog().debug("Importing " + beans.size() + " rows via SQL: " + sql);
+            }
+            statement = connection.createStatement();
+            beforeInsert(connection, table);
+            statement.execute(sql);
+            afterInsert(connection, table);
+        }
+        catch (IOException ex)
+        {
+            throw new DatabaseOperationException("Could not write the data to a temporary file", ex);
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while inserting into the database: " + ex.getMessage(), ex);
+        }
+        finally
+        {
+            closeStatement(statement);
+            if (file != null)
+            {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * If the database runs embedded in the same process, then the rows are exported via
+     * <code>SYSCS_UTIL.SYSCS_EXPORT_QUERY</code> into a temporary file which is then
+     * copied into the target file after the header line.
+     */
+    public void exportTableToCsv(Connection connection, Table table, File file) throws DatabaseOperationException
+    {
+        if (!isEmbedded(connection))
+        {
+            super.exportTableToCsv(connection, table, file);
+            return;
+        }
+
+        File      tmpFile   = null;
+        Statement statement = null;
+        Reader    reader    = null;
+        Writer    writer    = null;
+
+        try
+        {
+            // Derby refuses to export into an existing file
+            tmpFile = File.createTempFile("ddlutils", ".csv");
+            tmpFile.delete();
+
+            String sql = ((DerbyBuilder)getSqlBuilder()).getCsvExportSql(table, table.getColumns(), tmpFile.getAbsolutePath());
+
+            if (getLog().isDebugEnabled())
+            {
+                getLog().debug("Exporting table " + table.getName() + " via SQL: " + sql);
+            }
+            statement = connection.createStatement();
+            statement.execute(sql);
+
+            char[] buffer = new char[8192];
+            int    numRead;
+
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(tmpFile), "UTF-8"));
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+            writer.write(getCsvHeader(table.getColumns()));
+            while ((numRead = reader.read(buffer)) > 0)
+            {
+                writer.write(buffer, 0, numRead);
+            }
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while exporting table " + table.getName(), ex);
+        }
+        catch (IOException ex)
+        {
+            throw new DatabaseOperationException("Error while writing to file " + file.getAbsolutePath(), ex);
+        }
+        finally
+        {
+            closeStatement(statement);
+            try
+            {
+                if (reader != null)
+                {
+                    reader.close();
+                }
+                if (writer != null)
+                {
+                    writer.close();
+                }
+            }
+            catch (IOException ex)
+            {
+                getLog().warn("Could not close file " + file.getAbsolutePath(), ex);
+            }
+            if (tmpFile != null)
+            {
+                tmpFile.delete();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Boolean values for columns that Derby stores as <code>SMALLINT</code> are written as
+     * <code>1</code> and <code>0</code>.
+     */
+    protected void appendCsvValue(StringBuffer buffer, int typeCode, Object value)
+    {
+        if ((value instanceof Boolean) && (typeCode != Types.BOOLEAN))
+        {
+            buffer.append(((Boolean)value).booleanValue() ? "1" : "0");
+        }
+        else
+        {
+            super.appendCsvValue(buffer, typeCode, value);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
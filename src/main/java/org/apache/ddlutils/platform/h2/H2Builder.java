@@ -24,6 +24,7 @@ import java.io.IOException;
 import org.apache.ddlutils.Platform;
 import org.apache.ddlutils.alteration.ColumnDefinitionChange;
 import org.apache.ddlutils.model.Column;
+import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.model.Index;
 import org.apache.ddlutils.model.Table;
 import org.apache.ddlutils.model.TypeMap;
@@ -172,4 +173,91 @@ public class H2Builder extends SqlBuilder
             super.writeCastExpression(sourceColumn, targetColumn);
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void disableConstraintsForBulkLoad(Database database) throws IOException
+    {
+        for (int idx = 0; idx < database.getTableCount(); idx++)
+        {
+            writeTableAlterStmt(database.getTable(idx));
+            print("SET REFERENTIAL_INTEGRITY FALSE");
+            printEndOfStatement();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * H2 re-validates the existing rows when the referential integrity is switched back on.
+     */
+    public void enableConstraintsAfterBulkLoad(Database database) throws IOException
+    {
+        for (int idx = 0; idx < database.getTableCount(); idx++)
+        {
+            writeTableAlterStmt(database.getTable(idx));
+            print("SET REFERENTIAL_INTEGRITY TRUE CHECK");
+            printEndOfStatement();
+        }
+    }
+
+    /**
+     * Returns the statement that inserts the rows from the given CSV file into the table via
+     * the <code>CSVREAD</code> function. The file is expected to have no header line and to
+     * contain the values in the order of the given columns.
+     * 
+     * @param table    The table
+     * @param columns  The columns for which the file contains values
+     * @param fileName The absolute path of the file
+     * @return The SQL
+     */
+    public String getCsvImportSql(Table table, Column[] columns, String fileName)
+    {
+        StringBuffer result      = new StringBuffer();
+        StringBuffer columnNames = new StringBuffer();
+
+        result.append("INSERT INTO ");
+        result.append(getDelimitedIdentifier(getTableName(table)));
+        result.append(" (");
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (idx > 0)
+            {
+                result.append(", ");
+                columnNames.append(",");
+            }
+            result.append(getDelimitedIdentifier(columns[idx].getName()));
+            // the names of the columns in the file don't matter as we insert them by position
+            columnNames.append("C");
+            columnNames.append(idx + 1);
+        }
+        result.append(") SELECT * FROM CSVREAD('");
+        result.append(escapeStringValue(fileName));
+        result.append("', '");
+        result.append(columnNames);
+        result.append("', 'UTF-8', ',', '\"')");
+        return result.toString();
+    }
+
+    /**
+     * Returns the statement that writes the rows of the given table into a CSV file via
+     * the <code>CSVWRITE</code> function. The file starts with a header line containing the
+     * column names.
+     * 
+     * @param table    The table
+     * @param columns  The columns to write
+     * @param fileName The absolute path of the file
+     * @return The SQL
+     */
+    public String getCsvExportSql(Table table, Column[] columns, String fileName)
+    {
+        StringBuffer result = new StringBuffer();
+
+        result.append("CALL CSVWRITE('");
+        result.append(escapeStringValue(fileName));
+        result.append("', '");
+        result.append(escapeStringValue(getSelectSql(table, columns)));
+        result.append("', 'UTF-8', ',', '\"')");
+        return result.toString();
+    }
 }
@@ -19,12 +19,16 @@ package org.apache.ddlutils.platform.h2;
  * under the License.
  */
 
+import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
+import java.util.List;
 
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.ddlutils.DatabaseOperationException;
 import org.apache.ddlutils.DdlUtilsException;
 import org.apache.ddlutils.PlatformInfo;
 import org.apache.ddlutils.alteration.AddColumnChange;
@@ -33,6 +37,8 @@ import org.apache.ddlutils.alteration.ModelComparator;
 import org.apache.ddlutils.alteration.RemoveColumnChange;
 import org.apache.ddlutils.alteration.TableChange;
 import org.apache.ddlutils.alteration.TableDefinitionChangesPredicate;
+import org.apache.ddlutils.dynabean.SqlDynaClass;
+import org.apache.ddlutils.dynabean.SqlDynaProperty;
 import org.apache.ddlutils.model.CascadeActionEnum;
 import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
@@ -54,6 +60,8 @@ public class H2Platform extends PlatformImplBase
     public static final String JDBC_DRIVER      = "org.h2.Driver";
     /** The subprotocol used by the H2 driver. */
     public static final String JDBC_SUBPROTOCOL = "h2";
+    /** The minimum number of rows for which the import from a CSV file is used by bulk inserts. */
+    private static final int MIN_ROWS_FOR_CSV_IMPORT = 500;
 
     /**
      * Creates a new instance of the H2 platform.
@@ -67,6 +75,9 @@ public class H2Platform extends PlatformImplBase
         info.setIdentityOverrideAllowed(false);
         info.setMixingIdentityAndNormalPrimaryKeyColumnsSupported(false);
         info.setAlterTableForDropUsed(false);
+        info.setConstraintDisablingSupported(true);
+        info.setMultiRowInsertSupported(true);
+        info.setBatchCommandsCommittedIndividually(true);
 
         info.addEquivalentOnDeleteActions(CascadeActionEnum.NONE, CascadeActionEnum.RESTRICT);
         info.addEquivalentOnUpdateActions(CascadeActionEnum.NONE, CascadeActionEnum.RESTRICT);
@@ -99,6 +110,143 @@ public class H2Platform extends PlatformImplBase
         setModelReader(new H2ModelReader(this));
     }
 
+    /**
+     * {@inheritDoc}
+     * Large numbers of beans are written to a temporary CSV file which is then read by the
+     * database via <code>CSVREAD</code>, if the database runs embedded in the same process.
+     * Otherwise, and for beans whose identity values are generated by the database, the
+     * normal bulk insertion is used.
+     */
+    protected void bulkInsert(Connection connection, Database model, SqlDynaClass dynaClass, List beans) throws DatabaseOperationException
+    {
+        if ((beans.size() >= MIN_ROWS_FOR_CSV_IMPORT) && isEmbedded(connection))
+        {
+            DynaBean          firstBean       = (DynaBean)beans.get(0);
+            SqlDynaProperty[] properties      = getPropertiesForInsertion(connection, model, dynaClass, firstBean);
+            Column[]          autoIncrColumns = getRelevantIdentityColumns(connection, model, dynaClass, firstBean);
+
+            if ((properties.length > 0) && (autoIncrColumns.length == 0))
+            {
+                importFromCsvFile(connection, dynaClass.getTable(), properties, beans);
+                return;
+            }
+        }
+        super.bulkInsert(connection, model, dynaClass, beans);
+    }
+
+    /**
+     * {@inheritDoc}
+     * If the database runs embedded in the same process, then it writes the file itself via
+     * <code>CSVWRITE</code>. Note that H2 encloses all values in double quotes.
+     */
+    public void exportTableToCsv(Connection connection, Table table, File file) throws DatabaseOperationException
+    {
+        if (!isEmbedded(connection))
+        {
+            super.exportTableToCsv(connection, table, file);
+            return;
+        }
+
+        String    sql       = ((H2Builder)getSqlBuilder()).getCsvExportSql(table, table.getColumns(), file.getAbsolutePath());
+        Statement statement = null;
+
+        if (getLog().isDebugEnabled())
+        {
+            getLog().debug("Exporting table " + table.getName() + " via SQL: " + sql);
+        }
+        try
+        {
+            statement = connection.createStatement();
+            statement.execute(sql);
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while exporting table " + table.getName(), ex);
+        }
+        finally
+        {
+            closeStatement(statement);
+        }
+    }
+
+    /**
+     * Determines whether the database of the given connection runs in the same process, i.e.
+     * whether it can read files written by DdlUtils.
+     * 
+     * @param connection The connection
+     * @return <code>true</code> if the database is embedded
+     */
+    private boolean isEmbedded(Connection connection)
+    {
+        try
+        {
+            String url = connection.getMetaData().getURL();
+
+            return (url != null) && !url.startsWith("jdbc:h2:tcp:") && !url.startsWith("jdbc:h2:ssl:");
+        }
+        catch (SQLException ex)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Inserts the given beans by writing them to a temporary CSV file and importing this file.
+     * 
+     * @param connection The connection
+     * @param table      The table
+     * @param properties The properties to insert
+     * @param beans      The beans
+     */
+    private void importFromCsvFile(Connection connection, Table table, SqlDynaProperty[] properties, List beans) throws DatabaseOperationException
+    {
+        Column[]  columns   = new Column[properties.length];
+        File      file      = null;
+        Statement statement = null;
+
+        for (int idx = 0; idx < properties.length; idx++)
+        {
+            columns[idx] = properties[idx].getColumn();
+        }
+        try
+        {
+            file = writeCsvFile(beans, properties);
+
+            String sql = ((H2Builder)getSqlBuilder()).getCsvImportSql(table, columns, file.getAbsolutePath());
+
+            if (getLog().isDebugEnabled())
+            {
+                getLog().debug("Importing " + beans.size() + " rows via SQL: " + sql);
+            }
+            statement = connection.createStatement();
+            beforeInsert(connection, table);
+
+            int count = statement.executeUpdate(sql);
+
+            afterInsert(connection, table);
+            if (count != beans.size())
+            {
+                getLog().warn("Attempted to insert " + beans.size() + " rows into table " + table.getName() + " but changed " + count + " rows");
+            }
+        }
+        catch (IOException ex)
+        {
+            throw new DatabaseOperationException("Could not write the data to a temporary file", ex);
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while inserting into the database: " + ex.getMessage(), ex);
+        }
+        finally
+        {
+            closeStatement(statement);
+            if (file != null)
+            {
+                file.delete();
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
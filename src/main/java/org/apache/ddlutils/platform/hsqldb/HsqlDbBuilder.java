@@ -24,6 +24,7 @@ import java.io.IOException;
 import org.apache.ddlutils.Platform;
 import org.apache.ddlutils.alteration.ColumnDefinitionChange;
 import org.apache.ddlutils.model.Column;
+import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.model.ModelException;
 import org.apache.ddlutils.model.Table;
 import org.apache.ddlutils.model.TypeMap;
@@ -188,4 +189,25 @@ public class HsqlDbBuilder extends SqlBuilder
             super.writeCastExpression(sourceColumn, targetColumn);
         }
     }
+
+    /**
+     * {@inheritDoc}
+     * Note that HsqlDb only allows to switch off the referential integrity checks for the
+     * whole database, and that it does not re-validate the existing rows when they are
+     * switched on again.
+     */
+    public void disableConstraintsForBulkLoad(Database database) throws IOException
+    {
+        print("SET REFERENTIAL_INTEGRITY FALSE");
+        printEndOfStatement();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void enableConstraintsAfterBulkLoad(Database database) throws IOException
+    {
+        print("SET REFERENTIAL_INTEGRITY TRUE");
+        printEndOfStatement();
+    }
 }
@@ -21,10 +21,12 @@ package org.apache.ddlutils.platform.hsqldb;
 
 import java.io.IOException;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
 
+import org.apache.ddlutils.DatabaseOperationException;
 import org.apache.ddlutils.DdlUtilsException;
 import org.apache.ddlutils.PlatformInfo;
 import org.apache.ddlutils.alteration.AddColumnChange;
@@ -53,6 +55,11 @@ public class HsqlDbPlatform extends PlatformImplBase
     /** The subprotocol used by the standard Hsqldb driver. */
     public static final String JDBC_SUBPROTOCOL = "hsqldb";
 
+    /** The number of bulk loads that are currently running. */
+    private int _activeBulkLoads = 0;
+    /** Whether the transaction log was switched off for the running bulk loads and needs to be switched back on. */
+    private boolean _logSwitchedOff = false;
+
     /**
      * Creates a new instance of the Hsqldb platform.
      */
@@ -66,6 +73,8 @@ public class HsqlDbPlatform extends PlatformImplBase
         info.setSystemForeignKeyIndicesAlwaysNonUnique(true);
         info.setPrimaryKeyColumnAutomaticallyRequired(true);
         info.setMixingIdentityAndNormalPrimaryKeyColumnsSupported(false);
+        info.setConstraintDisablingSupported(true);
+        info.setBatchCommandsCommittedIndividually(true);
 
         info.addNativeTypeMapping(Types.ARRAY,       "LONGVARBINARY", Types.LONGVARBINARY);
         info.addNativeTypeMapping(Types.BIT,         "BOOLEAN",       Types.BOOLEAN);
@@ -90,6 +99,108 @@ public class HsqlDbPlatform extends PlatformImplBase
         setModelReader(new HsqlDbModelReader(this));
     }
 
+    /**
+     * {@inheritDoc}
+     * In addition to switching off the referential integrity, this switches off the transaction
+     * log of the database files for the duration of the load, if it is on. Since only HSQLDB 2.0
+     * and newer support this, the log is left alone if its setting cannot be determined.
+     */
+    public void beforeBulkLoad(Connection connection, Database model) throws DatabaseOperationException
+    {
+        super.beforeBulkLoad(connection, model);
+        synchronized (this)
+        {
+            if ((_activeBulkLoads == 0) && isLogOn(connection))
+            {
+                executeIgnoringErrors(connection, "SET FILES LOG FALSE");
+                _logSwitchedOff = true;
+            }
+            _activeBulkLoads++;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * This also switches the transaction log of the database files back on once the last running
+     * bulk load has finished, if it was switched off by {@link #beforeBulkLoad(Connection, Database)}.
+     * Then a checkpoint is performed so that the loaded data is written to the database files.
+     */
+    public void afterBulkLoad(Connection connection, Database model) throws DatabaseOperationException
+    {
+        try
+        {
+            super.afterBulkLoad(connection, model);
+        }
+        finally
+        {
+            synchronized (this)
+            {
+                _activeBulkLoads = Math.max(0, _activeBulkLoads - 1);
+                if ((_activeBulkLoads == 0) && _logSwitchedOff)
+                {
+                    executeIgnoringErrors(connection, "SET FILES LOG TRUE");
+                    _logSwitchedOff = false;
+                }
+            }
+            executeIgnoringErrors(connection, "CHECKPOINT");
+        }
+    }
+
+    /**
+     * Determines whether the transaction log of the database files is switched on.
+     * 
+     * @param connection The connection
+     * @return <code>true</code> if the log is on, <code>false</code> if it is off or if
+     *         the setting could not be determined
+     */
+    private boolean isLogOn(Connection connection)
+    {
+        Statement statement = null;
+
+        try
+        {
+            statement = connection.createStatement();
+
+            ResultSet resultSet = statement.executeQuery("SELECT PROPERTY_VALUE FROM INFORMATION_SCHEMA.SYSTEM_PROPERTIES WHERE PROPERTY_NAME = 'hsqldb.log_data'");
+            return resultSet.next() && "true".equalsIgnoreCase(resultSet.getString(1));
+        }
+        catch (SQLException ex)
+        {
+            getLog().debug("Could not determine whether the transaction log is on: " + ex.getMessage());
+            return false;
+        }
+        finally
+        {
+            // this also closes the result set
+            closeStatement(statement);
+        }
+    }
+
+    /**
+     * Executes the given statement. Errors are logged but otherwise ignored.
+     * 
+     * @param connection The connection
+     * @param sql        The statement
+     */
+    private void executeIgnoringErrors(Connection connection, String sql)
+    {
+        Statement statement = null;
+
+        try
+        {
+            statement = connection.createStatement();
+            statement.execute(sql);
+        }
+        catch (SQLException ex)
+        {
+            getLog().debug("Could not execute statement " + sql + ": " + ex.getMessage());
+        }
+        finally
+        {
+            closeStatement(statement);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -438,6 +438,7 @@ public class InterbaseModelReader extends JdbcModelReader
             DatabaseMetaDataWrapper metaData = new DatabaseMetaDataWrapper();
 
             metaData.setMetaData(connection.getMetaData());
+            metaData.setMetricsCollector(getPlatform().getMetricsCollector());
             metaData.setCatalog(getDefaultCatalogPattern());
             metaData.setSchemaPattern(schemaPattern == null ? getDefaultSchemaPattern() : schemaPattern);
             metaData.setTableTypes(getDefaultTableTypes());
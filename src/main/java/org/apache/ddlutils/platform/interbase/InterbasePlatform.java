@@ -73,6 +73,8 @@ public class InterbasePlatform extends PlatformImplBase
         info.setCommentSuffix("*/");
         info.setSystemForeignKeyIndicesAlwaysNonUnique(true);
         info.setPrimaryKeyColumnsHaveToBeRequired(true);
+        // DDL only becomes visible after a commit, so each command has to be executed on its own
+        info.setStatementBatchingSupported(false);
 
         // BINARY and VARBINARY are also handled by the InterbaseBuilder.getSqlType method
         info.addNativeTypeMapping(Types.ARRAY,         "BLOB",               Types.LONGVARBINARY);
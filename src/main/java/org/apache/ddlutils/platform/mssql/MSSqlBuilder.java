@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.sql.Types;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
@@ -218,6 +219,14 @@ public class MSSqlBuilder extends SqlBuilder
         printEndOfStatement();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected void writeOnlineIndexCreationSuffix(Table table, Index index) throws IOException
+    {
+        print(" WITH (ONLINE = ON)");
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -253,6 +262,27 @@ public class MSSqlBuilder extends SqlBuilder
         }
     }
 
+    /**
+     * Returns the name of the given table in the form expected by the bulk copy API of the
+     * Sql Server JDBC driver, i.e. enclosed in brackets if delimited identifiers are used.
+     * 
+     * @param table The table
+     * @return The table name
+     */
+    public String getBulkCopyTableName(Table table)
+    {
+        String tableName = getTableName(table);
+
+        if (getPlatform().isDelimitedIdentifierModeOn())
+        {
+            return "[" + StringUtils.replace(tableName, "]", "]]") + "]";
+        }
+        else
+        {
+            return tableName;
+        }
+    }
+
     /**
      * If quotation mode is on, then this writes the statement that turns on the ability to write delimited identifiers.
      */
@@ -323,6 +353,22 @@ public class MSSqlBuilder extends SqlBuilder
         return getQuotationOnStatement() + super.getInsertSql(table, columnValues, genPlaceholders);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public String getMultiRowInsertSql(Table table, Column[] columns, int numRows)
+    {
+        return getQuotationOnStatement() + super.getMultiRowInsertSql(table, columns, numRows);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getMultiRowInsertSql(Table table, Column[] columns, List rows)
+    {
+        return getQuotationOnStatement() + super.getMultiRowInsertSql(table, columns, rows);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -554,4 +600,44 @@ public class MSSqlBuilder extends SqlBuilder
             printIdentifier(getColumnName(sourceColumn));
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void disableConstraintsForBulkLoad(Database database) throws IOException
+    {
+        for (int idx = 0; idx < database.getTableCount(); idx++)
+        {
+            Table table = database.getTable(idx);
+
+            if (table.getForeignKeyCount() > 0)
+            {
+                print(getQuotationOnStatement());
+                writeTableAlterStmt(table);
+                print("NOCHECK CONSTRAINT ALL");
+                printEndOfStatement();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Sql Server will validate the existing rows when re-enabling the constraints so that they
+     * remain trusted by the query optimizer.
+     */
+    public void enableConstraintsAfterBulkLoad(Database database) throws IOException
+    {
+        for (int idx = 0; idx < database.getTableCount(); idx++)
+        {
+            Table table = database.getTable(idx);
+
+            if (table.getForeignKeyCount() > 0)
+            {
+                print(getQuotationOnStatement());
+                writeTableAlterStmt(table);
+                print("WITH CHECK CHECK CONSTRAINT ALL");
+                printEndOfStatement();
+            }
+        }
+    }
 }
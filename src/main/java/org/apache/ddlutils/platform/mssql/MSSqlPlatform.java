@@ -20,12 +20,27 @@ package org.apache.ddlutils.platform.mssql;
  */
 
 import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
 
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.commons.dbcp.DelegatingConnection;
 import org.apache.commons.lang.StringUtils;
+import org.apache.ddlutils.DatabaseOperationException;
 import org.apache.ddlutils.DdlUtilsException;
 import org.apache.ddlutils.PlatformInfo;
 import org.apache.ddlutils.alteration.AddColumnChange;
@@ -37,6 +52,9 @@ import org.apache.ddlutils.alteration.RemoveColumnChange;
 import org.apache.ddlutils.alteration.RemovePrimaryKeyChange;
 import org.apache.ddlutils.alteration.TableChange;
 import org.apache.ddlutils.alteration.TableDefinitionChangesPredicate;
+import org.apache.ddlutils.dynabean.SqlDynaClass;
+import org.apache.ddlutils.dynabean.SqlDynaProperty;
+import org.apache.ddlutils.io.BinaryObjectsHelper;
 import org.apache.ddlutils.model.CascadeActionEnum;
 import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
@@ -65,6 +83,21 @@ public class MSSqlPlatform extends PlatformImplBase
     /** The subprotocol internally returned by the newer SQL Server 2005 driver. */
     public static final String JDBC_SUBPROTOCOL_INTERNAL = "sqljdbc";
 
+    /** The bulk copy class of the newer SQL Server JDBC driver. */
+    private static final String BULK_COPY_CLASS         = "com.microsoft.sqlserver.jdbc.SQLServerBulkCopy";
+    /** The bulk copy options class of the newer SQL Server JDBC driver. */
+    private static final String BULK_COPY_OPTIONS_CLASS = "com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions";
+    /** The interfaces for the source data of a bulk copy, the newer one first. */
+    private static final String[] BULK_DATA_INTERFACES  = { "com.microsoft.sqlserver.jdbc.ISQLServerBulkData",
+                                                            "com.microsoft.sqlserver.jdbc.ISQLServerBulkRecord" };
+
+    /** Whether native bulk inserts use the bulk copy API of the JDBC driver if available. */
+    private boolean _bulkCopyUsed = false;
+    /** Whether we already warned that the bulk copy API is not available. */
+    private boolean _bulkCopyWarningPrinted = false;
+    /** The connections in a bulk load, mapped to the table whose identity override is currently on. */
+    private Map _identityOverrideTables = Collections.synchronizedMap(new WeakHashMap());
+
     /**
      * Creates a new platform instance.
      */
@@ -76,10 +109,20 @@ public class MSSqlPlatform extends PlatformImplBase
         info.setPrimaryKeyColumnAutomaticallyRequired(true);
         info.setIdentityColumnAutomaticallyRequired(true);
         info.setMultipleIdentityColumnsSupported(false);
+        // note that online index creation requires the Enterprise edition
+        info.setOnlineIndexCreationSupported(true);
+        info.setConstraintDisablingSupported(true);
+        // note that multi-row inserts require Sql Server 2008 or newer
+        info.setMultiRowInsertSupported(true);
+        info.setMaxRowsPerMultiRowInsert(1000);
+        info.setMaxParametersPerStatement(2099);
         info.setSupportedOnUpdateActions(new CascadeActionEnum[] { CascadeActionEnum.CASCADE, CascadeActionEnum.NONE });
         info.addEquivalentOnUpdateActions(CascadeActionEnum.NONE, CascadeActionEnum.RESTRICT);
         info.setSupportedOnDeleteActions(new CascadeActionEnum[] { CascadeActionEnum.CASCADE, CascadeActionEnum.NONE });
         info.addEquivalentOnDeleteActions(CascadeActionEnum.NONE, CascadeActionEnum.RESTRICT);
+        // the driver sends a statement batch as one T-SQL batch, but some commands (e.g. CREATE TRIGGER)
+        // have to be the first command in a T-SQL batch
+        info.setStatementBatchingSupported(false);
 
         info.addNativeTypeMapping(Types.ARRAY,         "IMAGE",         Types.LONGVARBINARY);
         // BIGINT will be mapped back to BIGINT by the model reader 
@@ -120,15 +163,41 @@ public class MSSqlPlatform extends PlatformImplBase
         return DATABASENAME;
     }
 
+    /**
+     * Determines whether native bulk inserts (see {@link #isNativeBulkInsertOn()}) use the bulk
+     * copy API of the Sql Server JDBC driver if it is available. Per default, this is <code>false</code>.
+     * 
+     * @return <code>true</code> if the bulk copy API is used
+     */
+    public boolean isBulkCopyUsed()
+    {
+        return _bulkCopyUsed;
+    }
+
+    /**
+     * Specifies whether native bulk inserts (see {@link #isNativeBulkInsertOn()}) shall use the
+     * bulk copy API of the Sql Server JDBC driver (version 4.2 or newer). If the connection does
+     * not provide it, then multi-row inserts are used instead. Note that the bulk copy API cannot
+     * return the identity values generated by the database, so rows for tables with identity
+     * columns are only copied if the identity override is on (see {@link #isIdentityOverrideOn(Connection)}).
+     * 
+     * @param bulkCopyUsed <code>true</code> if the bulk copy API shall be used
+     */
+    public void setBulkCopyUsed(boolean bulkCopyUsed)
+    {
+        _bulkCopyUsed = bulkCopyUsed;
+    }
+
     /**
      * Determines whether we need to use identity override mode for the given table.
      * 
-     * @param table The table
+     * @param connection The connection
+     * @param table      The table
      * @return <code>true</code> if identity override mode is needed
      */
-    private boolean useIdentityOverrideFor(Table table)
+    private boolean useIdentityOverrideFor(Connection connection, Table table)
     {
-        return isIdentityOverrideOn() &&
+        return isIdentityOverrideOn(connection) &&
                getPlatformInfo().isIdentityOverrideAllowed() &&
                (table.getAutoIncrementColumns().length > 0);
     }
@@ -138,11 +207,28 @@ public class MSSqlPlatform extends PlatformImplBase
      */
     protected void beforeInsert(Connection connection, Table table) throws SQLException
     {
-        if (useIdentityOverrideFor(table))
+        if (useIdentityOverrideFor(connection, table))
         {
-            MSSqlBuilder builder = (MSSqlBuilder)getSqlBuilder();
-    
-            connection.createStatement().execute(builder.getEnableIdentityOverrideSql(table));
+            if (_identityOverrideTables.containsKey(connection))
+            {
+                // Sql Server allows the identity override only for one table per session, so
+                // during a bulk load we keep it on until the rows of another table need it
+                Table curTable = (Table)_identityOverrideTables.get(connection);
+
+                if (curTable != table)
+                {
+                    if (curTable != null)
+                    {
+                        switchIdentityOverride(connection, curTable, false);
+                    }
+                    switchIdentityOverride(connection, table, true);
+                    _identityOverrideTables.put(connection, table);
+                }
+            }
+            else
+            {
+                switchIdentityOverride(connection, table, true);
+            }
         }
     }
 
@@ -151,11 +237,31 @@ public class MSSqlPlatform extends PlatformImplBase
      */
     protected void afterInsert(Connection connection, Table table) throws SQLException
     {
-        if (useIdentityOverrideFor(table))
+        if (useIdentityOverrideFor(connection, table) && !_identityOverrideTables.containsKey(connection))
         {
-            MSSqlBuilder builder = (MSSqlBuilder)getSqlBuilder();
-    
-            connection.createStatement().execute(builder.getDisableIdentityOverrideSql(table));
+            switchIdentityOverride(connection, table, false);
+        }
+    }
+
+    /**
+     * Switches the identity override for the given table on or off.
+     * 
+     * @param connection The connection
+     * @param table      The table
+     * @param enable     Whether to switch the identity override on
+     */
+    private void switchIdentityOverride(Connection connection, Table table, boolean enable) throws SQLException
+    {
+        MSSqlBuilder builder = (MSSqlBuilder)getSqlBuilder();
+        Statement    stmt    = connection.createStatement();
+
+        try
+        {
+            stmt.execute(enable ? builder.getEnableIdentityOverrideSql(table) : builder.getDisableIdentityOverrideSql(table));
+        }
+        finally
+        {
+            closeStatement(stmt);
         }
     }
 
@@ -175,6 +281,223 @@ public class MSSqlPlatform extends PlatformImplBase
         afterInsert(connection, table);
     }
 
+    /**
+     * {@inheritDoc}
+     * In addition, the identity override is switched on only once per table for inserts
+     * via the given connection until {@link #afterBulkLoad(Connection, Database)} is called.
+     */
+    public void beforeBulkLoad(Connection connection, Database model) throws DatabaseOperationException
+    {
+        super.beforeBulkLoad(connection, model);
+        _identityOverrideTables.put(connection, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void afterBulkLoad(Connection connection, Database model) throws DatabaseOperationException
+    {
+        Table curTable = (Table)_identityOverrideTables.remove(connection);
+
+        try
+        {
+            if (curTable != null)
+            {
+                switchIdentityOverride(connection, curTable, false);
+            }
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while switching off the identity override for table " + curTable.getName(), ex);
+        }
+        finally
+        {
+            super.afterBulkLoad(connection, model);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * If enabled (see {@link #isBulkCopyUsed()}) and supported by the JDBC driver, then the beans
+     * are inserted via the bulk copy API of the driver, otherwise multi-row <code>INSERT</code>
+     * statements are used.
+     */
+    protected void bulkInsert(Connection connection, Database model, SqlDynaClass dynaClass, List beans) throws DatabaseOperationException
+    {
+        if (isBulkCopyUsed())
+        {
+            DynaBean          firstBean       = (DynaBean)beans.get(0);
+            SqlDynaProperty[] properties      = getPropertiesForInsertion(connection, model, dynaClass, firstBean);
+            Column[]          autoIncrColumns = getRelevantIdentityColumns(connection, model, dynaClass, firstBean);
+
+            // the bulk copy cannot return the identity values generated by the database
+            if ((properties.length > 0) && (autoIncrColumns.length == 0))
+            {
+                Object bulkCopy = createBulkCopy(connection);
+
+                if (bulkCopy != null)
+                {
+                    bulkCopyIntoTable(connection, bulkCopy, dynaClass.getTable(), properties, beans);
+                    return;
+                }
+            }
+        }
+        super.bulkInsert(connection, model, dynaClass, beans);
+    }
+
+    /**
+     * Creates a bulk copy object of the Sql Server JDBC driver for the given connection. Since the
+     * driver is not required for compiling DdlUtils, the bulk copy API is accessed via reflection.
+     * 
+     * @param connection The connection
+     * @return The bulk copy object or <code>null</code> if the connection does not support it
+     */
+    private Object createBulkCopy(Connection connection)
+    {
+        Connection sqlServerConnection = connection;
+
+        // connections from a commons-dbcp pool can only be unwrapped if the
+        // pool allows access to the underlying connections
+        if (sqlServerConnection instanceof DelegatingConnection)
+        {
+            Connection innermostConnection = ((DelegatingConnection)sqlServerConnection).getInnermostDelegate();
+
+            if (innermostConnection != null)
+            {
+                sqlServerConnection = innermostConnection;
+            }
+        }
+        try
+        {
+            Class bulkCopyClass = loadDriverClass(BULK_COPY_CLASS, sqlServerConnection.getClass().getClassLoader());
+
+            return bulkCopyClass.getConstructor(new Class[] { Connection.class }).newInstance(new Object[] { sqlServerConnection });
+        }
+        catch (Exception ex)
+        {
+            getLog().debug("Could not access the bulk copy API of the Sql Server JDBC driver", ex);
+        }
+        if (!_bulkCopyWarningPrinted)
+        {
+            getLog().warn("The connection does not support bulk copies, using multi-row inserts instead");
+            _bulkCopyWarningPrinted = true;
+        }
+        return null;
+    }
+
+    /**
+     * Loads the given class of the Sql Server JDBC driver.
+     * 
+     * @param className   The name of the class
+     * @param classLoader The class loader of the driver
+     * @return The class
+     */
+    protected Class loadDriverClass(String className, ClassLoader classLoader) throws ClassNotFoundException
+    {
+        return Class.forName(className, true, classLoader);
+    }
+
+    /**
+     * Inserts the given beans which all belong to the same table, via the given bulk copy object.
+     * The bulk copy object is closed afterwards.
+     * 
+     * @param connection The connection that the bulk copy object uses
+     * @param bulkCopy   The bulk copy object of the Sql Server JDBC driver
+     * @param table      The table
+     * @param properties The properties to insert
+     * @param beans      The beans
+     */
+    private void bulkCopyIntoTable(Connection connection, Object bulkCopy, Table table, SqlDynaProperty[] properties, List beans) throws DatabaseOperationException
+    {
+        ClassLoader classLoader   = bulkCopy.getClass().getClassLoader();
+        Class       bulkCopyClass = bulkCopy.getClass();
+
+        if (getLog().isDebugEnabled())
+        {
+            getLog().debug("Copying " + beans.size() + " rows into table " + table.getName() + " via the bulk copy API");
+        }
+        try
+        {
+            Class  optionsClass = loadDriverClass(BULK_COPY_OPTIONS_CLASS, classLoader);
+            Object options      = optionsClass.newInstance();
+
+            // the bulk copy itself takes care of the identity override
+            optionsClass.getMethod("setKeepIdentity", new Class[] { Boolean.TYPE }).invoke(options, new Object[] { Boolean.valueOf(useIdentityOverrideFor(connection, table)) });
+            optionsClass.getMethod("setKeepNulls", new Class[] { Boolean.TYPE }).invoke(options, new Object[] { Boolean.TRUE });
+            optionsClass.getMethod("setFireTriggers", new Class[] { Boolean.TYPE }).invoke(options, new Object[] { Boolean.TRUE });
+            bulkCopyClass.getMethod("setBulkCopyOptions", new Class[] { optionsClass }).invoke(bulkCopy, new Object[] { options });
+            bulkCopyClass.getMethod("setDestinationTableName", new Class[] { String.class }).invoke(bulkCopy, new Object[] { ((MSSqlBuilder)getSqlBuilder()).getBulkCopyTableName(table) });
+
+            Method addColumnMappingMethod = bulkCopyClass.getMethod("addColumnMapping", new Class[] { Integer.TYPE, String.class });
+
+            for (int idx = 0; idx < properties.length; idx++)
+            {
+                addColumnMappingMethod.invoke(bulkCopy, new Object[] { new Integer(idx + 1), properties[idx].getColumn().getName() });
+            }
+
+            Method writeMethod = null;
+            Class  dataClass   = null;
+
+            for (int idx = 0; (writeMethod == null) && (idx < BULK_DATA_INTERFACES.length); idx++)
+            {
+                try
+                {
+                    dataClass   = loadDriverClass(BULK_DATA_INTERFACES[idx], classLoader);
+                    writeMethod = bulkCopyClass.getMethod("writeToServer", new Class[] { dataClass });
+                }
+                catch (ClassNotFoundException ex)
+                {
+                    // we'll try the next one
+                }
+                catch (NoSuchMethodException ex)
+                {
+                    // we'll try the next one
+                }
+            }
+            if (writeMethod == null)
+            {
+                throw new DatabaseOperationException("The bulk copy API of the Sql Server JDBC driver is not supported");
+            }
+
+            Object data = Proxy.newProxyInstance(classLoader,
+                                                 new Class[] { dataClass },
+                                                 new BulkCopyData(beans.iterator(), properties));
+
+            writeMethod.invoke(bulkCopy, new Object[] { data });
+        }
+        catch (InvocationTargetException ex)
+        {
+            throw new DatabaseOperationException("Error while copying into the database: " + ex.getTargetException().getMessage(), ex.getTargetException());
+        }
+        catch (ClassNotFoundException ex)
+        {
+            throw new DatabaseOperationException("The bulk copy API of the Sql Server JDBC driver is not supported", ex);
+        }
+        catch (NoSuchMethodException ex)
+        {
+            throw new DatabaseOperationException("The bulk copy API of the Sql Server JDBC driver is not supported", ex);
+        }
+        catch (InstantiationException ex)
+        {
+            throw new DatabaseOperationException("The bulk copy API of the Sql Server JDBC driver is not supported", ex);
+        }
+        catch (IllegalAccessException ex)
+        {
+            throw new DatabaseOperationException("The bulk copy API of the Sql Server JDBC driver is not supported", ex);
+        }
+        finally
+        {
+            try
+            {
+                bulkCopyClass.getMethod("close", new Class[0]).invoke(bulkCopy, new Object[0]);
+            }
+            catch (Exception ex)
+            {
+                getLog().debug("Could not close the bulk copy object", ex);
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -321,4 +644,153 @@ public class MSSqlPlatform extends PlatformImplBase
         getSqlBuilder().createPrimaryKey(changedTable, newPKColumns);
         change.apply(currentModel, isDelimitedIdentifierModeOn());
     }
+
+    /**
+     * Provides the beans as the source data of a bulk copy of the Sql Server JDBC driver. This
+     * handler implements the methods of the driver's bulk data interface that are used by the
+     * bulk copy, and returns default values for all other methods.
+     */
+    private static class BulkCopyData implements InvocationHandler
+    {
+        /** The iterator over the beans. */
+        private Iterator _beanIt;
+        /** The properties to write. */
+        private SqlDynaProperty[] _properties;
+        /** The current bean. */
+        private DynaBean _curBean;
+
+        /**
+         * Creates a new handler.
+         * 
+         * @param beanIt     The iterator over the beans
+         * @param properties The properties to write
+         */
+        public BulkCopyData(Iterator beanIt, SqlDynaProperty[] properties)
+        {
+            _beanIt     = beanIt;
+            _properties = properties;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            String name = method.getName();
+
+            if ("next".equals(name))
+            {
+                _curBean = _beanIt.hasNext() ? (DynaBean)_beanIt.next() : null;
+                return Boolean.valueOf(_curBean != null);
+            }
+            else if ("getRowData".equals(name))
+            {
+                return getRowData();
+            }
+            else if ("getColumnOrdinals".equals(name))
+            {
+                Set result = new TreeSet();
+
+                for (int idx = 0; idx < _properties.length; idx++)
+                {
+                    result.add(new Integer(idx + 1));
+                }
+                return result;
+            }
+            else if (name.startsWith("get") && (args != null) && (args.length == 1) && (args[0] instanceof Integer))
+            {
+                Column column = _properties[((Integer)args[0]).intValue() - 1].getColumn();
+
+                if ("getColumnName".equals(name))
+                {
+                    return column.getName();
+                }
+                else if ("getColumnType".equals(name))
+                {
+                    return new Integer(column.getTypeCode());
+                }
+                else if ("getPrecision".equals(name))
+                {
+                    return new Integer(column.getSizeAsInt());
+                }
+                else if ("getScale".equals(name))
+                {
+                    return new Integer(column.getScale());
+                }
+            }
+            else if ("isAutoIncrement".equals(name) && (args != null) && (args.length == 1))
+            {
+                return Boolean.valueOf(_properties[((Integer)args[0]).intValue() - 1].getColumn().isAutoIncrement());
+            }
+            else if ("hashCode".equals(name) && (args == null))
+            {
+                return new Integer(System.identityHashCode(proxy));
+            }
+            else if ("equals".equals(name) && (args != null) && (args.length == 1))
+            {
+                return Boolean.valueOf(proxy == args[0]);
+            }
+            else if ("toString".equals(name) && (args == null))
+            {
+                return "Bulk copy data for " + _properties.length + " columns";
+            }
+            return getDefaultValue(method.getReturnType());
+        }
+
+        /**
+         * Returns the values of the current bean.
+         * 
+         * @return The values
+         */
+        private Object[] getRowData()
+        {
+            Object[] result = new Object[_properties.length];
+
+            for (int idx = 0; idx < _properties.length; idx++)
+            {
+                Object value = _curBean.get(_properties[idx].getName());
+
+                switch (_properties[idx].getColumn().getTypeCode())
+                {
+                    case Types.BINARY:
+                    case Types.VARBINARY:
+                    case Types.LONGVARBINARY:
+                    case Types.BLOB:
+                        if ((value != null) && !(value instanceof byte[]))
+                        {
+                            value = new BinaryObjectsHelper().serialize(value);
+                        }
+                        break;
+                }
+                result[idx] = value;
+            }
+            return result;
+        }
+
+        /**
+         * Returns the default value for the given return type.
+         * 
+         * @param type The return type
+         * @return The default value
+         */
+        private Object getDefaultValue(Class type)
+        {
+            if (type == Boolean.TYPE)
+            {
+                return Boolean.FALSE;
+            }
+            else if (type == Integer.TYPE)
+            {
+                return new Integer(0);
+            }
+            else if (type == Long.TYPE)
+            {
+                return new Long(0);
+            }
+            else
+            {
+                return null;
+            }
+        }
+    }
 }
@@ -27,6 +27,7 @@ import java.util.Map;
 import org.apache.ddlutils.Platform;
 import org.apache.ddlutils.alteration.ColumnDefinitionChange;
 import org.apache.ddlutils.model.Column;
+import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.model.ForeignKey;
 import org.apache.ddlutils.model.Table;
 import org.apache.ddlutils.model.TypeMap;
@@ -298,4 +299,92 @@ public class MySqlBuilder extends SqlBuilder
             printIdentifier(getColumnName(sourceColumn));
         }
     }
+
+    /**
+     * Returns the statement for loading rows into the table via <code>LOAD DATA LOCAL INFILE</code>.
+     * The rows are expected in MySql's default format, i.e. as tab-separated lines with backslash
+     * escapes and <code>\N</code> for <code>NULL</code>, using UTF-8 encoding. The values of binary
+     * columns are expected in hexadecimal form.
+     * 
+     * @param table   The table
+     * @param columns The columns for which the rows contain values
+     * @return The SQL
+     */
+    public String getLoadDataLocalInfileSql(Table table, Column[] columns)
+    {
+        StringBuffer buffer    = new StringBuffer("LOAD DATA LOCAL INFILE 'ddlutils.txt' INTO TABLE ");
+        StringBuffer setClause = new StringBuffer();
+
+        buffer.append(getDelimitedIdentifier(getTableName(table)));
+        buffer.append(" CHARACTER SET utf8 (");
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (idx > 0)
+            {
+                buffer.append(", ");
+            }
+            if (TypeMap.isBinaryType(columns[idx].getTypeCode()))
+            {
+                // binary data is given in hexadecimal form
+                buffer.append("@col");
+                buffer.append(idx);
+                setClause.append(setClause.length() == 0 ? " SET " : ", ");
+                setClause.append(getDelimitedIdentifier(columns[idx].getName()));
+                setClause.append(" = UNHEX(@col");
+                setClause.append(idx);
+                setClause.append(")");
+            }
+            else
+            {
+                buffer.append(getDelimitedIdentifier(columns[idx].getName()));
+            }
+        }
+        buffer.append(")");
+        buffer.append(setClause);
+        return buffer.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     * For MySql, the foreign key checks are switched off for the session, and the maintenance of
+     * the non-unique indices is deferred for tables that have such indices.
+     */
+    public void disableConstraintsForBulkLoad(Database database) throws IOException
+    {
+        print("SET FOREIGN_KEY_CHECKS=0");
+        printEndOfStatement();
+        for (int idx = 0; idx < database.getTableCount(); idx++)
+        {
+            Table table = database.getTable(idx);
+
+            if (table.getNonUniqueIndices().length > 0)
+            {
+                writeTableAlterStmt(table);
+                print("DISABLE KEYS");
+                printEndOfStatement();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Note that MySql does not re-validate the rows that were inserted while the foreign key
+     * checks were switched off.
+     */
+    public void enableConstraintsAfterBulkLoad(Database database) throws IOException
+    {
+        for (int idx = 0; idx < database.getTableCount(); idx++)
+        {
+            Table table = database.getTable(idx);
+
+            if (table.getNonUniqueIndices().length > 0)
+            {
+                writeTableAlterStmt(table);
+                print("ENABLE KEYS");
+                printEndOfStatement();
+            }
+        }
+        print("SET FOREIGN_KEY_CHECKS=1");
+        printEndOfStatement();
+    }
 }
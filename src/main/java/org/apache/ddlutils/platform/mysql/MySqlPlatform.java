@@ -19,9 +19,26 @@ package org.apache.ddlutils.platform.mysql;
  * under the License.
  */
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
 import java.sql.Types;
+import java.util.Iterator;
+import java.util.List;
 
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.dbcp.DelegatingStatement;
+import org.apache.ddlutils.DatabaseOperationException;
 import org.apache.ddlutils.PlatformInfo;
 import org.apache.ddlutils.alteration.AddColumnChange;
 import org.apache.ddlutils.alteration.AddPrimaryKeyChange;
@@ -32,10 +49,14 @@ import org.apache.ddlutils.alteration.RemoveColumnChange;
 import org.apache.ddlutils.alteration.RemovePrimaryKeyChange;
 import org.apache.ddlutils.alteration.TableChange;
 import org.apache.ddlutils.alteration.TableDefinitionChangesPredicate;
+import org.apache.ddlutils.dynabean.SqlDynaClass;
+import org.apache.ddlutils.dynabean.SqlDynaProperty;
+import org.apache.ddlutils.io.BinaryObjectsHelper;
 import org.apache.ddlutils.model.CascadeActionEnum;
 import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.model.Table;
+import org.apache.ddlutils.model.TypeMap;
 import org.apache.ddlutils.platform.CreationParameters;
 import org.apache.ddlutils.platform.DefaultTableDefinitionChangesPredicate;
 import org.apache.ddlutils.platform.PlatformImplBase;
@@ -55,6 +76,13 @@ public class MySqlPlatform extends PlatformImplBase
     public static final String JDBC_DRIVER_OLD  = "org.gjt.mm.mysql.Driver";
     /** The subprotocol used by the standard MySQL driver. */
     public static final String JDBC_SUBPROTOCOL = "mysql";
+    /** The default maximum packet size of the MySql server. */
+    private static final long DEFAULT_MAX_ALLOWED_PACKET = 1024 * 1024;
+
+    /** Whether native bulk inserts use LOAD DATA LOCAL INFILE. */
+    private boolean _loadDataLocalInfileUsed = false;
+    /** Whether the warning that LOAD DATA LOCAL INFILE is not available has already been printed. */
+    private boolean _loadDataWarningPrinted = false;
 
     /**
      * Creates a new platform instance.
@@ -73,6 +101,12 @@ public class MySqlPlatform extends PlatformImplBase
         // MySql returns synthetic default values for pk columns
         info.setSyntheticDefaultValueForRequiredReturned(true);
         info.setPrimaryKeyColumnAutomaticallyRequired(true);
+        info.setConstraintDisablingSupported(true);
+        // the foreign key checks are switched off via a session variable
+        info.setBulkLoadStateSessionScoped(true);
+        info.setBatchIdentityValuesReadable(true);
+        info.setMultiRowInsertSupported(true);
+        info.setMaxParametersPerStatement(65535);
         info.setCommentPrefix("#");
         // Double quotes are only allowed for delimiting identifiers if the server SQL mode includes ANSI_QUOTES 
         info.setDelimiterToken("`");
@@ -116,6 +150,33 @@ public class MySqlPlatform extends PlatformImplBase
         setModelReader(new MySqlModelReader(this));
     }
 
+    /**
+     * Determines whether native bulk inserts (see {@link #isNativeBulkInsertOn()}) stream the rows
+     * to the database via <code>LOAD DATA LOCAL INFILE</code> instead of using multi-row
+     * <code>INSERT</code> statements. Per default, this is <code>false</code>.
+     * 
+     * @return <code>true</code> if <code>LOAD DATA LOCAL INFILE</code> is used
+     */
+    public boolean isLoadDataLocalInfileUsed()
+    {
+        return _loadDataLocalInfileUsed;
+    }
+
+    /**
+     * Specifies whether native bulk inserts (see {@link #isNativeBulkInsertOn()}) shall stream the rows
+     * to the database via <code>LOAD DATA LOCAL INFILE</code> instead of using multi-row
+     * <code>INSERT</code> statements. This requires a JDBC driver that supports reading the file
+     * contents from a stream (Connector/J 5.1.3 or newer), and that local infiles are allowed for
+     * the connection (<code>allowLoadLocalInfile=true</code>) and by the server.
+     * 
+     * @param loadDataLocalInfileUsed <code>true</code> if <code>LOAD DATA LOCAL INFILE</code>
+     *                                shall be used
+     */
+    public void setLoadDataLocalInfileUsed(boolean loadDataLocalInfileUsed)
+    {
+        _loadDataLocalInfileUsed = loadDataLocalInfileUsed;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -269,4 +330,253 @@ public class MySqlPlatform extends PlatformImplBase
         getSqlBuilder().createPrimaryKey(changedTable, newPKColumns);
         change.apply(currentModel, isDelimitedIdentifierModeOn());
     }
+
+    /**
+     * {@inheritDoc}
+     * If configured, the beans are inserted via <code>LOAD DATA LOCAL INFILE</code>, otherwise via
+     * multi-row <code>INSERT</code> statements that are sized according to the maximum packet size
+     * of the server.
+     */
+    protected void bulkInsert(Connection connection, Database model, SqlDynaClass dynaClass, List beans) throws DatabaseOperationException
+    {
+        if (isLoadDataLocalInfileUsed())
+        {
+            DynaBean          firstBean       = (DynaBean)beans.get(0);
+            SqlDynaProperty[] properties      = getPropertiesForInsertion(connection, model, dynaClass, firstBean);
+            Column[]          autoIncrColumns = getRelevantIdentityColumns(connection, model, dynaClass, firstBean);
+
+            // identity values generated by the database cannot be read back after the load
+            if ((properties.length > 0) && (autoIncrColumns.length == 0))
+            {
+                Column[] columns = new Column[properties.length];
+
+                for (int idx = 0; idx < properties.length; idx++)
+                {
+                    columns[idx] = properties[idx].getColumn();
+                }
+                if (loadDataLocalInfile(connection, dynaClass.getTable(), columns, properties, beans))
+                {
+                    return;
+                }
+            }
+        }
+        super.bulkInsert(connection, model, dynaClass, beans);
+    }
+
+    /**
+     * {@inheritDoc}
+     * This implementation returns the maximum packet size of the server.
+     */
+    protected long getMaxMultiRowInsertSize(Connection connection)
+    {
+        return getMaxAllowedPacket(connection);
+    }
+
+    /**
+     * Determines the maximum size of a packet that the server accepts.
+     * 
+     * @param connection The connection
+     * @return The maximum packet size in bytes
+     */
+    private long getMaxAllowedPacket(Connection connection)
+    {
+        Statement statement = null;
+        ResultSet resultSet = null;
+
+        try
+        {
+            statement = connection.createStatement();
+            resultSet = statement.executeQuery("SELECT @@max_allowed_packet");
+            if (resultSet.next())
+            {
+                return resultSet.getLong(1);
+            }
+        }
+        catch (SQLException ex)
+        {
+            getLog().warn("Could not determine the maximum packet size of the server", ex);
+        }
+        finally
+        {
+            if (resultSet != null)
+            {
+                try
+                {
+                    resultSet.close();
+                }
+                catch (SQLException ex)
+                {
+                    // we ignore this one
+                }
+            }
+            closeStatement(statement);
+        }
+        return DEFAULT_MAX_ALLOWED_PACKET;
+    }
+
+    /**
+     * Inserts the given beans via <code>LOAD DATA LOCAL INFILE</code>, reading the rows from
+     * an in-memory stream. Since the MySql JDBC driver is not required for compiling DdlUtils,
+     * the stream is handed to the driver via reflection.
+     * 
+     * @param connection The connection
+     * @param table      The table
+     * @param columns    The columns to insert
+     * @param properties The properties corresponding to the columns
+     * @param beans      The beans
+     * @return <code>false</code> if the JDBC driver does not support the stream
+     */
+    private boolean loadDataLocalInfile(Connection connection, Table table, Column[] columns, SqlDynaProperty[] properties, List beans) throws DatabaseOperationException
+    {
+        Statement statement = null;
+
+        try
+        {
+            statement = connection.createStatement();
+
+            Statement mysqlStatement = statement;
+
+            // statements from a commons-dbcp pool can only be unwrapped if the
+            // pool allows access to the underlying connections
+            if ((mysqlStatement instanceof DelegatingStatement) &&
+                (((DelegatingStatement)mysqlStatement).getInnermostDelegate() != null))
+            {
+                mysqlStatement = ((DelegatingStatement)mysqlStatement).getInnermostDelegate();
+            }
+
+            Method setStreamMethod = null;
+
+            try
+            {
+                setStreamMethod = mysqlStatement.getClass().getMethod("setLocalInfileInputStream", new Class[] { InputStream.class });
+            }
+            catch (NoSuchMethodException ex)
+            {
+                if (!_loadDataWarningPrinted)
+                {
+                    getLog().warn("The JDBC driver does not support LOAD DATA LOCAL INFILE from a stream, using multi-row inserts instead");
+                    _loadDataWarningPrinted = true;
+                }
+                return false;
+            }
+
+            StringBuffer data = new StringBuffer();
+
+            for (Iterator it = beans.iterator(); it.hasNext();)
+            {
+                DynaBean bean = (DynaBean)it.next();
+
+                for (int idx = 0; idx < properties.length; idx++)
+                {
+                    if (idx > 0)
+                    {
+                        data.append('\t');
+                    }
+                    appendLoadDataValue(data, columns[idx].getTypeCode(), bean.get(properties[idx].getName()));
+                }
+                data.append('\n');
+            }
+
+            String sql = ((MySqlBuilder)getSqlBuilder()).getLoadDataLocalInfileSql(table, columns);
+
+            if (getLog().isDebugEnabled())
+            {
+                getLog().debug("Loading " + beans.size() + " rows via SQL: " + sql);
+            }
+            setStreamMethod.invoke(mysqlStatement, new Object[] { new ByteArrayInputStream(data.toString().getBytes("UTF-8")) });
+            beforeInsert(connection, table);
+
+            int count = statement.executeUpdate(sql);
+
+            afterInsert(connection, table);
+            if (count != beans.size())
+            {
+                getLog().warn("Attempted to load " + beans.size() + " rows into table " + table.getName() + " but changed " + count + " rows");
+            }
+            return true;
+        }
+        catch (InvocationTargetException ex)
+        {
+            throw new DatabaseOperationException("Error while loading data into the database: " + ex.getTargetException().getMessage(), ex.getTargetException());
+        }
+        catch (IllegalAccessException ex)
+        {
+            throw new DatabaseOperationException("Could not hand the data to the JDBC driver", ex);
+        }
+        catch (UnsupportedEncodingException ex)
+        {
+            // won't happen as UTF-8 is always supported
+            throw new DatabaseOperationException(ex);
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while loading data into the database: " + ex.getMessage(), ex);
+        }
+        finally
+        {
+            closeStatement(statement);
+        }
+    }
+
+    /**
+     * Appends the value in the default format of <code>LOAD DATA INFILE</code> to the given buffer.
+     * Binary values are written in hexadecimal form.
+     * 
+     * @param buffer   The buffer
+     * @param typeCode The JDBC type code of the column
+     * @param value    The value
+     */
+    protected void appendLoadDataValue(StringBuffer buffer, int typeCode, Object value)
+    {
+        if (value == null)
+        {
+            buffer.append("\\N");
+        }
+        else if (TypeMap.isBinaryType(typeCode))
+        {
+            byte[] bytes = (value instanceof byte[] ? (byte[])value : new BinaryObjectsHelper().serialize(value));
+
+            buffer.append(new String(Hex.encodeHex(bytes)));
+        }
+        else if (value instanceof Boolean)
+        {
+            buffer.append(((Boolean)value).booleanValue() ? "1" : "0");
+        }
+        else
+        {
+            String text = value.toString();
+
+            if ((value instanceof java.util.Date) &&
+                !(value instanceof java.sql.Date) && !(value instanceof Time) && !(value instanceof Timestamp))
+            {
+                text = new Timestamp(((java.util.Date)value).getTime()).toString();
+            }
+            for (int idx = 0; idx < text.length(); idx++)
+            {
+                char c = text.charAt(idx);
+
+                switch (c)
+                {
+                    case '\\':
+                        buffer.append("\\\\");
+                        break;
+                    case '\t':
+                        buffer.append("\\t");
+                        break;
+                    case '\n':
+                        buffer.append("\\n");
+                        break;
+                    case '\r':
+                        buffer.append("\\r");
+                        break;
+                    case '\0':
+                        buffer.append("\\0");
+                        break;
+                    default:
+                        buffer.append(c);
+                        break;
+                }
+            }
+        }
+    }
 }
@@ -251,6 +251,14 @@ public class Oracle8Builder extends SqlBuilder
         printEndOfStatement();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected void writeOnlineIndexCreationSuffix(Table table, Index index) throws IOException
+    {
+        print(" ONLINE");
+    }
+
 	/**
      * {@inheritDoc}
      */
@@ -349,6 +357,62 @@ public class Oracle8Builder extends SqlBuilder
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public String getSelectNextIdentityValuesSql(Table table, Column column, int numValues)
+    {
+        StringBuffer result = new StringBuffer();
+
+        result.append("SELECT ");
+        result.append(getDelimitedIdentifier(getConstraintName("seq", table, column.getName(), null)));
+        result.append(".nextval FROM dual CONNECT BY LEVEL <= ");
+        result.append(numValues);
+        return result.toString();
+    }
+
+    /**
+     * Returns the statement for inserting rows into the table via a JDBC batch, optionally with
+     * the <code>APPEND_VALUES</code> hint which makes Oracle use a direct-path insert.
+     * 
+     * @param table      The table
+     * @param columns    The columns for which the rows contain values
+     * @param directPath Whether to add the direct-path hint
+     * @return The SQL
+     */
+    public String getBulkInsertSql(Table table, Column[] columns, boolean directPath)
+    {
+        StringBuffer result = new StringBuffer();
+
+        result.append("INSERT ");
+        if (directPath)
+        {
+            result.append("/*+ APPEND_VALUES */ ");
+        }
+        result.append("INTO ");
+        result.append(getDelimitedIdentifier(getTableName(table)));
+        result.append(" (");
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (idx > 0)
+            {
+                result.append(", ");
+            }
+            result.append(getDelimitedIdentifier(columns[idx].getName()));
+        }
+        result.append(") VALUES (");
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (idx > 0)
+            {
+                result.append(", ");
+            }
+            result.append("?");
+        }
+        result.append(")");
+        return result.toString();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -434,4 +498,69 @@ public class Oracle8Builder extends SqlBuilder
             print(")");
         }
     }
+
+    /**
+     * {@inheritDoc}
+     * For Oracle, the foreign key constraints are disabled and the non-unique indices are
+     * marked as unusable so that they are not maintained during the load.
+     */
+    public void disableConstraintsForBulkLoad(Database database) throws IOException
+    {
+        print("ALTER SESSION SET SKIP_UNUSABLE_INDEXES = TRUE");
+        printEndOfStatement();
+        for (int tableIdx = 0; tableIdx < database.getTableCount(); tableIdx++)
+        {
+            Table   table   = database.getTable(tableIdx);
+            Index[] indices = table.getNonUniqueIndices();
+
+            for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++)
+            {
+                writeTableAlterStmt(table);
+                print("DISABLE CONSTRAINT ");
+                printIdentifier(getForeignKeyName(table, table.getForeignKey(fkIdx)));
+                printEndOfStatement();
+            }
+            for (int indexIdx = 0; indexIdx < indices.length; indexIdx++)
+            {
+                print("ALTER INDEX ");
+                printIdentifier(getIndexName(indices[indexIdx]));
+                print(" UNUSABLE");
+                printEndOfStatement();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The indices are rebuilt and the foreign key constraints are enabled again, validating
+     * the loaded rows.
+     */
+    public void enableConstraintsAfterBulkLoad(Database database) throws IOException
+    {
+        for (int tableIdx = 0; tableIdx < database.getTableCount(); tableIdx++)
+        {
+            Table   table   = database.getTable(tableIdx);
+            Index[] indices = table.getNonUniqueIndices();
+
+            for (int indexIdx = 0; indexIdx < indices.length; indexIdx++)
+            {
+                print("ALTER INDEX ");
+                printIdentifier(getIndexName(indices[indexIdx]));
+                print(" REBUILD");
+                printEndOfStatement();
+            }
+        }
+        for (int tableIdx = 0; tableIdx < database.getTableCount(); tableIdx++)
+        {
+            Table table = database.getTable(tableIdx);
+
+            for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++)
+            {
+                writeTableAlterStmt(table);
+                print("ENABLE VALIDATE CONSTRAINT ");
+                printIdentifier(getForeignKeyName(table, table.getForeignKey(fkIdx)));
+                printEndOfStatement();
+            }
+        }
+    }
 }
@@ -20,9 +20,18 @@ package org.apache.ddlutils.platform.oracle;
  */
 
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.ddlutils.DatabaseOperationException;
 import org.apache.ddlutils.PlatformInfo;
 import org.apache.ddlutils.alteration.AddColumnChange;
 import org.apache.ddlutils.alteration.AddPrimaryKeyChange;
@@ -31,6 +40,8 @@ import org.apache.ddlutils.alteration.RemoveColumnChange;
 import org.apache.ddlutils.alteration.RemovePrimaryKeyChange;
 import org.apache.ddlutils.alteration.TableChange;
 import org.apache.ddlutils.alteration.TableDefinitionChangesPredicate;
+import org.apache.ddlutils.dynabean.SqlDynaClass;
+import org.apache.ddlutils.dynabean.SqlDynaProperty;
 import org.apache.ddlutils.model.CascadeActionEnum;
 import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
@@ -62,6 +73,9 @@ public class Oracle8Platform extends PlatformImplBase
     /** The old thin subprotocol used by the standard Oracle driver. */
     public static final String JDBC_SUBPROTOCOL_THIN_OLD = "oracle:dnldthin";
 
+    /** Whether native bulk inserts use direct-path inserts. */
+    private boolean _directPathInsertUsed = false;
+
     /**
      * Creates a new platform instance.
      */
@@ -72,6 +86,9 @@ public class Oracle8Platform extends PlatformImplBase
         info.setMaxIdentifierLength(30);
         info.setIdentityStatusReadingSupported(false);
         info.setPrimaryKeyColumnAutomaticallyRequired(true);
+        info.setOnlineIndexCreationSupported(true);
+        info.setConstraintDisablingSupported(true);
+        info.setIdentityValuePreallocationSupported(true);
         info.setSupportedOnUpdateActions(new CascadeActionEnum[] { CascadeActionEnum.NONE });
         info.setSupportedOnDeleteActions(new CascadeActionEnum[] { CascadeActionEnum.CASCADE, CascadeActionEnum.SET_NULL, CascadeActionEnum.NONE });
         info.addEquivalentOnDeleteActions(CascadeActionEnum.NONE, CascadeActionEnum.RESTRICT);
@@ -112,6 +129,31 @@ public class Oracle8Platform extends PlatformImplBase
         setModelReader(new Oracle8ModelReader(this));
     }
 
+    /**
+     * Determines whether native bulk inserts (see {@link #isNativeBulkInsertOn()}) use direct-path
+     * inserts via the <code>APPEND_VALUES</code> hint. Per default, this is <code>false</code>.
+     * 
+     * @return <code>true</code> if direct-path inserts are used
+     */
+    public boolean isDirectPathInsertUsed()
+    {
+        return _directPathInsertUsed;
+    }
+
+    /**
+     * Specifies whether native bulk inserts (see {@link #isNativeBulkInsertOn()}) shall use
+     * direct-path inserts via the <code>APPEND_VALUES</code> hint. This hint is only honored by
+     * Oracle 11g Release 2 and newer, older versions ignore it. Note that direct-path inserts
+     * lock the table, and that the table cannot be accessed again in the same transaction
+     * until it is committed, so this should only be used with auto-commit mode.
+     * 
+     * @param directPathInsertUsed <code>true</code> if direct-path inserts shall be used
+     */
+    public void setDirectPathInsertUsed(boolean directPathInsertUsed)
+    {
+        _directPathInsertUsed = directPathInsertUsed;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -223,4 +265,135 @@ public class Oracle8Platform extends PlatformImplBase
         getSqlBuilder().createPrimaryKey(changedTable, newPKColumns);
         change.apply(currentModel, isDelimitedIdentifierModeOn());
     }
+
+    /**
+     * {@inheritDoc}
+     * The beans are inserted via one JDBC batch which the Oracle JDBC driver sends using array
+     * binding, optionally as a direct-path insert. The values of auto-increment columns are
+     * fetched from the sequences in bulk beforehand and set into the beans, so that the
+     * triggers do not have to fetch them row by row.
+     */
+    protected void bulkInsert(Connection connection, Database model, SqlDynaClass dynaClass, List beans) throws DatabaseOperationException
+    {
+        DynaBean firstBean       = (DynaBean)beans.get(0);
+        Table    table           = dynaClass.getTable();
+        Column[] autoIncrColumns = getRelevantIdentityColumns(connection, model, dynaClass, firstBean);
+
+        for (int idx = 0; idx < autoIncrColumns.length; idx++)
+        {
+            fetchNextIdentityValues(connection, table, autoIncrColumns[idx], beans);
+        }
+
+        SqlDynaProperty[] properties = getPropertiesForBulkInsertion(connection, model, dynaClass, firstBean, autoIncrColumns);
+
+        if (properties.length == 0)
+        {
+            insertViaBatches(connection, model, beans);
+            return;
+        }
+
+        Column[] columns = new Column[properties.length];
+
+        for (int idx = 0; idx < properties.length; idx++)
+        {
+            columns[idx] = properties[idx].getColumn();
+        }
+
+        String            sql       = ((Oracle8Builder)getSqlBuilder()).getBulkInsertSql(table, columns, isDirectPathInsertUsed());
+        PreparedStatement statement = null;
+
+        if (getLog().isDebugEnabled())
+        {
+            getLog().debug("Inserting " + beans.size() + " rows via SQL: " + sql);
+        }
+        try
+        {
+            statement = connection.prepareStatement(sql);
+            for (Iterator it = beans.iterator(); it.hasNext();)
+            {
+                DynaBean bean = (DynaBean)it.next();
+
+                for (int idx = 0; idx < properties.length; idx++)
+                {
+                    setObject(statement, idx + 1, bean, properties[idx]);
+                }
+                statement.addBatch();
+            }
+            executeBatch(statement, beans.size(), table, new Column[0], null);
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while adding batch insert", ex);
+        }
+        finally
+        {
+            closeStatement(statement);
+        }
+    }
+
+    /**
+     * Returns the properties to insert via a bulk insert, which are the normal properties for
+     * insertion plus the given auto-increment columns whose values have been fetched already.
+     * 
+     * @param connection      The connection
+     * @param model           The database model
+     * @param dynaClass       The dyna class
+     * @param bean            The bean
+     * @param autoIncrColumns The auto-increment columns
+     * @return The properties
+     */
+    private SqlDynaProperty[] getPropertiesForBulkInsertion(Connection connection, Database model, SqlDynaClass dynaClass, DynaBean bean, Column[] autoIncrColumns)
+    {
+        List              properties    = Arrays.asList(getPropertiesForInsertion(connection, model, dynaClass, bean));
+        List              identityCols  = Arrays.asList(autoIncrColumns);
+        SqlDynaProperty[] allProperties = dynaClass.getSqlDynaProperties();
+        ArrayList         result        = new ArrayList();
+
+        for (int idx = 0; idx < allProperties.length; idx++)
+        {
+            if (properties.contains(allProperties[idx]) || identityCols.contains(allProperties[idx].getColumn()))
+            {
+                result.add(allProperties[idx]);
+            }
+        }
+        return (SqlDynaProperty[])result.toArray(new SqlDynaProperty[result.size()]);
+    }
+
+    /**
+     * Fetches the values for the given auto-increment column from its sequence in one go, and
+     * sets them into those beans that don't specify a value for the column themselves (or all
+     * beans if identity override is off).
+     * 
+     * @param connection The connection
+     * @param table      The table
+     * @param column     The auto-increment column
+     * @param beans      The beans
+     */
+    private void fetchNextIdentityValues(Connection connection, Table table, Column column, List beans) throws DatabaseOperationException
+    {
+        boolean   overrideOn  = isIdentityOverrideOn(connection) && getPlatformInfo().isIdentityOverrideAllowed();
+        ArrayList targetBeans = new ArrayList();
+
+        for (Iterator it = beans.iterator(); it.hasNext();)
+        {
+            DynaBean bean = (DynaBean)it.next();
+
+            if (!overrideOn || (bean.get(column.getName()) == null))
+            {
+                targetBeans.add(bean);
+            }
+        }
+        if (targetBeans.isEmpty())
+        {
+            return;
+        }
+
+        Object[] values = preallocateIdentityValues(connection, table, column, targetBeans.size());
+        int      idx    = 0;
+
+        for (Iterator beanIt = targetBeans.iterator(); beanIt.hasNext(); idx++)
+        {
+            ((DynaBean)beanIt.next()).set(column.getName(), values[idx]);
+        }
+    }
 }
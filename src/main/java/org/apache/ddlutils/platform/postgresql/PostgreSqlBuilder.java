@@ -28,6 +28,7 @@ import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.model.Index;
 import org.apache.ddlutils.model.Table;
+import org.apache.ddlutils.model.TypeMap;
 import org.apache.ddlutils.platform.SqlBuilder;
 
 /**
@@ -84,6 +85,15 @@ public class PostgreSqlBuilder extends SqlBuilder
         printEndOfStatement();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected void writeOnlineIndexCreationPrefix(Table table, Index index) throws IOException
+    {
+        // note that this cannot be used within a transaction block
+        print("CONCURRENTLY ");
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -168,6 +178,21 @@ public class PostgreSqlBuilder extends SqlBuilder
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public String getSelectNextIdentityValuesSql(Table table, Column column, int numValues)
+    {
+        StringBuffer result = new StringBuffer();
+
+        result.append("SELECT nextval('");
+        result.append(getDelimitedIdentifier(getConstraintName(null, table, column.getName(), "seq")));
+        result.append("') FROM generate_series(1, ");
+        result.append(numValues);
+        result.append(")");
+        return result.toString();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -221,4 +246,133 @@ public class PostgreSqlBuilder extends SqlBuilder
             printIdentifier(getColumnName(sourceColumn));
         }
     }
+
+    /**
+     * {@inheritDoc}
+     * For PostgreSql, this disables all triggers of the tables including the internal ones
+     * that implement the foreign keys. Please note that this requires superuser privileges,
+     * and that PostgreSql does not re-validate the foreign keys when the triggers are enabled
+     * again.
+     */
+    public void disableConstraintsForBulkLoad(Database database) throws IOException
+    {
+        for (int idx = 0; idx < database.getTableCount(); idx++)
+        {
+            writeTableAlterStmt(database.getTable(idx));
+            print("DISABLE TRIGGER ALL");
+            printEndOfStatement();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void enableConstraintsAfterBulkLoad(Database database) throws IOException
+    {
+        for (int idx = 0; idx < database.getTableCount(); idx++)
+        {
+            writeTableAlterStmt(database.getTable(idx));
+            print("ENABLE TRIGGER ALL");
+            printEndOfStatement();
+        }
+    }
+
+    /**
+     * Returns the statement for copying rows into the given table in PostgreSql's text format
+     * via <code>COPY ... FROM STDIN</code>.
+     * 
+     * @param table   The table
+     * @param columns The columns for which the rows will contain values
+     * @return The SQL
+     */
+    public String getCopyFromStdinSql(Table table, Column[] columns)
+    {
+        StringBuffer buffer = new StringBuffer("COPY ");
+
+        buffer.append(getDelimitedIdentifier(getTableName(table)));
+        buffer.append(" (");
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (idx > 0)
+            {
+                buffer.append(", ");
+            }
+            buffer.append(getDelimitedIdentifier(columns[idx].getName()));
+        }
+        buffer.append(") FROM STDIN");
+        return buffer.toString();
+    }
+
+    /**
+     * Returns the statement for copying the rows of the given table in CSV format, preceded
+     * by a header line with the column names, via <code>COPY ... TO STDOUT</code>. Since
+     * <code>COPY</code> would write binary values in the escaped form of the <code>bytea</code>
+     * type, these are converted to hexadecimal form via a query, which requires PostgreSql 8.2.
+     * 
+     * @param table   The table
+     * @param columns The columns to copy
+     * @return The SQL
+     */
+    public String getCopyToStdoutSql(Table table, Column[] columns)
+    {
+        StringBuffer buffer = new StringBuffer("COPY ");
+
+        if (hasBinaryColumns(columns))
+        {
+            buffer.append("(SELECT ");
+            for (int idx = 0; idx < columns.length; idx++)
+            {
+                String columnName = getDelimitedIdentifier(columns[idx].getName());
+
+                if (idx > 0)
+                {
+                    buffer.append(", ");
+                }
+                if (TypeMap.isBinaryType(columns[idx].getTypeCode()))
+                {
+                    buffer.append("encode(");
+                    buffer.append(columnName);
+                    buffer.append(", 'hex') AS ");
+                }
+                buffer.append(columnName);
+            }
+            buffer.append(" FROM ");
+            buffer.append(getDelimitedIdentifier(getTableName(table)));
+            buffer.append(")");
+        }
+        else
+        {
+            buffer.append(getDelimitedIdentifier(getTableName(table)));
+            buffer.append(" (");
+            for (int idx = 0; idx < columns.length; idx++)
+            {
+                if (idx > 0)
+                {
+                    buffer.append(", ");
+                }
+                buffer.append(getDelimitedIdentifier(columns[idx].getName()));
+            }
+            buffer.append(")");
+        }
+        buffer.append(" TO STDOUT WITH CSV HEADER");
+        return buffer.toString();
+    }
+
+    /**
+     * Determines whether any of the given columns has a binary type.
+     * 
+     * @param columns The columns
+     * @return <code>true</code> if there is a binary column
+     */
+    boolean hasBinaryColumns(Column[] columns)
+    {
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (TypeMap.isBinaryType(columns[idx].getTypeCode()))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -19,17 +19,30 @@ package org.apache.ddlutils.platform.postgresql;
  * under the License.
  */
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.beanutils.DynaBean;
+import org.apache.commons.dbcp.DelegatingConnection;
 import org.apache.ddlutils.DatabaseOperationException;
 import org.apache.ddlutils.PlatformInfo;
 import org.apache.ddlutils.alteration.AddColumnChange;
@@ -37,7 +50,9 @@ import org.apache.ddlutils.alteration.ModelComparator;
 import org.apache.ddlutils.alteration.RemoveColumnChange;
 import org.apache.ddlutils.alteration.TableChange;
 import org.apache.ddlutils.alteration.TableDefinitionChangesPredicate;
+import org.apache.ddlutils.dynabean.SqlDynaClass;
 import org.apache.ddlutils.dynabean.SqlDynaProperty;
+import org.apache.ddlutils.io.BinaryObjectsHelper;
 import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.model.Table;
@@ -59,6 +74,9 @@ public class PostgreSqlPlatform extends PlatformImplBase
     /** The subprotocol used by the standard PostgreSQL driver. */
     public static final String JDBC_SUBPROTOCOL  = "postgresql";
 
+    /** Whether the warning that COPY is not available has already been printed. */
+    private boolean _copyWarningPrinted = false;
+
     /**
      * Creates a new platform instance.
      */
@@ -70,6 +88,14 @@ public class PostgreSqlPlatform extends PlatformImplBase
         // this is the default length though it might be changed when building PostgreSQL
         // in file src/include/postgres_ext.h
         info.setMaxIdentifierLength(63);
+        info.setOnlineIndexCreationSupported(true);
+        info.setConstraintDisablingSupported(true);
+        info.setBatchIdentityValuesReadable(true);
+        info.setIdentityValuePreallocationSupported(true);
+        // note that multi-row inserts require PostgreSql 8.2 or newer, which is checked
+        // when inserting data but not when generating insert sql
+        info.setMultiRowInsertSupported(true);
+        info.setMaxParametersPerStatement(32767);
 
         info.addNativeTypeMapping(Types.ARRAY,         "BYTEA",            Types.LONGVARBINARY);
         info.addNativeTypeMapping(Types.BINARY,        "BYTEA",            Types.LONGVARBINARY);
@@ -320,4 +346,451 @@ public class PostgreSqlPlatform extends PlatformImplBase
         ((PostgreSqlBuilder)getSqlBuilder()).dropColumn(changedTable, removedColumn);
         change.apply(currentModel, isDelimitedIdentifierModeOn());
     }
+
+    /**
+     * {@inheritDoc}
+     * Multi-row inserts are only supported by PostgreSql 8.2 and newer.
+     */
+    protected boolean isMultiRowInsertSupported(Connection connection) throws DatabaseOperationException
+    {
+        return super.isMultiRowInsertSupported(connection) && isDatabaseVersionAtLeast(connection, 8, 2);
+    }
+
+    /**
+     * Determines whether the database of the given connection has at least the given version.
+     * 
+     * @param connection   The connection
+     * @param majorVersion The major version
+     * @param minorVersion The minor version
+     * @return <code>true</code> if the database version is the given or a newer one
+     */
+    private boolean isDatabaseVersionAtLeast(Connection connection, int majorVersion, int minorVersion) throws DatabaseOperationException
+    {
+        try
+        {
+            DatabaseMetaData metaData = connection.getMetaData();
+            int              curMajor = metaData.getDatabaseMajorVersion();
+
+            return (curMajor > majorVersion) || ((curMajor == majorVersion) && (metaData.getDatabaseMinorVersion() >= minorVersion));
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while reading the database metadata", ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The PostgreSql JDBC driver returns the generated keys for all rows of a batch only
+     * since version 9.4.1209.
+     */
+    protected boolean isBatchIdentityValuesReadable(DatabaseMetaData metaData) throws SQLException
+    {
+        if (!super.isBatchIdentityValuesReadable(metaData))
+        {
+            return false;
+        }
+
+        int majorVersion = metaData.getDriverMajorVersion();
+        int minorVersion = metaData.getDriverMinorVersion();
+
+        if ((majorVersion != 9) || (minorVersion != 4))
+        {
+            return (majorVersion > 9) || ((majorVersion == 9) && (minorVersion > 4));
+        }
+
+        // the build number is the last number in the version string, e.g. "PostgreSQL 9.4.1209"
+        // or "PostgreSQL 9.4 JDBC4.1 (build 1201)"
+        String driverVersion = metaData.getDriverVersion();
+        int    endPos        = driverVersion == null ? 0 : driverVersion.length();
+
+        while ((endPos > 0) && !Character.isDigit(driverVersion.charAt(endPos - 1)))
+        {
+            endPos--;
+        }
+
+        int startPos = endPos;
+
+        while ((startPos > 0) && Character.isDigit(driverVersion.charAt(startPos - 1)))
+        {
+            startPos--;
+        }
+        return (startPos < endPos) && (Integer.parseInt(driverVersion.substring(startPos, endPos)) >= 1209);
+    }
+
+    /**
+     * {@inheritDoc}
+     * If the JDBC driver supports it, then the beans are streamed into the database via
+     * <code>COPY ... FROM STDIN</code> in text format, otherwise multi-row <code>INSERT</code>
+     * statements are used. Beans whose identity values are generated by the database are
+     * inserted via statement batches though as <code>COPY</code> cannot return these values.
+     */
+    protected void bulkInsert(Connection connection, Database model, SqlDynaClass dynaClass, List beans) throws DatabaseOperationException
+    {
+        Object copyManager = getCopyManager(connection);
+
+        if (copyManager == null)
+        {
+            super.bulkInsert(connection, model, dynaClass, beans);
+        }
+        else
+        {
+            copyIntoTable(connection, copyManager, model, dynaClass, beans);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * If the JDBC driver supports it, then the rows are streamed directly into the file via
+     * <code>COPY ... TO STDOUT</code>. Binary values are converted to hexadecimal form by the
+     * database, which requires PostgreSql 8.2 or newer for tables with binary columns.
+     */
+    public void exportTableToCsv(Connection connection, Table table, File file) throws DatabaseOperationException
+    {
+        Object copyManager = getCopyManager(connection);
+
+        if ((copyManager == null) ||
+            (((PostgreSqlBuilder)getSqlBuilder()).hasBinaryColumns(table.getColumns()) && !isDatabaseVersionAtLeast(connection, 8, 2)))
+        {
+            super.exportTableToCsv(connection, table, file);
+            return;
+        }
+
+        String copySql = ((PostgreSqlBuilder)getSqlBuilder()).getCopyToStdoutSql(table, table.getColumns());
+        Writer writer  = null;
+
+        if (getLog().isDebugEnabled())
+        {
+            getLog().debug("Exporting table " + table.getName() + " via SQL: " + copySql);
+        }
+        try
+        {
+            Method copyOutMethod = copyManager.getClass().getMethod("copyOut", new Class[] { String.class, Writer.class });
+
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+            copyOutMethod.invoke(copyManager, new Object[] { copySql, writer });
+        }
+        catch (InvocationTargetException ex)
+        {
+            throw new DatabaseOperationException("Error while exporting table " + table.getName() + ": " + ex.getTargetException().getMessage(), ex.getTargetException());
+        }
+        catch (NoSuchMethodException ex)
+        {
+            throw new DatabaseOperationException("The copy API of the PostgreSql JDBC driver is not supported", ex);
+        }
+        catch (IllegalAccessException ex)
+        {
+            throw new DatabaseOperationException("The copy API of the PostgreSql JDBC driver is not supported", ex);
+        }
+        catch (IOException ex)
+        {
+            throw new DatabaseOperationException("Error while writing to file " + file.getAbsolutePath(), ex);
+        }
+        finally
+        {
+            if (writer != null)
+            {
+                try
+                {
+                    writer.close();
+                }
+                catch (IOException ex)
+                {
+                    getLog().warn("Could not close file " + file.getAbsolutePath(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the copy manager of the PostgreSql JDBC driver for the given connection. Since the
+     * driver is not required for compiling DdlUtils, the copy manager is accessed via reflection.
+     * 
+     * @param connection The connection
+     * @return The copy manager or <code>null</code> if the connection does not provide one
+     */
+    private Object getCopyManager(Connection connection)
+    {
+        Connection pgConnection = connection;
+
+        // connections from a commons-dbcp pool can only be unwrapped if the
+        // pool allows access to the underlying connections
+        if (pgConnection instanceof DelegatingConnection)
+        {
+            Connection innermostConnection = ((DelegatingConnection)pgConnection).getInnermostDelegate();
+
+            if (innermostConnection != null)
+            {
+                pgConnection = innermostConnection;
+            }
+        }
+        try
+        {
+            Class pgConnectionClass = Class.forName("org.postgresql.PGConnection", true, pgConnection.getClass().getClassLoader());
+
+            if (pgConnectionClass.isInstance(pgConnection))
+            {
+                return pgConnectionClass.getMethod("getCopyAPI", new Class[0]).invoke(pgConnection, new Object[0]);
+            }
+        }
+        catch (Exception ex)
+        {
+            getLog().debug("Could not access the copy API of the PostgreSql JDBC driver", ex);
+        }
+        if (!_copyWarningPrinted)
+        {
+            getLog().warn("The connection does not support COPY, falling back to regular statements");
+            _copyWarningPrinted = true;
+        }
+        return null;
+    }
+
+    /**
+     * Inserts the given beans which all belong to the same table, via <code>COPY</code>.
+     * 
+     * @param connection  The connection
+     * @param copyManager The copy manager of the PostgreSql JDBC driver
+     * @param model       The database model
+     * @param dynaClass   The dyna class of the beans
+     * @param beans       The beans
+     */
+    private void copyIntoTable(Connection connection, Object copyManager, Database model, SqlDynaClass dynaClass, List beans) throws DatabaseOperationException
+    {
+        DynaBean          firstBean       = (DynaBean)beans.get(0);
+        SqlDynaProperty[] properties      = getPropertiesForInsertion(connection, model, dynaClass, firstBean);
+        Column[]          autoIncrColumns = getRelevantIdentityColumns(connection, model, dynaClass, firstBean);
+
+        if ((properties.length == 0) ||
+            ((autoIncrColumns.length > 0) && isBatchIdentityValuesReadable(connection)))
+        {
+            insertViaBatches(connection, model, beans);
+            return;
+        }
+
+        Table    table   = dynaClass.getTable();
+        Column[] columns = new Column[properties.length];
+
+        for (int idx = 0; idx < properties.length; idx++)
+        {
+            columns[idx] = properties[idx].getColumn();
+        }
+
+        String copySql = ((PostgreSqlBuilder)getSqlBuilder()).getCopyFromStdinSql(table, columns);
+
+        if (getLog().isDebugEnabled())
+        {
+            getLog().debug("Copying " + beans.size() + " rows via SQL: " + copySql);
+        }
+        try
+        {
+            Method copyInMethod = copyManager.getClass().getMethod("copyIn", new Class[] { String.class, Reader.class });
+
+            beforeInsert(connection, table);
+
+            Object result = copyInMethod.invoke(copyManager, new Object[] { copySql, new CopyDataReader(beans.iterator(), properties) });
+
+            afterInsert(connection, table);
+            if ((result instanceof Number) && (((Number)result).longValue() != beans.size()))
+            {
+                getLog().warn("Attempted to copy " + beans.size() + " rows into table " + table.getName() + " but changed " + result + " rows");
+            }
+        }
+        catch (InvocationTargetException ex)
+        {
+            throw new DatabaseOperationException("Error while copying into the database: " + ex.getTargetException().getMessage(), ex.getTargetException());
+        }
+        catch (NoSuchMethodException ex)
+        {
+            throw new DatabaseOperationException("The copy API of the PostgreSql JDBC driver is not supported", ex);
+        }
+        catch (IllegalAccessException ex)
+        {
+            throw new DatabaseOperationException("The copy API of the PostgreSql JDBC driver is not supported", ex);
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while copying into the database: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Appends the value in the text format of PostgreSql's <code>COPY</code> command to the
+     * given buffer.
+     * 
+     * @param buffer   The buffer
+     * @param typeCode The JDBC type code of the column
+     * @param value    The value
+     */
+    protected void appendCopyValue(StringBuffer buffer, int typeCode, Object value)
+    {
+        if (value == null)
+        {
+            buffer.append("\\N");
+            return;
+        }
+        switch (typeCode)
+        {
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                byte[] bytes = (value instanceof byte[] ? (byte[])value : new BinaryObjectsHelper().serialize(value));
+
+                // we're using the escape format of bytea whose backslashes need to be
+                // escaped again for COPY
+                for (int idx = 0; idx < bytes.length; idx++)
+                {
+                    int curByte = bytes[idx] & 0xFF;
+
+                    buffer.append("\\\\");
+                    buffer.append((char)('0' + (curByte >> 6)));
+                    buffer.append((char)('0' + ((curByte >> 3) & 7)));
+                    buffer.append((char)('0' + (curByte & 7)));
+                }
+                break;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                if (value instanceof Boolean)
+                {
+                    buffer.append(((Boolean)value).booleanValue() ? "t" : "f");
+                }
+                else
+                {
+                    appendCopyText(buffer, value.toString());
+                }
+                break;
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                if ((value instanceof java.util.Date) &&
+                    !(value instanceof java.sql.Date) && !(value instanceof Time) && !(value instanceof Timestamp))
+                {
+                    long time = ((java.util.Date)value).getTime();
+
+                    if (typeCode == Types.DATE)
+                    {
+                        value = new java.sql.Date(time);
+                    }
+                    else if (typeCode == Types.TIME)
+                    {
+                        value = new Time(time);
+                    }
+                    else
+                    {
+                        value = new Timestamp(time);
+                    }
+                }
+                appendCopyText(buffer, value.toString());
+                break;
+            default:
+                appendCopyText(buffer, value.toString());
+                break;
+        }
+    }
+
+    /**
+     * Appends the given text to the buffer, escaping the characters that have a special
+     * meaning in the text format of <code>COPY</code>.
+     * 
+     * @param buffer The buffer
+     * @param text   The text
+     */
+    private void appendCopyText(StringBuffer buffer, String text)
+    {
+        for (int idx = 0; idx < text.length(); idx++)
+        {
+            char c = text.charAt(idx);
+
+            switch (c)
+            {
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                default:
+                    buffer.append(c);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Reader that provides the rows for <code>COPY</code>, encoding one bean at a time.
+     */
+    private class CopyDataReader extends Reader
+    {
+        /** The iterator over the beans. */
+        private Iterator _beanIt;
+        /** The properties to write. */
+        private SqlDynaProperty[] _properties;
+        /** The current row. */
+        private StringBuffer _row = new StringBuffer();
+        /** The position of the next character to read in the current row. */
+        private int _pos = 0;
+
+        /**
+         * Creates a new reader.
+         * 
+         * @param beanIt     The iterator over the beans
+         * @param properties The properties to write
+         */
+        public CopyDataReader(Iterator beanIt, SqlDynaProperty[] properties)
+        {
+            _beanIt     = beanIt;
+            _properties = properties;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public int read(char[] cbuf, int off, int len) throws IOException
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            if (_pos >= _row.length())
+            {
+                if (!_beanIt.hasNext())
+                {
+                    return -1;
+                }
+
+                DynaBean bean = (DynaBean)_beanIt.next();
+
+                _row.setLength(0);
+                _pos = 0;
+                for (int idx = 0; idx < _properties.length; idx++)
+                {
+                    if (idx > 0)
+                    {
+                        _row.append('\t');
+                    }
+                    appendCopyValue(_row, _properties[idx].getColumn().getTypeCode(), bean.get(_properties[idx].getName()));
+                }
+                _row.append('\n');
+            }
+
+            int numChars = Math.min(len, _row.length() - _pos);
+
+            _row.getChars(_pos, _pos + numChars, cbuf, off);
+            _pos += numChars;
+            return numChars;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void close() throws IOException
+        {
+        }
+    }
 }
@@ -29,8 +29,11 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.ddlutils.DatabaseOperationException;
@@ -70,6 +73,9 @@ public class SybasePlatform extends PlatformImplBase
 
     /** The maximum size that text and binary columns can have. */
     public static final long MAX_TEXT_SIZE = 2147483647;
+
+    /** The connections in a bulk load, mapped to the table whose identity override is currently on. */
+    private Map _identityOverrideTables = Collections.synchronizedMap(new WeakHashMap());
     
     /**
      * Creates a new platform instance.
@@ -85,6 +91,9 @@ public class SybasePlatform extends PlatformImplBase
         info.setPrimaryKeyColumnsHaveToBeRequired(true);
         info.setCommentPrefix("/*");
         info.setCommentSuffix("*/");
+        // the driver sends a statement batch as one T-SQL batch, but some commands (e.g. CREATE TRIGGER)
+        // have to be the first command in a T-SQL batch
+        info.setStatementBatchingSupported(false);
 
         info.addNativeTypeMapping(Types.ARRAY,         "IMAGE");
         // BIGINT is mapped back in the model reader
@@ -281,12 +290,13 @@ public class SybasePlatform extends PlatformImplBase
     /**
      * Determines whether we need to use identity override mode for the given table.
      * 
-     * @param table The table
+     * @param connection The connection
+     * @param table      The table
      * @return <code>true</code> if identity override mode is needed
      */
-    private boolean useIdentityOverrideFor(Table table)
+    private boolean useIdentityOverrideFor(Connection connection, Table table)
     {
-        return isIdentityOverrideOn() &&
+        return isIdentityOverrideOn(connection) &&
                getPlatformInfo().isIdentityOverrideAllowed() &&
                (table.getAutoIncrementColumns().length > 0);
     }
@@ -296,19 +306,28 @@ public class SybasePlatform extends PlatformImplBase
      */
     protected void beforeInsert(Connection connection, Table table) throws SQLException
     {
-        if (useIdentityOverrideFor(table))
+        if (useIdentityOverrideFor(connection, table))
         {
-            SybaseBuilder builder          = (SybaseBuilder)getSqlBuilder();
-            String        quotationOn      = builder.getQuotationOnStatement();
-            String        identityInsertOn = builder.getEnableIdentityOverrideSql(table);
-            Statement     stmt             = connection.createStatement();
+            if (_identityOverrideTables.containsKey(connection))
+            {
+                // Sybase allows the identity override only for one table per session, so
+                // during a bulk load we keep it on until the rows of another table need it
+                Table curTable = (Table)_identityOverrideTables.get(connection);
 
-            if (quotationOn.length() > 0)
+                if (curTable != table)
+                {
+                    if (curTable != null)
+                    {
+                        switchIdentityOverride(connection, curTable, false);
+                    }
+                    switchIdentityOverride(connection, table, true);
+                    _identityOverrideTables.put(connection, table);
+                }
+            }
+            else
             {
-                stmt.execute(quotationOn);
+                switchIdentityOverride(connection, table, true);
             }
-            stmt.execute(identityInsertOn);
-            stmt.close();
         }
     }
 
@@ -317,19 +336,36 @@ public class SybasePlatform extends PlatformImplBase
      */
     protected void afterInsert(Connection connection, Table table) throws SQLException
     {
-        if (useIdentityOverrideFor(table))
+        if (useIdentityOverrideFor(connection, table) && !_identityOverrideTables.containsKey(connection))
         {
-            SybaseBuilder builder           = (SybaseBuilder)getSqlBuilder();
-            String        quotationOn       = builder.getQuotationOnStatement();
-            String        identityInsertOff = builder.getDisableIdentityOverrideSql(table);
-            Statement     stmt              = connection.createStatement();
+            switchIdentityOverride(connection, table, false);
+        }
+    }
 
+    /**
+     * Switches the identity override for the given table on or off.
+     * 
+     * @param connection The connection
+     * @param table      The table
+     * @param enable     Whether to switch the identity override on
+     */
+    private void switchIdentityOverride(Connection connection, Table table, boolean enable) throws SQLException
+    {
+        SybaseBuilder builder     = (SybaseBuilder)getSqlBuilder();
+        String        quotationOn = builder.getQuotationOnStatement();
+        Statement     stmt        = connection.createStatement();
+
+        try
+        {
             if (quotationOn.length() > 0)
             {
                 stmt.execute(quotationOn);
             }
-            stmt.execute(identityInsertOff);
-            stmt.close();
+            stmt.execute(enable ? builder.getEnableIdentityOverrideSql(table) : builder.getDisableIdentityOverrideSql(table));
+        }
+        finally
+        {
+            closeStatement(stmt);
         }
     }
 
@@ -349,6 +385,43 @@ public class SybasePlatform extends PlatformImplBase
         afterInsert(connection, table);
     }
 
+    /**
+     * {@inheritDoc}
+     * In addition, the identity override is switched on only once per table for inserts
+     * via the given connection until {@link #afterBulkLoad(Connection, Database)} is called.
+     * Note that newer jConnect drivers can also send the statement batches as bulk copies if the
+     * <code>ENABLE_BULK_LOAD</code> connection property is set.
+     */
+    public void beforeBulkLoad(Connection connection, Database model) throws DatabaseOperationException
+    {
+        super.beforeBulkLoad(connection, model);
+        _identityOverrideTables.put(connection, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void afterBulkLoad(Connection connection, Database model) throws DatabaseOperationException
+    {
+        Table curTable = (Table)_identityOverrideTables.remove(connection);
+
+        try
+        {
+            if (curTable != null)
+            {
+                switchIdentityOverride(connection, curTable, false);
+            }
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while switching off the identity override for table " + curTable.getName(), ex);
+        }
+        finally
+        {
+            super.afterBulkLoad(connection, model);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -21,6 +21,7 @@ package org.apache.ddlutils.task;
 
 import org.apache.ddlutils.io.DataConverterRegistration;
 import org.apache.ddlutils.io.DatabaseDataIO;
+import org.apache.ddlutils.io.LoggingProgressListener;
 
 /**
  * Base type for database commands that use converters.
@@ -32,6 +33,8 @@ public abstract class ConvertingDatabaseCommand extends DatabaseCommand
 {
     /** The database data io object. */
     private DatabaseDataIO _dataIO = new DatabaseDataIO();
+    /** The listener that logs the progress, if any. */
+    private LoggingProgressListener _progressLogger;
 
     /**
      * Returns the database data io object.
@@ -52,4 +55,28 @@ public abstract class ConvertingDatabaseCommand extends DatabaseCommand
     {
         _dataIO.registerConverter(converterRegistration);
     }
+
+    /**
+     * Specifies the interval in seconds in which the progress of the data operation is logged,
+     * i.e. the number of processed rows and bytes, the throughput, the current table and, if it
+     * can be estimated, the remaining time. At the end, the number of rows and the throughput of
+     * each table are logged.
+     * 
+     * @param progressLogInterval The interval in seconds; use <code>0</code> to switch off
+     *                            the progress log
+     * @ant.not-required Per default the progress is not logged.
+     */
+    public void setProgressLogInterval(int progressLogInterval)
+    {
+        if (_progressLogger != null)
+        {
+            _dataIO.removeProgressListener(_progressLogger);
+            _progressLogger = null;
+        }
+        if (progressLogInterval > 0)
+        {
+            _progressLogger = new LoggingProgressListener(_log, progressLogInterval * 1000L);
+            _dataIO.addProgressListener(_progressLogger);
+        }
+    }
 }
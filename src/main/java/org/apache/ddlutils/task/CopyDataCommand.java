@@ -0,0 +1,292 @@
+package org.apache.ddlutils.task;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.dbcp.BasicDataSource;
+import org.apache.ddlutils.Platform;
+import org.apache.ddlutils.io.DatabaseDataIO;
+import org.apache.ddlutils.io.LoggingProgressListener;
+import org.apache.ddlutils.model.Database;
+import org.apache.tools.ant.BuildException;
+
+/**
+ * Copies the data currently in the live database (as specified by the enclosing task)
+ * directly into a second database, without writing it to a file first. The tables
+ * must already exist in the target database.<br/>
+ * The data is copied table by table in foreign key order and inserted in the same way as
+ * the <code>writeDataToDatabase</code> sub task does, i.e. the same options regarding batch
+ * mode, foreign key order and identity values apply.
+ * 
+ * @version $Revision: 289996 $
+ * @ant.task name="copyData"
+ */
+public class CopyDataCommand extends DatabaseCommand
+{
+    /** The configuration of the target database. */
+    private PlatformConfiguration _targetPlatformConf = new PlatformConfiguration();
+    /** The data io object used for copying the data. */
+    private DatabaseDataIO _dataIO = new DatabaseDataIO();
+    /** Whether explicit values for identity columns will be used. */
+    private boolean _useExplicitIdentityValues;
+    /** The listener that logs the progress, if any. */
+    private LoggingProgressListener _progressLogger;
+
+    /**
+     * Adds the data source of the database to copy the data into.
+     * 
+     * @param dataSource The data source pointing to the target database
+     */
+    public void addConfiguredTargetDatabase(BasicDataSource dataSource)
+    {
+        _targetPlatformConf.setDataSource(dataSource);
+    }
+
+    /**
+     * Specifies the type of the database to copy the data into.
+     * 
+     * @param type The database type
+     * @ant.not-required Per default, DdlUtils tries to determine the database type via JDBC.
+     */
+    public void setTargetDatabaseType(String type)
+    {
+        if ((type != null) && (type.length() > 0))
+        {
+            _targetPlatformConf.setDatabaseType(type);
+        }
+    }
+
+    /**
+     * Defines whether the values of identity columns in the source database shall be used
+     * instead of letting the target database define the values. If <code>false</code> (the
+     * default), the values of the columns of foreign keys pointing to the inserted rows are
+     * updated with the values created by the target database, unless
+     * <code>ensureForeignKeyOrder</code> is set to <code>false</code>.
+     *
+     * @param useExplicitIdentityValues <code>true</code> if the identity column values of
+     *                                  the source database shall be used
+     * @ant.not-required Default is <code>false</code>
+     */
+    public void setUseExplicitIdentityValues(boolean useExplicitIdentityValues)
+    {
+        _useExplicitIdentityValues = useExplicitIdentityValues;
+    }
+
+    /**
+     * The maximum number of insert statements to combine in one batch.<br/>
+     * This value is only used if <code>useBatchMode</code> is <code>true</code>.
+     *
+     * @param batchSize The number of objects
+     * @ant.not-required The default value is 1.
+     */
+    public void setBatchSize(int batchSize)
+    {
+        _dataIO.setBatchSize(new Integer(batchSize));
+    }
+
+    /**
+     * Specifies whether batch mode shall be used for inserting the data.
+     *
+     * @param useBatchMode <code>true</code> if batch mode shall be used
+     * @ant.not-required Per default batch mode is not used.
+     */
+    public void setUseBatchMode(boolean useBatchMode)
+    {
+        _dataIO.setUseBatchMode(useBatchMode);
+    }
+
+    /**
+     * Specifies whether the batch size shall be adjusted per table while inserting the data. The
+     * time that the batches take and the size of the rows are measured, and the batch size of each
+     * table is changed so that a batch takes about <code>targetBatchDuration</code> milliseconds.
+     * The <code>batchSize</code> is used as the starting point.<br/>
+     * This value is only used if <code>useBatchMode</code> is <code>true</code>.
+     *
+     * @param useAdaptiveBatchSize <code>true</code> if the batch size shall be adapted
+     * @ant.not-required Per default the batch size is fixed.
+     */
+    public void setAdaptiveBatchSize(boolean useAdaptiveBatchSize)
+    {
+        _dataIO.setUseAdaptiveBatchSize(useAdaptiveBatchSize);
+    }
+
+    /**
+     * The smallest batch size when the batch size is adapted.
+     *
+     * @param minBatchSize The number of objects
+     * @ant.not-required The default value is 16.
+     */
+    public void setMinBatchSize(int minBatchSize)
+    {
+        _dataIO.setMinBatchSize(new Integer(minBatchSize));
+    }
+
+    /**
+     * The largest batch size when the batch size is adapted.
+     *
+     * @param maxBatchSize The number of objects
+     * @ant.not-required The default value is 32768.
+     */
+    public void setMaxBatchSize(int maxBatchSize)
+    {
+        _dataIO.setMaxBatchSize(new Integer(maxBatchSize));
+    }
+
+    /**
+     * The time in milliseconds that a batch should take when the batch size is adapted.
+     *
+     * @param targetBatchDuration The time in milliseconds
+     * @ant.not-required The default value is 500.
+     */
+    public void setTargetBatchDuration(long targetBatchDuration)
+    {
+        _dataIO.setTargetBatchDuration(new Long(targetBatchDuration));
+    }
+
+    /**
+     * The maximum number of bytes in a batch when the batch size is adapted. The size of the
+     * rows is estimated from their values. Use <code>0</code> for no limit.
+     *
+     * @param maxBatchBytes The number of bytes
+     * @ant.not-required The default value is 8388608 (8 MB).
+     */
+    public void setMaxBatchBytes(long maxBatchBytes)
+    {
+        _dataIO.setMaxBatchBytes(new Long(maxBatchBytes));
+    }
+
+    /**
+     * Specifies whether the foreign key checks of the target database shall be switched off
+     * while inserting the data. See the <code>writeDataToDatabase</code> sub task for details.
+     *
+     * @param useFastLoadMode <code>true</code> if the fast load mode shall be used
+     * @ant.not-required Per default the fast load mode is not used.
+     */
+    public void setUseFastLoadMode(boolean useFastLoadMode)
+    {
+        _dataIO.setUseFastLoadMode(useFastLoadMode);
+    }
+
+    /**
+     * Specifies whether the foreign key order shall be honored when inserting the data into
+     * the target database.
+     *
+     * @param ensureFKOrder <code>true</code> if the foreign key order shall be followed
+     * @ant.not-required Per default foreign key order is honored.
+     */
+    public void setEnsureForeignKeyOrder(boolean ensureFKOrder)
+    {
+        _dataIO.setEnsureFKOrder(ensureFKOrder);
+    }
+
+    /**
+     * Specifies the maximum number of tables that are read in parallel from the source
+     * database. Only tables that do not depend on each other via foreign keys are read in
+     * parallel, and each of them uses its own connection.
+     *
+     * @param copyThreads The number of tables
+     * @ant.not-required Per default the tables are read one after the other.
+     */
+    public void setCopyThreads(int copyThreads)
+    {
+        _dataIO.setCopyThreads(copyThreads);
+    }
+
+    /**
+     * Specifies the maximum number of table groups that are inserted in parallel into the target database. The
+     * tables are grouped so that tables which reference each other in a cycle, or which need
+     * the identity values generated for the rows that they reference, are in the same group.
+     * A group is only inserted after the groups that it references. Each worker uses its own
+     * connection.
+     *
+     * @param loadThreads The number of table groups
+     * @ant.not-required Per default all rows are inserted via one connection.
+     */
+    public void setLoadThreads(int loadThreads)
+    {
+        _dataIO.setLoadThreads(loadThreads);
+    }
+
+    /**
+     * Specifies the interval in seconds in which the progress of the copying is logged. See
+     * the <code>writeDataToDatabase</code> sub task for details.
+     * 
+     * @param progressLogInterval The interval in seconds; use <code>0</code> to switch off
+     *                            the progress log
+     * @ant.not-required Per default the progress is not logged.
+     */
+    public void setProgressLogInterval(int progressLogInterval)
+    {
+        if (_progressLogger != null)
+        {
+            _dataIO.removeProgressListener(_progressLogger);
+            _progressLogger = null;
+        }
+        if (progressLogInterval > 0)
+        {
+            _progressLogger = new LoggingProgressListener(_log, progressLogInterval * 1000L);
+            _dataIO.addProgressListener(_progressLogger);
+        }
+    }
+
+    /**
+     * Specifies whether the rows of the tables in the source database shall be counted for the
+     * progress log if the database has no statistics about the number of rows. The row counts are
+     * used to estimate the remaining time. This is only done if <code>progressLogInterval</code> is set.
+     * 
+     * @param countRowsForProgress <code>true</code> if the rows shall be counted
+     * @ant.not-required Per default the rows are not counted.
+     */
+    public void setCountRowsForProgress(boolean countRowsForProgress)
+    {
+        _dataIO.setCountRowsForProgress(countRowsForProgress);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void execute(DatabaseTaskBase task, Database model) throws BuildException
+    {
+        if (_targetPlatformConf.getDataSource() == null)
+        {
+            throw new BuildException("No target database specified.");
+        }
+
+        Platform sourcePlatform = getPlatform();
+
+        _targetPlatformConf.setUseDelimitedSqlIdentifiers(sourcePlatform.isDelimitedIdentifierModeOn());
+        _targetPlatformConf.setSortForeignKeys(sourcePlatform.isForeignKeysSorted());
+        _targetPlatformConf.setUseBatchedSqlEvaluation(sourcePlatform.isBatchedEvaluationOn());
+        _targetPlatformConf.setUseNativeBulkInsert(sourcePlatform.isNativeBulkInsertOn());
+
+        Platform targetPlatform = _targetPlatformConf.getPlatform();
+
+        targetPlatform.setIdentityOverrideOn(_useExplicitIdentityValues);
+        _dataIO.setFailOnError(isFailOnError());
+        try
+        {
+            _dataIO.copyData(sourcePlatform, model, targetPlatform);
+            _log.info("Copied data to database " + _targetPlatformConf.getDataSource().getUrl());
+        }
+        catch (Exception ex)
+        {
+            handleException(ex, ex.getMessage());
+        }
+    }
+}
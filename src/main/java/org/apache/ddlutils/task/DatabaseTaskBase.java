@@ -238,6 +238,54 @@ public abstract class DatabaseTaskBase extends Task
         _platformConf.setShutdownDatabase(shutdownDatabase);
     }
 
+    /**
+     * Determines whether SQL scripts are evaluated using JDBC statement batches.
+     *
+     * @return <code>true</code> if statement batches are used
+     */
+    public boolean isUseBatchedSqlEvaluation()
+    {
+        return _platformConf.isUseBatchedSqlEvaluation();
+    }
+
+    /**
+     * Specifies whether DdlUtils shall send the commands of the SQL scripts that it executes
+     * to the database in JDBC statement batches instead of one at a time. This reduces the
+     * number of round trips to the database, but is only used if both the database and the
+     * JDBC driver support it.
+     *
+     * @param useBatchedSqlEvaluation <code>true</code> if statement batches shall be used
+     * @ant.not-required Default is <code>false</code>.
+     */
+    public void setUseBatchedSqlEvaluation(boolean useBatchedSqlEvaluation)
+    {
+        _platformConf.setUseBatchedSqlEvaluation(useBatchedSqlEvaluation);
+    }
+
+    /**
+     * Determines whether batch inserts use a database-specific bulk insertion mechanism.
+     *
+     * @return <code>true</code> if native bulk inserts are used
+     */
+    public boolean isUseNativeBulkInsert()
+    {
+        return _platformConf.isUseNativeBulkInsert();
+    }
+
+    /**
+     * Specifies whether DdlUtils shall use a database-specific bulk insertion mechanism such as
+     * PostgreSql's <code>COPY</code> when inserting data in batch mode. This is only used if both
+     * the database and the JDBC driver support it. Note that if the connections come from a
+     * connection pool, then the pool might have to allow access to the underlying connections.
+     *
+     * @param useNativeBulkInsert <code>true</code> if native bulk inserts shall be used
+     * @ant.not-required Default is <code>false</code>.
+     */
+    public void setUseNativeBulkInsert(boolean useNativeBulkInsert)
+    {
+        _platformConf.setUseNativeBulkInsert(useNativeBulkInsert);
+    }
+
     /**
      * Adds a command.
      * 
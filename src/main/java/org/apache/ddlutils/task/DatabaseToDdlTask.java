@@ -203,6 +203,16 @@ public class DatabaseToDdlTask extends DatabaseTaskBase
         addCommand(command);
     }
 
+    /**
+     * Adds the "copy data to another database"-command.
+     * 
+     * @param command The command
+     */
+    public void addCopyData(CopyDataCommand command)
+    {
+        addCommand(command);
+    }
+
     /**
      * Adds the "write data into file"-command.
      * 
@@ -213,6 +223,16 @@ public class DatabaseToDdlTask extends DatabaseTaskBase
         addCommand(command);
     }
 
+    /**
+     * Adds the "write data into CSV files"-command.
+     * 
+     * @param command The command
+     */
+    public void addWriteDataToCsv(WriteDataToCsvCommand command)
+    {
+        addCommand(command);
+    }
+
     /**
      * Adds the "drop tables"-command.
      * 
@@ -180,6 +180,16 @@ public class DdlToDatabaseTask extends DatabaseTaskBase
         addCommand(command);
     }
 
+    /**
+     * Adds the "copy data to another database"-command.
+     * 
+     * @param command The command
+     */
+    public void addCopyData(CopyDataCommand command)
+    {
+        addCommand(command);
+    }
+
     /**
      * Adds the "write data to file"-command.
      * 
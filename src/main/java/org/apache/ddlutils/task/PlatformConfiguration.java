@@ -43,6 +43,10 @@ public class PlatformConfiguration
     private boolean _sortForeignKeys;
     /** Whether to shutdown the database after the task has finished. */
     private boolean _shutdownDatabase;
+    /** Whether SQL scripts shall be evaluated using JDBC statement batches. */
+    private boolean _useBatchedSqlEvaluation = false;
+    /** Whether batch inserts shall use a database-specific bulk insertion mechanism. */
+    private boolean _useNativeBulkInsert;
     /** The catalog pattern. */
     private String _catalogPattern;
     /** The schema pattern. */
@@ -192,6 +196,50 @@ public class PlatformConfiguration
         _shutdownDatabase = shutdownDatabase;
     }
 
+    /**
+     * Determines whether SQL scripts shall be evaluated using JDBC statement batches
+     * where supported. Is <code>false</code> by default.
+     *
+     * @return <code>true</code> if statement batches shall be used
+     */
+    public boolean isUseBatchedSqlEvaluation()
+    {
+        return _useBatchedSqlEvaluation;
+    }
+
+    /**
+     * Specifies whether SQL scripts shall be evaluated using JDBC statement batches
+     * where supported.
+     *
+     * @param useBatchedSqlEvaluation <code>true</code> if statement batches shall be used
+     */
+    public void setUseBatchedSqlEvaluation(boolean useBatchedSqlEvaluation)
+    {
+        _useBatchedSqlEvaluation = useBatchedSqlEvaluation;
+    }
+
+    /**
+     * Determines whether batch inserts shall use a database-specific bulk insertion
+     * mechanism where available.
+     *
+     * @return <code>true</code> if native bulk inserts shall be used
+     */
+    public boolean isUseNativeBulkInsert()
+    {
+        return _useNativeBulkInsert;
+    }
+
+    /**
+     * Specifies whether batch inserts shall use a database-specific bulk insertion
+     * mechanism where available.
+     *
+     * @param useNativeBulkInsert <code>true</code> if native bulk inserts shall be used
+     */
+    public void setUseNativeBulkInsert(boolean useNativeBulkInsert)
+    {
+        _useNativeBulkInsert = useNativeBulkInsert;
+    }
+
     /**
      * Creates the platform for the configured database.
      * 
@@ -232,6 +280,8 @@ public class PlatformConfiguration
             _platform.setDataSource(_dataSource);
             _platform.setDelimitedIdentifierModeOn(isUseDelimitedSqlIdentifiers());
             _platform.setForeignKeysSorted(isSortForeignKeys());
+            _platform.setBatchedEvaluationOn(isUseBatchedSqlEvaluation());
+            _platform.setNativeBulkInsertOn(isUseNativeBulkInsert());
         }
 
         return _platform;
@@ -0,0 +1,79 @@
+package org.apache.ddlutils.task;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.apache.ddlutils.io.DatabaseDataIO;
+import org.apache.ddlutils.model.Database;
+import org.apache.tools.ant.BuildException;
+
+/**
+ * Reads the data currently in the tables in the live database (as specified by the
+ * enclosing task), and writes it as CSV files into a directory, one file per table.
+ * Where possible, the export facilities of the database are used for this.
+ * 
+ * @version $Revision: 289996 $
+ * @ant.task name="writeDataToCsv"
+ */
+public class WriteDataToCsvCommand extends DatabaseCommand
+{
+    /** The directory to output the data to. */
+    private File _outputDir;
+
+    /**
+     * Specifies the directory to write the CSV files to. The files are named after the tables.
+     * 
+     * @param outputDir The output directory
+     * @ant.required
+     */
+    public void setOutputDir(File outputDir)
+    {
+        _outputDir = outputDir;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isRequiringModel()
+    {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void execute(DatabaseTaskBase task, Database model) throws BuildException
+    {
+        if (_outputDir == null)
+        {
+            throw new BuildException("No output directory specified");
+        }
+        try
+        {
+            new DatabaseDataIO().writeDataToCsv(getPlatform(), model, _outputDir);
+            _log.info("Written data CSV files to directory " + _outputDir.getAbsolutePath());
+        }
+        catch (Exception ex)
+        {
+            handleException(ex, ex.getMessage());
+        }
+    }
+}
@@ -22,6 +22,7 @@ package org.apache.ddlutils.task;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.ddlutils.Platform;
 import org.apache.ddlutils.io.DataReader;
@@ -123,6 +124,127 @@ public class WriteDataToDatabaseCommand extends ConvertingDatabaseCommand
         getDataIO().setUseBatchMode(useBatchMode);
     }
 
+    /**
+     * Specifies whether the batch size shall be adjusted per table while inserting the data. The
+     * time that the batches take and the size of the rows are measured, and the batch size of each
+     * table is changed so that a batch takes about <code>targetBatchDuration</code> milliseconds.
+     * The <code>batchSize</code> is used as the starting point.<br/>
+     * This value is only used if <code>useBatchMode</code> is <code>true</code>.
+     *
+     * @param useAdaptiveBatchSize <code>true</code> if the batch size shall be adapted
+     * @ant.not-required Per default the batch size is fixed.
+     */
+    public void setAdaptiveBatchSize(boolean useAdaptiveBatchSize)
+    {
+        getDataIO().setUseAdaptiveBatchSize(useAdaptiveBatchSize);
+    }
+
+    /**
+     * The smallest batch size when the batch size is adapted.
+     *
+     * @param minBatchSize The number of objects
+     * @ant.not-required The default value is 16.
+     */
+    public void setMinBatchSize(int minBatchSize)
+    {
+        getDataIO().setMinBatchSize(new Integer(minBatchSize));
+    }
+
+    /**
+     * The largest batch size when the batch size is adapted.
+     *
+     * @param maxBatchSize The number of objects
+     * @ant.not-required The default value is 32768.
+     */
+    public void setMaxBatchSize(int maxBatchSize)
+    {
+        getDataIO().setMaxBatchSize(new Integer(maxBatchSize));
+    }
+
+    /**
+     * The time in milliseconds that a batch should take when the batch size is adapted.
+     *
+     * @param targetBatchDuration The time in milliseconds
+     * @ant.not-required The default value is 500.
+     */
+    public void setTargetBatchDuration(long targetBatchDuration)
+    {
+        getDataIO().setTargetBatchDuration(new Long(targetBatchDuration));
+    }
+
+    /**
+     * The maximum number of bytes in a batch when the batch size is adapted. The size of the
+     * rows is estimated from their values. Use <code>0</code> for no limit.
+     *
+     * @param maxBatchBytes The number of bytes
+     * @ant.not-required The default value is 8388608 (8 MB).
+     */
+    public void setMaxBatchBytes(long maxBatchBytes)
+    {
+        getDataIO().setMaxBatchBytes(new Long(maxBatchBytes));
+    }
+
+    /**
+     * Specifies the maximum number of data files that are read and inserted in parallel, each
+     * with its own connection. Files that contain data of tables referenced by other files are
+     * loaded before these, and files that may contain rows referencing each other are loaded
+     * together.
+     *
+     * @param fileThreads The number of files
+     * @ant.not-required Per default the files are loaded one after the other.
+     */
+    public void setFileThreads(int fileThreads)
+    {
+        getDataIO().setFileThreads(fileThreads);
+    }
+
+    /**
+     * Specifies the maximum number of table groups that are inserted in parallel. The
+     * tables are grouped so that tables which reference each other in a cycle, or which need
+     * the identity values generated for the rows that they reference, are in the same group.
+     * A group is only inserted after the groups that it references. Each worker uses its own
+     * connection.
+     *
+     * @param loadThreads The number of table groups
+     * @ant.not-required Per default all rows are inserted via one connection.
+     */
+    public void setLoadThreads(int loadThreads)
+    {
+        getDataIO().setLoadThreads(loadThreads);
+    }
+
+    /**
+     * Specifies whether the foreign key checks of the database shall be switched off while inserting
+     * the data, which can speed up large data imports considerably. Where possible, the maintenance
+     * of the non-unique indices is deferred as well. The checks are switched back on after all data
+     * has been inserted. Note that not all databases validate the inserted data at this point, and
+     * that some databases require special privileges for this. This setting has no effect for
+     * databases that do not allow to switch off the checks.
+     *
+     * @param useFastLoadMode <code>true</code> if the fast load mode shall be used
+     * @ant.not-required Per default the fast load mode is not used.
+     */
+    public void setUseFastLoadMode(boolean useFastLoadMode)
+    {
+        getDataIO().setUseFastLoadMode(useFastLoadMode);
+    }
+
+    /**
+     * Specifies whether the values of identity columns shall be reserved in blocks before the
+     * data is inserted, instead of letting the database generate them for each row and reading
+     * them back. The values of the columns that refer to these identity columns are adjusted
+     * accordingly. This allows to insert referenced rows in batches, and only has an effect for
+     * databases whose identity values come from sequences (e.g. Oracle and PostgreSQL) when
+     * <code>useExplicitIdentityValues</code> is not set.
+     *
+     * @param preallocateIdentityValues <code>true</code> if identity values shall be reserved in advance
+     * @ant.not-required Per default the values are generated by the database.
+     */
+    public void setPreallocateIdentityValues(boolean preallocateIdentityValues)
+    {
+        getDataIO().setPreallocateIdentityValues(preallocateIdentityValues);
+    }
+
     /**
      * Specifies whether the foreign key order shall be honored when inserting data into the database.
      * If not, DdlUtils will simply assume that the entry order is correct, i.e. that referenced rows
@@ -154,11 +276,11 @@ public class WriteDataToDatabaseCommand extends ConvertingDatabaseCommand
         platform.setIdentityOverrideOn(_useExplicitIdentityValues);
         try
         {
-            dataReader = getDataIO().getConfiguredDataReader(platform, model);
-            dataReader.getSink().start();
+            ArrayList dataFiles = new ArrayList();
+
             if (_singleDataFile != null)
             {
-                readSingleDataFile(task, dataReader, _singleDataFile);
+                dataFiles.add(_singleDataFile);
             }
             else
             {
@@ -171,9 +293,30 @@ public class WriteDataToDatabaseCommand extends ConvertingDatabaseCommand
     
                     for (int idx = 0; (files != null) && (idx < files.length); idx++)
                     {
-                        readSingleDataFile(task, dataReader, new File(fileSetDir, files[idx]));
+                        dataFiles.add(new File(fileSetDir, files[idx]));
+                    }
+                }
+            }
+            if ((getDataIO().getFileThreads() > 1) && (dataFiles.size() > 1))
+            {
+                readDataFilesInParallel(platform, model, dataFiles);
+            }
+            else
+            {
+                dataReader = getDataIO().getConfiguredDataReader(platform, model);
+                if (dataReader.getProgress() != null)
+                {
+                    // the size of the files is used to estimate the remaining time
+                    for (Iterator it = dataFiles.iterator(); it.hasNext();)
+                    {
+                        dataReader.getProgress().addExpectedBytes(((File)it.next()).length());
                     }
                 }
+                dataReader.getSink().start();
+                for (Iterator it = dataFiles.iterator(); it.hasNext();)
+                {
+                    readSingleDataFile(task, dataReader, (File)it.next());
+                }
             }
         }
         catch (Exception ex)
@@ -190,27 +333,75 @@ public class WriteDataToDatabaseCommand extends ConvertingDatabaseCommand
     }
 
     /**
-     * Reads a single data file.
+     * Reads the given data files in parallel where possible.
      * 
-     * @param task     The parent task
-     * @param reader   The data reader
-     * @param dataFile The schema file
+     * @param platform  The platform
+     * @param model     The model
+     * @param dataFiles The data files
      */
-    private void readSingleDataFile(Task task, DataReader reader, File dataFile) throws BuildException
+    private void readDataFilesInParallel(Platform platform, Database model, List dataFiles) throws BuildException
+    {
+        ArrayList paths = new ArrayList();
+
+        for (Iterator it = dataFiles.iterator(); it.hasNext();)
+        {
+            File dataFile = (File)it.next();
+
+            if (isReadableDataFile(dataFile))
+            {
+                paths.add(dataFile.getAbsolutePath());
+            }
+        }
+        try
+        {
+            getDataIO().writeDataToDatabase(platform, model, (String[])paths.toArray(new String[paths.size()]));
+            _log.info("Written data from " + paths.size() + " files to database");
+        }
+        catch (Exception ex)
+        {
+            handleException(ex, "Could not parse or write the data files");
+        }
+    }
+
+    /**
+     * Checks that the given data file exists and can be read, and logs an error if not.
+     * 
+     * @param dataFile The data file
+     * @return <code>true</code> if the file can be read
+     */
+    private boolean isReadableDataFile(File dataFile)
     {
         if (!dataFile.exists())
         {
             _log.error("Could not find data file " + dataFile.getAbsolutePath());
+            return false;
         }
         else if (!dataFile.isFile())
         {
             _log.error("Path " + dataFile.getAbsolutePath() + " does not denote a data file");
+            return false;
         }
         else if (!dataFile.canRead())
         {
             _log.error("Could not read data file " + dataFile.getAbsolutePath());
+            return false;
         }
         else
+        {
+            return true;
+        }
+    }
+
+    /**
+     * Reads a single data file.
+     * 
+     * @param task     The parent task
+     * @param reader   The data reader
+     * @param dataFile The schema file
+     */
+    private void readSingleDataFile(Task task, DataReader reader, File dataFile) throws BuildException
+    {
+        if (isReadableDataFile(dataFile))
         {
             try
             {
@@ -76,6 +76,19 @@ public class WriteDataToFileCommand extends ConvertingDatabaseCommand
         _determineSchema = determineSchema;
     }
 
+    /**
+     * Specifies whether the rows of the tables shall be counted for the progress log if the
+     * database has no statistics about the number of rows. The row counts are used to estimate
+     * the remaining time. This is only done if <code>progressLogInterval</code> is set.
+     * 
+     * @param countRowsForProgress <code>true</code> if the rows shall be counted
+     * @ant.not-required Per default the rows are not counted.
+     */
+    public void setCountRowsForProgress(boolean countRowsForProgress)
+    {
+        getDataIO().setCountRowsForProgress(countRowsForProgress);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,703 @@
+package org.apache.ddlutils.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A simple bounded connection pool for use with data sources that do not pool
+ * their connections themselves. The pool holds at most {@link #getMaxConnections()}
+ * connections at any time (in use or idle); further requests wait until a connection
+ * is released. Idle connections are validated before they are handed out again, and
+ * are closed when they have been idle for longer than {@link #getMaxIdleTime()}.<br/>
+ * The pool keeps its connections for one data source and set of credentials at a
+ * time. When a connection for a different data source or different credentials is
+ * requested, the idle connections are closed.
+ *
+ * @version $Revision: $
+ */
+public class ConnectionPool implements ConnectionProvider
+{
+    /** The log for this pool. */
+    private final Log _log = LogFactory.getLog(ConnectionPool.class);
+
+    /** The maximum number of connections. */
+    private int _maxConnections = 8;
+    /** The maximum time in milliseconds that a connection may be idle. */
+    private long _maxIdleTime = 60000;
+    /** The maximum time in milliseconds to wait for a free connection. */
+    private long _maxWait = 30000;
+    /** The query used to validate idle connections. */
+    private String _validationQuery;
+
+    /** The data source of the pooled connections. */
+    private DataSource _dataSource;
+    /** The username of the pooled connections. */
+    private String _username;
+    /** The password of the pooled connections. */
+    private String _password;
+    /** The idle connections, most recently used first. */
+    private final LinkedList _idleConnections = new LinkedList();
+    /** The connections that are in use, keyed by the connection objects. */
+    private final Map _activeConnections = new IdentityHashMap();
+    /** The number of connections that are being created or validated. */
+    private int _numPending;
+
+    /** The number of connections that were created. */
+    private long _numCreated;
+    /** The number of connections that were handed out. */
+    private long _numBorrowed;
+    /** The number of times that an idle connection was handed out. */
+    private long _numReused;
+    /** The number of idle connections that were closed because they were idle for too long. */
+    private long _numEvicted;
+    /** The number of idle connections that failed the validation. */
+    private long _numInvalid;
+    /** The number of requests that had to wait for a free connection. */
+    private long _numWaits;
+    /** The total time in milliseconds that requests waited for a free connection. */
+    private long _totalWaitTime;
+
+    /**
+     * Returns the maximum number of connections that this pool holds.
+     *
+     * @return The maximum number of connections
+     */
+    public synchronized int getMaxConnections()
+    {
+        return _maxConnections;
+    }
+
+    /**
+     * Specifies the maximum number of connections that this pool holds. Per default,
+     * at most 8 connections are used.
+     *
+     * @param maxConnections The maximum number of connections
+     */
+    public synchronized void setMaxConnections(int maxConnections)
+    {
+        if (maxConnections < 1)
+        {
+            throw new IllegalArgumentException("The pool needs to be able to hold at least one connection");
+        }
+        _maxConnections = maxConnections;
+        notifyAll();
+    }
+
+    /**
+     * Returns the maximum time in milliseconds that a connection may be idle before
+     * it is closed.
+     *
+     * @return The maximum idle time
+     */
+    public synchronized long getMaxIdleTime()
+    {
+        return _maxIdleTime;
+    }
+
+    /**
+     * Specifies the maximum time in milliseconds that a connection may be idle before
+     * it is closed. The default is one minute.
+     *
+     * @param maxIdleTime The maximum idle time
+     */
+    public synchronized void setMaxIdleTime(long maxIdleTime)
+    {
+        _maxIdleTime = maxIdleTime;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds that a request waits for a free connection.
+     *
+     * @return The maximum wait time; <code>0</code> means that requests wait indefinitely
+     */
+    public synchronized long getMaxWait()
+    {
+        return _maxWait;
+    }
+
+    /**
+     * Specifies the maximum time in milliseconds that a request waits for a free connection
+     * before it fails. The default is 30 seconds.
+     *
+     * @param maxWait The maximum wait time; use <code>0</code> to wait indefinitely
+     */
+    public synchronized void setMaxWait(long maxWait)
+    {
+        _maxWait = maxWait;
+    }
+
+    /**
+     * Returns the query that is used to validate idle connections before they are handed out.
+     *
+     * @return The validation query
+     */
+    public synchronized String getValidationQuery()
+    {
+        return _validationQuery;
+    }
+
+    /**
+     * Specifies a query that is used to validate idle connections before they are handed out,
+     * e.g. <code>SELECT 1</code>. If none is specified, then only closed connections are detected.
+     *
+     * @param validationQuery The validation query
+     */
+    public synchronized void setValidationQuery(String validationQuery)
+    {
+        _validationQuery = validationQuery;
+    }
+
+    /**
+     * Returns the number of connections that are currently in use.
+     *
+     * @return The number of active connections
+     */
+    public synchronized int getNumActive()
+    {
+        return _activeConnections.size();
+    }
+
+    /**
+     * Returns the number of connections that are currently idle.
+     *
+     * @return The number of idle connections
+     */
+    public synchronized int getNumIdle()
+    {
+        return _idleConnections.size();
+    }
+
+    /**
+     * Returns the number of connections that this pool has created.
+     *
+     * @return The number of created connections
+     */
+    public synchronized long getNumCreated()
+    {
+        return _numCreated;
+    }
+
+    /**
+     * Returns the number of times that a connection was handed out.
+     *
+     * @return The number of borrowed connections
+     */
+    public synchronized long getNumBorrowed()
+    {
+        return _numBorrowed;
+    }
+
+    /**
+     * Returns the number of times that an idle connection was handed out again
+     * instead of creating a new one.
+     *
+     * @return The number of reused connections
+     */
+    public synchronized long getNumReused()
+    {
+        return _numReused;
+    }
+
+    /**
+     * Returns the number of idle connections that were closed because they were
+     * idle for too long, or because a different data source was used.
+     *
+     * @return The number of evicted connections
+     */
+    public synchronized long getNumEvicted()
+    {
+        return _numEvicted;
+    }
+
+    /**
+     * Returns the number of idle connections that were closed because they
+     * failed the validation.
+     *
+     * @return The number of invalid connections
+     */
+    public synchronized long getNumInvalid()
+    {
+        return _numInvalid;
+    }
+
+    /**
+     * Returns the number of requests that had to wait for a free connection.
+     *
+     * @return The number of waits
+     */
+    public synchronized long getNumWaits()
+    {
+        return _numWaits;
+    }
+
+    /**
+     * Returns the total time in milliseconds that requests waited for a free connection.
+     *
+     * @return The total wait time
+     */
+    public synchronized long getTotalWaitTime()
+    {
+        return _totalWaitTime;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Connection getConnection(DataSource dataSource, String username, String password) throws SQLException
+    {
+        while (true)
+        {
+            PooledConnection pooledConn = acquire(dataSource, username, password);
+
+            if (pooledConn == null)
+            {
+                Connection connection = null;
+
+                try
+                {
+                    if (username == null)
+                    {
+                        connection = dataSource.getConnection();
+                    }
+                    else
+                    {
+                        connection = dataSource.getConnection(username, password);
+                    }
+                    pooledConn = new PooledConnection(connection, dataSource, username, password);
+                }
+                finally
+                {
+                    synchronized (this)
+                    {
+                        _numPending--;
+                        if (pooledConn == null)
+                        {
+                            notifyAll();
+                        }
+                        else
+                        {
+                            _numCreated++;
+                            _activeConnections.put(connection, pooledConn);
+                        }
+                    }
+                    if ((pooledConn == null) && (connection != null))
+                    {
+                        closeConnection(connection);
+                    }
+                }
+                return connection;
+            }
+            else if (isValid(pooledConn.getConnection()))
+            {
+                synchronized (this)
+                {
+                    _numPending--;
+                    _numReused++;
+                    _activeConnections.put(pooledConn.getConnection(), pooledConn);
+                }
+                return pooledConn.getConnection();
+            }
+            else
+            {
+                synchronized (this)
+                {
+                    _numPending--;
+                    _numInvalid++;
+                    notifyAll();
+                }
+                closeConnection(pooledConn.getConnection());
+            }
+        }
+    }
+
+    /**
+     * Reserves a connection for the caller. If there is an idle connection, then it is
+     * returned and has to be validated by the caller. Otherwise the caller may create
+     * a new connection, which is signalled by returning <code>null</code>. If the pool
+     * is exhausted, then this method waits until a connection is released.
+     *
+     * @param dataSource The data source
+     * @param username   The username
+     * @param password   The password
+     * @return The idle connection or <code>null</code> if a new one shall be created
+     */
+    private synchronized PooledConnection acquire(DataSource dataSource, String username, String password) throws SQLException
+    {
+        long waitStart = 0;
+
+        _numBorrowed++;
+        while (true)
+        {
+            if ((_dataSource != dataSource) ||
+                !ObjectUtils.equals(_username, username) ||
+                !ObjectUtils.equals(_password, password))
+            {
+                evict(0);
+                _dataSource = dataSource;
+                _username   = username;
+                _password   = password;
+            }
+            else
+            {
+                evict(_maxIdleTime);
+            }
+            if (!_idleConnections.isEmpty() || (_activeConnections.size() + _numPending < _maxConnections))
+            {
+                if (waitStart != 0)
+                {
+                    _totalWaitTime += System.currentTimeMillis() - waitStart;
+                }
+                _numPending++;
+                return _idleConnections.isEmpty() ? null : (PooledConnection)_idleConnections.removeFirst();
+            }
+
+            long now = System.currentTimeMillis();
+
+            if (waitStart == 0)
+            {
+                waitStart = now;
+                _numWaits++;
+            }
+
+            long remainingWait = _maxWait - (now - waitStart);
+
+            if ((_maxWait > 0) && (remainingWait <= 0))
+            {
+                _totalWaitTime += now - waitStart;
+                throw new SQLException("Timed out while waiting for a free connection");
+            }
+            try
+            {
+                wait(_maxWait > 0 ? remainingWait : 0);
+            }
+            catch (InterruptedException ex)
+            {
+                throw new SQLException("Interrupted while waiting for a free connection");
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void releaseConnection(Connection connection) throws SQLException
+    {
+        PooledConnection pooledConn = null;
+
+        synchronized (this)
+        {
+            pooledConn = (PooledConnection)_activeConnections.remove(connection);
+            if ((pooledConn == null) && isIdle(connection))
+            {
+                // already released, e.g. by a result set iterator and then by its creator
+                return;
+            }
+        }
+        if (pooledConn == null)
+        {
+            // not one of ours
+            if (!connection.isClosed())
+            {
+                connection.close();
+            }
+            return;
+        }
+
+        boolean reusable = false;
+
+        try
+        {
+            if (!connection.isClosed())
+            {
+                // work that the borrower did not commit must not leak to the next borrower
+                if (!connection.getAutoCommit())
+                {
+                    connection.rollback();
+                }
+                if (connection.getAutoCommit() != pooledConn.getAutoCommit())
+                {
+                    connection.setAutoCommit(pooledConn.getAutoCommit());
+                }
+                connection.clearWarnings();
+                reusable = true;
+            }
+        }
+        catch (SQLException ex)
+        {
+            _log.debug("Discarding connection that could not be reset", ex);
+        }
+
+        synchronized (this)
+        {
+            if (reusable &&
+                (pooledConn.getDataSource() == _dataSource) &&
+                ObjectUtils.equals(pooledConn.getUsername(), _username) &&
+                ObjectUtils.equals(pooledConn.getPassword(), _password))
+            {
+                pooledConn.setLastUseTime(System.currentTimeMillis());
+                _idleConnections.addFirst(pooledConn);
+            }
+            else
+            {
+                reusable = false;
+            }
+            notifyAll();
+        }
+        if (!reusable)
+        {
+            closeConnection(connection);
+        }
+    }
+
+    /**
+     * Closes the connections that have been idle for longer than the maximum idle time.
+     */
+    public synchronized void evictIdleConnections()
+    {
+        evict(_maxIdleTime);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized void close()
+    {
+        evict(0);
+    }
+
+    /**
+     * Closes the idle connections that have been idle for longer than the given time.
+     *
+     * @param maxIdleTime The maximum idle time
+     */
+    private void evict(long maxIdleTime)
+    {
+        long now = System.currentTimeMillis();
+
+        // the oldest connections are at the end
+        while (!_idleConnections.isEmpty())
+        {
+            PooledConnection pooledConn = (PooledConnection)_idleConnections.getLast();
+
+            if ((maxIdleTime > 0) && (now - pooledConn.getLastUseTime() <= maxIdleTime))
+            {
+                break;
+            }
+            _idleConnections.removeLast();
+            _numEvicted++;
+            closeConnection(pooledConn.getConnection());
+        }
+    }
+
+    /**
+     * Determines whether the given connection is one of the idle connections of this pool.
+     *
+     * @param connection The connection
+     * @return <code>true</code> if the connection is idle
+     */
+    private boolean isIdle(Connection connection)
+    {
+        for (Iterator it = _idleConnections.iterator(); it.hasNext();)
+        {
+            if (((PooledConnection)it.next()).getConnection() == connection)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines whether the given idle connection can still be used.
+     *
+     * @param connection The connection
+     * @return <code>true</code> if the connection is usable
+     */
+    private boolean isValid(Connection connection)
+    {
+        String validationQuery = getValidationQuery();
+
+        try
+        {
+            if (connection.isClosed())
+            {
+                return false;
+            }
+            if (validationQuery != null)
+            {
+                Statement stmt = connection.createStatement();
+
+                try
+                {
+                    stmt.execute(validationQuery);
+                }
+                finally
+                {
+                    stmt.close();
+                }
+            }
+            return true;
+        }
+        catch (SQLException ex)
+        {
+            _log.debug("Idle connection failed the validation", ex);
+            return false;
+        }
+    }
+
+    /**
+     * Closes the given connection, ignoring any errors.
+     *
+     * @param connection The connection
+     */
+    private void closeConnection(Connection connection)
+    {
+        try
+        {
+            if (!connection.isClosed())
+            {
+                connection.close();
+            }
+        }
+        catch (SQLException ex)
+        {
+            _log.debug("Ignoring exception that occurred while closing a pooled connection", ex);
+        }
+    }
+
+    /**
+     * Stores a connection of the pool together with the data it was created for.
+     */
+    private static class PooledConnection
+    {
+        /** The connection. */
+        private final Connection _connection;
+        /** The data source that created the connection. */
+        private final DataSource _dataSource;
+        /** The username for the connection. */
+        private final String _username;
+        /** The password for the connection. */
+        private final String _password;
+        /** The auto-commit mode of the connection when it was created. */
+        private final boolean _autoCommit;
+        /** The time when the connection was released the last time. */
+        private long _lastUseTime;
+
+        /**
+         * Creates a new pooled connection object.
+         *
+         * @param connection The connection
+         * @param dataSource The data source that created the connection
+         * @param username   The username for the connection
+         * @param password   The password for the connection
+         */
+        public PooledConnection(Connection connection, DataSource dataSource, String username, String password) throws SQLException
+        {
+            _connection = connection;
+            _dataSource = dataSource;
+            _username   = username;
+            _password   = password;
+            _autoCommit = connection.getAutoCommit();
+        }
+
+        /**
+         * Returns the connection.
+         *
+         * @return The connection
+         */
+        public Connection getConnection()
+        {
+            return _connection;
+        }
+
+        /**
+         * Returns the data source that created the connection.
+         *
+         * @return The data source
+         */
+        public DataSource getDataSource()
+        {
+            return _dataSource;
+        }
+
+        /**
+         * Returns the username for the connection.
+         *
+         * @return The username
+         */
+        public String getUsername()
+        {
+            return _username;
+        }
+
+        /**
+         * Returns the password for the connection.
+         *
+         * @return The password
+         */
+        public String getPassword()
+        {
+            return _password;
+        }
+
+        /**
+         * Returns the auto-commit mode of the connection when it was created.
+         *
+         * @return The auto-commit mode
+         */
+        public boolean getAutoCommit()
+        {
+            return _autoCommit;
+        }
+
+        /**
+         * Returns the time when the connection was released the last time.
+         *
+         * @return The time
+         */
+        public long getLastUseTime()
+        {
+            return _lastUseTime;
+        }
+
+        /**
+         * Sets the time when the connection was released the last time.
+         *
+         * @param lastUseTime The time
+         */
+        public void setLastUseTime(long lastUseTime)
+        {
+            _lastUseTime = lastUseTime;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.apache.ddlutils.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+/**
+ * Manages the connections that {@link JdbcSupport} uses when the caller does not
+ * hand in a connection. Implementations have to be usable by multiple threads
+ * at the same time.
+ *
+ * @version $Revision: $
+ */
+public interface ConnectionProvider
+{
+    /**
+     * Returns a connection for the given data source.
+     *
+     * @param dataSource The data source
+     * @param username   The username, or <code>null</code> if the data source shall
+     *                   use its default credentials
+     * @param password   The password
+     * @return The connection
+     */
+    public Connection getConnection(DataSource dataSource, String username, String password) throws SQLException;
+
+    /**
+     * Releases a connection that was obtained from this provider.
+     *
+     * @param connection The connection
+     */
+    public void releaseConnection(Connection connection) throws SQLException;
+
+    /**
+     * Closes all connections held by this provider that are not currently in use.
+     */
+    public void close();
+}
@@ -0,0 +1,68 @@
+package org.apache.ddlutils.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+/**
+ * The default connection provider which gets a connection from the data source
+ * for every request and closes it again when it is released. This is the
+ * right choice when the data source pools its connections itself.
+ *
+ * @version $Revision: $
+ */
+public class DataSourceConnectionProvider implements ConnectionProvider
+{
+    /**
+     * {@inheritDoc}
+     */
+    public Connection getConnection(DataSource dataSource, String username, String password) throws SQLException
+    {
+        if (username == null)
+        {
+            return dataSource.getConnection();
+        }
+        else
+        {
+            return dataSource.getConnection(username, password);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void releaseConnection(Connection connection) throws SQLException
+    {
+        if (!connection.isClosed())
+        {
+            connection.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void close()
+    {
+    }
+}
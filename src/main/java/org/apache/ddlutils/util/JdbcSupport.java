@@ -50,6 +50,10 @@ public abstract class JdbcSupport
     private String _password;
     /** The names of the currently borrowed connections (for debugging). */
     private HashSet _openConnectionNames = new HashSet();
+    /** The provider of the connections. */
+    private ConnectionProvider _connectionProvider = new DataSourceConnectionProvider();
+    /** The connections that are bound to the current thread. */
+    private final ThreadLocal _boundConnection = new ThreadLocal();
 
     // Properties
     //-------------------------------------------------------------------------                
@@ -115,34 +119,96 @@ public abstract class JdbcSupport
         _password = password;
     }
 
+    /**
+     * Returns the object that manages the connections used by this object.
+     * 
+     * @return The connection provider
+     */
+    public ConnectionProvider getConnectionProvider()
+    {
+        return _connectionProvider;
+    }
+
+    /**
+     * Sets the object that manages the connections used by this object. Per default,
+     * a new connection is requested from the data source for every operation, which
+     * is fast if the data source pools connections. For other data sources, a
+     * {@link ConnectionPool} can be used. Note that the previous provider is not closed.
+     * 
+     * @param connectionProvider The connection provider
+     */
+    public void setConnectionProvider(ConnectionProvider connectionProvider)
+    {
+        _connectionProvider = (connectionProvider == null ? new DataSourceConnectionProvider() : connectionProvider);
+    }
+
     // Implementation methods    
     //-------------------------------------------------------------------------                
 
     /**
-     * Returns a (new) JDBC connection from the data source.
+     * Binds a connection to the current thread which is then returned by {@link #borrowConnection()}
+     * in this thread until {@link #unbindConnectionFromThread()} is called. This allows to use a
+     * single connection for a sequence of operations without handing the connection to each of
+     * them. Calls to this method can be nested, and the connection is released when the outermost
+     * call to {@link #unbindConnectionFromThread()} happens.
+     * 
+     * @return The bound connection
+     */
+    public Connection bindConnectionToThread() throws DatabaseOperationException
+    {
+        BoundConnection boundConn = (BoundConnection)_boundConnection.get();
+
+        if (boundConn == null)
+        {
+            boundConn = new BoundConnection(borrowConnection());
+            _boundConnection.set(boundConn);
+        }
+        boundConn.increaseDepth();
+        return boundConn.getConnection();
+    }
+
+    /**
+     * Releases the connection bound to the current thread via {@link #bindConnectionToThread()}
+     * if this call matches the outermost call to that method.
+     */
+    public void unbindConnectionFromThread()
+    {
+        BoundConnection boundConn = (BoundConnection)_boundConnection.get();
+
+        if ((boundConn != null) && (boundConn.decreaseDepth() == 0))
+        {
+            _boundConnection.set(null);
+            returnConnection(boundConn.getConnection());
+        }
+    }
+
+    /**
+     * Returns a (new) JDBC connection from the data source, or the connection bound
+     * to the current thread if there is one.
      * 
      * @return The connection
      */
     public Connection borrowConnection() throws DatabaseOperationException
     {
+        BoundConnection boundConn = (BoundConnection)_boundConnection.get();
+
+        if (boundConn != null)
+        {
+            return boundConn.getConnection();
+        }
         try
         {
-            Connection connection = null;
+            Connection connection = _connectionProvider.getConnection(getDataSource(), _username, _password);
 
-            if (_username == null)
-            {
-                connection = getDataSource().getConnection();
-            }
-            else
-            {
-                connection = getDataSource().getConnection(_username, _password);
-            }
             if (_log.isDebugEnabled())
             {
                 String connName = connection.toString();
 
                 _log.debug("Borrowed connection "+connName+" from data source");
-                _openConnectionNames.add(connName);
+                synchronized (_openConnectionNames)
+                {
+                    _openConnectionNames.add(connName);
+                }
             }
             return connection;
         }
@@ -153,42 +219,52 @@ public abstract class JdbcSupport
     }
     
     /**
-     * Closes the given JDBC connection (returns it back to the pool if the datasource is poolable).
+     * Closes the given JDBC connection (returns it back to the pool if the datasource is poolable
+     * or a connection pool is used). The connection bound to the current thread is not closed.
      * 
      * @param connection The connection
      */
     public void returnConnection(Connection connection)
     {
+        BoundConnection boundConn = (BoundConnection)_boundConnection.get();
+
+        if ((boundConn != null) && (boundConn.getConnection() == connection))
+        {
+            return;
+        }
         try
         {
-            if ((connection != null) && !connection.isClosed())
+            // we also hand closed connections to the provider so that it can release them
+            if (connection != null)
             {
                 if (_log.isDebugEnabled())
                 {
-                    String connName = connection.toString();
-
-                    _openConnectionNames.remove(connName);
-
-                    StringBuffer logMsg = new StringBuffer();
+                    String       connName = connection.toString();
+                    StringBuffer logMsg   = new StringBuffer();
 
                     logMsg.append("Returning connection ");
                     logMsg.append(connName);
                     logMsg.append(" to data source.\nRemaining connections:");
-                    if (_openConnectionNames.isEmpty())
-                    {
-                        logMsg.append(" None");
-                    }
-                    else
+                    // the platform may be used by multiple threads at the same time
+                    synchronized (_openConnectionNames)
                     {
-                        for (Iterator it = _openConnectionNames.iterator(); it.hasNext();)
+                        _openConnectionNames.remove(connName);
+                        if (_openConnectionNames.isEmpty())
+                        {
+                            logMsg.append(" None");
+                        }
+                        else
                         {
-                          logMsg.append("\n    ");
-                          logMsg.append(it.next().toString());
+                            for (Iterator it = _openConnectionNames.iterator(); it.hasNext();)
+                            {
+                              logMsg.append("\n    ");
+                              logMsg.append(it.next().toString());
+                            }
                         }
                     }
                     _log.debug(logMsg.toString());
                 }
-                connection.close();
+                _connectionProvider.releaseConnection(connection);
             }
         }
         catch (Exception e)
@@ -217,4 +293,53 @@ public abstract class JdbcSupport
             }
         }
     }
+
+    /**
+     * Stores the connection bound to a thread.
+     */
+    private static class BoundConnection
+    {
+        /** The connection. */
+        private final Connection _connection;
+        /** The number of nested bind calls. */
+        private int _depth;
+
+        /**
+         * Creates a new bound connection object.
+         * 
+         * @param connection The connection
+         */
+        public BoundConnection(Connection connection)
+        {
+            _connection = connection;
+        }
+
+        /**
+         * Returns the connection.
+         * 
+         * @return The connection
+         */
+        public Connection getConnection()
+        {
+            return _connection;
+        }
+
+        /**
+         * Increases the number of nested bind calls.
+         */
+        public void increaseDepth()
+        {
+            _depth++;
+        }
+
+        /**
+         * Decreases the number of nested bind calls.
+         * 
+         * @return The remaining number of nested bind calls
+         */
+        public int decreaseDepth()
+        {
+            return --_depth;
+        }
+    }
 }
@@ -19,9 +19,18 @@ package org.apache.ddlutils.util;
  * under the License.
  */
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.apache.ddlutils.DdlUtilsException;
+
 /**
  * A statement tokenizer for SQL strings that splits only at delimiters that
- * are at the end of a line or the end of the SQL (row mode).  
+ * are at the end of a line or the end of the SQL (row mode).<br/>
+ * The SQL is read incrementally through a fixed-size buffer, so that only the current
+ * statement is held in memory. This allows to tokenize arbitrarily large scripts that
+ * are given as a {@link Reader}.
  * 
  * TODO: Add awareness of strings, so that semicolons within strings are not parsed
  * 
@@ -29,14 +38,19 @@ package org.apache.ddlutils.util;
  */
 public class SqlTokenizer
 {
-    /** The SQL to tokenize. */
-    private String  _sql;
-    /** The index of the last character in the string. */
-    private int     _lastCharIdx;
-    /** The last delimiter position in the string. */
-    private int     _lastDelimiterPos = -1;
-    /** The next delimiter position in the string. */
-    private int     _nextDelimiterPos = -1;
+    /** The default size of the read buffer. */
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /** The reader that provides the SQL to tokenize. */
+    private Reader  _reader;
+    /** The read buffer. */
+    private char[]  _buffer;
+    /** The position of the next unprocessed character in the buffer. */
+    private int     _bufferPos;
+    /** The number of valid characters in the buffer, or -1 if the end of the SQL was reached. */
+    private int     _bufferEnd;
+    /** The next statement if it has already been read. */
+    private String  _nextStatement;
     /** Whether there are no more tokens. */
     private boolean _finished;
 
@@ -47,8 +61,31 @@ public class SqlTokenizer
      */
     public SqlTokenizer(String sql)
     {
-        _sql         = sql;
-        _lastCharIdx = sql.length() - 1;
+        this(new StringReader(sql), Math.max(1, Math.min(sql.length(), DEFAULT_BUFFER_SIZE)));
+    }
+
+    /**
+     * Creates a new sql tokenizer that reads the sql from the given reader. Note that
+     * the tokenizer does not close the reader.
+     * 
+     * @param sqlReader The reader for the sql text
+     */
+    public SqlTokenizer(Reader sqlReader)
+    {
+        this(sqlReader, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new sql tokenizer that reads the sql from the given reader. Note that
+     * the tokenizer does not close the reader.
+     * 
+     * @param sqlReader  The reader for the sql text
+     * @param bufferSize The size of the read buffer
+     */
+    public SqlTokenizer(Reader sqlReader, int bufferSize)
+    {
+        _reader = sqlReader;
+        _buffer = new char[bufferSize];
     }
 
     /**
@@ -58,28 +95,19 @@ public class SqlTokenizer
      */
     public boolean hasMoreStatements()
     {
-        if (_finished)
+        if (!_finished && (_nextStatement == null))
         {
-            return false;
-        }
-        else
-        {
-            if (_nextDelimiterPos <= _lastDelimiterPos)
+            try
             {
-                _nextDelimiterPos = _sql.indexOf(';', _lastDelimiterPos + 1);
-                while ((_nextDelimiterPos >= 0) && (_nextDelimiterPos < _lastCharIdx))
-                {
-                    char nextChar = _sql.charAt(_nextDelimiterPos + 1);
-
-                    if ((nextChar == '\r') || (nextChar == '\n'))
-                    {
-                        break;
-                    }
-                    _nextDelimiterPos = _sql.indexOf(';', _nextDelimiterPos + 1);
-                }
+                _nextStatement = readStatement();
             }
-            return (_nextDelimiterPos >= 0) || (_lastDelimiterPos < _lastCharIdx);
+            catch (IOException ex)
+            {
+                throw new DdlUtilsException("Could not read the sql", ex);
+            }
+            _finished = (_nextStatement == null);
         }
+        return !_finished;
     }
 
     /**
@@ -93,17 +121,77 @@ public class SqlTokenizer
 
         if (hasMoreStatements())
         {
-            if (_nextDelimiterPos >= 0)
+            result         = _nextStatement;
+            _nextStatement = null;
+        }
+        return result;
+    }
+
+    /**
+     * Reads the next statement, i.e. the text up to the next delimiter that is followed
+     * by a line end or the end of the sql.
+     * 
+     * @return The statement or <code>null</code> if the end of the sql has been reached
+     */
+    private String readStatement() throws IOException
+    {
+        StringBuffer statement = null;
+
+        while (fillBuffer())
+        {
+            int startPos = _bufferPos;
+
+            if (statement == null)
+            {
+                statement = new StringBuffer();
+            }
+            while ((_bufferPos < _bufferEnd) && (_buffer[_bufferPos] != ';'))
             {
-                result            = _sql.substring(_lastDelimiterPos + 1, _nextDelimiterPos);
-                _lastDelimiterPos = _nextDelimiterPos;
+                _bufferPos++;
             }
-            else
+            statement.append(_buffer, startPos, _bufferPos - startPos);
+            if (_bufferPos < _bufferEnd)
             {
-                result    = _sql.substring(_lastDelimiterPos + 1);
-                _finished = true;
+                // we're at a delimiter, which only counts if it is followed by a line end
+                _bufferPos++;
+                if (!fillBuffer() || (_buffer[_bufferPos] == '\r') || (_buffer[_bufferPos] == '\n'))
+                {
+                    return statement.toString();
+                }
+                statement.append(';');
             }
         }
-        return result;
+        return statement == null ? null : statement.toString();
+    }
+
+    /**
+     * Makes sure that there are unprocessed characters in the buffer, if the
+     * sql has more characters.
+     * 
+     * @return <code>false</code> if the end of the sql has been reached
+     */
+    private boolean fillBuffer() throws IOException
+    {
+        if (_bufferPos < _bufferEnd)
+        {
+            return true;
+        }
+        else if (_bufferEnd < 0)
+        {
+            return false;
+        }
+        else
+        {
+            int numRead;
+
+            do
+            {
+                numRead = _reader.read(_buffer, 0, _buffer.length);
+            }
+            while (numRead == 0);
+            _bufferPos = 0;
+            _bufferEnd = numRead;
+            return numRead > 0;
+        }
     }
 }
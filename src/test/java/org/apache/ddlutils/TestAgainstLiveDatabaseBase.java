@@ -22,6 +22,7 @@ package org.apache.ddlutils;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.lang.reflect.Method;
@@ -52,6 +53,7 @@ import org.apache.ddlutils.dynabean.SqlDynaProperty;
 import org.apache.ddlutils.io.BinaryObjectsHelper;
 import org.apache.ddlutils.io.DataReader;
 import org.apache.ddlutils.io.DataToDatabaseSink;
+import org.apache.ddlutils.io.DatabaseDataIO;
 import org.apache.ddlutils.io.DatabaseIO;
 import org.apache.ddlutils.model.CloneHelper;
 import org.apache.ddlutils.model.Column;
@@ -527,6 +529,17 @@ public abstract class TestAgainstLiveDatabaseBase extends TestPlatformBase
         }
     }
 
+    /**
+     * Writes the given data into the database using the given data io object.
+     * 
+     * @param dataIO  The configured data io object
+     * @param dataXml The data xml
+     */
+    protected void writeData(DatabaseDataIO dataIO, String dataXml) throws Exception
+    {
+        dataIO.writeDataToDatabase(getPlatform(), getModel(), new Reader[] { new StringReader(dataXml) });
+    }
+
     /**
      * Drops the tables defined in the database model.
      */
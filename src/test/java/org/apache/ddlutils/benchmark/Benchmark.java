@@ -0,0 +1,107 @@
+package org.apache.ddlutils.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Base class for benchmarks that are run by the {@link BenchmarkRunner}. The runner
+ * calls {@link #setUp(BenchmarkData)} once, then {@link #prepareIteration()} and
+ * {@link #runIteration()} for every warmup and measured iteration, and finally
+ * {@link #tearDown()}. Only {@link #runIteration()} is timed.
+ *
+ * @version $Revision: $
+ */
+public abstract class Benchmark
+{
+    /** The data of the benchmark. */
+    private BenchmarkData _data;
+
+    /**
+     * Returns the name of this benchmark, which per default is the unqualified class
+     * name without the <code>Benchmark</code> suffix.
+     *
+     * @return The name
+     */
+    public String getName()
+    {
+        String name   = getClass().getName();
+        int    dotPos = name.lastIndexOf('.');
+
+        if (dotPos >= 0)
+        {
+            name = name.substring(dotPos + 1);
+        }
+        if (name.endsWith("Benchmark") && (name.length() > "Benchmark".length()))
+        {
+            name = name.substring(0, name.length() - "Benchmark".length());
+        }
+        return name;
+    }
+
+    /**
+     * Specifies whether this benchmark needs a live database. Such benchmarks are skipped
+     * if no database has been configured.
+     *
+     * @return <code>true</code> if the benchmark accesses a database
+     */
+    public boolean isLive()
+    {
+        return false;
+    }
+
+    /**
+     * Returns the data of this benchmark.
+     *
+     * @return The data
+     */
+    protected BenchmarkData getData()
+    {
+        return _data;
+    }
+
+    /**
+     * Prepares the benchmark. Redefine this method to do work that shall not be timed,
+     * but don't forget to call the base method.
+     *
+     * @param data The data of the benchmark
+     */
+    public void setUp(BenchmarkData data) throws Exception
+    {
+        _data = data;
+    }
+
+    /**
+     * Prepares the next iteration. This method is not timed.
+     */
+    public void prepareIteration() throws Exception
+    {}
+
+    /**
+     * Performs one iteration of the benchmarked operation.
+     *
+     * @return The number of items (e.g. rows or tables) that were processed in the iteration
+     */
+    public abstract int runIteration() throws Exception;
+
+    /**
+     * Cleans up after the benchmark.
+     */
+    public void tearDown() throws Exception
+    {}
+}
@@ -0,0 +1,335 @@
+package org.apache.ddlutils.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.ddlutils.Platform;
+import org.apache.ddlutils.io.DataWriter;
+import org.apache.ddlutils.io.DatabaseIO;
+import org.apache.ddlutils.model.Column;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.ForeignKey;
+import org.apache.ddlutils.model.IndexColumn;
+import org.apache.ddlutils.model.NonUniqueIndex;
+import org.apache.ddlutils.model.Reference;
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Generates a synthetic model and data for it, and provides them to the benchmarks. The model
+ * consists of the given number of tables, each with an integer primary key column, a foreign key
+ * to the previous table (except for the first table) with an index on it, and then columns of
+ * various types. Every table gets the same number of rows, and the foreign key values always
+ * reference existing rows, so the data can be inserted in table order.
+ *
+ * @version $Revision: $
+ */
+public class BenchmarkData
+{
+    /** The types of the generated data columns. */
+    private static final int[] COLUMN_TYPES = { Types.VARCHAR, Types.INTEGER, Types.DOUBLE, Types.TIMESTAMP, Types.DECIMAL, Types.DATE };
+
+    /** The platform, for the sql generation and the live benchmarks. */
+    private final Platform _platform;
+    /** The catalog to use when reading the model from the database. */
+    private String _catalog;
+    /** The schema to use when reading the model from the database. */
+    private String _schema;
+    /** The generated model. */
+    private final Database _model;
+    /** The number of rows per table. */
+    private final int _numRowsPerTable;
+    /** The generated rows, lazily created. */
+    private List _beans;
+    /** The model as XML, lazily created. */
+    private String _modelXml;
+    /** The data as XML, lazily created. */
+    private String _dataXml;
+
+    /**
+     * Creates the data for the benchmarks.
+     *
+     * @param platform          The platform
+     * @param numTables         The number of tables
+     * @param numColumns        The number of columns per table, including the primary and foreign key columns
+     * @param numRowsPerTable   The number of rows per table
+     */
+    public BenchmarkData(Platform platform, int numTables, int numColumns, int numRowsPerTable)
+    {
+        _platform        = platform;
+        _model           = createModel(numTables, Math.max(numColumns, 2));
+        _numRowsPerTable = numRowsPerTable;
+    }
+
+    /**
+     * Creates the synthetic model.
+     *
+     * @param numTables  The number of tables
+     * @param numColumns The number of columns per table
+     * @return The model
+     */
+    private static Database createModel(int numTables, int numColumns)
+    {
+        Database model = new Database("benchmark");
+
+        for (int tableIdx = 0; tableIdx < numTables; tableIdx++)
+        {
+            Table  table  = new Table();
+            Column pkCol  = new Column();
+
+            table.setName("BENCH_" + tableIdx);
+            pkCol.setName("ID");
+            pkCol.setTypeCode(Types.INTEGER);
+            pkCol.setPrimaryKey(true);
+            pkCol.setRequired(true);
+            table.addColumn(pkCol);
+
+            int firstDataColumnIdx = 1;
+
+            if (tableIdx > 0)
+            {
+                Table          prevTable = model.getTable(tableIdx - 1);
+                Column         fkCol     = new Column();
+                ForeignKey     fk        = new ForeignKey("BENCH_FK_" + tableIdx);
+                NonUniqueIndex index     = new NonUniqueIndex();
+
+                fkCol.setName("PARENT_ID");
+                fkCol.setTypeCode(Types.INTEGER);
+                table.addColumn(fkCol);
+                fk.setForeignTable(prevTable);
+                fk.addReference(new Reference(fkCol, prevTable.getColumn(0)));
+                table.addForeignKey(fk);
+                index.setName("BENCH_IDX_" + tableIdx);
+                index.addColumn(new IndexColumn(fkCol));
+                table.addIndex(index);
+                firstDataColumnIdx = 2;
+            }
+            for (int columnIdx = firstDataColumnIdx; columnIdx < numColumns; columnIdx++)
+            {
+                Column column   = new Column();
+                int    typeCode = COLUMN_TYPES[columnIdx % COLUMN_TYPES.length];
+
+                column.setName("COL_" + columnIdx);
+                column.setTypeCode(typeCode);
+                if (typeCode == Types.VARCHAR)
+                {
+                    column.setSize("64");
+                }
+                else if (typeCode == Types.DECIMAL)
+                {
+                    column.setSizeAndScale(15, 2);
+                }
+                table.addColumn(column);
+            }
+            model.addTable(table);
+        }
+        model.initialize();
+        return model;
+    }
+
+    /**
+     * Returns the platform.
+     *
+     * @return The platform
+     */
+    public Platform getPlatform()
+    {
+        return _platform;
+    }
+
+    /**
+     * Returns the catalog to use when reading the model from the database.
+     *
+     * @return The catalog or <code>null</code>
+     */
+    public String getCatalog()
+    {
+        return _catalog;
+    }
+
+    /**
+     * Sets the catalog to use when reading the model from the database.
+     *
+     * @param catalog The catalog
+     */
+    public void setCatalog(String catalog)
+    {
+        _catalog = catalog;
+    }
+
+    /**
+     * Returns the schema to use when reading the model from the database.
+     *
+     * @return The schema or <code>null</code>
+     */
+    public String getSchema()
+    {
+        return _schema;
+    }
+
+    /**
+     * Sets the schema to use when reading the model from the database.
+     *
+     * @param schema The schema
+     */
+    public void setSchema(String schema)
+    {
+        _schema = schema;
+    }
+
+    /**
+     * Returns the generated model.
+     *
+     * @return The model
+     */
+    public Database getModel()
+    {
+        return _model;
+    }
+
+    /**
+     * Returns the number of rows that are generated per table.
+     *
+     * @return The number of rows
+     */
+    public int getNumRowsPerTable()
+    {
+        return _numRowsPerTable;
+    }
+
+    /**
+     * Returns the generated rows, in the order of the tables.
+     *
+     * @return The rows as dyna beans
+     */
+    public synchronized List getBeans()
+    {
+        if (_beans == null)
+        {
+            List beans = new ArrayList();
+
+            for (int tableIdx = 0; tableIdx < _model.getTableCount(); tableIdx++)
+            {
+                Table table = _model.getTable(tableIdx);
+
+                for (int rowIdx = 0; rowIdx < _numRowsPerTable; rowIdx++)
+                {
+                    beans.add(createBean(table, rowIdx));
+                }
+            }
+            _beans = Collections.unmodifiableList(beans);
+        }
+        return _beans;
+    }
+
+    /**
+     * Creates the bean for one row.
+     *
+     * @param table  The table
+     * @param rowIdx The index of the row
+     * @return The bean
+     */
+    private DynaBean createBean(Table table, int rowIdx)
+    {
+        DynaBean bean = _model.createDynaBeanFor(table);
+
+        for (int columnIdx = 0; columnIdx < table.getColumnCount(); columnIdx++)
+        {
+            Column column = table.getColumn(columnIdx);
+            Object value;
+
+            if (column.isPrimaryKey() || "PARENT_ID".equals(column.getName()))
+            {
+                value = new Integer(rowIdx);
+            }
+            else
+            {
+                switch (column.getTypeCode())
+                {
+                    case Types.VARCHAR:
+                        value = "Value " + rowIdx + " of " + column.getName();
+                        break;
+                    case Types.INTEGER:
+                        value = new Integer(rowIdx * columnIdx);
+                        break;
+                    case Types.DOUBLE:
+                        value = new Double(rowIdx / 7.0);
+                        break;
+                    case Types.TIMESTAMP:
+                        value = new Timestamp(1000000000000L + rowIdx * 1000L);
+                        break;
+                    case Types.DECIMAL:
+                        value = new BigDecimal(rowIdx + ".25");
+                        break;
+                    default:
+                        value = Date.valueOf("2000-01-" + (10 + rowIdx % 19));
+                        break;
+                }
+            }
+            bean.set(column.getName(), value);
+        }
+        return bean;
+    }
+
+    /**
+     * Returns the model in the DdlUtils XML format.
+     *
+     * @return The XML
+     */
+    public synchronized String getModelXml()
+    {
+        if (_modelXml == null)
+        {
+            StringWriter writer = new StringWriter();
+
+            new DatabaseIO().write(_model, writer);
+            _modelXml = writer.toString();
+        }
+        return _modelXml;
+    }
+
+    /**
+     * Returns the generated rows in the DdlUtils data XML format.
+     *
+     * @return The XML
+     */
+    public synchronized String getDataXml()
+    {
+        if (_dataXml == null)
+        {
+            StringWriter writer     = new StringWriter();
+            DataWriter   dataWriter = new DataWriter(writer, "UTF-8");
+
+            dataWriter.writeDocumentStart();
+            dataWriter.write(getBeans());
+            dataWriter.writeDocumentEnd();
+            _dataXml = writer.toString();
+        }
+        return _dataXml;
+    }
+}
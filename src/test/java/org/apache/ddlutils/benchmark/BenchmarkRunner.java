@@ -0,0 +1,334 @@
+package org.apache.ddlutils.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.beanutils.BeanUtils;
+import org.apache.commons.dbcp.BasicDataSource;
+import org.apache.ddlutils.Platform;
+import org.apache.ddlutils.PlatformFactory;
+import org.apache.ddlutils.metrics.Statistic;
+import org.apache.ddlutils.platform.hsqldb.HsqlDbPlatform;
+
+/**
+ * Runs benchmarks for the hot paths of DdlUtils against a synthetic model and data, and prints
+ * the time per iteration and the throughput. The runner is configured via system properties:
+ * <table>
+ *   <tr><td><code>ddlutils.benchmark.tables</code></td><td>The number of tables, 50 per default</td></tr>
+ *   <tr><td><code>ddlutils.benchmark.columns</code></td><td>The number of columns per table, 10 per default</td></tr>
+ *   <tr><td><code>ddlutils.benchmark.rows</code></td><td>The number of rows per table, 1000 per default</td></tr>
+ *   <tr><td><code>ddlutils.benchmark.warmupIterations</code></td><td>The number of untimed iterations, 3 per default</td></tr>
+ *   <tr><td><code>ddlutils.benchmark.iterations</code></td><td>The number of timed iterations, 10 per default</td></tr>
+ *   <tr><td><code>ddlutils.benchmark.include</code></td><td>A regular expression that selects the benchmarks by name</td></tr>
+ *   <tr><td><code>ddlutils.benchmark.platform</code></td><td>The platform used for the sql generation if no database is configured</td></tr>
+ *   <tr><td><code>jdbc.properties.file</code></td><td>The jdbc properties of the database to run the live benchmarks against,
+ *                                                 in the same format as for the tests</td></tr>
+ * </table>
+ * The live benchmarks are skipped if no database is configured. Use a scratch database for them
+ * as they drop and create the <code>BENCH_*</code> tables.
+ *
+ * @version $Revision: $
+ */
+public class BenchmarkRunner
+{
+    /** The prefix of the system properties that configure the runner. */
+    public static final String PROPERTY_PREFIX = "ddlutils.benchmark.";
+    /** The name of the system property that specifies the jdbc properties file. */
+    public static final String JDBC_PROPERTIES_PROPERTY = "jdbc.properties.file";
+    /** The prefix of the jdbc properties that configure the data source. */
+    private static final String DATASOURCE_PROPERTY_PREFIX = "datasource.";
+
+    /** The number of untimed iterations. */
+    private int _numWarmupIterations = 3;
+    /** The number of timed iterations. */
+    private int _numIterations = 10;
+    /** The pattern that selects the benchmarks to run, if any. */
+    private Pattern _includePattern;
+    /** The stream to print the results to. */
+    private PrintStream _output = System.out;
+
+    /**
+     * Returns the benchmarks that are available.
+     *
+     * @return The benchmarks
+     */
+    public static Benchmark[] getAllBenchmarks()
+    {
+        return new Benchmark[] {
+                   new DataReaderBenchmark(),
+                   new DataWriterBenchmark(),
+                   new DatabaseIOReadBenchmark(),
+                   new DatabaseIOWriteBenchmark(),
+                   new ModelComparatorBenchmark(),
+                   new CreateTablesBenchmark(),
+                   new InsertBenchmark(),
+                   new ResultSetIterationBenchmark(),
+                   new ReadModelBenchmark()
+               };
+    }
+
+    /**
+     * Sets the number of untimed iterations that are run before the timed ones.
+     *
+     * @param numWarmupIterations The number of warmup iterations
+     */
+    public void setNumWarmupIterations(int numWarmupIterations)
+    {
+        _numWarmupIterations = numWarmupIterations;
+    }
+
+    /**
+     * Sets the number of timed iterations.
+     *
+     * @param numIterations The number of iterations
+     */
+    public void setNumIterations(int numIterations)
+    {
+        _numIterations = numIterations;
+    }
+
+    /**
+     * Sets the regular expression that selects the benchmarks to run by their names.
+     *
+     * @param includePattern The regular expression, or <code>null</code> to run all benchmarks
+     */
+    public void setIncludePattern(String includePattern)
+    {
+        _includePattern = includePattern == null ? null : Pattern.compile(includePattern);
+    }
+
+    /**
+     * Sets the stream to print the results to.
+     *
+     * @param output The stream, or <code>null</code> if the results shall not be printed
+     */
+    public void setOutput(PrintStream output)
+    {
+        _output = output;
+    }
+
+    /**
+     * Runs the given benchmarks. Live benchmarks are skipped if the platform has no data source.
+     *
+     * @param benchmarks The benchmarks
+     * @param data       The data for the benchmarks
+     * @return The results of the benchmarks that were run, as {@link Statistic} objects with the
+     *         iteration times in milliseconds
+     */
+    public List run(Benchmark[] benchmarks, BenchmarkData data) throws Exception
+    {
+        List result = new ArrayList();
+
+        for (int idx = 0; idx < benchmarks.length; idx++)
+        {
+            Benchmark benchmark = benchmarks[idx];
+
+            if (((_includePattern == null) || _includePattern.matcher(benchmark.getName()).find()) &&
+                (!benchmark.isLive() || (data.getPlatform().getDataSource() != null)))
+            {
+                result.add(run(benchmark, data));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Runs a single benchmark.
+     *
+     * @param benchmark The benchmark
+     * @param data      The data for the benchmark
+     * @return The iteration times in milliseconds
+     */
+    public Statistic run(Benchmark benchmark, BenchmarkData data) throws Exception
+    {
+        Statistic times    = new Statistic(benchmark.getName());
+        int       numItems = 0;
+
+        benchmark.setUp(data);
+        try
+        {
+            for (int idx = 0; idx < _numWarmupIterations; idx++)
+            {
+                benchmark.prepareIteration();
+                benchmark.runIteration();
+            }
+            for (int idx = 0; idx < _numIterations; idx++)
+            {
+                benchmark.prepareIteration();
+
+                long startTime = System.currentTimeMillis();
+
+                numItems = benchmark.runIteration();
+                times.add(System.currentTimeMillis() - startTime);
+            }
+        }
+        finally
+        {
+            benchmark.tearDown();
+        }
+        if (_output != null)
+        {
+            printResult(times, numItems);
+        }
+        return times;
+    }
+
+    /**
+     * Prints the result of a benchmark.
+     *
+     * @param times    The iteration times
+     * @param numItems The number of items processed per iteration
+     */
+    private void printResult(Statistic times, int numItems)
+    {
+        DecimalFormat format = new DecimalFormat("0.0");
+        StringBuffer  line   = new StringBuffer();
+
+        line.append(times.getName());
+        line.append(": ");
+        line.append(format.format(times.getMean()));
+        line.append(" ms/iteration (min ");
+        line.append(times.getMin());
+        line.append(", max ");
+        line.append(times.getMax());
+        line.append(", ");
+        line.append(times.getCount());
+        line.append(" iterations), ");
+        line.append(numItems);
+        line.append(" items/iteration");
+        if (times.getMean() > 0)
+        {
+            line.append(", ");
+            line.append(format.format(numItems * 1000.0 / times.getMean()));
+            line.append(" items/s");
+        }
+        _output.println(line.toString());
+    }
+
+    /**
+     * Reads the jdbc properties file specified by the system property <code>jdbc.properties.file</code>.
+     *
+     * @return The properties, or <code>null</code> if no file is specified
+     */
+    private static Properties readJdbcProperties() throws IOException
+    {
+        String propFile = System.getProperty(JDBC_PROPERTIES_PROPERTY);
+
+        if (propFile == null)
+        {
+            return null;
+        }
+
+        Properties  props      = new Properties();
+        InputStream propStream = BenchmarkRunner.class.getResourceAsStream(propFile);
+
+        if (propStream == null)
+        {
+            propStream = new FileInputStream(propFile);
+        }
+        try
+        {
+            props.load(propStream);
+        }
+        finally
+        {
+            propStream.close();
+        }
+        return props;
+    }
+
+    /**
+     * Creates the platform with a data source as configured by the given jdbc properties,
+     * or for the platform named by the system property <code>ddlutils.benchmark.platform</code>
+     * without a data source if there are no jdbc properties.
+     *
+     * @param props The jdbc properties, can be <code>null</code>
+     * @return The platform
+     */
+    private static Platform createPlatform(Properties props) throws Exception
+    {
+        if (props == null)
+        {
+            return PlatformFactory.createNewPlatformInstance(System.getProperty(PROPERTY_PREFIX + "platform", HsqlDbPlatform.DATABASENAME));
+        }
+
+        String     dataSourceClass = props.getProperty(DATASOURCE_PROPERTY_PREFIX + "class", BasicDataSource.class.getName());
+        DataSource dataSource      = (DataSource)Class.forName(dataSourceClass).newInstance();
+        String     platformName    = props.getProperty("ddlutils.platform");
+
+        for (Iterator it = props.entrySet().iterator(); it.hasNext();)
+        {
+            Map.Entry entry    = (Map.Entry)it.next();
+            String    propName = (String)entry.getKey();
+
+            if (propName.startsWith(DATASOURCE_PROPERTY_PREFIX) && !propName.equals(DATASOURCE_PROPERTY_PREFIX + "class"))
+            {
+                BeanUtils.setProperty(dataSource,
+                                      propName.substring(DATASOURCE_PROPERTY_PREFIX.length()),
+                                      entry.getValue());
+            }
+        }
+
+        Platform platform = platformName == null ? PlatformFactory.createNewPlatformInstance(dataSource)
+                                                 : PlatformFactory.createNewPlatformInstance(platformName);
+
+        platform.setDataSource(dataSource);
+        return platform;
+    }
+
+    /**
+     * Runs the benchmarks as configured by the system properties.
+     *
+     * @param args The command line arguments, which are ignored
+     */
+    public static void main(String[] args) throws Exception
+    {
+        Properties      props    = readJdbcProperties();
+        Platform        platform = createPlatform(props);
+        BenchmarkData   data     = new BenchmarkData(platform,
+                                                     Integer.getInteger(PROPERTY_PREFIX + "tables", 50).intValue(),
+                                                     Integer.getInteger(PROPERTY_PREFIX + "columns", 10).intValue(),
+                                                     Integer.getInteger(PROPERTY_PREFIX + "rows", 1000).intValue());
+        BenchmarkRunner runner   = new BenchmarkRunner();
+
+        if (props != null)
+        {
+            data.setCatalog(props.getProperty("ddlutils.catalog"));
+            data.setSchema(props.getProperty("ddlutils.schema"));
+        }
+        runner.setNumWarmupIterations(Integer.getInteger(PROPERTY_PREFIX + "warmupIterations", 3).intValue());
+        runner.setNumIterations(Integer.getInteger(PROPERTY_PREFIX + "iterations", 10).intValue());
+        runner.setIncludePattern(System.getProperty(PROPERTY_PREFIX + "include"));
+        runner.run(getAllBenchmarks(), data);
+    }
+}
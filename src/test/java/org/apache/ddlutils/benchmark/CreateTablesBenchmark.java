@@ -0,0 +1,47 @@
+package org.apache.ddlutils.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.StringWriter;
+
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.platform.SqlBuilder;
+
+/**
+ * Benchmarks {@link SqlBuilder#createTables(Database, org.apache.ddlutils.platform.CreationParameters, boolean)}
+ * by generating the sql for dropping and creating the tables of the generated model.
+ *
+ * @version $Revision: $
+ */
+public class CreateTablesBenchmark extends Benchmark
+{
+    /**
+     * {@inheritDoc}
+     */
+    public int runIteration() throws Exception
+    {
+        Database   model   = getData().getModel();
+        SqlBuilder builder = getData().getPlatform().getSqlBuilder();
+
+        builder.setWriter(new StringWriter());
+        builder.createTables(model, null, true);
+        return model.getTableCount();
+    }
+}
@@ -0,0 +1,73 @@
+package org.apache.ddlutils.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.StringReader;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.ddlutils.io.DataReader;
+import org.apache.ddlutils.io.DataSink;
+import org.apache.ddlutils.io.DataSinkException;
+
+/**
+ * Benchmarks {@link DataReader#read(java.io.Reader)} by parsing the data XML of all
+ * generated rows into a sink that only counts the beans.
+ *
+ * @version $Revision: $
+ */
+public class DataReaderBenchmark extends Benchmark
+{
+    /** The data XML. */
+    private String _dataXml;
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setUp(BenchmarkData data) throws Exception
+    {
+        super.setUp(data);
+        _dataXml = data.getDataXml();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int runIteration() throws Exception
+    {
+        final int[] numBeans   = new int[1];
+        DataReader  dataReader = new DataReader();
+
+        dataReader.setModel(getData().getModel());
+        dataReader.setSink(new DataSink() {
+            public void start() throws DataSinkException
+            {}
+
+            public void addBean(DynaBean bean) throws DataSinkException
+            {
+                numBeans[0]++;
+            }
+
+            public void end() throws DataSinkException
+            {}
+        });
+        dataReader.read(new StringReader(_dataXml));
+        return numBeans[0];
+    }
+}
@@ -0,0 +1,49 @@
+package org.apache.ddlutils.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.StringWriter;
+import java.util.List;
+
+import org.apache.ddlutils.io.DataWriter;
+
+/**
+ * Benchmarks {@link DataWriter#write(java.util.Collection)} by writing all generated
+ * rows as data XML.
+ *
+ * @version $Revision: $
+ */
+public class DataWriterBenchmark extends Benchmark
+{
+    /**
+     * {@inheritDoc}
+     */
+    public int runIteration() throws Exception
+    {
+        List         beans      = getData().getBeans();
+        StringWriter writer     = new StringWriter();
+        DataWriter   dataWriter = new DataWriter(writer, "UTF-8");
+
+        dataWriter.writeDocumentStart();
+        dataWriter.write(beans);
+        dataWriter.writeDocumentEnd();
+        return beans.size();
+    }
+}
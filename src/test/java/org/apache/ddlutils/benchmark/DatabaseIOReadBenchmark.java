@@ -0,0 +1,56 @@
+package org.apache.ddlutils.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.StringReader;
+
+import org.apache.ddlutils.io.DatabaseIO;
+
+/**
+ * Benchmarks {@link DatabaseIO#read(java.io.Reader)} by parsing the XML of the
+ * generated model.
+ *
+ * @version $Revision: $
+ */
+public class DatabaseIOReadBenchmark extends Benchmark
+{
+    /** The model XML. */
+    private String _modelXml;
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setUp(BenchmarkData data) throws Exception
+    {
+        super.setUp(data);
+        _modelXml = data.getModelXml();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int runIteration() throws Exception
+    {
+        DatabaseIO dbIO = new DatabaseIO();
+
+        dbIO.setValidateXml(false);
+        return dbIO.read(new StringReader(_modelXml)).getTableCount();
+    }
+}
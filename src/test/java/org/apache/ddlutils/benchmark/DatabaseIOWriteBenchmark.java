@@ -0,0 +1,45 @@
+package org.apache.ddlutils.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.StringWriter;
+
+import org.apache.ddlutils.io.DatabaseIO;
+import org.apache.ddlutils.model.Database;
+
+/**
+ * Benchmarks {@link DatabaseIO#write(Database, java.io.Writer)} by writing the
+ * generated model as XML.
+ *
+ * @version $Revision: $
+ */
+public class DatabaseIOWriteBenchmark extends Benchmark
+{
+    /**
+     * {@inheritDoc}
+     */
+    public int runIteration() throws Exception
+    {
+        Database model = getData().getModel();
+
+        new DatabaseIO().write(model, new StringWriter());
+        return model.getTableCount();
+    }
+}
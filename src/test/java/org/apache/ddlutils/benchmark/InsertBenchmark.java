@@ -0,0 +1,52 @@
+package org.apache.ddlutils.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+
+import org.apache.ddlutils.Platform;
+
+/**
+ * Benchmarks {@link Platform#insert(org.apache.ddlutils.model.Database, java.util.Collection)}
+ * by inserting all generated rows into empty tables.
+ *
+ * @version $Revision: $
+ */
+public class InsertBenchmark extends LiveDatabaseBenchmark
+{
+    /**
+     * {@inheritDoc}
+     */
+    public void prepareIteration() throws Exception
+    {
+        recreateModel();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int runIteration() throws Exception
+    {
+        List beans = getData().getBeans();
+
+        getData().getPlatform().insert(getData().getModel(), beans);
+        return beans.size();
+    }
+}
@@ -0,0 +1,63 @@
+package org.apache.ddlutils.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Base class for benchmarks that run against the configured database. The generated
+ * model is created in the database before the benchmark, and dropped afterwards.
+ *
+ * @version $Revision: $
+ */
+public abstract class LiveDatabaseBenchmark extends Benchmark
+{
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isLive()
+    {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setUp(BenchmarkData data) throws Exception
+    {
+        super.setUp(data);
+        recreateModel();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void tearDown() throws Exception
+    {
+        getData().getPlatform().dropModel(getData().getModel(), true);
+    }
+
+    /**
+     * Drops the tables of the generated model if they exist, and creates them anew.
+     */
+    protected void recreateModel()
+    {
+        getData().getPlatform().dropModel(getData().getModel(), true);
+        getData().getPlatform().createModel(getData().getModel(), false, false);
+    }
+}
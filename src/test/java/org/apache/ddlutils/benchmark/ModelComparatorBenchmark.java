@@ -0,0 +1,76 @@
+package org.apache.ddlutils.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Types;
+
+import org.apache.ddlutils.alteration.ModelComparator;
+import org.apache.ddlutils.model.CloneHelper;
+import org.apache.ddlutils.model.Column;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Benchmarks {@link ModelComparator#compare(Database, Database)} by comparing the generated
+ * model with a copy in which every table has an additional column, and every other table
+ * lost its last column.
+ *
+ * @version $Revision: $
+ */
+public class ModelComparatorBenchmark extends Benchmark
+{
+    /** The changed model. */
+    private Database _targetModel;
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setUp(BenchmarkData data) throws Exception
+    {
+        super.setUp(data);
+        _targetModel = new CloneHelper().clone(data.getModel());
+        for (int tableIdx = 0; tableIdx < _targetModel.getTableCount(); tableIdx++)
+        {
+            Table  table     = _targetModel.getTable(tableIdx);
+            Column newColumn = new Column();
+
+            if ((tableIdx % 2 == 1) && (table.getColumnCount() > 3))
+            {
+                table.removeColumn(table.getColumnCount() - 1);
+            }
+            newColumn.setName("ADDED_COL");
+            newColumn.setTypeCode(Types.VARCHAR);
+            newColumn.setSize("32");
+            table.addColumn(newColumn);
+        }
+        _targetModel.initialize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int runIteration() throws Exception
+    {
+        ModelComparator comparator = new ModelComparator(getData().getPlatform().getPlatformInfo(), null, false);
+
+        comparator.compare(getData().getModel(), _targetModel);
+        return _targetModel.getTableCount();
+    }
+}
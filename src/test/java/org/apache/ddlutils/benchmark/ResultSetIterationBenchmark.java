@@ -0,0 +1,66 @@
+package org.apache.ddlutils.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Iterator;
+
+import org.apache.ddlutils.Platform;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Benchmarks the iteration over query results via the iterator returned by
+ * {@link Platform#query(Database, String, Table[])}, by reading all rows of all tables.
+ *
+ * @version $Revision: $
+ */
+public class ResultSetIterationBenchmark extends LiveDatabaseBenchmark
+{
+    /**
+     * {@inheritDoc}
+     */
+    public void setUp(BenchmarkData data) throws Exception
+    {
+        super.setUp(data);
+        data.getPlatform().insert(data.getModel(), data.getBeans());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int runIteration() throws Exception
+    {
+        Platform platform = getData().getPlatform();
+        Database model    = getData().getModel();
+        int      numRows  = 0;
+
+        for (int tableIdx = 0; tableIdx < model.getTableCount(); tableIdx++)
+        {
+            Table table = model.getTable(tableIdx);
+
+            for (Iterator it = platform.query(model, "SELECT * FROM " + table.getName(), new Table[] { table }); it.hasNext();)
+            {
+                it.next();
+                numRows++;
+            }
+        }
+        return numRows;
+    }
+}
@@ -0,0 +1,92 @@
+package org.apache.ddlutils.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.ddlutils.PlatformFactory;
+import org.apache.ddlutils.metrics.Statistic;
+import org.apache.ddlutils.platform.hsqldb.HsqlDbPlatform;
+
+/**
+ * Runs the benchmarks that don't need a database at a small scale to make sure that
+ * they work.
+ *
+ * @version $Revision: $
+ */
+public class TestBenchmarkRunner extends TestCase
+{
+    /**
+     * Tests the generated data.
+     */
+    public void testBenchmarkData()
+    {
+        BenchmarkData data = new BenchmarkData(PlatformFactory.createNewPlatformInstance(HsqlDbPlatform.DATABASENAME), 3, 8, 5);
+
+        assertEquals(3, data.getModel().getTableCount());
+        assertEquals(8, data.getModel().getTable(1).getColumnCount());
+        assertEquals(0, data.getModel().getTable(0).getForeignKeyCount());
+        assertEquals(1, data.getModel().getTable(2).getForeignKeyCount());
+        assertEquals(15, data.getBeans().size());
+    }
+
+    /**
+     * Runs the benchmarks that don't need a database.
+     */
+    public void testOfflineBenchmarks() throws Exception
+    {
+        BenchmarkData   data   = new BenchmarkData(PlatformFactory.createNewPlatformInstance(HsqlDbPlatform.DATABASENAME), 4, 10, 20);
+        BenchmarkRunner runner = new BenchmarkRunner();
+
+        runner.setNumWarmupIterations(0);
+        runner.setNumIterations(2);
+        runner.setOutput(null);
+
+        List results = runner.run(BenchmarkRunner.getAllBenchmarks(), data);
+
+        assertEquals(6, results.size());
+        for (int idx = 0; idx < results.size(); idx++)
+        {
+            assertEquals(2, ((Statistic)results.get(idx)).getCount());
+        }
+    }
+
+    /**
+     * Tests the selection of the benchmarks by name.
+     */
+    public void testIncludePattern() throws Exception
+    {
+        BenchmarkData   data   = new BenchmarkData(PlatformFactory.createNewPlatformInstance(HsqlDbPlatform.DATABASENAME), 2, 4, 2);
+        BenchmarkRunner runner = new BenchmarkRunner();
+
+        runner.setNumWarmupIterations(0);
+        runner.setNumIterations(1);
+        runner.setOutput(null);
+        runner.setIncludePattern("^DatabaseIO");
+
+        List results = runner.run(BenchmarkRunner.getAllBenchmarks(), data);
+
+        assertEquals(2, results.size());
+        assertEquals("DatabaseIORead", ((Statistic)results.get(0)).getName());
+        assertEquals("DatabaseIOWrite", ((Statistic)results.get(1)).getName());
+    }
+}
@@ -0,0 +1,213 @@
+package org.apache.ddlutils.dynabean;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.apache.ddlutils.model.Column;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Tests the {@link DynaClassCache} of a model.
+ * 
+ * @version $Revision: $
+ */
+public class TestDynaClassCache extends TestCase
+{
+    /** The number of threads used in the tests. */
+    private static final int NUM_THREADS = 8;
+    /** The number of tables in the test model. */
+    private static final int NUM_TABLES = 50;
+
+    /** The test model. */
+    private Database _model;
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setUp()
+    {
+        _model = new Database("test");
+        for (int idx = 0; idx < NUM_TABLES; idx++)
+        {
+            Table  table  = new Table();
+            Column column = new Column();
+
+            table.setName("table" + idx);
+            column.setName("pk");
+            column.setPrimaryKey(true);
+            table.addColumn(column);
+            _model.addTable(table);
+        }
+    }
+
+    /**
+     * Tests that all threads get the same dyna class for a table.
+     */
+    public void testConcurrentAccess() throws Exception
+    {
+        final Set dynaClasses = Collections.synchronizedSet(new HashSet());
+        final Set failures    = Collections.synchronizedSet(new HashSet());
+        Thread[]  threads     = new Thread[NUM_THREADS];
+
+        for (int idx = 0; idx < threads.length; idx++)
+        {
+            threads[idx] = new Thread(new Runnable() {
+                public void run()
+                {
+                    try
+                    {
+                        for (int tableIdx = 0; tableIdx < NUM_TABLES; tableIdx++)
+                        {
+                            SqlDynaClass dynaClass = _model.getDynaClassFor("table" + tableIdx);
+
+                            if (dynaClass.getTable() != _model.getTable(tableIdx))
+                            {
+                                failures.add("Wrong dyna class for table" + tableIdx);
+                            }
+                            dynaClasses.add(dynaClass);
+                        }
+                    }
+                    catch (RuntimeException ex)
+                    {
+                        failures.add(ex.toString());
+                    }
+                }
+            });
+        }
+        for (int idx = 0; idx < threads.length; idx++)
+        {
+            threads[idx].start();
+        }
+        for (int idx = 0; idx < threads.length; idx++)
+        {
+            threads[idx].join();
+        }
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertEquals(NUM_TABLES, dynaClasses.size());
+    }
+
+    /**
+     * Tests that a new table object with the same name gets its own dyna class.
+     */
+    public void testReplacedTable()
+    {
+        Table        oldTable     = _model.getTable(0);
+        SqlDynaClass oldDynaClass = _model.getDynaClassFor(oldTable.getName());
+        Table        newTable     = new Table();
+        Column       column       = new Column();
+
+        newTable.setName(oldTable.getName());
+        column.setName("pk");
+        column.setPrimaryKey(true);
+        newTable.addColumn(column);
+        _model.removeTable(oldTable);
+        _model.addTable(0, newTable);
+
+        SqlDynaClass newDynaClass = _model.getDynaClassFor(newTable.getName());
+
+        assertNotSame(oldDynaClass, newDynaClass);
+        assertSame(newTable, newDynaClass.getTable());
+    }
+
+    /**
+     * Tests that the dyna classes of removed tables are evicted from the cache.
+     */
+    public void testRemovedTables()
+    {
+        Table        table0     = _model.getTable(0);
+        Table        table1     = _model.getTable(1);
+        Table        table2     = _model.getTable(2);
+        SqlDynaClass dynaClass0 = _model.getDynaClassFor(table0.getName());
+        SqlDynaClass dynaClass1 = _model.getDynaClassFor(table1.getName());
+        SqlDynaClass dynaClass2 = _model.getDynaClassFor(table2.getName());
+
+        _model.removeTable(table0);
+        _model.removeTable(0);
+        _model.removeTables(new Table[] { table2 });
+        assertNull(_model.getDynaClassFor(table0.getName()));
+
+        // when the tables are added again, they get new dyna classes
+        _model.addTable(table0);
+        _model.addTable(table1);
+        _model.addTable(table2);
+        assertNotSame(dynaClass0, _model.getDynaClassFor(table0.getName()));
+        assertNotSame(dynaClass1, _model.getDynaClassFor(table1.getName()));
+        assertNotSame(dynaClass2, _model.getDynaClassFor(table2.getName()));
+
+        SqlDynaClass dynaClass3 = _model.getDynaClassFor(_model.getTable(3).getName());
+        Table        table3     = _model.getTable(3);
+
+        _model.removeAllTablesExcept(new Table[] { table0 });
+        assertEquals(1, _model.getTableCount());
+        _model.addTable(table3);
+        assertNotSame(dynaClass3, _model.getDynaClassFor(table3.getName()));
+    }
+
+    /**
+     * Tests that resetting the cache creates new dyna classes for the tables.
+     */
+    public void testReset()
+    {
+        Table        table     = _model.getTable(0);
+        SqlDynaClass dynaClass = _model.getDynaClassFor(table.getName());
+
+        _model.resetDynaClassCache();
+
+        SqlDynaClass newDynaClass = _model.getDynaClassFor(table.getName());
+
+        assertNotSame(dynaClass, newDynaClass);
+        assertSame(table, newDynaClass.getTable());
+        assertSame(newDynaClass, _model.getDynaClassFor(table.getName()));
+    }
+
+    /**
+     * Tests that a deserialized model has a working dyna class cache.
+     */
+    public void testSerialization() throws Exception
+    {
+        _model.getDynaClassFor("table0");
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObjectOutputStream    out    = new ObjectOutputStream(buffer);
+
+        out.writeObject(_model);
+        out.close();
+
+        ObjectInputStream in    = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        Database          model = (Database)in.readObject();
+
+        in.close();
+
+        SqlDynaClass dynaClass = model.getDynaClassFor("table0");
+
+        assertSame(model.getTable(0), dynaClass.getTable());
+        assertSame(dynaClass, model.getDynaClassFor("table0"));
+    }
+}
@@ -0,0 +1,137 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Types;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.ddlutils.dynabean.SqlDynaClass;
+import org.apache.ddlutils.model.Column;
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Tests the {@link AdaptiveBatchSizer}.
+ *
+ * @version $Revision: $
+ */
+public class TestAdaptiveBatchSizer extends TestCase
+{
+    /**
+     * Creates a table with the given name.
+     *
+     * @param name The name
+     * @return The table
+     */
+    private Table createTable(String name)
+    {
+        Table table = new Table();
+
+        table.setName(name);
+        return table;
+    }
+
+    /**
+     * Tests that the batch size moves towards the target duration, changes by at most a factor
+     * of two per batch, and stays within the limits.
+     */
+    public void testTargetDuration()
+    {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer();
+        Table              fast  = createTable("fast");
+        Table              slow  = createTable("slow");
+
+        sizer.setInitialBatchSize(100);
+        sizer.setMinBatchSize(10);
+        sizer.setMaxBatchSize(1000);
+        sizer.setTargetBatchDuration(100);
+        sizer.setMaxBatchBytes(0);
+
+        assertEquals(100, sizer.getBatchSize(fast));
+        assertEquals(100, sizer.getBatchSize(slow));
+
+        // 0.1 ms per row would allow 1000 rows, but the size only doubles
+        assertEquals(200, sizer.batchExecuted(fast, 100, 1000, 10));
+        assertEquals(400, sizer.batchExecuted(fast, 200, 2000, 20));
+        assertEquals(800, sizer.batchExecuted(fast, 400, 4000, 40));
+        assertEquals(1000, sizer.batchExecuted(fast, 800, 8000, 80));
+        assertEquals(1000, sizer.batchExecuted(fast, 1000, 10000, 0));
+
+        // 5 ms per row allows 20 rows, but the size only halves
+        assertEquals(50, sizer.batchExecuted(slow, 100, 1000, 500));
+        assertEquals(25, sizer.batchExecuted(slow, 50, 500, 250));
+        assertEquals(20, sizer.batchExecuted(slow, 25, 250, 125));
+        assertEquals(20, sizer.batchExecuted(slow, 20, 200, 100));
+
+        // 20 ms per row on average is below the minimum
+        assertEquals(10, sizer.batchExecuted(slow, 20, 200, 700));
+        assertEquals(10, sizer.getBatchSize(slow));
+        assertEquals(1000, sizer.getBatchSize(fast));
+    }
+
+    /**
+     * Tests that the batch size is limited by the maximum number of bytes.
+     */
+    public void testMaxBatchBytes()
+    {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer();
+        Table              table = createTable("test");
+
+        sizer.setInitialBatchSize(100);
+        sizer.setMinBatchSize(1);
+        sizer.setMaxBatchSize(1000);
+        sizer.setTargetBatchDuration(1000);
+        sizer.setMaxBatchBytes(6000);
+
+        assertEquals(60, sizer.batchExecuted(table, 100, 10000, 1));
+        assertEquals(60, sizer.batchExecuted(table, 60, 6000, 1));
+    }
+
+    /**
+     * Tests the estimation of the size of beans.
+     */
+    public void testEstimateSize() throws Exception
+    {
+        Table  table     = createTable("test");
+        Column idColumn  = new Column();
+        Column txtColumn = new Column();
+        Column binColumn = new Column();
+
+        idColumn.setName("id");
+        idColumn.setTypeCode(Types.INTEGER);
+        idColumn.setPrimaryKey(true);
+        txtColumn.setName("txt");
+        txtColumn.setTypeCode(Types.VARCHAR);
+        binColumn.setName("bin");
+        binColumn.setTypeCode(Types.BINARY);
+        table.addColumn(idColumn);
+        table.addColumn(txtColumn);
+        table.addColumn(binColumn);
+
+        DynaBean bean = SqlDynaClass.newInstance(table).newInstance();
+
+        bean.set("id", new Integer(1));
+        bean.set("txt", "abcde");
+        bean.set("bin", new byte[20]);
+
+        assertEquals(8 + 10 + 20, AdaptiveBatchSizer.estimateSize(bean));
+    }
+}
@@ -0,0 +1,301 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+import junit.framework.Test;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.ddlutils.DatabaseOperationException;
+import org.apache.ddlutils.DdlUtilsException;
+import org.apache.ddlutils.TestAgainstLiveDatabaseBase;
+
+/**
+ * Tests the loading of data in bulk-load mode and in fast load mode.
+ * 
+ * @version $Revision: $
+ */
+public class TestBulkLoad extends TestAgainstLiveDatabaseBase
+{
+    /**
+     * Parameterized test case pattern.
+     * 
+     * @return The tests
+     */
+    public static Test suite() throws Exception
+    {
+        return getTests(TestBulkLoad.class);
+    }
+
+    /**
+     * Tests loading data in bulk-load mode, i.e. with the creation of indices and
+     * foreign keys deferred until after the data has been inserted.
+     */
+    public void testBulkLoad() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='20'/>\n"+
+            "    <index name='misc1_idx'>\n"+
+            "      <index-column name='avalue'/>\n"+
+            "    </index>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER'/>\n"+
+            "    <column name='avalue' type='INTEGER'/>\n"+
+            "    <foreign-key name='misc2_fk' foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "    <unique name='misc2_idx'>\n"+
+            "      <unique-column name='avalue'/>\n"+
+            "    </unique>\n"+
+            "  </table>\n"+
+            "</database>";
+        final String dataXml =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<data>\n"+
+            "  <misc2 pk='10' fk='1' avalue='100'/>\n"+
+            "  <misc1 pk='1' avalue='text1'/>\n"+
+            "  <misc1 pk='2' avalue='text2'/>\n"+
+            "  <misc2 pk='11' fk='2' avalue='101'/>\n"+
+            "</data>";
+
+        // we create the database normally so that the test cleans up after itself
+        createDatabase(modelXml);
+        dropDatabase();
+
+        DatabaseDataIO dataIO = new DatabaseDataIO();
+
+        dataIO.setIndexCreationThreads(2);
+        dataIO.writeModelAndDataToDatabase(getPlatform(),
+                                           getModel(),
+                                           getTableCreationParameters(getModel()),
+                                           false,
+                                           new Reader[] { new StringReader(dataXml) });
+
+        assertEquals(getAdjustedModel(),
+                     readModelFromDatabase("roundtriptest"));
+
+        List beans1 = getRows("misc1", "pk");
+        List beans2 = getRows("misc2", "pk");
+
+        assertEquals(2, beans1.size());
+        assertEquals(2, beans2.size());
+        assertEquals(new Integer(1), beans1.get(0), "pk");
+        assertEquals((Object)"text1", beans1.get(0), "avalue");
+        assertEquals(new Integer(2), beans1.get(1), "pk");
+        assertEquals((Object)"text2", beans1.get(1), "avalue");
+        assertEquals(new Integer(10), beans2.get(0), "pk");
+        assertEquals(new Integer(1), beans2.get(0), "fk");
+        assertEquals(new Integer(11), beans2.get(1), "pk");
+        assertEquals(new Integer(2), beans2.get(1), "fk");
+    }
+
+    /**
+     * Tests the insertion of data with switched off constraint checks.
+     */
+    public void testFastLoadMode() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='20'/>\n"+
+            "    <index name='misc1_idx'>\n"+
+            "      <index-column name='avalue'/>\n"+
+            "    </index>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER'/>\n"+
+            "    <foreign-key name='misc2_fk' foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+        final String dataXml =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<data>\n"+
+            "  <misc2 pk='10' fk='1'/>\n"+
+            "  <misc1 pk='1' avalue='text1'/>\n"+
+            "  <misc2 pk='11' fk='2'/>\n"+
+            "  <misc1 pk='2' avalue='text2'/>\n"+
+            "</data>";
+
+        createDatabase(modelXml);
+
+        DatabaseDataIO dataIO = new DatabaseDataIO();
+
+        dataIO.setUseFastLoadMode(true);
+        // the referencing rows come first, so we can only skip the fk ordering
+        // if the platform actually switches off the foreign key checks
+        dataIO.setEnsureFKOrder(!getPlatformInfo().isConstraintDisablingSupported());
+        writeData(dataIO, dataXml);
+
+        assertEquals(getAdjustedModel(),
+                     readModelFromDatabase("roundtriptest"));
+
+        List beans1 = getRows("misc1", "pk");
+        List beans2 = getRows("misc2", "pk");
+
+        assertEquals(2, beans1.size());
+        assertEquals(2, beans2.size());
+        assertEquals(new Integer(1), beans1.get(0), "pk");
+        assertEquals((Object)"text1", beans1.get(0), "avalue");
+        assertEquals(new Integer(2), beans1.get(1), "pk");
+        assertEquals((Object)"text2", beans1.get(1), "avalue");
+        assertEquals(new Integer(10), beans2.get(0), "pk");
+        assertEquals(new Integer(1), beans2.get(0), "fk");
+        assertEquals(new Integer(11), beans2.get(1), "pk");
+        assertEquals(new Integer(2), beans2.get(1), "fk");
+    }
+
+    /**
+     * Tests that the constraint checks are switched back on when the insertion of a row fails
+     * in the fast load mode.
+     */
+    public void testFastLoadModeWithError() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER'/>\n"+
+            "    <foreign-key name='misc2_fk' foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+        final String dataXml =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<data>\n"+
+            "  <misc1 pk='1'/>\n"+
+            "  <misc1 pk='1'/>\n"+
+            "</data>";
+
+        createDatabase(modelXml);
+
+        DatabaseDataIO dataIO = new DatabaseDataIO();
+
+        dataIO.setUseFastLoadMode(true);
+        dataIO.setUseBatchMode(false);
+        try
+        {
+            writeData(dataIO, dataXml);
+            fail();
+        }
+        catch (DdlUtilsException ex)
+        {
+            // expected because of the duplicate primary key
+        }
+
+        DynaBean bean = getModel().createDynaBeanFor("misc2", false);
+
+        bean.set("pk", new Integer(10));
+        bean.set("fk", new Integer(2));
+        try
+        {
+            getPlatform().insert(getModel(), bean);
+            fail();
+        }
+        catch (DatabaseOperationException ex)
+        {
+            // expected because the foreign key is checked again
+        }
+        assertEquals(1, getRows("misc1").size());
+        assertEquals(0, getRows("misc2").size());
+    }
+
+    /**
+     * Tests that the constraint checks are switched back on when a data file cannot be parsed
+     * in the fast load mode.
+     */
+    public void testFastLoadModeWithBrokenData() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER'/>\n"+
+            "    <foreign-key name='misc2_fk' foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+        final String dataXml1 =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<data>\n"+
+            "  <misc1 pk='1'/>\n"+
+            "</data>";
+        final String dataXml2 =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<data>\n"+
+            "  <misc1 pk='2'>\n"+
+            "</data>";
+
+        createDatabase(modelXml);
+
+        DatabaseDataIO dataIO = new DatabaseDataIO();
+
+        dataIO.setUseFastLoadMode(true);
+        try
+        {
+            dataIO.writeDataToDatabase(getPlatform(),
+                                       getModel(),
+                                       new Reader[] { new StringReader(dataXml1), new StringReader(dataXml2) });
+            fail();
+        }
+        catch (DdlUtilsException ex)
+        {
+            // expected because the second file is not well-formed
+        }
+
+        DynaBean bean = getModel().createDynaBeanFor("misc2", false);
+
+        bean.set("pk", new Integer(10));
+        bean.set("fk", new Integer(2));
+        try
+        {
+            getPlatform().insert(getModel(), bean);
+            fail();
+        }
+        catch (DatabaseOperationException ex)
+        {
+            // expected because the foreign key is checked again
+        }
+        assertEquals(0, getRows("misc2").size());
+    }
+}
@@ -0,0 +1,249 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+
+import junit.framework.Test;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.commons.dbcp.BasicDataSource;
+import org.apache.ddlutils.DatabaseOperationException;
+import org.apache.ddlutils.DdlUtilsException;
+import org.apache.ddlutils.Platform;
+import org.apache.ddlutils.PlatformFactory;
+import org.apache.ddlutils.TestAgainstLiveDatabaseBase;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
+import org.apache.ddlutils.platform.hsqldb.HsqlDbPlatform;
+
+/**
+ * Tests the copying of data from one database to another.
+ * 
+ * @version $Revision: $
+ */
+public class TestCopyData extends TestAgainstLiveDatabaseBase
+{
+    /**
+     * Parameterized test case pattern.
+     * 
+     * @return The tests
+     */
+    public static Test suite() throws Exception
+    {
+        return getTests(TestCopyData.class);
+    }
+
+    /**
+     * Tests the copying of data into another database, here an in-memory HSQLDB database.
+     */
+    public void testCopyData() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='20'/>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER'/>\n"+
+            "    <foreign-key foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "  <table name='misc3'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER'/>\n"+
+            "    <foreign-key foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        createDatabase(modelXml);
+        for (int idx = 0; idx < 50; idx++)
+        {
+            insertRow("misc1", new Object[] { new Integer(idx), "text" + idx });
+        }
+        for (int idx = 0; idx < 50; idx++)
+        {
+            insertRow("misc2", new Object[] { new Integer(idx), new Integer(49 - idx) });
+            insertRow("misc3", new Object[] { new Integer(idx), idx % 2 == 0 ? null : new Integer(idx) });
+        }
+
+        BasicDataSource dataSource = new BasicDataSource();
+
+        dataSource.setDriverClassName(HsqlDbPlatform.JDBC_DRIVER);
+        dataSource.setUrl("jdbc:hsqldb:mem:ddlutilscopytest");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+
+        Platform targetPlatform = PlatformFactory.createNewPlatformInstance(HsqlDbPlatform.DATABASENAME);
+
+        targetPlatform.setDataSource(dataSource);
+        targetPlatform.setDelimitedIdentifierModeOn(getPlatform().isDelimitedIdentifierModeOn());
+        targetPlatform.createModel(getModel(), false, false);
+        try
+        {
+            DatabaseDataIO dataIO = new DatabaseDataIO();
+
+            dataIO.setUseBatchMode(true);
+            dataIO.setBatchSize(new Integer(20));
+            dataIO.setCopyThreads(2);
+            dataIO.copyData(getPlatform(), getModel(), targetPlatform);
+
+            List misc1Rows = getRows(targetPlatform, getModel().getTable(0));
+            List misc2Rows = getRows(targetPlatform, getModel().getTable(1));
+            List misc3Rows = getRows(targetPlatform, getModel().getTable(2));
+
+            assertEquals(50, misc1Rows.size());
+            assertEquals(50, misc2Rows.size());
+            assertEquals(50, misc3Rows.size());
+            for (int idx = 0; idx < 50; idx++)
+            {
+                assertEquals(new Integer(idx), misc1Rows.get(idx), "pk");
+                assertEquals((Object)("text" + idx), misc1Rows.get(idx), "avalue");
+                assertEquals(new Integer(49 - idx), misc2Rows.get(idx), "fk");
+                assertEquals(idx % 2 == 0 ? null : new Integer(idx), misc3Rows.get(idx), "fk");
+            }
+        }
+        finally
+        {
+            targetPlatform.evaluateBatch("SHUTDOWN", true);
+        }
+    }
+
+    /**
+     * Tests that copying data switches the constraint checks of the target database back on
+     * and returns the connection if a table cannot be read from the source database.
+     */
+    public void testCopyDataWithError() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER'/>\n"+
+            "    <foreign-key foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+        // misc3 only exists in the target database
+        final String targetModelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER'/>\n"+
+            "    <foreign-key foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "  <table name='misc3'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER'/>\n"+
+            "    <foreign-key foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        createDatabase(modelXml);
+        for (int idx = 0; idx < 10; idx++)
+        {
+            insertRow("misc1", new Object[] { new Integer(idx) });
+            insertRow("misc2", new Object[] { new Integer(idx), new Integer(idx) });
+        }
+
+        Database        targetModel = parseDatabaseFromString(targetModelXml);
+        BasicDataSource dataSource  = new BasicDataSource();
+
+        dataSource.setDriverClassName(HsqlDbPlatform.JDBC_DRIVER);
+        dataSource.setUrl("jdbc:hsqldb:mem:ddlutilscopytest");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+
+        Platform targetPlatform = PlatformFactory.createNewPlatformInstance(HsqlDbPlatform.DATABASENAME);
+
+        targetPlatform.setDataSource(dataSource);
+        targetPlatform.setDelimitedIdentifierModeOn(getPlatform().isDelimitedIdentifierModeOn());
+        targetPlatform.createModel(targetModel, false, false);
+        try
+        {
+            DatabaseDataIO dataIO = new DatabaseDataIO();
+
+            dataIO.setUseFastLoadMode(true);
+            dataIO.setCopyThreads(2);
+            try
+            {
+                dataIO.copyData(getPlatform(), targetModel, targetPlatform);
+                fail();
+            }
+            catch (DdlUtilsException ex)
+            {
+                // expected because misc3 does not exist in the source database
+            }
+            assertEquals(0, dataSource.getNumActive());
+
+            DynaBean bean = targetModel.createDynaBeanFor("misc2", false);
+
+            bean.set("pk", new Integer(100));
+            bean.set("fk", new Integer(100));
+            try
+            {
+                targetPlatform.insert(targetModel, bean);
+                fail();
+            }
+            catch (DatabaseOperationException ex)
+            {
+                // expected because the foreign key is checked again
+            }
+        }
+        finally
+        {
+            targetPlatform.evaluateBatch("SHUTDOWN", true);
+        }
+    }
+
+    /**
+     * Reads the rows of the given table from the database of the given platform, ordered by
+     * the first column.
+     * 
+     * @param platform The platform
+     * @param table    The table
+     * @return The rows
+     */
+    private List getRows(Platform platform, Table table)
+    {
+        String sql = platform.getSqlBuilder().getSelectSql(table, table.getColumns()) + " ORDER BY 1";
+
+        return platform.fetch(getModel(), sql, new Table[] { table });
+    }
+}
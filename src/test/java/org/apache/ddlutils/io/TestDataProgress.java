@@ -0,0 +1,114 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link DataProgress} class.
+ *
+ * @version $Revision: $
+ */
+public class TestDataProgress extends TestCase
+{
+    /**
+     * Tests the row and byte counts and the notification of the listeners.
+     */
+    public void testCounts()
+    {
+        final List   events   = new ArrayList();
+        DataProgress progress = new DataProgress();
+
+        progress.addProgressListener(new ProgressListener() {
+            public void started(DataProgress progress)
+            {
+                events.add("started");
+            }
+
+            public void rowsProcessed(DataProgress progress, String tableName, int numRows)
+            {
+                events.add(tableName + ":" + numRows);
+            }
+
+            public void bytesProcessed(DataProgress progress, long numBytes)
+            {
+                events.add("bytes:" + numBytes);
+            }
+
+            public void finished(DataProgress progress)
+            {
+                events.add("finished");
+            }
+        });
+
+        progress.start();
+        progress.addRows("TableB", 3);
+        progress.addBytes(100);
+        progress.addRows("TableA", 1);
+        progress.addRows("TableB", 2);
+        progress.finish();
+
+        assertEquals(6, progress.getRowCount());
+        assertEquals(5, progress.getRowCount("TableB"));
+        assertEquals(0, progress.getRowCount("TableC"));
+        assertEquals(100, progress.getByteCount());
+        assertTrue(progress.isFinished());
+        assertEquals(2, progress.getTableNames().length);
+        assertEquals("TableA", progress.getTableNames()[0]);
+        assertEquals("TableB", progress.getTableNames()[1]);
+        assertEquals(6, events.size());
+        assertEquals("started", events.get(0));
+        assertEquals("TableB:3", events.get(1));
+        assertEquals("bytes:100", events.get(2));
+        assertEquals("finished", events.get(5));
+    }
+
+    /**
+     * Tests the estimation of the completed fraction.
+     */
+    public void testCompletedFraction()
+    {
+        DataProgress progress = new DataProgress();
+
+        progress.start();
+        assertEquals(-1.0, progress.getCompletedFraction(), 0.0);
+        assertEquals(-1, progress.getEstimatedTimeRemaining());
+
+        progress.addExpectedBytes(1000);
+        progress.addBytes(250);
+        assertEquals(0.25, progress.getCompletedFraction(), 0.0);
+
+        // row estimates take precedence over the bytes
+        progress.setEstimatedRowCount("TableA", 30);
+        progress.setEstimatedRowCount("TableB", 10);
+        progress.addRows("TableA", 20);
+        assertEquals(-1, progress.getEstimatedRowCount("TableC"));
+        assertEquals(30, progress.getEstimatedRowCount("TableA"));
+        assertEquals(0.5, progress.getCompletedFraction(), 0.0);
+        assertTrue(progress.getEstimatedTimeRemaining() >= 0);
+
+        progress.finish();
+        assertEquals(1.0, progress.getCompletedFraction(), 0.0);
+        assertEquals(0, progress.getEstimatedTimeRemaining());
+    }
+}
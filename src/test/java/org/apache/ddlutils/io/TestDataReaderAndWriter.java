@@ -436,6 +436,69 @@ public class TestDataReaderAndWriter extends TestCase
         }
     }
 
+    /**
+     * Tests the {@link DataReader#determineTables(File)} method.
+     */
+    public void testDetermineTables() throws Exception
+    {
+        Database model = readModel(
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='test'>\n" +
+            "  <table name='a'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "  </table>\n"+
+            "  <table name='b'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "  </table>\n"+
+            "  <table name='c'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "  </table>\n"+
+            "</database>");
+        DataReader dataReader = new DataReader();
+        File       tmpFile    = File.createTempFile("data", ".xml");
+
+        dataReader.setModel(model);
+        try
+        {
+            Writer writer = new BufferedWriter(new FileWriter(tmpFile));
+
+            writer.write("<data>\n"+
+                         "  <c id='1'/>\n"+
+                         "  <d id='1'/>\n"+
+                         "  <table table-name='a'><column column-name='id'>1</column></table>\n"+
+                         "  <c id='2'/>\n"+
+                         "</data>");
+            writer.close();
+
+            Table[] tables = dataReader.determineTables(tmpFile);
+
+            assertEquals(2, tables.length);
+            assertSame(model.getTable(0), tables[0]);
+            assertSame(model.getTable(2), tables[1]);
+
+            // the scan stops once there are rows of all tables, so the broken end is not read
+            writer = new BufferedWriter(new FileWriter(tmpFile));
+            writer.write("<data>\n"+
+                         "  <b id='1'/>\n"+
+                         "  <a id='1'/>\n"+
+                         "  <c id='1'/>\n"+
+                         "  <a id='2'>\n"+
+                         "</data>");
+            writer.close();
+
+            tables = dataReader.determineTables(tmpFile);
+
+            assertEquals(3, tables.length);
+            assertSame(model.getTable(0), tables[0]);
+            assertSame(model.getTable(1), tables[1]);
+            assertSame(model.getTable(2), tables[2]);
+        }
+        finally
+        {
+            tmpFile.delete();
+        }
+    }
+
     /**
      * Tests sub elements for columns.
      */
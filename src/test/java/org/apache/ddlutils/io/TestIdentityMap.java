@@ -0,0 +1,162 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.math.BigDecimal;
+
+import org.apache.ddlutils.TestBase;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Tests the {@link IdentityMap} class.
+ *
+ * @version $Revision: $
+ */
+public class TestIdentityMap extends TestBase
+{
+    /** The test model. */
+    private static final String MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='test'>\n"+
+        "  <table name='A'>\n"+
+        "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "  </table>\n"+
+        "  <table name='B'>\n"+
+        "    <column name='pk' type='VARCHAR' size='20' primaryKey='true' required='true'/>\n"+
+        "  </table>\n"+
+        "  <table name='C'>\n"+
+        "    <column name='pk1' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='pk2' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "  </table>\n"+
+        "</database>";
+
+    /**
+     * Creates an identity.
+     * 
+     * @param table  The table
+     * @param names  The column names
+     * @param values The column values
+     * @return The identity
+     */
+    private Identity createIdentity(Table table, String[] names, Object[] values)
+    {
+        Identity identity = new Identity(table);
+
+        for (int idx = 0; idx < names.length; idx++)
+        {
+            identity.setColumnValue(names[idx], values[idx]);
+        }
+        return identity;
+    }
+
+    /**
+     * Tests identities of the different kinds of primary keys.
+     */
+    public void testPutAndGet()
+    {
+        Database    model  = parseDatabaseFromString(MODEL);
+        IdentityMap map    = new IdentityMap(model);
+        Table       tableA = model.findTable("A");
+        Table       tableB = model.findTable("B");
+        Table       tableC = model.findTable("C");
+        String[]    pk     = { "pk" };
+        String[]    pks    = { "pk1", "pk2" };
+
+        map.put(createIdentity(tableA, pk, new Object[] { new Integer(1) }),
+                createIdentity(tableA, pk, new Object[] { new Integer(100) }));
+        map.put(createIdentity(tableB, pk, new Object[] { "a" }),
+                createIdentity(tableB, pk, new Object[] { "b" }));
+        map.put(createIdentity(tableC, pks, new Object[] { new Integer(1), new Integer(2) }),
+                createIdentity(tableC, pks, new Object[] { new Integer(3), new Integer(4) }));
+
+        assertEquals(3, map.size());
+
+        Identity identity = map.get(createIdentity(tableA, pk, new Object[] { new Integer(1) }));
+
+        assertSame(tableA, identity.getTable());
+        assertEquals(new Integer(100), identity.getColumnValue("pk"));
+        // numeric values are matched regardless of their type
+        assertEquals(identity, map.get(createIdentity(tableA, pk, new Object[] { new Long(1) })));
+        assertEquals(identity, map.get(createIdentity(tableA, pk, new Object[] { new BigDecimal("1") })));
+        assertNull(map.get(createIdentity(tableA, pk, new Object[] { new Integer(2) })));
+        assertNull(map.get(createIdentity(tableA, pk, new Object[] { "1" })));
+
+        assertEquals(createIdentity(tableB, pk, new Object[] { "b" }),
+                     map.get(createIdentity(tableB, pk, new Object[] { "a" })));
+        assertEquals(createIdentity(tableC, pks, new Object[] { new Integer(3), new Integer(4) }),
+                     map.get(createIdentity(tableC, pks, new Object[] { new Integer(1), new Integer(2) })));
+        assertNull(map.get(createIdentity(tableC, pks, new Object[] { new Integer(2), new Integer(1) })));
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(createIdentity(tableA, pk, new Object[] { new Integer(1) })));
+    }
+
+    /**
+     * Tests the map with many identities that are recorded by multiple threads.
+     */
+    public void testConcurrentAccess() throws Exception
+    {
+        Database          model    = parseDatabaseFromString(MODEL);
+        final IdentityMap map      = new IdentityMap(model, 4);
+        final Table       table    = model.findTable("A");
+        final String[]    pk       = { "pk" };
+        final int         numRows  = 10000;
+        Thread[]          threads  = new Thread[4];
+        final Throwable[] failures = new Throwable[threads.length];
+
+        for (int threadIdx = 0; threadIdx < threads.length; threadIdx++)
+        {
+            final int offset = threadIdx;
+
+            threads[threadIdx] = new Thread(new Runnable() {
+                public void run()
+                {
+                    try
+                    {
+                        for (int idx = offset; idx < numRows; idx += 4)
+                        {
+                            map.put(createIdentity(table, pk, new Object[] { new Integer(idx) }),
+                                    createIdentity(table, pk, new Object[] { new Integer(-idx) }));
+                        }
+                    }
+                    catch (Throwable ex)
+                    {
+                        failures[offset] = ex;
+                    }
+                }
+            });
+            threads[threadIdx].start();
+        }
+        for (int threadIdx = 0; threadIdx < threads.length; threadIdx++)
+        {
+            threads[threadIdx].join();
+            assertNull(failures[threadIdx]);
+        }
+        assertEquals(numRows, map.size());
+        for (int idx = 0; idx < numRows; idx++)
+        {
+            Identity identity = map.get(createIdentity(table, pk, new Object[] { new Integer(idx) }));
+
+            assertEquals(new Integer(-idx), identity.getColumnValue("pk"));
+        }
+    }
+}
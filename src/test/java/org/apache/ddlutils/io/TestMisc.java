@@ -19,12 +19,17 @@ package org.apache.ddlutils.io;
  * under the License.
  */
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -33,6 +38,9 @@ import junit.framework.Test;
 
 import org.apache.commons.beanutils.DynaBean;
 import org.apache.ddlutils.TestAgainstLiveDatabaseBase;
+import org.apache.ddlutils.metrics.MetricsCollector;
+import org.apache.ddlutils.metrics.MetricsRegistry;
+import org.apache.ddlutils.metrics.Statistic;
 import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.model.Table;
 import org.apache.ddlutils.platform.derby.DerbyPlatform;
@@ -42,6 +50,8 @@ import org.apache.ddlutils.platform.mysql.MySql50Platform;
 import org.apache.ddlutils.platform.mysql.MySqlPlatform;
 import org.apache.ddlutils.platform.postgresql.PostgreSqlPlatform;
 import org.apache.ddlutils.platform.sybase.SybasePlatform;
+import org.apache.ddlutils.util.ConnectionPool;
+import org.apache.ddlutils.util.ConnectionProvider;
 import org.dom4j.Document;
 import org.dom4j.Element;
 import org.dom4j.io.SAXReader;
@@ -1222,6 +1232,586 @@ public class TestMisc extends TestAgainstLiveDatabaseBase
         assertEquals((Object)"bar",  beans2.get(0), "pk2");
     }
 
+    /**
+     * Creates the table for the batched evaluation tests and returns a script that inserts
+     * rows with the primary key values <code>1, 2, 2, 3, 4</code> into it.
+     * 
+     * @return The script
+     */
+    private String createBatchedEvaluationScript() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='20'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        createDatabase(modelXml);
+
+        Table        table  = getModel().findTable("misc");
+        StringBuffer script = new StringBuffer();
+        int[]        pks    = { 1, 2, 2, 3, 4 };
+
+        for (int idx = 0; idx < pks.length; idx++)
+        {
+            DynaBean bean = getModel().createDynaBeanFor(table);
+
+            bean.set("pk", new Integer(pks[idx]));
+            bean.set("avalue", "text" + idx);
+            script.append(getPlatform().getInsertSql(getModel(), bean));
+            script.append(getPlatformInfo().getSqlCommandDelimiter());
+            script.append("\n");
+        }
+        return script.toString();
+    }
+
+    /**
+     * Checks that the rows inserted by the script returned by {@link #createBatchedEvaluationScript()}
+     * are in the database, except for the one with the duplicate primary key.
+     */
+    private void checkBatchedEvaluationRows() throws Exception
+    {
+        List beans = getRows("misc", "pk");
+
+        assertEquals(4, beans.size());
+        assertEquals(new Integer(1), beans.get(0), "pk");
+        assertEquals(new Integer(2), beans.get(1), "pk");
+        assertEquals((Object)"text1", beans.get(1), "avalue");
+        assertEquals(new Integer(3), beans.get(2), "pk");
+        assertEquals(new Integer(4), beans.get(3), "pk");
+    }
+
+    /**
+     * Tests that batched evaluation is off by default.
+     */
+    public void testBatchedEvaluationOffByDefault() throws Exception
+    {
+        String          script   = createBatchedEvaluationScript();
+        MetricsRegistry registry = new MetricsRegistry();
+
+        assertFalse(getPlatform().isBatchedEvaluationOn());
+
+        getPlatform().setMetricsCollector(registry);
+        getPlatform().setEvaluationBatchSize(2);
+        assertEquals(1, getPlatform().evaluateBatch(script, true));
+        assertNull(registry.getStatistic(MetricsCollector.JDBC_BATCH_SIZE));
+        checkBatchedEvaluationRows();
+    }
+
+    /**
+     * Tests that failed commands are reported individually when a script is evaluated
+     * in statement batches. Here the failed command is the first one of a batch.
+     */
+    public void testBatchedEvaluationWithErrors() throws Exception
+    {
+        String script = createBatchedEvaluationScript();
+
+        getPlatform().setBatchedEvaluationOn(true);
+        getPlatform().setEvaluationBatchSize(2);
+
+        assertEquals(1, getPlatform().evaluateBatch(script, true));
+        checkBatchedEvaluationRows();
+    }
+
+    /**
+     * Tests that a failed command in the middle of a statement batch neither undoes nor
+     * skips the other commands of the batch. On databases that do not commit the commands
+     * of a batch individually, the script is evaluated without batches instead.
+     */
+    public void testBatchedEvaluationWithErrorInMiddleOfBatch() throws Exception
+    {
+        String          script   = createBatchedEvaluationScript();
+        MetricsRegistry registry = new MetricsRegistry();
+
+        getPlatform().setMetricsCollector(registry);
+        getPlatform().setBatchedEvaluationOn(true);
+        getPlatform().setEvaluationBatchSize(5);
+
+        assertEquals(1, getPlatform().evaluateBatch(script, true));
+        checkBatchedEvaluationRows();
+
+        Statistic batchSizes = registry.getStatistic(MetricsCollector.JDBC_BATCH_SIZE);
+
+        if (getPlatformInfo().isStatementBatchingSupported() &&
+            getPlatformInfo().isBatchCommandsCommittedIndividually())
+        {
+            assertNotNull(batchSizes);
+            assertEquals(5, batchSizes.getMax());
+        }
+        else
+        {
+            assertNull(batchSizes);
+        }
+    }
+
+    /**
+     * Tests the insertion of data via multi-row inserts and via a script generated for the data.
+     */
+    public void testMultiRowInserts() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='20'/>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='20'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        createDatabase(modelXml);
+
+        ArrayList beans1 = new ArrayList();
+        ArrayList beans2 = new ArrayList();
+
+        for (int idx = 0; idx < 25; idx++)
+        {
+            DynaBean bean1 = getModel().createDynaBeanFor("misc1", false);
+            DynaBean bean2 = getModel().createDynaBeanFor("misc2", false);
+
+            bean1.set("pk", new Integer(idx));
+            bean1.set("avalue", idx % 5 == 0 ? null : "text" + idx);
+            beans1.add(bean1);
+            bean2.set("pk", new Integer(idx));
+            bean2.set("avalue", idx % 5 == 0 ? null : "it's " + idx);
+            beans2.add(bean2);
+        }
+        getPlatform().setNativeBulkInsertOn(true);
+        getPlatform().getPlatformInfo().setMaxRowsPerMultiRowInsert(10);
+        getPlatform().insert(getModel(), beans1);
+        getPlatform().evaluateBatch(getPlatform().getInsertSql(getModel(), beans2), false);
+
+        List readBeans1 = getRows("misc1", "pk");
+        List readBeans2 = getRows("misc2", "pk");
+
+        assertEquals(25, readBeans1.size());
+        assertEquals(25, readBeans2.size());
+        for (int idx = 0; idx < 25; idx++)
+        {
+            assertEquals(new Integer(idx), readBeans1.get(idx), "pk");
+            assertEquals((Object)(idx % 5 == 0 ? null : "text" + idx), readBeans1.get(idx), "avalue");
+            assertEquals(new Integer(idx), readBeans2.get(idx), "pk");
+            assertEquals((Object)(idx % 5 == 0 ? null : "it's " + idx), readBeans2.get(idx), "avalue");
+        }
+    }
+
+    /**
+     * Tests the bulk insertion of a larger number of rows, which some platforms perform via
+     * an import of a temporary file.
+     */
+    public void testBulkInsertOfManyRows() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='20'/>\n"+
+            "    <column name='bvalue' type='VARBINARY' size='10'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        createDatabase(modelXml);
+
+        ArrayList beans = new ArrayList();
+
+        for (int idx = 0; idx < 1000; idx++)
+        {
+            DynaBean bean = getModel().createDynaBeanFor("misc", false);
+
+            bean.set("pk", new Integer(idx));
+            bean.set("avalue", idx % 10 == 0 ? null : "\"a, b\"\n" + idx);
+            bean.set("bvalue", idx % 10 == 1 ? null : new byte[] { (byte)idx, (byte)0xff });
+            beans.add(bean);
+        }
+        getPlatform().setNativeBulkInsertOn(true);
+        getPlatform().insert(getModel(), beans);
+
+        List readBeans = getRows("misc", "pk");
+
+        assertEquals(1000, readBeans.size());
+        for (int idx = 0; idx < 1000; idx++)
+        {
+            DynaBean readBean = (DynaBean)readBeans.get(idx);
+
+            assertEquals(new Integer(idx), readBean, "pk");
+            assertEquals((Object)(idx % 10 == 0 ? null : "\"a, b\"\n" + idx), readBean, "avalue");
+            if (idx % 10 == 1)
+            {
+                assertNull(readBean.get("bvalue"));
+            }
+            else
+            {
+                assertTrue(Arrays.equals(new byte[] { (byte)idx, (byte)0xff }, (byte[])readBean.get("bvalue")));
+            }
+        }
+    }
+
+    /**
+     * Tests the export of the data into CSV files, which some platforms perform via the
+     * export facilities of the database.
+     */
+    public void testWriteDataToCsv() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='20'/>\n"+
+            "    <column name='bvalue' type='VARBINARY' size='8'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        createDatabase(modelXml);
+        insertRow("misc", new Object[] { new Integer(1), "text", new byte[] { 1, 2, (byte)0xFF } });
+        insertRow("misc", new Object[] { new Integer(2), null, null });
+        insertRow("misc", new Object[] { new Integer(3), "", null });
+
+        File dir = File.createTempFile("ddlutils", "");
+
+        dir.delete();
+        try
+        {
+            new DatabaseDataIO().writeDataToCsv(getPlatform(), getModel(), dir);
+
+            File           file   = new File(dir, "misc.csv");
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            ArrayList      lines  = new ArrayList();
+            String         line;
+
+            try
+            {
+                while ((line = reader.readLine()) != null)
+                {
+                    // some databases enclose all values in double quotes, so we only keep
+                    // them for empty strings which have to be distinguishable from NULL
+                    lines.add(line.replaceAll("\"([^\",]+)\"", "$1").toLowerCase());
+                }
+            }
+            finally
+            {
+                reader.close();
+            }
+            assertEquals(4, lines.size());
+            assertEquals("pk,avalue,bvalue", lines.get(0));
+            assertTrue(lines.contains("1,text,0102ff"));
+            assertTrue(lines.contains("2,,"));
+            assertTrue(lines.contains("3,\"\","));
+            file.delete();
+        }
+        finally
+        {
+            dir.delete();
+        }
+    }
+
+    /**
+     * Tests that the metrics of reading and writing data are collected.
+     */
+    public void testMetrics() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='20'/>\n"+
+            "  </table>\n"+
+            "</database>";
+        final String dataXml =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<data>\n"+
+            "  <misc pk='1' avalue='text'/>\n"+
+            "  <misc pk='2'/>\n"+
+            "</data>";
+
+        createDatabase(modelXml);
+
+        MetricsRegistry registry = new MetricsRegistry();
+
+        getPlatform().setMetricsCollector(registry);
+        try
+        {
+            DatabaseDataIO        dataIO = new DatabaseDataIO();
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+            writeData(dataIO, dataXml);
+            dataIO.writeDataToXML(getPlatform(), getModel(), output, "UTF-8");
+            getPlatform().readModelFromDatabase("test");
+            getPlatform().getCreateModelSql(getModel(), false, false);
+
+            assertEquals(2, registry.getCount(MetricsCollector.ROWS_PARSED_PREFIX + "misc"));
+            assertEquals(2, registry.getCount(MetricsCollector.ROWS_WRITTEN_PREFIX + "misc"));
+            assertEquals(2, registry.getCount(MetricsCollector.ROWS_READ_PREFIX + "misc"));
+            assertEquals(output.size(), registry.getCount(MetricsCollector.BYTES_WRITTEN));
+            assertTrue(registry.getStatistic(MetricsCollector.JDBC_STATEMENT_TIME).getCount() >= 3);
+            assertTrue(registry.getStatistic(MetricsCollector.METADATA_CALL_TIME).getCount() > 0);
+            assertEquals(1, registry.getStatistic(MetricsCollector.SQL_GENERATION_TIME).getCount());
+        }
+        finally
+        {
+            getPlatform().setMetricsCollector(null);
+        }
+    }
+
+    /**
+     * Tests the insertion of data in batch mode with adaptive batch sizes.
+     */
+    public void testAdaptiveBatchSize() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='50' required='false'/>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER' required='false'/>\n"+
+            "    <foreign-key name='test' foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+        StringBuffer dataXml = new StringBuffer();
+
+        dataXml.append("<?xml version='1.0' encoding='ISO-8859-1'?>\n<data>\n");
+        for (int idx = 1; idx <= 100; idx++)
+        {
+            dataXml.append("  <misc2 pk='" + idx + "' fk='" + idx + "'/>\n");
+            dataXml.append("  <misc1 pk='" + idx + "' avalue='Value " + idx + "'/>\n");
+        }
+        dataXml.append("</data>");
+
+        createDatabase(modelXml);
+
+        DatabaseDataIO dataIO = new DatabaseDataIO();
+
+        dataIO.setUseBatchMode(true);
+        dataIO.setBatchSize(new Integer(4));
+        dataIO.setUseAdaptiveBatchSize(true);
+        dataIO.setMinBatchSize(new Integer(2));
+        dataIO.setMaxBatchSize(new Integer(32));
+        dataIO.setTargetBatchDuration(new Long(10));
+        dataIO.setMaxBatchBytes(new Long(1000));
+        writeData(dataIO, dataXml.toString());
+
+        List beans1 = getRows("misc1", "pk");
+        List beans2 = getRows("misc2", "pk");
+
+        assertEquals(100, beans1.size());
+        assertEquals(100, beans2.size());
+        assertEquals(new Integer(1), beans1.get(0), "pk");
+        assertEquals((Object)"Value 100", beans1.get(99), "avalue");
+        assertEquals(new Integer(100), beans2.get(99), "pk");
+        assertEquals(new Integer(100), beans2.get(99), "fk");
+    }
+
+    /**
+     * Tests the insertion of data in batch mode where the database defines the primary key
+     * values of referenced rows.
+     */
+    public void testBatchModeWithIdentityRemapping() throws Exception
+    {
+        if (SybasePlatform.DATABASENAME.equals(getPlatform().getName()))
+        {
+            // Sybase does not like INTEGER auto-increment columns
+            return;
+        }
+
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true' autoIncrement='true'/>\n"+
+            "    <column name='avalue' type='INTEGER' required='false'/>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER' required='false'/>\n"+
+            "    <foreign-key name='test' foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+        final String dataXml =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<data>\n"+
+            "  <misc2 pk='1' fk='10'/>\n"+
+            "  <misc1 pk='10' avalue='1'/>\n"+
+            "  <misc2 pk='2' fk='12'/>\n"+
+            "  <misc1 pk='12' avalue='2'/>\n"+
+            "</data>";
+
+        createDatabase(modelXml);
+
+        DatabaseDataIO dataIO = new DatabaseDataIO();
+
+        dataIO.setUseBatchMode(true);
+        writeData(dataIO, dataXml);
+
+        List beans1 = getRows("misc1", "pk");
+        List beans2 = getRows("misc2", "pk");
+
+        assertEquals(2, beans1.size());
+        assertEquals(2, beans2.size());
+        assertEquals(new Integer(1), beans1.get(0), "avalue");
+        assertEquals(new Integer(2), beans1.get(1), "avalue");
+        assertEquals(new Integer(1), beans2.get(0), "pk");
+        assertEquals(((DynaBean)beans1.get(0)).get("pk"), beans2.get(0), "fk");
+        assertEquals(new Integer(2), beans2.get(1), "pk");
+        assertEquals(((DynaBean)beans1.get(1)).get("pk"), beans2.get(1), "fk");
+    }
+
+    /**
+     * Tests the insertion of data with preallocated identity values where the referencing rows
+     * come before the referenced ones. On platforms that cannot reserve identity values, the
+     * values generated by the database are mapped instead.
+     */
+    public void testPreallocatedIdentityValues() throws Exception
+    {
+        if (SybasePlatform.DATABASENAME.equals(getPlatform().getName()))
+        {
+            // Sybase does not like INTEGER auto-increment columns
+            return;
+        }
+
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true' autoIncrement='true'/>\n"+
+            "    <column name='avalue' type='INTEGER' required='false'/>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER' required='false'/>\n"+
+            "    <foreign-key name='test' foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        StringBuffer dataXml = new StringBuffer();
+
+        dataXml.append("<?xml version='1.0' encoding='ISO-8859-1'?>\n<data>\n");
+        for (int idx = 0; idx < 10; idx++)
+        {
+            dataXml.append("  <misc2 pk='" + (idx + 1) + "' fk='" + (100 + idx) + "'/>\n");
+        }
+        for (int idx = 0; idx < 10; idx++)
+        {
+            dataXml.append("  <misc1 pk='" + (100 + idx) + "' avalue='" + (idx + 1) + "'/>\n");
+        }
+        dataXml.append("</data>");
+
+        createDatabase(modelXml);
+
+        final List     overrideStates = new ArrayList();
+        DatabaseDataIO dataIO         = new DatabaseDataIO();
+
+        getPlatform().setIdentityOverrideOn(false);
+        dataIO.setUseBatchMode(true);
+        dataIO.setBatchSize(new Integer(4));
+        dataIO.setPreallocateIdentityValues(true);
+        dataIO.addProgressListener(new ProgressListener() {
+            public void started(DataProgress progress)
+            {}
+
+            public void rowsProcessed(DataProgress progress, String tableName, int numRows)
+            {
+                overrideStates.add(Boolean.valueOf(getPlatform().isIdentityOverrideOn()));
+            }
+
+            public void bytesProcessed(DataProgress progress, long numBytes)
+            {}
+
+            public void finished(DataProgress progress)
+            {}
+        });
+        writeData(dataIO, dataXml.toString());
+
+        // the identity override is only switched on for the connection of the sink
+        assertFalse(overrideStates.isEmpty());
+        assertFalse(overrideStates.contains(Boolean.TRUE));
+        assertFalse(getPlatform().isIdentityOverrideOn());
+
+        List beans1 = getRows("misc1", "avalue");
+        List beans2 = getRows("misc2", "pk");
+
+        assertEquals(10, beans1.size());
+        assertEquals(10, beans2.size());
+        for (int idx = 0; idx < 10; idx++)
+        {
+            assertEquals(new Integer(idx + 1), beans1.get(idx), "avalue");
+            assertEquals(new Integer(idx + 1), beans2.get(idx), "pk");
+            assertEquals(((DynaBean)beans1.get(idx)).get("pk"), beans2.get(idx), "fk");
+        }
+    }
+
+    /**
+     * Tests that the sinks and the schema determination return their connections to a
+     * connection pool, so that more sinks than pooled connections can be used one after
+     * the other.
+     */
+    public void testConnectionPoolWithManySinks() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='INTEGER' required='false'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        createDatabase(modelXml);
+
+        ConnectionProvider origProvider = getPlatform().getConnectionProvider();
+        ConnectionPool     pool         = new ConnectionPool();
+
+        pool.setMaxConnections(2);
+        pool.setMaxWait(1000);
+        getPlatform().setConnectionProvider(pool);
+        try
+        {
+            DatabaseDataIO dataIO = new DatabaseDataIO();
+
+            dataIO.setDetermineSchema(true);
+            for (int idx = 0; idx < 5; idx++)
+            {
+                String dataXml = "<?xml version='1.0' encoding='ISO-8859-1'?>\n<data>\n  <misc pk='" + (idx + 1) + "' avalue='" + idx + "'/>\n</data>";
+
+                writeData(dataIO, dataXml);
+                dataIO.writeDataToXML(getPlatform(), getModel(), new StringWriter(), "UTF-8");
+                assertEquals(0, pool.getNumActive());
+            }
+            assertTrue(pool.getNumCreated() <= 2);
+            assertEquals(0, pool.getNumWaits());
+        }
+        finally
+        {
+            getPlatform().setConnectionProvider(origProvider);
+            pool.close();
+        }
+
+        List beans = getRows("misc");
+
+        assertEquals(5, beans.size());
+        for (int idx = 0; idx < 5; idx++)
+        {
+            assertEquals(new Integer(idx + 1), beans.get(idx), "pk");
+        }
+    }
+
     /**
      * Test for DDLUTILS-227.
      */
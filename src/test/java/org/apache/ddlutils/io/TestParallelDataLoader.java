@@ -0,0 +1,293 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.Test;
+
+import org.apache.ddlutils.platform.sybase.SybasePlatform;
+
+/**
+ * Tests the {@link ParallelDataLoader} class.
+ * 
+ * @version $Revision: $
+ */
+public class TestParallelDataLoader extends TestParallelLoadBase
+{
+    /**
+     * Parameterized test case pattern.
+     * 
+     * @return The tests
+     */
+    public static Test suite() throws Exception
+    {
+        return getTests(TestParallelDataLoader.class);
+    }
+
+    /**
+     * Writes the given rows into data files in a new temporary directory.
+     * 
+     * @param rowsXml The XML of the rows of each file, without the <code>data</code> element
+     * @return The absolute paths of the files
+     */
+    private String[] writeDataFiles(String[] rowsXml) throws IOException
+    {
+        File     dir   = File.createTempFile("ddlutils", "");
+        String[] files = new String[rowsXml.length];
+
+        dir.delete();
+        dir.mkdir();
+        for (int fileIdx = 0; fileIdx < rowsXml.length; fileIdx++)
+        {
+            File             file = new File(dir, "data" + fileIdx + ".xml");
+            FileOutputStream out  = new FileOutputStream(file);
+
+            try
+            {
+                out.write(("<?xml version='1.0' encoding='ISO-8859-1'?>\n<data>\n" + rowsXml[fileIdx] + "</data>").getBytes("ISO-8859-1"));
+            }
+            finally
+            {
+                out.close();
+            }
+            files[fileIdx] = file.getAbsolutePath();
+        }
+        return files;
+    }
+
+    /**
+     * Deletes the data files written by {@link #writeDataFiles(String[])} and their directory.
+     * 
+     * @param files The absolute paths of the files
+     */
+    private void deleteDataFiles(String[] files)
+    {
+        for (int fileIdx = 0; fileIdx < files.length; fileIdx++)
+        {
+            new File(files[fileIdx]).delete();
+        }
+        if (files.length > 0)
+        {
+            new File(files[0]).getParentFile().delete();
+        }
+    }
+
+    /**
+     * Returns the job of the parallel loader that contains the given file.
+     * 
+     * @param loader The loader
+     * @param file   The file
+     * @return The job
+     */
+    private ParallelDataLoader.LoadJob findLoadJob(ParallelDataLoader loader, String file)
+    {
+        for (Iterator it = loader.getJobs().iterator(); it.hasNext();)
+        {
+            ParallelDataLoader.LoadJob job = (ParallelDataLoader.LoadJob)it.next();
+
+            if (job.getFiles().contains(file))
+            {
+                return job;
+            }
+        }
+        fail("No job for the file " + file);
+        return null;
+    }
+
+    /**
+     * Checks that the job of the given file depends on the jobs of the given referenced
+     * files, and that it was only started after these were completed.
+     * 
+     * @param loader          The loader
+     * @param file            The file
+     * @param referencedFiles The files with the rows that are referenced by the file
+     */
+    private void checkLoadJobOrder(ParallelDataLoader loader, String file, String[] referencedFiles)
+    {
+        ParallelDataLoader.LoadJob job = findLoadJob(loader, file);
+
+        for (int idx = 0; idx < referencedFiles.length; idx++)
+        {
+            ParallelDataLoader.LoadJob referencedJob = findLoadJob(loader, referencedFiles[idx]);
+
+            assertTrue(job.getReferencedJobs().contains(referencedJob));
+            assertTrue(referencedJob.getCompletionIndex() >= 0);
+            assertTrue(job.getStartIndex() > referencedJob.getCompletionIndex());
+        }
+    }
+
+    /**
+     * Tests the parallel loading of multiple data files.
+     */
+    public void testParallelFileLoad() throws Exception
+    {
+        if (SybasePlatform.DATABASENAME.equals(getPlatform().getName()))
+        {
+            // Sybase does not like INTEGER auto-increment columns
+            return;
+        }
+
+        StringBuffer[] rowsXml = new StringBuffer[7];
+
+        for (int fileIdx = 0; fileIdx < rowsXml.length; fileIdx++)
+        {
+            rowsXml[fileIdx] = new StringBuffer();
+        }
+        for (int idx = 1; idx <= 50; idx++)
+        {
+            // the rows of misc4, misc1 and misc3 are split over two files each; the chunks of
+            // the referenced tables misc1 and misc3 are loaded in parallel, too
+            rowsXml[idx % 2].append("  <misc4 pk='" + idx + "' fk='" + (51 - idx) + "'/>\n");
+            rowsXml[2].append("  <misc2 pk='" + idx + "' fk='" + (100 + idx) + "'/>\n");
+            rowsXml[3 + idx % 2].append("  <misc1 pk='" + (100 + idx) + "' avalue='" + idx + "'/>\n");
+            rowsXml[5 + idx % 2].append("  <misc3 pk='" + idx + "'/>\n");
+        }
+
+        String[] files = new String[rowsXml.length];
+
+        for (int fileIdx = 0; fileIdx < rowsXml.length; fileIdx++)
+        {
+            files[fileIdx] = rowsXml[fileIdx].toString();
+        }
+        files = writeDataFiles(files);
+
+        ParallelDataLoader loader;
+
+        try
+        {
+            createDatabase(getParallelLoadModelXml());
+
+            DatabaseDataIO dataIO = new DatabaseDataIO();
+
+            dataIO.setUseBatchMode(true);
+            dataIO.setBatchSize(new Integer(8));
+            loader = new ParallelDataLoader(dataIO, getPlatform(), getModel());
+            loader.setThreadCount(3);
+            loader.load(files, null);
+        }
+        finally
+        {
+            deleteDataFiles(files);
+        }
+
+        checkParallelLoadRows();
+
+        // none of the files has to be loaded together with another one
+        assertEquals(7, loader.getJobs().size());
+        checkLoadJobOrder(loader, files[0], new String[] { files[5], files[6] });
+        checkLoadJobOrder(loader, files[1], new String[] { files[5], files[6] });
+        checkLoadJobOrder(loader, files[2], new String[] { files[3], files[4] });
+        assertTrue(findLoadJob(loader, files[3]).getReferencedJobs().isEmpty());
+        assertTrue(findLoadJob(loader, files[4]).getReferencedJobs().isEmpty());
+    }
+
+    /**
+     * Tests the parallel loading of data files that contain rows of the same self-referencing
+     * table.
+     */
+    public void testParallelFileLoadWithSelfReference() throws Exception
+    {
+        checkParallelFileLoadWithSelfReference(false);
+    }
+
+    /**
+     * Tests the parallel loading of data files that contain rows of the same self-referencing
+     * table in fast load mode. On platforms that switch off the constraint checks per session,
+     * the workers have to do this for their own connections.
+     */
+    public void testParallelFastFileLoadWithSelfReference() throws Exception
+    {
+        checkParallelFileLoadWithSelfReference(true);
+    }
+
+    /**
+     * Loads data files that contain rows of the same self-referencing table in parallel, and
+     * checks the loaded rows and the jobs of the loader.
+     * 
+     * @param useFastLoadMode Whether to use the fast load mode
+     */
+    private void checkParallelFileLoadWithSelfReference(boolean useFastLoadMode) throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='parent_pk' type='INTEGER' required='false'/>\n"+
+            "    <foreign-key name='test1' foreignTable='misc1'>\n"+
+            "      <reference local='parent_pk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "  </table>\n"+
+            "</database>";
+        String[] rowsXml = new String[] { "", "", "" };
+
+        for (int idx = 1; idx <= 10; idx++)
+        {
+            // the first file contains the children of the rows in the second file
+            rowsXml[0] += "  <misc1 pk='" + (10 + idx) + "' parent_pk='" + idx + "'/>\n";
+            rowsXml[1] += "  <misc1 pk='" + idx + "'/>\n";
+            rowsXml[2] += "  <misc2 pk='" + idx + "'/>\n";
+        }
+
+        String[]           files = writeDataFiles(rowsXml);
+        ParallelDataLoader loader;
+
+        try
+        {
+            createDatabase(modelXml);
+
+            DatabaseDataIO dataIO = new DatabaseDataIO();
+
+            dataIO.setUseBatchMode(true);
+            dataIO.setBatchSize(new Integer(4));
+            dataIO.setUseFastLoadMode(useFastLoadMode);
+            loader = new ParallelDataLoader(dataIO, getPlatform(), getModel());
+            loader.setThreadCount(2);
+            loader.load(files, null);
+        }
+        finally
+        {
+            deleteDataFiles(files);
+        }
+
+        List beans1 = getRows("misc1", "pk");
+        List beans2 = getRows("misc2", "pk");
+
+        assertEquals(20, beans1.size());
+        assertEquals(10, beans2.size());
+        for (int idx = 0; idx < 10; idx++)
+        {
+            assertEquals((Object)null, beans1.get(idx), "parent_pk");
+            assertEquals(new Integer(idx + 1), beans1.get(10 + idx), "parent_pk");
+        }
+        // the files with the rows of misc1 are loaded together, the one of misc2 separately
+        assertEquals(2, loader.getJobs().size());
+        assertSame(findLoadJob(loader, files[0]), findLoadJob(loader, files[1]));
+        assertNotSame(findLoadJob(loader, files[0]), findLoadJob(loader, files[2]));
+    }
+}
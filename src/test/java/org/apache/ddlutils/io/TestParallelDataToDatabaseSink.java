@@ -0,0 +1,270 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+
+import junit.framework.Test;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.ddlutils.platform.sybase.SybasePlatform;
+
+/**
+ * Tests the {@link ParallelDataToDatabaseSink} class.
+ * 
+ * @version $Revision: $
+ */
+public class TestParallelDataToDatabaseSink extends TestParallelLoadBase
+{
+    /**
+     * Parameterized test case pattern.
+     * 
+     * @return The tests
+     */
+    public static Test suite() throws Exception
+    {
+        return getTests(TestParallelDataToDatabaseSink.class);
+    }
+
+    /**
+     * Adds the 50 rows of the given table of the parallel insertion model to the sink. The
+     * rows are the same as in {@link #testParallelLoad()}.
+     * 
+     * @param sink      The sink
+     * @param tableName The table
+     */
+    private void addParallelLoadBeans(DataSink sink, String tableName)
+    {
+        for (int idx = 1; idx <= 50; idx++)
+        {
+            DynaBean bean = getModel().createDynaBeanFor(tableName, false);
+
+            if ("misc1".equals(tableName))
+            {
+                bean.set("pk", new Integer(100 + idx));
+                bean.set("avalue", new Integer(idx));
+            }
+            else if ("misc2".equals(tableName))
+            {
+                bean.set("pk", new Integer(idx));
+                bean.set("fk", new Integer(100 + idx));
+            }
+            else if ("misc3".equals(tableName))
+            {
+                bean.set("pk", new Integer(idx));
+            }
+            else
+            {
+                bean.set("pk", new Integer(idx));
+                bean.set("fk", new Integer(51 - idx));
+            }
+            sink.addBean(bean);
+        }
+    }
+
+    /**
+     * Waits until the given number of groups have been inserted at the same time by the sink.
+     * 
+     * @param sink         The sink
+     * @param activeGroups The number of groups
+     */
+    private void waitForActiveGroups(ParallelDataToDatabaseSink sink, int activeGroups) throws InterruptedException
+    {
+        long timeout = System.currentTimeMillis() + 10000;
+
+        while ((sink.getMaxActiveGroups() < activeGroups) && (System.currentTimeMillis() < timeout))
+        {
+            Thread.sleep(10);
+        }
+        assertEquals(activeGroups, sink.getMaxActiveGroups());
+    }
+
+    /**
+     * Tests the insertion of data with multiple load threads.
+     */
+    public void testParallelLoad() throws Exception
+    {
+        if (SybasePlatform.DATABASENAME.equals(getPlatform().getName()))
+        {
+            // Sybase does not like INTEGER auto-increment columns
+            return;
+        }
+
+        StringBuffer dataXml = new StringBuffer();
+
+        dataXml.append("<?xml version='1.0' encoding='ISO-8859-1'?>\n<data>\n");
+        for (int idx = 1; idx <= 50; idx++)
+        {
+            dataXml.append("  <misc4 pk='" + idx + "' fk='" + (51 - idx) + "'/>\n");
+            dataXml.append("  <misc2 pk='" + idx + "' fk='" + (100 + idx) + "'/>\n");
+            dataXml.append("  <misc1 pk='" + (100 + idx) + "' avalue='" + idx + "'/>\n");
+            dataXml.append("  <misc3 pk='" + idx + "'/>\n");
+        }
+        dataXml.append("</data>");
+
+        createDatabase(getParallelLoadModelXml());
+
+        DatabaseDataIO dataIO = new DatabaseDataIO();
+
+        dataIO.setUseBatchMode(true);
+        dataIO.setBatchSize(new Integer(8));
+        dataIO.setLoadThreads(3);
+        writeData(dataIO, dataXml.toString());
+
+        checkParallelLoadRows();
+    }
+
+    /**
+     * Tests that the parallel sink inserts independent groups at the same time, and that it
+     * writes the rows of the groups that have to wait for other groups to temporary files
+     * instead of holding them in memory.
+     */
+    public void testParallelLoadWithBoundedQueues() throws Exception
+    {
+        if (SybasePlatform.DATABASENAME.equals(getPlatform().getName()))
+        {
+            // Sybase does not like INTEGER auto-increment columns
+            return;
+        }
+
+        createDatabase(getParallelLoadModelXml());
+
+        ParallelDataToDatabaseSink sink = new ParallelDataToDatabaseSink(getPlatform(), getModel());
+
+        sink.setUseBatchMode(true);
+        sink.setBatchSize(2);
+        sink.setThreadCount(2);
+        sink.start();
+        addParallelLoadBeans(sink, "misc1");
+        waitForActiveGroups(sink, 1);
+        addParallelLoadBeans(sink, "misc3");
+        // misc1 cannot be completed before the input has ended, so both groups are inserted now
+        waitForActiveGroups(sink, 2);
+        addParallelLoadBeans(sink, "misc4");
+        addParallelLoadBeans(sink, "misc2");
+        sink.end();
+
+        assertEquals(2, sink.getMaxActiveGroups());
+        assertEquals(0, sink.getReleaseCount());
+        // no group holds more than four batches in memory, and the rows of misc2 and misc4
+        // have to wait until misc1 and misc3 are completed
+        assertTrue(sink.getMaxQueueSize() <= 8);
+        assertTrue(sink.getSpilledBeanCount() >= 96);
+        checkParallelLoadRows();
+    }
+
+    /**
+     * Tests that a worker of the parallel sink releases its group if the group gets no more
+     * rows while another group waits for a worker.
+     */
+    public void testParallelLoadWithIdleRelease() throws Exception
+    {
+        if (SybasePlatform.DATABASENAME.equals(getPlatform().getName()))
+        {
+            // Sybase does not like INTEGER auto-increment columns
+            return;
+        }
+
+        createDatabase(getParallelLoadModelXml());
+
+        ParallelDataToDatabaseSink sink = new ParallelDataToDatabaseSink(getPlatform(), getModel());
+
+        sink.setUseBatchMode(true);
+        sink.setBatchSize(2);
+        sink.setThreadCount(1);
+        sink.setMaxIdleTime(20);
+        sink.start();
+        addParallelLoadBeans(sink, "misc1");
+        waitForActiveGroups(sink, 1);
+        addParallelLoadBeans(sink, "misc3");
+
+        long timeout = System.currentTimeMillis() + 10000;
+
+        while ((sink.getReleaseCount() == 0) && (System.currentTimeMillis() < timeout))
+        {
+            Thread.sleep(10);
+        }
+        assertEquals(1, sink.getReleaseCount());
+        // the rows of the released group have been committed
+        assertEquals(50, getRows("misc1").size());
+
+        addParallelLoadBeans(sink, "misc4");
+        addParallelLoadBeans(sink, "misc2");
+        sink.end();
+
+        assertEquals(1, sink.getMaxActiveGroups());
+        assertEquals(1, sink.getReleaseCount());
+        checkParallelLoadRows();
+    }
+
+    /**
+     * Tests the insertion of data with multiple load threads in fast load mode where rows
+     * reference rows of the same table that come later. On platforms that switch off the
+     * constraint checks per session, the workers have to do this for their own connections.
+     */
+    public void testParallelFastLoadWithSelfReference() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER'/>\n"+
+            "    <foreign-key foreignTable='misc2'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        StringBuffer dataXml = new StringBuffer();
+
+        dataXml.append("<?xml version='1.0' encoding='ISO-8859-1'?>\n<data>\n");
+        for (int idx = 1; idx <= 20; idx++)
+        {
+            dataXml.append("  <misc1 pk='" + idx + "'/>\n");
+            dataXml.append("  <misc2 pk='" + idx + "' fk='" + (idx + 1) + "'/>\n");
+        }
+        dataXml.append("  <misc2 pk='21'/>\n");
+        dataXml.append("</data>");
+
+        createDatabase(modelXml);
+
+        DatabaseDataIO dataIO = new DatabaseDataIO();
+
+        dataIO.setUseFastLoadMode(true);
+        dataIO.setLoadThreads(2);
+        writeData(dataIO, dataXml.toString());
+
+        List beans1 = getRows("misc1", "pk");
+        List beans2 = getRows("misc2", "pk");
+
+        assertEquals(20, beans1.size());
+        assertEquals(21, beans2.size());
+        for (int idx = 0; idx < 20; idx++)
+        {
+            assertEquals(new Integer(idx + 1), beans2.get(idx), "pk");
+            assertEquals(new Integer(idx + 2), beans2.get(idx), "fk");
+        }
+        assertEquals((Object)null, beans2.get(20), "fk");
+    }
+}
@@ -0,0 +1,90 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.ddlutils.TestAgainstLiveDatabaseBase;
+
+/**
+ * Base class for the tests of the parallel loading of data.
+ * 
+ * @version $Revision: $
+ */
+public abstract class TestParallelLoadBase extends TestAgainstLiveDatabaseBase
+{
+    /**
+     * Returns the model used by the tests of the parallel insertion. Both misc1 and misc3 are
+     * referenced by one other table, and the primary key of misc1 is generated by the database.
+     * 
+     * @return The model XML
+     */
+    protected String getParallelLoadModelXml()
+    {
+        return
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true' autoIncrement='true'/>\n"+
+            "    <column name='avalue' type='INTEGER' required='false'/>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER' required='false'/>\n"+
+            "    <foreign-key name='test1' foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "  <table name='misc3'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "  </table>\n"+
+            "  <table name='misc4'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER' required='true'/>\n"+
+            "    <foreign-key name='test2' foreignTable='misc3'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+    }
+
+    /**
+     * Checks the rows inserted by the tests of the parallel insertion.
+     */
+    protected void checkParallelLoadRows()
+    {
+        List beans1 = getRows("misc1", "avalue");
+        List beans2 = getRows("misc2", "pk");
+        List beans3 = getRows("misc3", "pk");
+        List beans4 = getRows("misc4", "pk");
+
+        assertEquals(50, beans1.size());
+        assertEquals(50, beans2.size());
+        assertEquals(50, beans3.size());
+        assertEquals(50, beans4.size());
+        for (int idx = 0; idx < 50; idx++)
+        {
+            assertEquals(new Integer(idx + 1), beans2.get(idx), "pk");
+            assertEquals(((DynaBean)beans1.get(idx)).get("pk"), beans2.get(idx), "fk");
+            assertEquals(new Integer(50 - idx), beans4.get(idx), "fk");
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+
+import org.apache.ddlutils.TestAgainstLiveDatabaseBase;
+
+/**
+ * Tests the progress reporting of the data operations against a live database.
+ * 
+ * @version $Revision: $
+ */
+public class TestProgressReporting extends TestAgainstLiveDatabaseBase
+{
+    /**
+     * Parameterized test case pattern.
+     * 
+     * @return The tests
+     */
+    public static Test suite() throws Exception
+    {
+        return getTests(TestProgressReporting.class);
+    }
+
+    /**
+     * Tests the progress reporting when writing data into the database and to XML.
+     */
+    public void testProgress() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER'/>\n"+
+            "    <foreign-key foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+        final String dataXml =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<data>\n"+
+            "  <misc1 pk='1'/>\n"+
+            "  <misc2 pk='1' fk='1'/>\n"+
+            "  <misc2 pk='2' fk='1'/>\n"+
+            "  <misc1 pk='2'/>\n"+
+            "  <misc2 pk='3' fk='2'/>\n"+
+            "</data>";
+
+        createDatabase(modelXml);
+
+        final List     progresses = new ArrayList();
+        final long[]   numBytes   = new long[1];
+        DatabaseDataIO dataIO     = new DatabaseDataIO();
+
+        dataIO.setUseBatchMode(true);
+        dataIO.setCountRowsForProgress(true);
+        dataIO.addProgressListener(new ProgressListener() {
+            public void started(DataProgress progress)
+            {
+                progresses.add(progress);
+            }
+
+            public void rowsProcessed(DataProgress progress, String tableName, int numRows)
+            {}
+
+            public void bytesProcessed(DataProgress progress, long bytes)
+            {
+                numBytes[0] += bytes;
+            }
+
+            public void finished(DataProgress progress)
+            {
+                assertTrue(progress.isFinished());
+            }
+        });
+
+        byte[] data = dataXml.getBytes("ISO-8859-1");
+
+        dataIO.writeDataToDatabase(getPlatform(), getModel(), new InputStream[] { new ByteArrayInputStream(data) });
+
+        assertEquals(1, progresses.size());
+
+        DataProgress progress = (DataProgress)progresses.get(0);
+
+        assertTrue(progress.isFinished());
+        assertEquals(5, progress.getRowCount());
+        assertEquals(2, progress.getRowCount("misc1"));
+        assertEquals(3, progress.getRowCount("misc2"));
+        assertEquals(data.length, progress.getByteCount());
+        assertEquals(1.0, progress.getCompletedFraction(), 0.0);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        numBytes[0] = 0;
+        dataIO.writeDataToXML(getPlatform(), getModel(), output, "UTF-8");
+
+        assertEquals(2, progresses.size());
+        progress = (DataProgress)progresses.get(1);
+        assertEquals(5, progress.getRowCount());
+        assertEquals(3, progress.getEstimatedRowCount(getModel().getTable(1).getName()));
+        assertEquals(output.size(), progress.getByteCount());
+        assertEquals(output.size(), numBytes[0]);
+    }
+}
@@ -0,0 +1,137 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.ddlutils.TestBase;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Tests the {@link TableGroups} class.
+ *
+ * @version $Revision: $
+ */
+public class TestTableGroups extends TestBase
+{
+    /** The test model. */
+    private static final String MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='test'>\n"+
+        "  <table name='A'>\n"+
+        "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "  </table>\n"+
+        "  <table name='B'>\n"+
+        "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='fk' type='INTEGER'/>\n"+
+        "    <foreign-key foreignTable='A'>\n"+
+        "      <reference local='fk' foreign='pk'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "  <table name='C'>\n"+
+        "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='fk' type='INTEGER'/>\n"+
+        "    <foreign-key foreignTable='D'>\n"+
+        "      <reference local='fk' foreign='pk'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "  <table name='D'>\n"+
+        "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='fk' type='INTEGER'/>\n"+
+        "    <foreign-key foreignTable='C'>\n"+
+        "      <reference local='fk' foreign='pk'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "  <table name='E'>\n"+
+        "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='fk' type='INTEGER'/>\n"+
+        "    <foreign-key foreignTable='E'>\n"+
+        "      <reference local='fk' foreign='pk'/>\n"+
+        "    </foreign-key>\n"+
+        "    <foreign-key foreignTable='C'>\n"+
+        "      <reference local='fk' foreign='pk'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "  <table name='F'>\n"+
+        "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "  </table>\n"+
+        "</database>";
+
+    /**
+     * Asserts that the indicated group consists of the given tables.
+     *
+     * @param expectedTableNames The names of the expected tables
+     * @param groups             The groups
+     * @param groupIdx           The index of the group
+     */
+    private void assertGroup(String[] expectedTableNames, TableGroups groups, int groupIdx)
+    {
+        Table[] tables = groups.getTables(groupIdx);
+
+        assertEquals(expectedTableNames.length, tables.length);
+        for (int idx = 0; idx < tables.length; idx++)
+        {
+            assertEquals(expectedTableNames[idx], tables[idx].getName());
+            assertEquals(groupIdx, groups.getGroupIndex(tables[idx]));
+        }
+    }
+
+    /**
+     * Tests that the groups follow the foreign keys, and that cycles and explicitly joined
+     * tables end up in the same group.
+     */
+    public void testGroups()
+    {
+        Database    model  = parseDatabaseFromString(MODEL);
+        TableGroups groups = new TableGroups(model);
+
+        groups.join(model.findTable("F"), model.findTable("A"));
+
+        assertEquals(4, groups.getGroupCount());
+        assertGroup(new String[] { "A", "F" }, groups, 0);
+        assertGroup(new String[] { "B" }, groups, 1);
+        assertGroup(new String[] { "C", "D" }, groups, 2);
+        assertGroup(new String[] { "E" }, groups, 3);
+        assertEquals(0, groups.getReferencedGroups(0).length);
+        assertEquals(1, groups.getReferencedGroups(1).length);
+        assertEquals(0, groups.getReferencedGroups(1)[0]);
+        assertEquals(0, groups.getReferencedGroups(2).length);
+        assertEquals(1, groups.getReferencedGroups(3).length);
+        assertEquals(2, groups.getReferencedGroups(3)[0]);
+    }
+
+    /**
+     * Tests that joining tables can create cycles between groups that are then merged.
+     */
+    public void testJoinCreatingCycle()
+    {
+        Database    model  = parseDatabaseFromString(MODEL);
+        TableGroups groups = new TableGroups(model);
+
+        // B references A and E references C, so the joined groups form a cycle
+        groups.join(model.findTable("A"), model.findTable("E"));
+        groups.join(model.findTable("C"), model.findTable("B"));
+
+        assertEquals(2, groups.getGroupCount());
+        assertGroup(new String[] { "A", "B", "C", "D", "E" }, groups, 0);
+        assertGroup(new String[] { "F" }, groups, 1);
+        assertEquals(0, groups.getReferencedGroups(0).length);
+        assertEquals(0, groups.getReferencedGroups(1).length);
+    }
+}
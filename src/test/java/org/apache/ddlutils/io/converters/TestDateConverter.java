@@ -21,7 +21,9 @@ package org.apache.ddlutils.io.converters;
 
 import java.sql.Date;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
 
 import junit.framework.TestCase;
 
@@ -229,4 +231,64 @@ public class TestDateConverter extends TestCase
             // we expect the exception
         }
     }
+
+    /**
+     * Tests converting dates from multiple threads using the same converter.
+     */
+    public void testConcurrentConvertFromString() throws Exception
+    {
+        final String[] textReps = new String[12];
+        final long[]   expected = new long[textReps.length];
+        Calendar       cal      = Calendar.getInstance();
+
+        cal.setLenient(false);
+        for (int idx = 0; idx < textReps.length; idx++)
+        {
+            textReps[idx] = (1990 + idx) + "-0" + (1 + idx % 9) + "-" + (10 + idx);
+            cal.clear();
+            cal.set(1990 + idx, idx % 9, 10 + idx);
+            expected[idx] = cal.getTimeInMillis();
+        }
+
+        final List     failures = new ArrayList();
+        Thread[]       threads  = new Thread[4];
+
+        for (int threadIdx = 0; threadIdx < threads.length; threadIdx++)
+        {
+            threads[threadIdx] = new Thread(new Runnable() {
+                public void run()
+                {
+                    try
+                    {
+                        for (int count = 0; count < 1000; count++)
+                        {
+                            int    idx    = count % textReps.length;
+                            Object result = _dateConverter.convertFromString(textReps[idx], Types.DATE);
+
+                            if (((Date)result).getTime() != expected[idx])
+                            {
+                                synchronized (failures)
+                                {
+                                    failures.add(textReps[idx] + " -> " + result);
+                                }
+                            }
+                        }
+                    }
+                    catch (RuntimeException ex)
+                    {
+                        synchronized (failures)
+                        {
+                            failures.add(ex.toString());
+                        }
+                    }
+                }
+            });
+            threads[threadIdx].start();
+        }
+        for (int threadIdx = 0; threadIdx < threads.length; threadIdx++)
+        {
+            threads[threadIdx].join();
+        }
+        assertTrue("Wrong conversions: " + failures, failures.isEmpty());
+    }
 }
@@ -21,7 +21,9 @@ package org.apache.ddlutils.io.converters;
 
 import java.sql.Time;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
 
 import junit.framework.TestCase;
 
@@ -237,4 +239,66 @@ public class TestTimeConverter extends TestCase
             // We expect the exception
         }
     }
+
+    /**
+     * Tests converting times from multiple threads using the same converter.
+     */
+    public void testConcurrentConvertFromString() throws Exception
+    {
+        final String[] textReps = new String[12];
+        final long[]   expected = new long[textReps.length];
+        Calendar       cal      = Calendar.getInstance();
+
+        cal.setLenient(false);
+        for (int idx = 0; idx < textReps.length; idx++)
+        {
+            textReps[idx] = (10 + idx) + ":0" + (idx % 10) + ":" + (20 + idx);
+            cal.clear();
+            cal.set(Calendar.HOUR_OF_DAY, 10 + idx);
+            cal.set(Calendar.MINUTE, idx % 10);
+            cal.set(Calendar.SECOND, 20 + idx);
+            expected[idx] = cal.getTimeInMillis();
+        }
+
+        final List     failures = new ArrayList();
+        Thread[]       threads  = new Thread[4];
+
+        for (int threadIdx = 0; threadIdx < threads.length; threadIdx++)
+        {
+            threads[threadIdx] = new Thread(new Runnable() {
+                public void run()
+                {
+                    try
+                    {
+                        for (int count = 0; count < 1000; count++)
+                        {
+                            int    idx    = count % textReps.length;
+                            Object result = _timeConverter.convertFromString(textReps[idx], Types.TIME);
+
+                            if (((Time)result).getTime() != expected[idx])
+                            {
+                                synchronized (failures)
+                                {
+                                    failures.add(textReps[idx] + " -> " + result);
+                                }
+                            }
+                        }
+                    }
+                    catch (RuntimeException ex)
+                    {
+                        synchronized (failures)
+                        {
+                            failures.add(ex.toString());
+                        }
+                    }
+                }
+            });
+            threads[threadIdx].start();
+        }
+        for (int threadIdx = 0; threadIdx < threads.length; threadIdx++)
+        {
+            threads[threadIdx].join();
+        }
+        assertTrue("Wrong conversions: " + failures, failures.isEmpty());
+    }
 }
@@ -0,0 +1,188 @@
+package org.apache.ddlutils.io.converters;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link TimestampConverter}.
+ *
+ * @version $Revision: 1.0 $
+ */
+public class TestTimestampConverter extends TestCase
+{
+    /** The tested timestamp converter. */
+    private TimestampConverter _timestampConverter;
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _timestampConverter = new TimestampConverter();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void tearDown() throws Exception
+    {
+        _timestampConverter = null;
+        super.tearDown();
+    }
+
+    /**
+     * Tests a timestamp string without a fraction.
+     */
+    public void testNormalConvertFromString()
+    {
+        String textRep = "2005-12-19 02:15:59";
+        Object result  = _timestampConverter.convertFromString(textRep, Types.TIMESTAMP);
+
+        assertTrue(result instanceof Timestamp);
+        assertEquals(Timestamp.valueOf(textRep), result);
+    }
+
+    /**
+     * Tests timestamp strings with fractions of various lengths.
+     */
+    public void testConvertFromStringWithFraction()
+    {
+        String[] textReps = { "2005-12-19 02:15:59.1", "2005-12-19 02:15:59.123", "2005-12-19 02:15:59.000000001", "2005-12-19 02:15:59.987654321" };
+
+        for (int idx = 0; idx < textReps.length; idx++)
+        {
+            Timestamp result = (Timestamp)_timestampConverter.convertFromString(textReps[idx], Types.TIMESTAMP);
+
+            assertEquals(textReps[idx], Timestamp.valueOf(textReps[idx]), result);
+            assertEquals(textReps[idx], Timestamp.valueOf(textReps[idx]).getNanos(), result.getNanos());
+        }
+    }
+
+    /**
+     * Tests timestamp strings that are not in the standard form or contain out-of-range values,
+     * which are handled the same way as by {@link Timestamp#valueOf(String)}.
+     */
+    public void testConvertFromNonStandardString()
+    {
+        String[] textReps = { "2005-1-9 2:15:59", "1500-02-29 12:00:00", "2005-02-29 12:00:00", "2005-12-19 24:15:59" };
+
+        for (int idx = 0; idx < textReps.length; idx++)
+        {
+            Object result = _timestampConverter.convertFromString(textReps[idx], Types.TIMESTAMP);
+
+            assertEquals(textReps[idx], Timestamp.valueOf(textReps[idx]), result);
+        }
+    }
+
+    /**
+     * Tests an invalid timestamp.
+     */
+    public void testConvertFromStringWithInvalidTextRep()
+    {
+        try
+        {
+            _timestampConverter.convertFromString("2005-12-19", Types.TIMESTAMP);
+            fail("IllegalArgumentException expected");
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // we expect the exception
+        }
+    }
+
+    /**
+     * Tests converting with an invalid SQL type.
+     */
+    public void testConvertFromStringWithInvalidSqlType()
+    {
+        String textRep = "2005-12-19 02:15:59";
+
+        assertEquals(textRep, _timestampConverter.convertFromString(textRep, Types.INTEGER));
+    }
+
+    /**
+     * Tests converting a timestamp to a string.
+     */
+    public void testNormalConvertToString()
+    {
+        Timestamp timestamp = Timestamp.valueOf("2005-12-19 02:15:59.123");
+
+        assertEquals("2005-12-19 02:15:59.123", _timestampConverter.convertToString(timestamp, Types.TIMESTAMP));
+    }
+
+    /**
+     * Tests converting timestamps from multiple threads using the same converter.
+     */
+    public void testConcurrentConvertFromString() throws Exception
+    {
+        final String[] textReps = new String[12];
+        final List     failures = new ArrayList();
+        Thread[]       threads  = new Thread[4];
+
+        for (int idx = 0; idx < textReps.length; idx++)
+        {
+            textReps[idx] = (1990 + idx) + "-0" + (1 + idx % 9) + "-" + (10 + idx) + " " + (10 + idx) + ":30:" + (20 + idx) + "." + idx;
+        }
+        for (int threadIdx = 0; threadIdx < threads.length; threadIdx++)
+        {
+            threads[threadIdx] = new Thread(new Runnable() {
+                public void run()
+                {
+                    try
+                    {
+                        for (int count = 0; count < 1000; count++)
+                        {
+                            int    idx    = count % textReps.length;
+                            Object result = _timestampConverter.convertFromString(textReps[idx], Types.TIMESTAMP);
+
+                            if (!Timestamp.valueOf(textReps[idx]).equals(result))
+                            {
+                                synchronized (failures)
+                                {
+                                    failures.add(textReps[idx] + " -> " + result);
+                                }
+                            }
+                        }
+                    }
+                    catch (RuntimeException ex)
+                    {
+                        synchronized (failures)
+                        {
+                            failures.add(ex.toString());
+                        }
+                    }
+                }
+            });
+            threads[threadIdx].start();
+        }
+        for (int threadIdx = 0; threadIdx < threads.length; threadIdx++)
+        {
+            threads[threadIdx].join();
+        }
+        assertTrue("Wrong conversions: " + failures, failures.isEmpty());
+    }
+}
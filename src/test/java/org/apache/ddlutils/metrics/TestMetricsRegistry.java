@@ -0,0 +1,121 @@
+package org.apache.ddlutils.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link MetricsRegistry}.
+ *
+ * @version $Revision: $
+ */
+public class TestMetricsRegistry extends TestCase
+{
+    /**
+     * Tests counters and recorded values.
+     */
+    public void testStatistics()
+    {
+        MetricsRegistry registry = new MetricsRegistry();
+
+        registry.increment(MetricsCollector.ROWS_WRITTEN_PREFIX + "test", 5);
+        registry.increment(MetricsCollector.ROWS_WRITTEN_PREFIX + "test", 3);
+        registry.record(MetricsCollector.JDBC_BATCH_SIZE, 10);
+        registry.record(MetricsCollector.JDBC_BATCH_SIZE, 2);
+        registry.record(MetricsCollector.JDBC_BATCH_SIZE, 6);
+
+        assertEquals(8, registry.getCount(MetricsCollector.ROWS_WRITTEN_PREFIX + "test"));
+        assertEquals(0, registry.getCount(MetricsCollector.ROWS_READ_PREFIX + "test"));
+        assertNull(registry.getStatistic(MetricsCollector.ROWS_READ_PREFIX + "test"));
+
+        Statistic statistic = registry.getStatistic(MetricsCollector.JDBC_BATCH_SIZE);
+
+        assertEquals(3, statistic.getCount());
+        assertEquals(18, statistic.getSum());
+        assertEquals(2, statistic.getMin());
+        assertEquals(10, statistic.getMax());
+        assertEquals(6.0, statistic.getMean(), 0.0);
+
+        String[] names = registry.getNames();
+
+        assertEquals(2, names.length);
+        assertEquals(MetricsCollector.JDBC_BATCH_SIZE, names[0]);
+        assertEquals(MetricsCollector.ROWS_WRITTEN_PREFIX + "test", names[1]);
+
+        registry.reset();
+        assertEquals(0, registry.getNames().length);
+    }
+
+    /**
+     * Tests recording values from multiple threads.
+     */
+    public void testConcurrentRecording() throws Exception
+    {
+        final MetricsRegistry registry = new MetricsRegistry();
+        final List            failures = new ArrayList();
+        Thread[]              threads  = new Thread[4];
+
+        for (int threadIdx = 0; threadIdx < threads.length; threadIdx++)
+        {
+            final String ownName = MetricsCollector.ROWS_WRITTEN_PREFIX + threadIdx;
+
+            threads[threadIdx] = new Thread(new Runnable() {
+                public void run()
+                {
+                    try
+                    {
+                        for (int count = 1; count <= 1000; count++)
+                        {
+                            registry.increment(ownName, 1);
+                            registry.record(MetricsCollector.JDBC_BATCH_SIZE, count);
+                        }
+                    }
+                    catch (RuntimeException ex)
+                    {
+                        synchronized (failures)
+                        {
+                            failures.add(ex.toString());
+                        }
+                    }
+                }
+            });
+            threads[threadIdx].start();
+        }
+        for (int threadIdx = 0; threadIdx < threads.length; threadIdx++)
+        {
+            threads[threadIdx].join();
+        }
+        assertTrue("Errors: " + failures, failures.isEmpty());
+        for (int threadIdx = 0; threadIdx < threads.length; threadIdx++)
+        {
+            assertEquals(1000, registry.getCount(MetricsCollector.ROWS_WRITTEN_PREFIX + threadIdx));
+        }
+
+        Statistic statistic = registry.getStatistic(MetricsCollector.JDBC_BATCH_SIZE);
+
+        assertEquals(4000, statistic.getCount());
+        assertEquals(4 * 500500, statistic.getSum());
+        assertEquals(1, statistic.getMin());
+        assertEquals(1000, statistic.getMax());
+    }
+}
@@ -0,0 +1,68 @@
+package org.apache.ddlutils.metrics.jmx;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanInfo;
+
+import junit.framework.TestCase;
+
+import org.apache.ddlutils.metrics.MetricsCollector;
+import org.apache.ddlutils.metrics.MetricsRegistry;
+
+/**
+ * Tests the {@link MetricsMBean}.
+ *
+ * @version $Revision: $
+ */
+public class TestMetricsMBean extends TestCase
+{
+    /**
+     * Tests the JMX view of the registry.
+     */
+    public void testMBean() throws Exception
+    {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsMBean    mbean    = new MetricsMBean(registry);
+
+        registry.record(MetricsCollector.JDBC_STATEMENT_TIME, 4);
+        registry.record(MetricsCollector.JDBC_STATEMENT_TIME, 8);
+
+        MBeanInfo info = mbean.getMBeanInfo();
+
+        assertEquals(5, info.getAttributes().length);
+        assertEquals(new Long(2), mbean.getAttribute(MetricsCollector.JDBC_STATEMENT_TIME + ".count"));
+        assertEquals(new Long(12), mbean.getAttribute(MetricsCollector.JDBC_STATEMENT_TIME + ".sum"));
+        assertEquals(new Long(8), mbean.getAttribute(MetricsCollector.JDBC_STATEMENT_TIME + ".max"));
+        assertEquals(new Double(6.0), mbean.getAttribute(MetricsCollector.JDBC_STATEMENT_TIME + ".mean"));
+        try
+        {
+            mbean.getAttribute(MetricsCollector.BYTES_WRITTEN + ".sum");
+            fail("AttributeNotFoundException expected");
+        }
+        catch (AttributeNotFoundException ex)
+        {
+            // expected
+        }
+
+        mbean.invoke("reset", new Object[0], new String[0]);
+        assertEquals(0, mbean.getMBeanInfo().getAttributes().length);
+    }
+}
@@ -0,0 +1,123 @@
+package org.apache.ddlutils.model;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.ddlutils.TestBase;
+import org.apache.ddlutils.alteration.AddColumnChange;
+import org.apache.ddlutils.io.DatabaseIO;
+
+/**
+ * Tests the copy-on-write cloning of models.
+ * 
+ * @version $Revision: $
+ */
+public class TestCloneHelper extends TestBase
+{
+    /** The tested model. */
+    private static final String MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='test'>\n" +
+        "  <table name='TableA'>\n" +
+        "    <column name='ColPK' type='INTEGER' primaryKey='true' required='true'/>\n" +
+        "  </table>\n" +
+        "  <table name='TableB'>\n" +
+        "    <column name='ColPK' type='INTEGER' primaryKey='true' required='true'/>\n" +
+        "    <column name='ColFK' type='INTEGER'/>\n" +
+        "    <foreign-key foreignTable='TableA'>\n" +
+        "      <reference local='ColFK' foreign='ColPK'/>\n" +
+        "    </foreign-key>\n" +
+        "  </table>\n" +
+        "  <table name='TableC'>\n" +
+        "    <column name='ColPK' type='INTEGER' primaryKey='true' required='true'/>\n" +
+        "  </table>\n" +
+        "</database>";
+
+    /**
+     * Tests that a copy-on-write clone initially shares all tables with the source model.
+     */
+    public void testCloneSharesTables()
+    {
+        Database source = parseDatabaseFromString(MODEL);
+        Database clone  = new CloneHelper().copyOnWriteClone(source);
+
+        assertEquals(source, clone);
+        assertEquals(3, clone.getTableCount());
+        for (int idx = 0; idx < clone.getTableCount(); idx++)
+        {
+            assertSame(source.getTable(idx), clone.getTable(idx));
+            assertTrue(clone.isSharedTable(clone.getTable(idx)));
+        }
+    }
+
+    /**
+     * Tests that changing a table of a copy-on-write clone only copies that table and the
+     * tables that reference it, and leaves the source model unchanged.
+     */
+    public void testChangeOfReferencedTable()
+    {
+        Database source       = parseDatabaseFromString(MODEL);
+        Database sourceCopy   = new CloneHelper().clone(source);
+        Database clone        = new CloneHelper().copyOnWriteClone(source);
+        Column   newColumn    = new Column();
+
+        newColumn.setName("ColNew");
+        newColumn.setType("VARCHAR");
+        newColumn.setSize("32");
+        new AddColumnChange("TableA", newColumn, null, null).apply(clone, true);
+
+        assertEquals(sourceCopy, source);
+        assertEquals(1, source.getTable(0).getColumnCount());
+
+        Table tableA = clone.getTable(0);
+        Table tableB = clone.getTable(1);
+        Table tableC = clone.getTable(2);
+
+        assertNotSame(source.getTable(0), tableA);
+        assertFalse(clone.isSharedTable(tableA));
+        assertEquals(2, tableA.getColumnCount());
+
+        // table B has been copied because it references table A
+        assertNotSame(source.getTable(1), tableB);
+        assertFalse(clone.isSharedTable(tableB));
+        assertSame(tableA, tableB.getForeignKey(0).getForeignTable());
+        assertSame(tableA.getColumn(0), tableB.getForeignKey(0).getReference(0).getForeignColumn());
+        assertSame(tableB.getColumn(1), tableB.getForeignKey(0).getReference(0).getLocalColumn());
+
+        assertSame(source.getTable(2), tableC);
+        assertTrue(clone.isSharedTable(tableC));
+    }
+
+    /**
+     * Tests that changing a table that is not referenced by other tables only copies that table.
+     */
+    public void testChangeOfReferencingTable()
+    {
+        Database source = parseDatabaseFromString(MODEL);
+        Database clone  = new CloneHelper().copyOnWriteClone(source);
+        Table    tableB = clone.getModifiableTable(clone.getTable(1));
+
+        assertSame(tableB, clone.getTable(1));
+        assertSame(tableB, clone.getModifiableTable(tableB));
+        assertNotSame(source.getTable(1), tableB);
+        assertSame(source.getTable(0), clone.getTable(0));
+        assertSame(clone.getTable(0), tableB.getForeignKey(0).getForeignTable());
+        assertSame(source.getTable(2), clone.getTable(2));
+    }
+}
@@ -19,8 +19,19 @@ package org.apache.ddlutils.platform;
  * under the License.
  */
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.beanutils.DynaBean;
 import org.apache.ddlutils.TestPlatformBase;
+import org.apache.ddlutils.io.DatabaseIO;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
+import org.apache.ddlutils.platform.derby.DerbyBuilder;
 import org.apache.ddlutils.platform.derby.DerbyPlatform;
+import org.apache.ddlutils.util.RecordingConnection;
 
 /**
  * Tests the Derby platform.
@@ -156,4 +167,162 @@ public class TestDerbyPlatform extends TestPlatformBase
             ");\n",
             getCharEscapingTestDatabaseCreationSql());
     }
+
+    /**
+     * Tests the generation of multi-row inserts.
+     */
+    public void testMultiRowInsertSql() throws Exception
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='multirowinserttest'>\n" +
+            "  <table name='table1'>\n" +
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true'/>\n" +
+            "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+            "  </table>\n" +
+            "</database>";
+
+        Database  testDb = parseDatabaseFromString(schema);
+        Table     table  = testDb.getTable(0);
+        ArrayList rows   = new ArrayList();
+        HashMap   row    = new HashMap();
+
+        row.put("COL_PK", new Integer(1));
+        row.put("COL_TEXT", "it's");
+        rows.add(row);
+        row = new HashMap();
+        row.put("COL_PK", new Integer(2));
+        rows.add(row);
+
+        assertEquals("INSERT INTO \"table1\" (\"COL_PK\", \"COL_TEXT\") VALUES (?, ?), (?, ?), (?, ?)",
+                     getSqlBuilder().getMultiRowInsertSql(table, table.getColumns(), 3));
+        assertEquals("INSERT INTO \"table1\" (\"COL_PK\", \"COL_TEXT\") VALUES ('1', 'it''s'), ('2', NULL)",
+                     getSqlBuilder().getMultiRowInsertSql(table, table.getColumns(), rows));
+    }
+
+    /**
+     * Tests the generation of the statement for counting the rows of a table.
+     */
+    public void testCountSql() throws Exception
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='counttest'>\n" +
+            "  <table name='table1'>\n" +
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true'/>\n" +
+            "  </table>\n" +
+            "</database>";
+
+        Table table = parseDatabaseFromString(schema).getTable(0);
+
+        assertEquals("SELECT COUNT(*) FROM \"table1\"",
+                     getSqlBuilder().getCountSql(table));
+        getPlatform().setDelimitedIdentifierModeOn(false);
+        assertEquals("SELECT COUNT(*) FROM table1",
+                     getSqlBuilder().getCountSql(table));
+    }
+
+    /**
+     * Tests the generation of the statement for importing data from a file.
+     */
+    public void testCsvImportSql() throws Exception
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='importtest'>\n" +
+            "  <table name='table1'>\n" +
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true'/>\n" +
+            "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+            "  </table>\n" +
+            "</database>";
+
+        Database testDb = parseDatabaseFromString(schema);
+        Table    table  = testDb.getTable(0);
+
+        assertEquals("CALL SYSCS_UTIL.SYSCS_IMPORT_DATA(NULL, 'table1', '\"COL_PK\",\"COL_TEXT\"', NULL, '/tmp/it''s.csv', NULL, NULL, 'UTF-8', 0)",
+                     ((DerbyBuilder)getSqlBuilder()).getCsvImportSql(table, table.getColumns(), "/tmp/it's.csv"));
+        getPlatform().setDelimitedIdentifierModeOn(false);
+        assertEquals("CALL SYSCS_UTIL.SYSCS_IMPORT_DATA(NULL, 'TABLE1', 'COL_PK,COL_TEXT', NULL, '/tmp/it''s.csv', NULL, NULL, 'UTF-8', 0)",
+                     ((DerbyBuilder)getSqlBuilder()).getCsvImportSql(table, table.getColumns(), "/tmp/it's.csv"));
+    }
+
+    /**
+     * Tests the generation of the statement for exporting data into a file.
+     */
+    public void testCsvExportSql() throws Exception
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='exporttest'>\n" +
+            "  <table name='table1'>\n" +
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true'/>\n" +
+            "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+            "  </table>\n" +
+            "</database>";
+
+        Database testDb = parseDatabaseFromString(schema);
+        Table    table  = testDb.getTable(0);
+
+        assertEquals("CALL SYSCS_UTIL.SYSCS_EXPORT_QUERY('SELECT \"COL_PK\", \"COL_TEXT\" FROM \"table1\"', '/tmp/it''s.csv', NULL, NULL, 'UTF-8')",
+                     ((DerbyBuilder)getSqlBuilder()).getCsvExportSql(table, table.getColumns(), "/tmp/it's.csv"));
+    }
+
+    /**
+     * Tests that bulk inserts into an embedded database use the CSV import only in auto-commit
+     * mode, because the import procedure commits or rolls back the current transaction.
+     */
+    public void testCsvImportOnlyInAutoCommitMode() throws Exception
+    {
+        assertEquals(1, getCsvImports(true).size());
+        assertEquals(0, getCsvImports(false).size());
+    }
+
+    /**
+     * Inserts enough rows for the CSV import via native bulk insert into an embedded database
+     * and returns the import calls that were used.
+     * 
+     * @param autoCommit Whether the connection is in auto-commit mode
+     * @return The import calls
+     */
+    private List getCsvImports(boolean autoCommit) throws Exception
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='bulkinserttest'>\n" +
+            "  <table name='table1'>\n" +
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true' required='true'/>\n" +
+            "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+            "  </table>\n" +
+            "</database>";
+
+        RecordingConnection connection = new RecordingConnection();
+        Database            testDb     = parseDatabaseFromString(schema);
+        List                beans      = new ArrayList();
+
+        for (int idx = 0; idx < 500; idx++)
+        {
+            DynaBean bean = testDb.createDynaBeanFor("table1", false);
+
+            bean.set("COL_PK", new Integer(idx));
+            bean.set("COL_TEXT", "text" + idx);
+            beans.add(bean);
+        }
+        connection.setMetaDataValue("getURL", "jdbc:derby:memory:test");
+        connection.getConnection().setAutoCommit(autoCommit);
+        getPlatform().setNativeBulkInsertOn(true);
+        getPlatform().insert(connection.getConnection(), testDb, beans);
+
+        List imports = new ArrayList();
+
+        for (Iterator it = connection.getCalls("execute").iterator(); it.hasNext();)
+        {
+            String call = (String)it.next();
+
+            if (call.indexOf("SYSCS_UTIL.SYSCS_IMPORT_DATA") > 0)
+            {
+                imports.add(call);
+            }
+        }
+        return imports;
+    }
 }
@@ -21,7 +21,9 @@ package org.apache.ddlutils.platform;
 
 import org.apache.ddlutils.TestPlatformBase;
 import org.apache.ddlutils.io.DatabaseIO;
+import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.platform.hsqldb.HsqlDbPlatform;
+import org.apache.ddlutils.util.RecordingConnection;
 
 /**
  * Tests the Hsqldb platform.
@@ -169,4 +171,67 @@ public class TestHsqlDbPlatform extends TestPlatformBase
             ");\n",
             getCharEscapingTestDatabaseCreationSql());
     }
+
+    /**
+     * Tests that a bulk load switches the transaction log off and back on if it was on.
+     */
+    public void testBulkLoadWithLogOn() throws Exception
+    {
+        RecordingConnection connection = createBulkLoadConnection("TRUE");
+
+        getPlatform().beforeBulkLoad(connection.getConnection(), new Database());
+        assertEquals(1, connection.getCalls("execute").size());
+        assertEquals("execute: SET FILES LOG FALSE", connection.getCalls("execute").get(0));
+
+        getPlatform().afterBulkLoad(connection.getConnection(), new Database());
+        assertEquals(3, connection.getCalls("execute").size());
+        assertEquals("execute: SET FILES LOG TRUE", connection.getCalls("execute").get(1));
+        assertEquals("execute: CHECKPOINT", connection.getCalls("execute").get(2));
+    }
+
+    /**
+     * Tests that a bulk load leaves the transaction log alone if it was off.
+     */
+    public void testBulkLoadWithLogOff() throws Exception
+    {
+        RecordingConnection connection = createBulkLoadConnection("FALSE");
+
+        getPlatform().beforeBulkLoad(connection.getConnection(), new Database());
+        getPlatform().afterBulkLoad(connection.getConnection(), new Database());
+        assertEquals(1, connection.getCalls("execute").size());
+        assertEquals("execute: CHECKPOINT", connection.getCalls("execute").get(0));
+    }
+
+    /**
+     * Tests that the transaction log is only switched back on after the last of several
+     * concurrent bulk loads has finished.
+     */
+    public void testConcurrentBulkLoads() throws Exception
+    {
+        RecordingConnection connection = createBulkLoadConnection("TRUE");
+
+        getPlatform().beforeBulkLoad(connection.getConnection(), new Database());
+        getPlatform().beforeBulkLoad(connection.getConnection(), new Database());
+        getPlatform().afterBulkLoad(connection.getConnection(), new Database());
+        assertEquals(0, connection.getCalls("execute: SET FILES LOG TRUE").size());
+        getPlatform().afterBulkLoad(connection.getConnection(), new Database());
+        assertEquals(1, connection.getCalls("execute: SET FILES LOG FALSE").size());
+        assertEquals(1, connection.getCalls("execute: SET FILES LOG TRUE").size());
+    }
+
+    /**
+     * Creates a connection on which the given value is returned for the transaction log setting.
+     * 
+     * @param logSetting The setting
+     * @return The connection
+     */
+    private RecordingConnection createBulkLoadConnection(String logSetting)
+    {
+        RecordingConnection connection = new RecordingConnection();
+
+        connection.setQueryResult("SELECT PROPERTY_VALUE FROM INFORMATION_SCHEMA.SYSTEM_PROPERTIES WHERE PROPERTY_NAME = 'hsqldb.log_data'",
+                                  new String[] { "PROPERTY_VALUE" },
+                                  new Object[][] { { logSetting } });
+        return connection;
+    }
 }
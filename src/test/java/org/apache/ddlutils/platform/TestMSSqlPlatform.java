@@ -19,11 +19,23 @@ package org.apache.ddlutils.platform;
  * under the License.
  */
 
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.commons.beanutils.DynaBean;
 import org.apache.ddlutils.TestPlatformBase;
+import org.apache.ddlutils.io.DatabaseIO;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
+import org.apache.ddlutils.platform.mssql.MSSqlBuilder;
 import org.apache.ddlutils.platform.mssql.MSSqlPlatform;
+import org.apache.ddlutils.util.RecordingConnection;
 
 /**
  * Tests the Microsoft SQL Server platform.
@@ -32,6 +44,26 @@ import org.apache.ddlutils.platform.mssql.MSSqlPlatform;
  */
 public class TestMSSqlPlatform extends TestPlatformBase
 {
+    /** The schema used by the tests of the identity override and the bulk copy. */
+    private static final String IDENTITY_SCHEMA =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='identitytest'>\n" +
+        "  <table name='table1'>\n" +
+        "    <column name='COL_PK' type='INTEGER' primaryKey='true' required='true' autoIncrement='true'/>\n" +
+        "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+        "  </table>\n" +
+        "  <table name='table2'>\n" +
+        "    <column name='COL_PK' type='INTEGER' primaryKey='true' required='true' autoIncrement='true'/>\n" +
+        "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+        "  </table>\n" +
+        "  <table name='table3'>\n" +
+        "    <column name='COL_PK' type='INTEGER' primaryKey='true' required='true'/>\n" +
+        "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+        "  </table>\n" +
+        "</database>";
+    /** The calls made to the stub bulk copy objects. */
+    private static final List _bulkCopyCalls = new ArrayList();
+
     /**
      * {@inheritDoc}
      */
@@ -335,4 +367,396 @@ public class TestMSSqlPlatform extends TestPlatformBase
             ");\n",
             sql);
     }
+
+    /**
+     * Tests the generation of multi-row inserts.
+     */
+    public void testMultiRowInsertSql() throws Exception
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='multirowinserttest'>\n" +
+            "  <table name='table1'>\n" +
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true'/>\n" +
+            "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+            "  </table>\n" +
+            "</database>";
+
+        Database testDb = parseDatabaseFromString(schema);
+        Table    table  = testDb.getTable(0);
+
+        assertEquals("SET quoted_identifier on;\nINSERT INTO \"table1\" (\"COL_PK\", \"COL_TEXT\") VALUES (?, ?), (?, ?)",
+                     getSqlBuilder().getMultiRowInsertSql(table, table.getColumns(), 2));
+    }
+
+    /**
+     * Tests the table name used for bulk copies.
+     */
+    public void testBulkCopyTableName() throws Exception
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='bulkcopytest'>\n" +
+            "  <table name='table]1'>\n" +
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true'/>\n" +
+            "  </table>\n" +
+            "</database>";
+
+        Database     testDb  = parseDatabaseFromString(schema);
+        MSSqlBuilder builder = (MSSqlBuilder)getSqlBuilder();
+
+        assertEquals("[table]]1]",
+                     builder.getBulkCopyTableName(testDb.getTable(0)));
+        getPlatform().setDelimitedIdentifierModeOn(false);
+        assertEquals("table]1",
+                     builder.getBulkCopyTableName(testDb.getTable(0)));
+    }
+
+    /**
+     * Tests that the identity override is switched on and off around each insert into a
+     * table with an identity column if the identity override is on.
+     */
+    public void testIdentityOverrideForInserts() throws Exception
+    {
+        RecordingConnection connection = new RecordingConnection();
+        Database            testDb     = parseDatabaseFromString(IDENTITY_SCHEMA);
+
+        getPlatform().setIdentityOverrideOn(true);
+        getPlatform().insert(connection.getConnection(), testDb, createBean(testDb, "table1", 1));
+        getPlatform().insert(connection.getConnection(), testDb, createBean(testDb, "table1", 2));
+
+        assertEquals(4, connection.getCalls("execute").size());
+        assertIdentityOverride(connection.getCalls("execute").get(0), "table1", true);
+        assertIdentityOverride(connection.getCalls("execute").get(1), "table1", false);
+        assertIdentityOverride(connection.getCalls("execute").get(2), "table1", true);
+        assertIdentityOverride(connection.getCalls("execute").get(3), "table1", false);
+    }
+
+    /**
+     * Tests that during a bulk load the identity override is only switched when the rows of
+     * another table need it, and switched off at the end of the load.
+     */
+    public void testIdentityOverrideForBulkLoad() throws Exception
+    {
+        RecordingConnection connection = new RecordingConnection();
+        Database            testDb     = parseDatabaseFromString(IDENTITY_SCHEMA);
+
+        getPlatform().setIdentityOverrideOn(true);
+        getPlatform().beforeBulkLoad(connection.getConnection(), testDb);
+        getPlatform().insert(connection.getConnection(), testDb, createBean(testDb, "table1", 1));
+        getPlatform().insert(connection.getConnection(), testDb, createBean(testDb, "table1", 2));
+        getPlatform().insert(connection.getConnection(), testDb, createBean(testDb, "table2", 1));
+        getPlatform().insert(connection.getConnection(), testDb, createBean(testDb, "table3", 1));
+
+        List identityCalls = getIdentityOverrideCalls(connection);
+
+        assertEquals(3, identityCalls.size());
+        assertIdentityOverride(identityCalls.get(0), "table1", true);
+        assertIdentityOverride(identityCalls.get(1), "table1", false);
+        assertIdentityOverride(identityCalls.get(2), "table2", true);
+
+        getPlatform().afterBulkLoad(connection.getConnection(), testDb);
+
+        identityCalls = getIdentityOverrideCalls(connection);
+        assertEquals(4, identityCalls.size());
+        assertIdentityOverride(identityCalls.get(3), "table2", false);
+
+        // after the bulk load, the identity override is switched per insert again
+        getPlatform().insert(connection.getConnection(), testDb, createBean(testDb, "table1", 3));
+
+        identityCalls = getIdentityOverrideCalls(connection);
+        assertEquals(6, identityCalls.size());
+        assertIdentityOverride(identityCalls.get(4), "table1", true);
+        assertIdentityOverride(identityCalls.get(5), "table1", false);
+    }
+
+    /**
+     * Tests that native bulk inserts use the bulk copy API of the JDBC driver if enabled.
+     */
+    public void testBulkCopy() throws Exception
+    {
+        RecordingConnection connection = new RecordingConnection();
+        Database            testDb     = parseDatabaseFromString(IDENTITY_SCHEMA);
+        MSSqlPlatform       platform   = createBulkCopyPlatform();
+
+        platform.setNativeBulkInsertOn(true);
+        platform.setBulkCopyUsed(true);
+        platform.insert(connection.getConnection(),
+                        testDb,
+                        Arrays.asList(new DynaBean[] { createBean(testDb, "table3", 1), createBean(testDb, "table3", 2) }));
+
+        assertEquals(0, connection.getCalls("prepareStatement").size());
+        assertEquals(Arrays.asList(new String[] { "setKeepIdentity: false",
+                                                  "setKeepNulls: true",
+                                                  "setFireTriggers: true",
+                                                  "setDestinationTableName: table3",
+                                                  "addColumnMapping: 1 -> COL_PK",
+                                                  "addColumnMapping: 2 -> COL_TEXT",
+                                                  "writeToServer: [1, text1]",
+                                                  "writeToServer: [2, text2]",
+                                                  "close" }),
+                     _bulkCopyCalls);
+    }
+
+    /**
+     * Tests that the bulk copy keeps the identity values of the beans if the identity override
+     * is on, and that it does not need the identity override statements.
+     */
+    public void testBulkCopyWithIdentityOverride() throws Exception
+    {
+        RecordingConnection connection = new RecordingConnection();
+        Database            testDb     = parseDatabaseFromString(IDENTITY_SCHEMA);
+        MSSqlPlatform       platform   = createBulkCopyPlatform();
+
+        platform.setIdentityOverrideOn(true);
+        platform.setNativeBulkInsertOn(true);
+        platform.setBulkCopyUsed(true);
+        platform.insert(connection.getConnection(),
+                        testDb,
+                        Arrays.asList(new DynaBean[] { createBean(testDb, "table1", 1), createBean(testDb, "table1", 2) }));
+
+        assertEquals(0, connection.getCalls("prepareStatement").size());
+        assertEquals(0, getIdentityOverrideCalls(connection).size());
+        assertEquals("setKeepIdentity: true", _bulkCopyCalls.get(0));
+        assertTrue(_bulkCopyCalls.contains("writeToServer: [1, text1]"));
+        assertTrue(_bulkCopyCalls.contains("writeToServer: [2, text2]"));
+    }
+
+    /**
+     * Tests that beans whose identity values are generated by the database are not inserted
+     * via the bulk copy API, because it cannot return these values.
+     */
+    public void testNoBulkCopyForGeneratedIdentityValues() throws Exception
+    {
+        RecordingConnection connection = new RecordingConnection();
+        Database            testDb     = parseDatabaseFromString(IDENTITY_SCHEMA);
+        MSSqlPlatform       platform   = createBulkCopyPlatform();
+        DynaBean            bean1      = testDb.createDynaBeanFor("table1", false);
+        DynaBean            bean2      = testDb.createDynaBeanFor("table1", false);
+
+        bean1.set("COL_TEXT", "text1");
+        bean2.set("COL_TEXT", "text2");
+        platform.setNativeBulkInsertOn(true);
+        platform.setBulkCopyUsed(true);
+        platform.insert(connection.getConnection(), testDb, Arrays.asList(new DynaBean[] { bean1, bean2 }));
+
+        assertEquals(0, _bulkCopyCalls.size());
+        assertTrue(connection.getCalls("prepareStatement").size() > 0);
+    }
+
+    /**
+     * Creates a bean for the given table of {@link #IDENTITY_SCHEMA}.
+     * 
+     * @param testDb    The database model
+     * @param tableName The name of the table
+     * @param pk        The primary key value
+     * @return The bean
+     */
+    private DynaBean createBean(Database testDb, String tableName, int pk)
+    {
+        DynaBean bean = testDb.createDynaBeanFor(tableName, false);
+
+        bean.set("COL_PK", new Integer(pk));
+        bean.set("COL_TEXT", "text" + pk);
+        return bean;
+    }
+
+    /**
+     * Returns the recorded statements that switch the identity override.
+     * 
+     * @param connection The connection
+     * @return The statements
+     */
+    private List getIdentityOverrideCalls(RecordingConnection connection)
+    {
+        List result = new ArrayList();
+
+        for (Iterator it = connection.getCalls("execute").iterator(); it.hasNext();)
+        {
+            String call = (String)it.next();
+
+            if (call.indexOf("IDENTITY_INSERT") > 0)
+            {
+                result.add(call);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Asserts that the given recorded call switches the identity override of the given table.
+     * 
+     * @param call      The recorded call
+     * @param tableName The name of the table
+     * @param enable    Whether the identity override is switched on
+     */
+    private void assertIdentityOverride(Object call, String tableName, boolean enable)
+    {
+        assertTrue("Unexpected call " + call,
+                   ((String)call).endsWith("SET IDENTITY_INSERT \"" + tableName + "\" " + (enable ? "ON" : "OFF") + ";"));
+    }
+
+    /**
+     * Creates a platform that uses the stub bulk copy classes of this test instead of the
+     * ones of the Sql Server JDBC driver.
+     * 
+     * @return The platform
+     */
+    private MSSqlPlatform createBulkCopyPlatform()
+    {
+        _bulkCopyCalls.clear();
+        return new MSSqlPlatform() {
+            protected Class loadDriverClass(String className, ClassLoader classLoader) throws ClassNotFoundException
+            {
+                if ("com.microsoft.sqlserver.jdbc.SQLServerBulkCopy".equals(className))
+                {
+                    return BulkCopy.class;
+                }
+                else if ("com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions".equals(className))
+                {
+                    return BulkCopyOptions.class;
+                }
+                else if ("com.microsoft.sqlserver.jdbc.ISQLServerBulkRecord".equals(className))
+                {
+                    return BulkRecord.class;
+                }
+                else
+                {
+                    throw new ClassNotFoundException(className);
+                }
+            }
+        };
+    }
+
+    /**
+     * Stub for the bulk data interface of the Sql Server JDBC driver.
+     */
+    public static interface BulkRecord
+    {
+        /**
+         * Returns the ordinals of the columns.
+         * 
+         * @return The ordinals
+         */
+        public Set getColumnOrdinals();
+
+        /**
+         * Advances to the next row.
+         * 
+         * @return <code>true</code> if there is a next row
+         */
+        public boolean next();
+
+        /**
+         * Returns the values of the current row.
+         * 
+         * @return The values
+         */
+        public Object[] getRowData();
+    }
+
+    /**
+     * Stub for the bulk copy options class of the Sql Server JDBC driver.
+     */
+    public static class BulkCopyOptions
+    {
+        /**
+         * Specifies whether to keep the identity values.
+         * 
+         * @param keepIdentity Whether to keep the identity values
+         */
+        public void setKeepIdentity(boolean keepIdentity)
+        {
+            _bulkCopyCalls.add("setKeepIdentity: " + keepIdentity);
+        }
+
+        /**
+         * Specifies whether to keep null values.
+         * 
+         * @param keepNulls Whether to keep null values
+         */
+        public void setKeepNulls(boolean keepNulls)
+        {
+            _bulkCopyCalls.add("setKeepNulls: " + keepNulls);
+        }
+
+        /**
+         * Specifies whether to fire triggers.
+         * 
+         * @param fireTriggers Whether to fire triggers
+         */
+        public void setFireTriggers(boolean fireTriggers)
+        {
+            _bulkCopyCalls.add("setFireTriggers: " + fireTriggers);
+        }
+    }
+
+    /**
+     * Stub for the bulk copy class of the Sql Server JDBC driver.
+     */
+    public static class BulkCopy
+    {
+        /**
+         * Creates a new bulk copy object.
+         * 
+         * @param connection The connection
+         */
+        public BulkCopy(Connection connection)
+        {
+            assertNotNull(connection);
+        }
+
+        /**
+         * Sets the options.
+         * 
+         * @param options The options
+         */
+        public void setBulkCopyOptions(BulkCopyOptions options)
+        {
+            assertNotNull(options);
+        }
+
+        /**
+         * Sets the name of the target table.
+         * 
+         * @param tableName The table name
+         */
+        public void setDestinationTableName(String tableName)
+        {
+            _bulkCopyCalls.add("setDestinationTableName: " + tableName);
+        }
+
+        /**
+         * Maps a source column to a target column.
+         * 
+         * @param sourceColumn The ordinal of the source column
+         * @param targetColumn The name of the target column
+         */
+        public void addColumnMapping(int sourceColumn, String targetColumn)
+        {
+            _bulkCopyCalls.add("addColumnMapping: " + sourceColumn + " -> " + targetColumn);
+        }
+
+        /**
+         * Writes the rows of the given data to the server.
+         * 
+         * @param data The data
+         */
+        public void writeToServer(BulkRecord data)
+        {
+            assertEquals(2, data.getColumnOrdinals().size());
+            while (data.next())
+            {
+                _bulkCopyCalls.add("writeToServer: " + Arrays.asList(data.getRowData()));
+            }
+        }
+
+        /**
+         * Closes the bulk copy object.
+         */
+        public void close()
+        {
+            _bulkCopyCalls.add("close");
+        }
+    }
 }
@@ -19,10 +19,17 @@ package org.apache.ddlutils.platform;
  * under the License.
  */
 
+import java.util.Arrays;
+
+import org.apache.commons.beanutils.DynaBean;
 import org.apache.ddlutils.TestPlatformBase;
 import org.apache.ddlutils.io.DatabaseIO;
+import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
+import org.apache.ddlutils.platform.mysql.MySqlBuilder;
 import org.apache.ddlutils.platform.mysql.MySqlPlatform;
+import org.apache.ddlutils.util.RecordingConnection;
 
 /**
  * Tests the MySQL platform.
@@ -31,6 +38,16 @@ import org.apache.ddlutils.platform.mysql.MySqlPlatform;
  */
 public class TestMySqlPlatform extends TestPlatformBase
 {
+    /** The schema used by the tests of batch inserts with identity columns. */
+    private static final String IDENTITY_SCHEMA =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='identitytest'>\n" +
+        "  <table name='table1'>\n" +
+        "    <column name='COL_PK' type='INTEGER' primaryKey='true' required='true' autoIncrement='true'/>\n" +
+        "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+        "  </table>\n" +
+        "</database>";
+
     /**
      * {@inheritDoc}
      */
@@ -230,4 +247,97 @@ public class TestMySqlPlatform extends TestPlatformBase
             ");\n",
             getDatabaseCreationSql(schema));
     }
+
+    /**
+     * Tests the generation of the statements used for bulk inserts.
+     */
+    public void testBulkInsertSql() throws Exception
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='bulkinserttest'>\n" +
+            "  <table name='table1'>\n" +
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true'/>\n" +
+            "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+            "    <column name='COL_BINARY' type='VARBINARY' size='32'/>\n" +
+            "  </table>\n" +
+            "</database>";
+
+        Database     testDb  = parseDatabaseFromString(schema);
+        Table        table   = testDb.getTable(0);
+        MySqlBuilder builder = (MySqlBuilder)getSqlBuilder();
+
+        assertEquals("INSERT INTO `table1` (`COL_PK`, `COL_TEXT`) VALUES (?, ?), (?, ?), (?, ?)",
+                     builder.getMultiRowInsertSql(table, new Column[] { table.getColumn(0), table.getColumn(1) }, 3));
+        assertEquals("LOAD DATA LOCAL INFILE 'ddlutils.txt' INTO TABLE `table1` CHARACTER SET utf8 " +
+                     "(`COL_PK`, `COL_TEXT`, @col2) SET `COL_BINARY` = UNHEX(@col2)",
+                     builder.getLoadDataLocalInfileSql(table, table.getColumns()));
+    }
+
+    /**
+     * Tests that the identity values generated for a batch insert are read back into the beans
+     * if the JDBC driver supports generated keys.
+     */
+    public void testBatchInsertWithGeneratedKeys() throws Exception
+    {
+        RecordingConnection connection = new RecordingConnection();
+        Database            testDb     = parseDatabaseFromString(IDENTITY_SCHEMA);
+        DynaBean[]          beans      = createIdentityBeans(testDb);
+
+        connection.setMetaDataValue("supportsGetGeneratedKeys", Boolean.TRUE);
+        connection.setGeneratedKeys(new String[] { "GENERATED_KEY" },
+                                    new Object[][] { { new Long(10) }, { new Long(11) } });
+
+        assertTrue(getPlatform().isBatchIdentityValuesReadable(connection.getConnection()));
+
+        getPlatform().insert(connection.getConnection(), testDb, Arrays.asList(beans));
+
+        assertEquals(1, connection.getCalls("prepareStatement").size());
+        assertEquals(2, connection.getCalls("addBatch").size());
+        assertEquals(1, connection.getCalls("executeBatch").size());
+        assertEquals(new Integer(10), beans[0].get("COL_PK"));
+        assertEquals(new Integer(11), beans[1].get("COL_PK"));
+    }
+
+    /**
+     * Tests that the identity values are not read back for a batch insert if the JDBC driver
+     * does not support generated keys.
+     */
+    public void testBatchInsertWithoutGeneratedKeys() throws Exception
+    {
+        RecordingConnection connection = new RecordingConnection();
+        Database            testDb     = parseDatabaseFromString(IDENTITY_SCHEMA);
+        DynaBean[]          beans      = createIdentityBeans(testDb);
+
+        connection.setMetaDataValue("supportsGetGeneratedKeys", Boolean.FALSE);
+        connection.setGeneratedKeys(new String[] { "GENERATED_KEY" },
+                                    new Object[][] { { new Long(10) }, { new Long(11) } });
+
+        assertFalse(getPlatform().isBatchIdentityValuesReadable(connection.getConnection()));
+
+        getPlatform().insert(connection.getConnection(), testDb, Arrays.asList(beans));
+
+        assertEquals(2, connection.getCalls("addBatch").size());
+        assertEquals(1, connection.getCalls("executeBatch").size());
+        assertNull(beans[0].get("COL_PK"));
+        assertNull(beans[1].get("COL_PK"));
+    }
+
+    /**
+     * Creates two beans for the table of {@link #IDENTITY_SCHEMA}.
+     * 
+     * @param testDb The database model
+     * @return The beans
+     */
+    private DynaBean[] createIdentityBeans(Database testDb)
+    {
+        DynaBean[] beans = new DynaBean[2];
+
+        for (int idx = 0; idx < beans.length; idx++)
+        {
+            beans[idx] = testDb.createDynaBeanFor("table1", false);
+            beans[idx].set("COL_TEXT", "text" + idx);
+        }
+        return beans;
+    }
 }
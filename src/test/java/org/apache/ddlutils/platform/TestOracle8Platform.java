@@ -20,6 +20,11 @@ package org.apache.ddlutils.platform;
  */
 
 import org.apache.ddlutils.TestPlatformBase;
+import org.apache.ddlutils.io.DatabaseIO;
+import org.apache.ddlutils.model.Column;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
+import org.apache.ddlutils.platform.oracle.Oracle8Builder;
 import org.apache.ddlutils.platform.oracle.Oracle8Platform;
 
 /**
@@ -164,4 +169,30 @@ public class TestOracle8Platform extends TestPlatformBase
             ");\n",
             getCharEscapingTestDatabaseCreationSql());
     }
+
+    /**
+     * Tests the SQL used for bulk inserts.
+     */
+    public void testBulkInsertSql() throws Exception
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='bulkinserttest'>\n" +
+            "  <table name='table1'>\n" +
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true' autoIncrement='true'/>\n" +
+            "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+            "  </table>\n" +
+            "</database>";
+
+        Database       testDb  = parseDatabaseFromString(schema);
+        Table          table   = testDb.getTable(0);
+        Oracle8Builder builder = (Oracle8Builder)getSqlBuilder();
+
+        assertEquals("INSERT /*+ APPEND_VALUES */ INTO \"table1\" (\"COL_PK\", \"COL_TEXT\") VALUES (?, ?)",
+                     builder.getBulkInsertSql(table, table.getColumns(), true));
+        assertEquals("INSERT INTO \"table1\" (\"COL_TEXT\") VALUES (?)",
+                     builder.getBulkInsertSql(table, new Column[] { table.getColumn(1) }, false));
+        assertEquals("SELECT \"seq_table1_COL_PK\".nextval FROM dual CONNECT BY LEVEL <= 100",
+                     builder.getSelectNextIdentityValuesSql(table, table.getColumn(0), 100));
+    }
 }
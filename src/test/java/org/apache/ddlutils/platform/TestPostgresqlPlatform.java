@@ -19,9 +19,21 @@ package org.apache.ddlutils.platform;
  * under the License.
  */
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.beanutils.DynaBean;
 import org.apache.ddlutils.TestPlatformBase;
+import org.apache.ddlutils.io.DataProgress;
+import org.apache.ddlutils.io.DataToDatabaseSink;
 import org.apache.ddlutils.io.DatabaseIO;
+import org.apache.ddlutils.model.Column;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
+import org.apache.ddlutils.platform.postgresql.PostgreSqlBuilder;
 import org.apache.ddlutils.platform.postgresql.PostgreSqlPlatform;
+import org.apache.ddlutils.util.RecordingConnection;
 
 /**
  * Tests the PostgreSQL platform.
@@ -146,6 +158,124 @@ public class TestPostgresqlPlatform extends TestPlatformBase
             getTableConstraintTestDatabaseCreationSql());
     }
 
+    /**
+     * Tests the creation of the tables for a bulk load, and the subsequent online creation
+     * of the indices and foreign keys.
+     */
+    public void testBulkLoadTableCreation() throws Exception
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='bulkloadtest'>\n" +
+            "  <table name='table1'>\n" +
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true'/>\n" +
+            "    <column name='COL_INDEX' type='VARCHAR' size='32'/>\n" +
+            "    <index name='testindex'>\n" +
+            "      <index-column name='COL_INDEX'/>\n" +
+            "    </index>\n" +
+            "  </table>\n" +
+            "  <table name='table2'>\n" +
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true'/>\n" +
+            "    <column name='COL_FK' type='INTEGER' required='true'/>\n" +
+            "    <foreign-key name='testfk' foreignTable='table1'>\n" +
+            "      <reference local='COL_FK' foreign='COL_PK'/>\n" +
+            "    </foreign-key>\n" +
+            "  </table>\n" +
+            "</database>";
+
+        Database testDb = parseDatabaseFromString(schema);
+
+        getPlatform().setSqlCommentsOn(false);
+        getSqlBuilder().createTablesForBulkLoad(testDb, null, false);
+        getSqlBuilder().createIndexes(testDb.getTable(0), true);
+        getSqlBuilder().createForeignKeys(testDb);
+
+        assertEqualsIgnoringWhitespaces(
+            "CREATE TABLE \"table1\"\n"+
+            "(\n"+
+            "    \"COL_PK\"    INTEGER,\n"+
+            "    \"COL_INDEX\" VARCHAR(32),\n"+
+            "    PRIMARY KEY (\"COL_PK\")\n"+
+            ");\n"+
+            "CREATE TABLE \"table2\"\n"+
+            "(\n"+
+            "    \"COL_PK\" INTEGER,\n"+
+            "    \"COL_FK\" INTEGER NOT NULL,\n"+
+            "    PRIMARY KEY (\"COL_PK\")\n"+
+            ");\n"+
+            "CREATE INDEX CONCURRENTLY \"testindex\" ON \"table1\" (\"COL_INDEX\");\n"+
+            "ALTER TABLE \"table2\" ADD CONSTRAINT \"testfk\" FOREIGN KEY (\"COL_FK\") REFERENCES \"table1\" (\"COL_PK\");\n",
+            getBuilderOutput());
+    }
+
+    /**
+     * Tests the generation of the statement for copying rows into a table.
+     */
+    public void testCopyFromStdinSql() throws Exception
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='copytest'>\n" +
+            "  <table name='table1'>\n" +
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true' autoIncrement='true'/>\n" +
+            "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+            "    <column name='COL_BINARY' type='VARBINARY' size='32'/>\n" +
+            "  </table>\n" +
+            "</database>";
+
+        Database          testDb  = parseDatabaseFromString(schema);
+        Table             table   = testDb.getTable(0);
+        PostgreSqlBuilder builder = (PostgreSqlBuilder)getSqlBuilder();
+
+        assertEquals("COPY \"table1\" (\"COL_TEXT\", \"COL_BINARY\") FROM STDIN",
+                     builder.getCopyFromStdinSql(table, new Column[] { table.getColumn(1), table.getColumn(2) }));
+    }
+
+    /**
+     * Tests the generation of the <code>COPY</code> statement for exporting data.
+     */
+    public void testCopyToStdoutSql() throws Exception
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='copytest'>\n" +
+            "  <table name='table1'>\n" +
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true' autoIncrement='true'/>\n" +
+            "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+            "  </table>\n" +
+            "</database>";
+
+        Database          testDb  = parseDatabaseFromString(schema);
+        Table             table   = testDb.getTable(0);
+        PostgreSqlBuilder builder = (PostgreSqlBuilder)getSqlBuilder();
+
+        assertEquals("COPY \"table1\" (\"COL_PK\", \"COL_TEXT\") TO STDOUT WITH CSV HEADER",
+                     builder.getCopyToStdoutSql(table, table.getColumns()));
+    }
+
+    /**
+     * Tests that the <code>COPY</code> statement for exporting data converts binary values
+     * to hexadecimal form.
+     */
+    public void testCopyToStdoutSqlWithBinaryColumn() throws Exception
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='copytest'>\n" +
+            "  <table name='table1'>\n" +
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true'/>\n" +
+            "    <column name='COL_BINARY' type='VARBINARY' size='16'/>\n" +
+            "  </table>\n" +
+            "</database>";
+
+        Database          testDb  = parseDatabaseFromString(schema);
+        Table             table   = testDb.getTable(0);
+        PostgreSqlBuilder builder = (PostgreSqlBuilder)getSqlBuilder();
+
+        assertEquals("COPY (SELECT \"COL_PK\", encode(\"COL_BINARY\", 'hex') AS \"COL_BINARY\" FROM \"table1\") TO STDOUT WITH CSV HEADER",
+                     builder.getCopyToStdoutSql(table, table.getColumns()));
+    }
+
     /**
      * Tests the proper escaping of character sequences where PostgreSQL requires it.
      */
@@ -171,4 +301,229 @@ public class TestPostgresqlPlatform extends TestPlatformBase
             ");\n",
             getDatabaseCreationSql(schema));
     }
+
+    /**
+     * Tests the SQL used for reserving identity values in advance.
+     */
+    public void testSelectNextIdentityValuesSql() throws Exception
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='identitytest'>\n" +
+            "  <table name='table1'>\n" +
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true' autoIncrement='true'/>\n" +
+            "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+            "  </table>\n" +
+            "</database>";
+
+        Database testDb = parseDatabaseFromString(schema);
+        Table    table  = testDb.getTable(0);
+
+        assertEquals("SELECT nextval('\"table1_COL_PK_seq\"') FROM generate_series(1, 100)",
+                     getSqlBuilder().getSelectNextIdentityValuesSql(table, table.getColumn(0), 100));
+    }
+
+    /**
+     * Tests that the identity values of batch inserts are only read back with JDBC drivers
+     * that return the generated keys for all rows of a batch.
+     */
+    public void testBatchIdentityValuesReadable() throws Exception
+    {
+        assertTrue(getPlatformInfo().isBatchIdentityValuesReadable());
+
+        assertFalse(isBatchIdentityValuesReadable(false, 42, 2, "PostgreSQL JDBC Driver 42.2.5"));
+        assertFalse(isBatchIdentityValuesReadable(true, 8, 4, "PostgreSQL 8.4 JDBC4 (build 702)"));
+        assertFalse(isBatchIdentityValuesReadable(true, 9, 4, "PostgreSQL 9.4 JDBC4.1 (build 1201)"));
+        assertTrue(isBatchIdentityValuesReadable(true, 9, 4, "PostgreSQL 9.4.1209"));
+        assertTrue(isBatchIdentityValuesReadable(true, 9, 5, "PostgreSQL 9.5"));
+        assertTrue(isBatchIdentityValuesReadable(true, 42, 2, "PostgreSQL JDBC Driver 42.2.5"));
+    }
+
+    /**
+     * Determines whether the platform reads back the identity values of batch inserts for a
+     * JDBC driver with the given properties.
+     * 
+     * @param generatedKeys Whether the driver supports generated keys
+     * @param majorVersion  The major version of the driver
+     * @param minorVersion  The minor version of the driver
+     * @param version       The version string of the driver
+     * @return <code>true</code> if the identity values are read back
+     */
+    private boolean isBatchIdentityValuesReadable(boolean generatedKeys, int majorVersion, int minorVersion, String version) throws Exception
+    {
+        RecordingConnection connection = new RecordingConnection();
+
+        connection.setMetaDataValue("supportsGetGeneratedKeys", Boolean.valueOf(generatedKeys));
+        connection.setMetaDataValue("getDriverMajorVersion", new Integer(majorVersion));
+        connection.setMetaDataValue("getDriverMinorVersion", new Integer(minorVersion));
+        connection.setMetaDataValue("getDriverVersion", version);
+        return getPlatform().isBatchIdentityValuesReadable(connection.getConnection());
+    }
+
+    /**
+     * Tests that native bulk inserts only use multi-row inserts for PostgreSql 8.2 and newer.
+     */
+    public void testMultiRowInsertDependsOnVersion() throws Exception
+    {
+        assertEquals(0, getBulkInsertStatements(8, 1).size());
+        assertEquals(1, getBulkInsertStatements(8, 2).size());
+        assertEquals(1, getBulkInsertStatements(9, 0).size());
+        assertTrue(((String)getBulkInsertStatements(8, 2).get(0)).indexOf("VALUES (?, ?), (?, ?)") > 0);
+    }
+
+    /**
+     * Inserts two rows via native bulk insert into a database of the given version and
+     * returns the multi-row insert statements that were used.
+     * 
+     * @param majorVersion The major version of the database
+     * @param minorVersion The minor version of the database
+     * @return The multi-row insert statements
+     */
+    private List getBulkInsertStatements(int majorVersion, int minorVersion) throws Exception
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='bulkinserttest'>\n" +
+            "  <table name='table1'>\n" +
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true' required='true'/>\n" +
+            "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+            "  </table>\n" +
+            "</database>";
+
+        RecordingConnection connection = new RecordingConnection();
+        Database            testDb     = parseDatabaseFromString(schema);
+        List                beans      = new ArrayList();
+
+        for (int idx = 0; idx < 2; idx++)
+        {
+            DynaBean bean = testDb.createDynaBeanFor("table1", false);
+
+            bean.set("COL_PK", new Integer(idx));
+            bean.set("COL_TEXT", "text" + idx);
+            beans.add(bean);
+        }
+        connection.setMetaDataValue("getDatabaseMajorVersion", new Integer(majorVersion));
+        connection.setMetaDataValue("getDatabaseMinorVersion", new Integer(minorVersion));
+        getPlatform().setNativeBulkInsertOn(true);
+        getPlatform().insert(connection.getConnection(), testDb, beans);
+
+        List statements = connection.getCalls("prepareStatement");
+
+        for (Iterator it = statements.iterator(); it.hasNext();)
+        {
+            if (((String)it.next()).indexOf("), (") < 0)
+            {
+                it.remove();
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * Tests that a data sink reserves the identity values in blocks that are capped at the
+     * estimated number of rows, maps the foreign keys of referencing rows to them, and
+     * only switches on the identity override for its own connection.
+     */
+    public void testPreallocatedIdentityValuesInSink() throws Exception
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='preallocationtest'>\n" +
+            "  <table name='parent'>\n" +
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true' required='true' autoIncrement='true'/>\n" +
+            "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+            "  </table>\n" +
+            "  <table name='child'>\n" +
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true' required='true'/>\n" +
+            "    <column name='COL_FK' type='INTEGER'/>\n" +
+            "    <foreign-key foreignTable='parent'>\n" +
+            "      <reference local='COL_FK' foreign='COL_PK'/>\n" +
+            "    </foreign-key>\n" +
+            "  </table>\n" +
+            "</database>";
+
+        RecordingConnection connection = new RecordingConnection();
+        Database            testDb     = parseDatabaseFromString(schema);
+        Table               parent     = testDb.findTable("parent");
+        Column              pkColumn   = parent.getColumn(0);
+        String              sqlFor3    = getSqlBuilder().getSelectNextIdentityValuesSql(parent, pkColumn, 3);
+        String              sqlFor8    = getSqlBuilder().getSelectNextIdentityValuesSql(parent, pkColumn, 8);
+        DataProgress        progress   = new DataProgress();
+        DataToDatabaseSink  sink       = new DataToDatabaseSink(getPlatform(), testDb);
+        DynaBean[]          parents    = new DynaBean[4];
+        DynaBean            child1     = createBean(testDb, "child", new Object[] { new Integer(1), new Integer(10) });
+        DynaBean            child2     = createBean(testDb, "child", new Object[] { new Integer(2), new Integer(13) });
+
+        connection.setQueryResult(sqlFor3,
+                                  new String[] { "nextval" },
+                                  new Object[][] { { new Integer(101) }, { new Integer(102) }, { new Integer(103) } });
+        connection.setQueryResult(sqlFor8,
+                                  new String[] { "nextval" },
+                                  new Object[][] { { new Integer(104) }, { new Integer(105) }, { new Integer(106) }, { new Integer(107) },
+                                                   { new Integer(108) }, { new Integer(109) }, { new Integer(110) }, { new Integer(111) } });
+        // the estimate is too low, so the fourth row needs another block of the full batch size
+        progress.setEstimatedRowCount("parent", 3);
+        for (int idx = 0; idx < parents.length; idx++)
+        {
+            parents[idx] = createBean(testDb, "parent", new Object[] { new Integer(10 + idx), "text" + idx });
+        }
+        getPlatform().setIdentityOverrideOn(false);
+        getPlatform().setDataSource(connection.getDataSource());
+        getPlatform().bindConnectionToThread();
+        try
+        {
+            sink.setPreallocateIdentityValues(true);
+            sink.setUseBatchMode(true);
+            sink.setBatchSize(8);
+            sink.setProgress(progress);
+            sink.start();
+
+            assertFalse(getPlatform().isIdentityOverrideOn());
+            assertTrue(getPlatform().isIdentityOverrideOn(connection.getConnection()));
+
+            sink.addBean(child1);
+            for (int idx = 0; idx < parents.length; idx++)
+            {
+                sink.addBean(parents[idx]);
+            }
+            sink.addBean(child2);
+            sink.end();
+        }
+        finally
+        {
+            getPlatform().unbindConnectionFromThread();
+        }
+
+        assertFalse(getPlatform().isIdentityOverrideOn());
+        assertFalse(getPlatform().isIdentityOverrideOn(connection.getConnection()));
+        assertEquals(2, connection.getCalls("executeQuery").size());
+        assertEquals("executeQuery: " + sqlFor3, connection.getCalls("executeQuery").get(0));
+        assertEquals("executeQuery: " + sqlFor8, connection.getCalls("executeQuery").get(1));
+        for (int idx = 0; idx < parents.length; idx++)
+        {
+            assertEquals(new Integer(101 + idx), parents[idx].get("COL_PK"));
+        }
+        assertEquals(new Integer(101), child1.get("COL_FK"));
+        assertEquals(new Integer(104), child2.get("COL_FK"));
+    }
+
+    /**
+     * Creates a bean for the given table.
+     * 
+     * @param model     The database model
+     * @param tableName The name of the table
+     * @param values    The values of the columns in the order of the columns
+     * @return The bean
+     */
+    private DynaBean createBean(Database model, String tableName, Object[] values)
+    {
+        Table    table = model.findTable(tableName);
+        DynaBean bean  = model.createDynaBeanFor(tableName, false);
+
+        for (int idx = 0; idx < values.length; idx++)
+        {
+            bean.set(table.getColumn(idx).getName(), values[idx]);
+        }
+        return bean;
+    }
 }
@@ -19,8 +19,16 @@ package org.apache.ddlutils.platform;
  * under the License.
  */
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.beanutils.DynaBean;
 import org.apache.ddlutils.TestPlatformBase;
+import org.apache.ddlutils.io.DatabaseIO;
+import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.platform.sybase.SybasePlatform;
+import org.apache.ddlutils.util.RecordingConnection;
 
 /**
  * Tests the Sybase platform.
@@ -29,6 +37,24 @@ import org.apache.ddlutils.platform.sybase.SybasePlatform;
  */
 public class TestSybasePlatform extends TestPlatformBase
 {
+    /** The schema used by the tests of the identity override. */
+    private static final String IDENTITY_SCHEMA =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n" +
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='identitytest'>\n" +
+        "  <table name='table1'>\n" +
+        "    <column name='COL_PK' type='INTEGER' primaryKey='true' required='true' autoIncrement='true'/>\n" +
+        "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+        "  </table>\n" +
+        "  <table name='table2'>\n" +
+        "    <column name='COL_PK' type='INTEGER' primaryKey='true' required='true' autoIncrement='true'/>\n" +
+        "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+        "  </table>\n" +
+        "  <table name='table3'>\n" +
+        "    <column name='COL_PK' type='INTEGER' primaryKey='true' required='true'/>\n" +
+        "    <column name='COL_TEXT' type='VARCHAR' size='32'/>\n" +
+        "  </table>\n" +
+        "</database>";
+
     /**
      * {@inheritDoc}
      */
@@ -195,4 +221,105 @@ public class TestSybasePlatform extends TestPlatformBase
             ");\n",
             getCharEscapingTestDatabaseCreationSql());
     }
+
+    /**
+     * Tests that the identity override is switched on and off around each insert into a
+     * table with an identity column if the identity override is on.
+     */
+    public void testIdentityOverrideForInserts() throws Exception
+    {
+        RecordingConnection connection = new RecordingConnection();
+        Database            testDb     = parseDatabaseFromString(IDENTITY_SCHEMA);
+
+        getPlatform().setIdentityOverrideOn(true);
+        getPlatform().insert(connection.getConnection(), testDb, createBean(testDb, "table1", 1));
+        getPlatform().insert(connection.getConnection(), testDb, createBean(testDb, "table1", 2));
+
+        List identityCalls = getIdentityOverrideCalls(connection);
+
+        assertEquals(4, identityCalls.size());
+        assertIdentityOverride(identityCalls.get(0), "table1", true);
+        assertIdentityOverride(identityCalls.get(1), "table1", false);
+        assertIdentityOverride(identityCalls.get(2), "table1", true);
+        assertIdentityOverride(identityCalls.get(3), "table1", false);
+        assertTrue(connection.getCalls("execute").contains("execute: SET quoted_identifier on"));
+    }
+
+    /**
+     * Tests that during a bulk load the identity override is only switched when the rows of
+     * another table need it, and switched off at the end of the load.
+     */
+    public void testIdentityOverrideForBulkLoad() throws Exception
+    {
+        RecordingConnection connection = new RecordingConnection();
+        Database            testDb     = parseDatabaseFromString(IDENTITY_SCHEMA);
+
+        getPlatform().setIdentityOverrideOn(true);
+        getPlatform().beforeBulkLoad(connection.getConnection(), testDb);
+        getPlatform().insert(connection.getConnection(), testDb, createBean(testDb, "table1", 1));
+        getPlatform().insert(connection.getConnection(), testDb, createBean(testDb, "table1", 2));
+        getPlatform().insert(connection.getConnection(), testDb, createBean(testDb, "table2", 1));
+        getPlatform().insert(connection.getConnection(), testDb, createBean(testDb, "table3", 1));
+        getPlatform().afterBulkLoad(connection.getConnection(), testDb);
+
+        List identityCalls = getIdentityOverrideCalls(connection);
+
+        assertEquals(4, identityCalls.size());
+        assertIdentityOverride(identityCalls.get(0), "table1", true);
+        assertIdentityOverride(identityCalls.get(1), "table1", false);
+        assertIdentityOverride(identityCalls.get(2), "table2", true);
+        assertIdentityOverride(identityCalls.get(3), "table2", false);
+    }
+
+    /**
+     * Creates a bean for the given table of {@link #IDENTITY_SCHEMA}.
+     * 
+     * @param testDb    The database model
+     * @param tableName The name of the table
+     * @param pk        The primary key value
+     * @return The bean
+     */
+    private DynaBean createBean(Database testDb, String tableName, int pk)
+    {
+        DynaBean bean = testDb.createDynaBeanFor(tableName, false);
+
+        bean.set("COL_PK", new Integer(pk));
+        bean.set("COL_TEXT", "text" + pk);
+        return bean;
+    }
+
+    /**
+     * Returns the recorded statements that switch the identity override.
+     * 
+     * @param connection The connection
+     * @return The statements
+     */
+    private List getIdentityOverrideCalls(RecordingConnection connection)
+    {
+        List result = new ArrayList();
+
+        for (Iterator it = connection.getCalls("execute").iterator(); it.hasNext();)
+        {
+            String call = (String)it.next();
+
+            if (call.indexOf("IDENTITY_INSERT") > 0)
+            {
+                result.add(call);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Asserts that the given recorded call switches the identity override of the given table.
+     * 
+     * @param call      The recorded call
+     * @param tableName The name of the table
+     * @param enable    Whether the identity override is switched on
+     */
+    private void assertIdentityOverride(Object call, String tableName, boolean enable)
+    {
+        assertEquals("execute: SET IDENTITY_INSERT \"" + tableName + "\" " + (enable ? "ON" : "OFF"),
+                     call);
+    }
 }
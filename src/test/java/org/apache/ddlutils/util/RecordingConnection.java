@@ -0,0 +1,568 @@
+package org.apache.ddlutils.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+/**
+ * Provides a JDBC connection that does not talk to a database but records the calls made
+ * to it and to the statements created by it. This allows to test platform code that
+ * depends on driver behavior without a live database. The database metadata and the
+ * generated keys returned by the statements can be configured.
+ *
+ * @version $Revision: $
+ */
+public class RecordingConnection
+{
+    /** The recorded calls. */
+    private final List _calls = new ArrayList();
+    /** The values returned by the database metadata, keyed by method name. */
+    private final Map _metaDataValues = new HashMap();
+    /** The column names of the generated keys returned by the next statement. */
+    private String[] _generatedKeyColumns = new String[0];
+    /** The rows of the generated keys returned by the next statement. */
+    private Object[][] _generatedKeys = new Object[0][];
+    /** The results of queries, keyed by the sql of the query. */
+    private final Map _queryResults = new HashMap();
+    /** The auto-commit mode of the connection. */
+    private boolean _autoCommit = true;
+    /** The connection proxy. */
+    private final Connection _connection;
+
+    /**
+     * Creates a new recording connection.
+     */
+    public RecordingConnection()
+    {
+        _connection = (Connection)createProxy(Connection.class, new ConnectionHandler());
+    }
+
+    /**
+     * Returns the connection.
+     *
+     * @return The connection
+     */
+    public Connection getConnection()
+    {
+        return _connection;
+    }
+
+    /**
+     * Returns a data source that hands out the connection.
+     *
+     * @return The data source
+     */
+    public DataSource getDataSource()
+    {
+        return (DataSource)createProxy(DataSource.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+            {
+                return method.getName().equals("getConnection") ? _connection : getDefaultResult(proxy, method, args);
+            }
+        });
+    }
+
+    /**
+     * Returns the recorded calls in the order in which they were made. Each call is
+     * recorded as the method name, followed by a colon and the first argument if the
+     * method has arguments, e.g. <code>executeUpdate: DELETE FROM misc</code>. Getters
+     * are not recorded.
+     *
+     * @return The calls
+     */
+    public List getCalls()
+    {
+        synchronized (_calls)
+        {
+            return new ArrayList(_calls);
+        }
+    }
+
+    /**
+     * Returns the recorded calls whose method name is the given one.
+     *
+     * @param methodName The method name
+     * @return The calls
+     */
+    public List getCalls(String methodName)
+    {
+        List result = new ArrayList();
+
+        synchronized (_calls)
+        {
+            for (int idx = 0; idx < _calls.size(); idx++)
+            {
+                String call = (String)_calls.get(idx);
+
+                if (call.equals(methodName) || call.startsWith(methodName + ":"))
+                {
+                    result.add(call);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Records the given call. This can also be used by objects that are handed the connection
+     * to note calls to themselves in the same sequence.
+     *
+     * @param call The call
+     */
+    public void record(String call)
+    {
+        synchronized (_calls)
+        {
+            _calls.add(call);
+        }
+    }
+
+    /**
+     * Specifies the value that the database metadata returns for the given method.
+     *
+     * @param methodName The name of the method, e.g. <code>supportsGetGeneratedKeys</code>
+     * @param value      The value
+     */
+    public void setMetaDataValue(String methodName, Object value)
+    {
+        _metaDataValues.put(methodName, value);
+    }
+
+    /**
+     * Specifies the generated keys that the next statement returns.
+     *
+     * @param columnNames The names of the columns of the generated keys
+     * @param rows        The rows of the generated keys
+     */
+    public void setGeneratedKeys(String[] columnNames, Object[][] rows)
+    {
+        _generatedKeyColumns = columnNames;
+        _generatedKeys       = rows;
+    }
+
+    /**
+     * Specifies the result that statements return for the given query. Queries without a
+     * specified result return an empty result set.
+     *
+     * @param sql         The sql of the query
+     * @param columnNames The names of the columns of the result
+     * @param rows        The rows of the result
+     */
+    public void setQueryResult(String sql, String[] columnNames, Object[][] rows)
+    {
+        _queryResults.put(sql, new Object[] { columnNames, rows });
+    }
+
+    /**
+     * Creates a proxy for the given interface.
+     *
+     * @param type    The interface
+     * @param handler The invocation handler
+     * @return The proxy
+     */
+    private static Object createProxy(Class type, InvocationHandler handler)
+    {
+        return Proxy.newProxyInstance(RecordingConnection.class.getClassLoader(), new Class[] { type }, handler);
+    }
+
+    /**
+     * Handles the methods defined by {@link Object} and returns the default value for the return
+     * type of the method otherwise.
+     *
+     * @param proxy  The proxy
+     * @param method The method
+     * @param args   The arguments
+     * @return The value
+     */
+    private static Object getDefaultResult(Object proxy, Method method, Object[] args)
+    {
+        String name       = method.getName();
+        Class  returnType = method.getReturnType();
+
+        if (name.equals("equals") && (args != null) && (args.length == 1))
+        {
+            return Boolean.valueOf(proxy == args[0]);
+        }
+        else if (name.equals("hashCode") && (args == null))
+        {
+            return new Integer(System.identityHashCode(proxy));
+        }
+        else if (name.equals("toString") && (args == null))
+        {
+            return "RecordingConnection proxy for " + proxy.getClass().getInterfaces()[0].getName();
+        }
+        else if (returnType == Boolean.TYPE)
+        {
+            return Boolean.FALSE;
+        }
+        else if (returnType.isPrimitive() && (returnType != Void.TYPE))
+        {
+            return convert(new Integer(0), returnType);
+        }
+        else
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Converts the given number to the given (primitive wrapper) type.
+     *
+     * @param value The value
+     * @param type  The target type
+     * @return The converted value
+     */
+    private static Object convert(Number value, Class type)
+    {
+        if ((type == Integer.TYPE) || (type == Integer.class))
+        {
+            return new Integer(value.intValue());
+        }
+        else if ((type == Long.TYPE) || (type == Long.class))
+        {
+            return new Long(value.longValue());
+        }
+        else if ((type == Short.TYPE) || (type == Short.class))
+        {
+            return new Short(value.shortValue());
+        }
+        else if ((type == Byte.TYPE) || (type == Byte.class))
+        {
+            return new Byte(value.byteValue());
+        }
+        else if ((type == Float.TYPE) || (type == Float.class))
+        {
+            return new Float(value.floatValue());
+        }
+        else if ((type == Double.TYPE) || (type == Double.class))
+        {
+            return new Double(value.doubleValue());
+        }
+        else if (type == BigDecimal.class)
+        {
+            return new BigDecimal(value.toString());
+        }
+        else if (type == String.class)
+        {
+            return value.toString();
+        }
+        else
+        {
+            return value;
+        }
+    }
+
+    /**
+     * Records the given call unless it is a getter.
+     *
+     * @param method The method
+     * @param args   The arguments
+     */
+    private void recordCall(Method method, Object[] args)
+    {
+        String name = method.getName();
+
+        if (!name.startsWith("get") && !name.startsWith("is") && (method.getDeclaringClass() != Object.class))
+        {
+            record((args == null) || (args.length == 0) ? name : name + ": " + args[0]);
+        }
+    }
+
+    /**
+     * Handles the calls to the connection.
+     */
+    private class ConnectionHandler implements InvocationHandler
+    {
+        /** The database metadata. */
+        private final DatabaseMetaData _metaData = (DatabaseMetaData)createProxy(DatabaseMetaData.class, new MetaDataHandler());
+
+        /**
+         * {@inheritDoc}
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            String name = method.getName();
+
+            recordCall(method, args);
+            if (name.equals("createStatement") || name.equals("prepareStatement") || name.equals("prepareCall"))
+            {
+                Class type = method.getReturnType();
+
+                return createProxy(type, new StatementHandler());
+            }
+            else if (name.equals("getMetaData"))
+            {
+                return _metaData;
+            }
+            else if (name.equals("getAutoCommit"))
+            {
+                return Boolean.valueOf(_autoCommit);
+            }
+            else if (name.equals("setAutoCommit"))
+            {
+                _autoCommit = ((Boolean)args[0]).booleanValue();
+                return null;
+            }
+            else if (name.equals("nativeSQL"))
+            {
+                return args[0];
+            }
+            else
+            {
+                return getDefaultResult(proxy, method, args);
+            }
+        }
+    }
+
+    /**
+     * Handles the calls to the database metadata.
+     */
+    private class MetaDataHandler implements InvocationHandler
+    {
+        /**
+         * {@inheritDoc}
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            String name = method.getName();
+
+            if (_metaDataValues.containsKey(name))
+            {
+                return _metaDataValues.get(name);
+            }
+            else if (name.equals("getConnection"))
+            {
+                return _connection;
+            }
+            else if (method.getReturnType() == ResultSet.class)
+            {
+                return createProxy(ResultSet.class, new ResultSetHandler(new String[0], new Object[0][]));
+            }
+            else
+            {
+                return getDefaultResult(proxy, method, args);
+            }
+        }
+    }
+
+    /**
+     * Handles the calls to a statement.
+     */
+    private class StatementHandler implements InvocationHandler
+    {
+        /** The number of commands added to the current batch. */
+        private int _batchCount = 0;
+
+        /**
+         * {@inheritDoc}
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            String name = method.getName();
+
+            recordCall(method, args);
+            if (name.equals("addBatch"))
+            {
+                _batchCount++;
+                return null;
+            }
+            else if (name.equals("clearBatch"))
+            {
+                _batchCount = 0;
+                return null;
+            }
+            else if (name.equals("executeBatch"))
+            {
+                int[] result = new int[_batchCount];
+
+                for (int idx = 0; idx < result.length; idx++)
+                {
+                    result[idx] = 1;
+                }
+                _batchCount = 0;
+                return result;
+            }
+            else if (name.equals("executeUpdate"))
+            {
+                return new Integer(1);
+            }
+            else if (name.equals("getUpdateCount"))
+            {
+                return new Integer(-1);
+            }
+            else if (name.equals("executeQuery"))
+            {
+                Object[] result = (Object[])_queryResults.get(args[0]);
+
+                if (result == null)
+                {
+                    return createProxy(ResultSet.class, new ResultSetHandler(new String[0], new Object[0][]));
+                }
+                else
+                {
+                    return createProxy(ResultSet.class, new ResultSetHandler((String[])result[0], (Object[][])result[1]));
+                }
+            }
+            else if (name.equals("getGeneratedKeys"))
+            {
+                ResultSetHandler handler = new ResultSetHandler(_generatedKeyColumns, _generatedKeys);
+
+                _generatedKeyColumns = new String[0];
+                _generatedKeys       = new Object[0][];
+                return createProxy(ResultSet.class, handler);
+            }
+            else if (name.equals("getConnection"))
+            {
+                return _connection;
+            }
+            else
+            {
+                return getDefaultResult(proxy, method, args);
+            }
+        }
+    }
+
+    /**
+     * Handles the calls to a result set which iterates over fixed rows.
+     */
+    private class ResultSetHandler implements InvocationHandler
+    {
+        /** The column names. */
+        private final String[] _columns;
+        /** The rows. */
+        private final Object[][] _rows;
+        /** The index of the current row. */
+        private int _rowIdx = -1;
+        /** Whether the last read value was <code>null</code>. */
+        private boolean _wasNull = false;
+
+        /**
+         * Creates a new result set handler.
+         *
+         * @param columns The column names
+         * @param rows    The rows
+         */
+        public ResultSetHandler(String[] columns, Object[][] rows)
+        {
+            _columns = columns;
+            _rows    = rows;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            String name = method.getName();
+
+            if (name.equals("next"))
+            {
+                _rowIdx++;
+                return Boolean.valueOf(_rowIdx < _rows.length);
+            }
+            else if (name.equals("wasNull"))
+            {
+                return Boolean.valueOf(_wasNull);
+            }
+            else if (name.equals("findColumn"))
+            {
+                return new Integer(findColumn((String)args[0]));
+            }
+            else if (name.equals("getMetaData"))
+            {
+                return createProxy(ResultSetMetaData.class, new InvocationHandler() {
+                    public Object invoke(Object metaDataProxy, Method metaDataMethod, Object[] metaDataArgs) throws Throwable
+                    {
+                        String metaDataName = metaDataMethod.getName();
+
+                        if (metaDataName.equals("getColumnCount"))
+                        {
+                            return new Integer(_columns.length);
+                        }
+                        else if (metaDataName.equals("getColumnName") || metaDataName.equals("getColumnLabel"))
+                        {
+                            return _columns[((Integer)metaDataArgs[0]).intValue() - 1];
+                        }
+                        else
+                        {
+                            return getDefaultResult(metaDataProxy, metaDataMethod, metaDataArgs);
+                        }
+                    }
+                });
+            }
+            else if (name.startsWith("get") && (args != null) && (args.length == 1) &&
+                     ((args[0] instanceof Integer) || (args[0] instanceof String)))
+            {
+                int    columnIdx = args[0] instanceof Integer ? ((Integer)args[0]).intValue() : findColumn((String)args[0]);
+                Object value     = _rows[_rowIdx][columnIdx - 1];
+
+                _wasNull = (value == null);
+                if (value == null)
+                {
+                    return getDefaultResult(proxy, method, args);
+                }
+                else if (value instanceof Number)
+                {
+                    return convert((Number)value, method.getReturnType());
+                }
+                else
+                {
+                    return value;
+                }
+            }
+            else
+            {
+                return getDefaultResult(proxy, method, args);
+            }
+        }
+
+        /**
+         * Returns the index of the given column.
+         *
+         * @param columnName The column name
+         * @return The index (starting at 1)
+         */
+        private int findColumn(String columnName) throws SQLException
+        {
+            for (int idx = 0; idx < _columns.length; idx++)
+            {
+                if (_columns[idx].equalsIgnoreCase(columnName))
+                {
+                    return idx + 1;
+                }
+            }
+            throw new SQLException("Unknown column " + columnName);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package org.apache.ddlutils.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link ConnectionPool} and the connection handling in {@link JdbcSupport}.
+ *
+ * @version $Revision: $
+ */
+public class TestConnectionPool extends TestCase
+{
+    /** The number of connections created by the test data source. */
+    private int _numConnectionsCreated;
+    /** The number of rollbacks performed on the connections of the test data source. */
+    private int _numRollbacks;
+    /** The initial auto-commit mode of the connections of the test data source. */
+    private boolean _initialAutoCommit = true;
+
+    /**
+     * Creates a data source that hands out dummy connections.
+     *
+     * @return The data source
+     */
+    private DataSource createDataSource()
+    {
+        return (DataSource)Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                  new Class[] { DataSource.class },
+                                                  new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if ("getConnection".equals(method.getName()))
+                {
+                    _numConnectionsCreated++;
+                    return createConnection();
+                }
+                else
+                {
+                    return null;
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates a dummy connection that only supports closing and the auto-commit mode.
+     *
+     * @return The connection
+     */
+    private Connection createConnection()
+    {
+        return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                  new Class[] { Connection.class },
+                                                  new InvocationHandler() {
+            private boolean _closed     = false;
+            private boolean _autoCommit = _initialAutoCommit;
+
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                String name = method.getName();
+
+                if ("close".equals(name))
+                {
+                    _closed = true;
+                }
+                else if ("isClosed".equals(name))
+                {
+                    return Boolean.valueOf(_closed);
+                }
+                else if ("getAutoCommit".equals(name))
+                {
+                    return Boolean.valueOf(_autoCommit);
+                }
+                else if ("setAutoCommit".equals(name))
+                {
+                    _autoCommit = ((Boolean)args[0]).booleanValue();
+                }
+                else if ("rollback".equals(name))
+                {
+                    _numRollbacks++;
+                }
+                else if ("equals".equals(name))
+                {
+                    return Boolean.valueOf(proxy == args[0]);
+                }
+                else if ("hashCode".equals(name))
+                {
+                    return new Integer(System.identityHashCode(proxy));
+                }
+                else if ("toString".equals(name))
+                {
+                    return "Connection " + System.identityHashCode(proxy);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Tests that released connections are reused.
+     */
+    public void testReuse() throws Exception
+    {
+        ConnectionPool pool       = new ConnectionPool();
+        DataSource     dataSource = createDataSource();
+        Connection     conn1      = pool.getConnection(dataSource, null, null);
+
+        pool.releaseConnection(conn1);
+
+        Connection conn2 = pool.getConnection(dataSource, null, null);
+
+        assertSame(conn1, conn2);
+        assertFalse(conn2.isClosed());
+        assertEquals(1, _numConnectionsCreated);
+        assertEquals(1, pool.getNumCreated());
+        assertEquals(2, pool.getNumBorrowed());
+        assertEquals(1, pool.getNumReused());
+        assertEquals(1, pool.getNumActive());
+        assertEquals(0, pool.getNumIdle());
+
+        pool.releaseConnection(conn2);
+        pool.close();
+        assertTrue(conn2.isClosed());
+        assertEquals(0, pool.getNumIdle());
+    }
+
+    /**
+     * Tests that the pool does not hand out more than the maximum number of connections.
+     */
+    public void testMaxConnections() throws Exception
+    {
+        ConnectionPool pool       = new ConnectionPool();
+        DataSource     dataSource = createDataSource();
+
+        pool.setMaxConnections(1);
+        pool.setMaxWait(50);
+
+        Connection conn = pool.getConnection(dataSource, null, null);
+
+        try
+        {
+            pool.getConnection(dataSource, null, null);
+            fail("SQLException expected");
+        }
+        catch (SQLException ex)
+        {
+            // expected
+        }
+        assertEquals(1, pool.getNumWaits());
+        assertTrue(pool.getTotalWaitTime() > 0);
+
+        pool.releaseConnection(conn);
+        assertSame(conn, pool.getConnection(dataSource, null, null));
+    }
+
+    /**
+     * Tests that closed and expired connections are not handed out again.
+     */
+    public void testValidationAndEviction() throws Exception
+    {
+        ConnectionPool pool       = new ConnectionPool();
+        DataSource     dataSource = createDataSource();
+        Connection     conn1      = pool.getConnection(dataSource, null, null);
+
+        pool.releaseConnection(conn1);
+        conn1.close();
+
+        Connection conn2 = pool.getConnection(dataSource, null, null);
+
+        assertNotSame(conn1, conn2);
+        assertEquals(1, pool.getNumInvalid());
+
+        pool.setMaxIdleTime(1);
+        pool.releaseConnection(conn2);
+        Thread.sleep(20);
+        pool.evictIdleConnections();
+        assertTrue(conn2.isClosed());
+        assertEquals(1, pool.getNumEvicted());
+        assertEquals(0, pool.getNumIdle());
+    }
+
+    /**
+     * Tests that the auto-commit mode of a released connection is reset.
+     */
+    public void testAutoCommitReset() throws Exception
+    {
+        ConnectionPool pool       = new ConnectionPool();
+        DataSource     dataSource = createDataSource();
+        Connection     conn       = pool.getConnection(dataSource, null, null);
+
+        conn.setAutoCommit(false);
+        pool.releaseConnection(conn);
+        assertTrue(conn.getAutoCommit());
+    }
+
+    /**
+     * Tests that uncommitted work is rolled back when a connection that is not in auto-commit
+     * mode is released, even if the borrower did not change the mode.
+     */
+    public void testRollbackOnRelease() throws Exception
+    {
+        _initialAutoCommit = false;
+
+        ConnectionPool pool       = new ConnectionPool();
+        DataSource     dataSource = createDataSource();
+        Connection     conn       = pool.getConnection(dataSource, null, null);
+
+        pool.releaseConnection(conn);
+        assertEquals(1, _numRollbacks);
+        assertFalse(conn.getAutoCommit());
+
+        conn = pool.getConnection(dataSource, null, null);
+        conn.setAutoCommit(true);
+        pool.releaseConnection(conn);
+        assertEquals(1, _numRollbacks);
+        assertFalse(conn.getAutoCommit());
+    }
+
+    /**
+     * Tests that releasing a connection a second time does not close it.
+     */
+    public void testRepeatedRelease() throws Exception
+    {
+        ConnectionPool pool       = new ConnectionPool();
+        DataSource     dataSource = createDataSource();
+        Connection     conn       = pool.getConnection(dataSource, null, null);
+
+        pool.releaseConnection(conn);
+        pool.releaseConnection(conn);
+        assertFalse(conn.isClosed());
+        assertEquals(1, pool.getNumIdle());
+        assertSame(conn, pool.getConnection(dataSource, null, null));
+    }
+
+    /**
+     * Tests that idle connections for a different data source are not reused.
+     */
+    public void testDataSourceChange() throws Exception
+    {
+        ConnectionPool pool  = new ConnectionPool();
+        Connection     conn1 = pool.getConnection(createDataSource(), null, null);
+
+        pool.releaseConnection(conn1);
+
+        Connection conn2 = pool.getConnection(createDataSource(), null, null);
+
+        assertNotSame(conn1, conn2);
+        assertTrue(conn1.isClosed());
+    }
+
+    /**
+     * Tests binding a connection to the current thread.
+     */
+    public void testThreadBinding() throws Exception
+    {
+        JdbcSupport support = new JdbcSupport() {};
+
+        support.setDataSource(createDataSource());
+
+        Connection boundConn = support.bindConnectionToThread();
+
+        assertSame(boundConn, support.bindConnectionToThread());
+        assertSame(boundConn, support.borrowConnection());
+        support.returnConnection(boundConn);
+        assertFalse(boundConn.isClosed());
+        support.unbindConnectionFromThread();
+        assertFalse(boundConn.isClosed());
+        support.unbindConnectionFromThread();
+        assertTrue(boundConn.isClosed());
+        assertEquals(1, _numConnectionsCreated);
+
+        Connection conn = support.borrowConnection();
+
+        assertNotSame(boundConn, conn);
+        support.returnConnection(conn);
+    }
+
+    /**
+     * Tests using a connection pool in {@link JdbcSupport}.
+     */
+    public void testPooledJdbcSupport() throws Exception
+    {
+        JdbcSupport support = new JdbcSupport() {};
+
+        support.setDataSource(createDataSource());
+        support.setConnectionProvider(new ConnectionPool());
+
+        for (int idx = 0; idx < 5; idx++)
+        {
+            Connection conn = support.borrowConnection();
+
+            support.returnConnection(conn);
+            assertFalse(conn.isClosed());
+        }
+        assertEquals(1, _numConnectionsCreated);
+        support.getConnectionProvider().close();
+    }
+}
@@ -0,0 +1,155 @@
+package org.apache.ddlutils.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ddlutils.TestBase;
+
+/**
+ * Tests the {@link SqlTokenizer} class.
+ * 
+ * @version $Revision: $
+ */
+public class TestSqlTokenizer extends TestBase
+{
+    /**
+     * Returns the statements that the given tokenizer produces.
+     * 
+     * @param tokenizer The tokenizer
+     * @return The statements
+     */
+    private List getStatements(SqlTokenizer tokenizer)
+    {
+        List statements = new ArrayList();
+
+        while (tokenizer.hasMoreStatements())
+        {
+            statements.add(tokenizer.getNextStatement());
+        }
+        assertNull(tokenizer.getNextStatement());
+        return statements;
+    }
+
+    /**
+     * Asserts that the given sql is tokenized into the given statements, both when
+     * given as a string and when read via a reader with varying buffer sizes.
+     * 
+     * @param expected The expected statements
+     * @param sql      The sql
+     */
+    private void assertStatements(String[] expected, String sql)
+    {
+        List statements = getStatements(new SqlTokenizer(sql));
+
+        assertEquals(expected.length, statements.size());
+        for (int idx = 0; idx < expected.length; idx++)
+        {
+            assertEquals(expected[idx], statements.get(idx));
+        }
+        for (int bufferSize = 1; bufferSize <= sql.length() + 1; bufferSize++)
+        {
+            assertEquals(statements,
+                         getStatements(new SqlTokenizer(new StringReader(sql), bufferSize)));
+        }
+    }
+
+    /**
+     * Tests an empty sql string.
+     */
+    public void testEmpty()
+    {
+        assertStatements(new String[0], "");
+    }
+
+    /**
+     * Tests a single statement without delimiter.
+     */
+    public void testSingleStatement()
+    {
+        assertStatements(new String[] { "SELECT * FROM A" }, "SELECT * FROM A");
+    }
+
+    /**
+     * Tests statements that are delimited at the line ends.
+     */
+    public void testDelimitersAtLineEnds()
+    {
+        assertStatements(new String[] { "CREATE TABLE A (X INT)", "\nCREATE TABLE B (Y INT)", "\r\nDROP TABLE C" },
+                         "CREATE TABLE A (X INT);\nCREATE TABLE B (Y INT);\r\nDROP TABLE C;");
+    }
+
+    /**
+     * Tests that trailing text after the last delimiter is returned as a statement.
+     */
+    public void testTrailingText()
+    {
+        assertStatements(new String[] { "DROP TABLE A", "\n" },
+                         "DROP TABLE A;\n");
+        assertStatements(new String[] { "DROP TABLE A", "\nDROP TABLE B" },
+                         "DROP TABLE A;\nDROP TABLE B");
+    }
+
+    /**
+     * Tests that delimiters that are not at the end of a line are not used for splitting.
+     */
+    public void testDelimitersWithinLine()
+    {
+        assertStatements(new String[] { "INSERT INTO A VALUES ('a;b'); INSERT INTO A VALUES (';')", "\n;;x" },
+                         "INSERT INTO A VALUES ('a;b'); INSERT INTO A VALUES (';');\n;;x");
+    }
+
+    /**
+     * Tests empty statements.
+     */
+    public void testEmptyStatements()
+    {
+        assertStatements(new String[] { "", "\n", "\n", "\n" },
+                         ";\n;\n;\n");
+    }
+
+    /**
+     * Tests a script that is larger than the default buffer size.
+     */
+    public void testLargeScript()
+    {
+        StringBuffer sql = new StringBuffer();
+
+        for (int idx = 0; idx < 2000; idx++)
+        {
+            sql.append("INSERT INTO A VALUES (");
+            sql.append(idx);
+            sql.append(");\n");
+        }
+
+        SqlTokenizer tokenizer = new SqlTokenizer(new StringReader(sql.toString()));
+
+        for (int idx = 0; idx < 2000; idx++)
+        {
+            assertTrue(tokenizer.hasMoreStatements());
+            assertEquals("INSERT INTO A VALUES (" + idx + ")", tokenizer.getNextStatement().trim());
+        }
+        assertTrue(tokenizer.hasMoreStatements());
+        assertEquals("\n", tokenizer.getNextStatement());
+        assertFalse(tokenizer.hasMoreStatements());
+    }
+}